@@ -9,11 +9,13 @@ import com.software.upskilled.dto.CourseInfoDTO;
 import com.software.upskilled.dto.CreateUserDTO;
 import com.software.upskilled.service.*;
 import com.software.upskilled.utils.AdminRoleAuth;
+import com.software.upskilled.utils.AuthenticatedUser;
 import com.software.upskilled.utils.ErrorResponseMessageUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
@@ -198,7 +200,7 @@ public class AdminController {
      * @return ResponseEntity with a success message or error details.
      */
     @PutMapping("/updateCourseDetails/{courseId}")
-    public ResponseEntity<?> modifyCourseDetails(@RequestBody CourseDTO courseDTO, @PathVariable Long courseId, @AuthenticationPrincipal Users user) {
+    public ResponseEntity<?> modifyCourseDetails(@RequestBody CourseDTO courseDTO, @PathVariable Long courseId, @AuthenticationPrincipal AuthenticatedUser user) {
 
         Course course = courseService.findCourseById(courseId);
 
@@ -239,12 +241,11 @@ public class AdminController {
 
                 List<CourseMaterial> courseMaterials = courseMaterialService.getAllCourseMaterialsByCourseId(course.getId());
 
-                for(CourseMaterial courseMaterial: courseMaterials) {
-                    fileService.deleteCourseMaterial(courseMaterial.getCourseMaterialUrl());
-                }
-
                 courseMaterialService.deleteCourseMaterialsByCourseId(course.getId());
 
+                //The files are removed by the deletion worker in batched S3 requests, once the rows are gone
+                fileService.queueCourseMaterialDeletion(courseMaterials.stream().map(CourseMaterial::getCourseMaterialUrl).toList());
+
                 course.setInstructor(instructor);
                 courseService.saveCourse(course);
             }
@@ -276,26 +277,19 @@ public class AdminController {
 
     /**
      * Retrieves a list of all active courses.
-     * Maps each course to a DTO with course and instructor details.
+     * Each course is returned with its instructor details, read through a single catalog projection query.
+     * Supports keyset pagination: pass the id of the last course received as afterId together with a limit
+     * to fetch the next page. Courses are ordered newest first.
      *
+     * @param afterId Optional id of the last course of the previous page.
+     * @param limit Optional maximum number of courses to return.
      * @return ResponseEntity containing the list of active courses.
      */
     @GetMapping("/courses")
-    public ResponseEntity<List<CourseInfoDTO>> viewCourses() {
-
-        List<CourseInfoDTO> courseList =  courseService.getAllCourses().stream()
-                .filter(course -> course.getStatus().equals(Course.Status.ACTIVE))
-                .map((course -> {
-            CourseInfoDTO courseInfoDTO = new CourseInfoDTO();
-            courseInfoDTO.setId(course.getId());
-            courseInfoDTO.setTitle(course.getTitle());
-            courseInfoDTO.setDescription(course.getDescription());
-            courseInfoDTO.setInstructorId(course.getInstructor().getId());
-            courseInfoDTO.setInstructorName(course.getInstructor().getFirstName() + " " + course.getInstructor().getLastName());
-            courseInfoDTO.setName(course.getName());
-            courseInfoDTO.setStatus(course.getStatus());
-            return courseInfoDTO;
-        })).collect(Collectors.toList());
+    public ResponseEntity<List<CourseInfoDTO>> viewCourses(@RequestParam(required = false) Long afterId,
+                                                           @RequestParam(required = false) Integer limit) {
+
+        List<CourseInfoDTO> courseList = courseService.getActiveCourseCatalog(afterId, limit);
         return ResponseEntity.ok(courseList);
     }
 
@@ -335,7 +329,7 @@ public class AdminController {
      * @return ResponseEntity containing the syllabus file as a download or an error message.
      */
     @GetMapping("/{courseId}/syllabus")
-    public ResponseEntity<?>  viewSyllabus(@PathVariable Long courseId) {
+    public ResponseEntity<?>  viewSyllabus(@PathVariable Long courseId, @RequestHeader HttpHeaders requestHeaders) {
 
         // Find the course by ID
         Course course = courseService.findCourseById(courseId);
@@ -351,14 +345,8 @@ public class AdminController {
             return ResponseEntity.badRequest().body("No syllabus uploaded for this course.");
         }
 
-        final byte[] data = fileService.viewSyllabus(courseId);
-        final ByteArrayResource resource = new ByteArrayResource(data);
-        return ResponseEntity
-                .ok()
-                .contentLength(data.length)
-                .header("Content-type", "application/octet-stream")
-                .header("Content-disposition", "attachment; filename=\"" + syllabusUrl + "\"")
-                .body(resource);
+        //Stream the syllabus straight from S3
+        return fileService.viewSyllabus(course, MediaType.APPLICATION_OCTET_STREAM, requestHeaders);
 
     }
 }
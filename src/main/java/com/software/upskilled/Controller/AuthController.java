@@ -3,7 +3,9 @@ package com.software.upskilled.Controller;
 import com.software.upskilled.Entity.Users;
 import com.software.upskilled.dto.AuthRequest;
 import com.software.upskilled.dto.CreateUserDTO;
+import com.software.upskilled.service.NotificationStreamService;
 import com.software.upskilled.service.UserService;
+import com.software.upskilled.utils.AuthenticatedUser;
 import com.software.upskilled.utils.JWTUtil;
 import com.software.upskilled.utils.TokenBlackListService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,16 +35,22 @@ public class AuthController {
     @Autowired
     private JWTUtil jwtUtil;
 
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+
     /**
      * Retrieves the current authenticated user's details.
      * If the user is not logged in, throws a UsernameNotFoundException.
      *
-     * @param user The current authenticated user, provided by Spring Security.
+     * @param principal The current authenticated user, provided by Spring Security.
      * @return A CreateUserDTO containing the user's details (e.g., ID, email, role, etc.).
      * @throws UsernameNotFoundException If the user is not logged in.
      */
     @GetMapping("/user")
-    public CreateUserDTO getCurrentUser(@AuthenticationPrincipal Users user) {
+    public CreateUserDTO getCurrentUser(@AuthenticationPrincipal AuthenticatedUser principal) {
+        if(principal == null) throw new UsernameNotFoundException("user not logged in");
+        //The principal only holds the identity, the profile is read from the database
+        Users user = usersDetailsService.findUserById(principal.id());
         if(user == null) throw new UsernameNotFoundException("user not logged in");
         CreateUserDTO userDTO = new CreateUserDTO();
         userDTO.setId(user.getId());
@@ -145,7 +153,8 @@ public class AuthController {
 
     /**
      * Handles user logout by blacklisting the provided JWT token.
-     * The token is extracted from the 'Authorization' header and passed to the blacklist service.
+     * The token is extracted from the 'Authorization' header and passed to the blacklist service, and the notification
+     * streams opened with it on this instance are closed.
      *
      * @param authHeader The 'Authorization' header containing the JWT token.
      * @return ResponseEntity with a status message confirming logout.
@@ -154,6 +163,7 @@ public class AuthController {
     public ResponseEntity<String> logout(@RequestHeader("Authorization") String authHeader) {
         String token = authHeader.replace("Bearer ", "");
         blacklistService.blacklistToken(token);
+        notificationStreamService.closeSession(jwtUtil.fingerprint(token));
         return ResponseEntity.ok("Logged out successfully");
     }
 
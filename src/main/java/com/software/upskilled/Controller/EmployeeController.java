@@ -1,5 +1,6 @@
 package com.software.upskilled.Controller;
 
+import com.software.upskilled.config.AsyncConfig;
 import com.software.upskilled.Entity.*;
 import com.software.upskilled.dto.CourseMaterialDTO;
 import com.software.upskilled.dto.CourseInfoDTO;
@@ -10,12 +11,16 @@ import com.software.upskilled.Entity.Users;
 import com.software.upskilled.dto.*;
 import com.software.upskilled.repository.SubmissionRepository;
 import com.software.upskilled.service.*;
+import com.software.upskilled.utils.AnnouncementFeedCache;
 import com.software.upskilled.utils.CoursePropertyValidator;
 import com.software.upskilled.utils.CreateDTOObjectsImpl;
 import com.software.upskilled.utils.EmployeeCourseAuth;
 import com.software.upskilled.utils.ErrorResponseMessageUtil;
+import com.software.upskilled.utils.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -24,6 +29,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 @RestController
@@ -42,6 +49,11 @@ public class EmployeeController {
     @Autowired
     private FileService fileService;
 
+    //Runs the upload and database work chained to a completed file deletion, off the file I/O pool
+    @Autowired
+    @Qualifier(AsyncConfig.FILE_UPDATE_EXECUTOR)
+    private Executor fileUpdateExecutor;
+
     @Autowired
     private EnrollmentService enrollmentService;
 
@@ -72,43 +84,32 @@ public class EmployeeController {
     @Autowired
     private SubmissionService submissionService;
 
+    @Autowired
+    private SubmissionUploadPipeline submissionUploadPipeline;
+
     /**
      * This endpoint retrieves a list of all active courses that the authenticated user is not enrolled in.
      *
-     * The method first fetches the authenticated user based on their email. It then collects the IDs of the courses
-     * that the user is currently enrolled in. The list of all active courses is retrieved, and any courses the user is
-     * already enrolled in are excluded. The remaining courses are sorted by their update time in descending order. For
-     * each course, a CourseInfoDTO is created containing relevant details such as the course ID, title, description,
-     * instructor details, and course status. The resulting list of CourseInfoDTO objects is returned as the response.
+     * The method first fetches the authenticated user based on their email. The active courses the user is not
+     * enrolled in are then read through a single catalog projection query, which joins the instructor details and
+     * excludes the user's enrollments in the database. Courses are ordered newest first. The endpoint supports
+     * keyset pagination: pass the id of the last course received as afterId together with a limit to fetch the
+     * next page.
      *
      * @param authentication The authentication information of the current user.
+     * @param afterId Optional id of the last course of the previous page.
+     * @param limit Optional maximum number of courses to return.
      * @return A ResponseEntity containing a list of active courses that the user is not enrolled in, represented
      *         by CourseInfoDTO objects.
      */
     @GetMapping("/courses")
-    public ResponseEntity<List<CourseInfoDTO>> viewCourses(Authentication authentication) {
+    public ResponseEntity<List<CourseInfoDTO>> viewCourses(Authentication authentication,
+                                                           @RequestParam(required = false) Long afterId,
+                                                           @RequestParam(required = false) Integer limit) {
 
         Users user = userService.findUserByEmail(authentication.getName());
 
-        Set<Long> enrolledCourseIds = user.getEnrollments().stream()
-                .map(enrollment -> enrollment.getCourse().getId())  // Get the course ID from enrollments
-                .collect(Collectors.toSet());
-
-        List<CourseInfoDTO> courseList =  courseService.getAllCourses().stream()
-                .filter(course -> course.getStatus().equals(Course.Status.ACTIVE))
-                .filter(course -> !enrolledCourseIds.contains(course.getId()))
-                .sorted(Comparator.comparing(Course::getUpdatedAt).reversed())
-                .map((course -> {
-            CourseInfoDTO courseInfoDTO = new CourseInfoDTO();
-            courseInfoDTO.setId(course.getId());
-            courseInfoDTO.setTitle(course.getTitle());
-            courseInfoDTO.setDescription(course.getDescription());
-            courseInfoDTO.setInstructorId(course.getInstructor().getId());
-            courseInfoDTO.setInstructorName(course.getInstructor().getFirstName() + " " + course.getInstructor().getLastName());
-            courseInfoDTO.setName(course.getName());
-            courseInfoDTO.setStatus(course.getStatus());
-            return courseInfoDTO;
-        })).collect(Collectors.toList());
+        List<CourseInfoDTO> courseList = courseService.getActiveCourseCatalogForEmployee(user.getId(), afterId, limit);
         return ResponseEntity.ok(courseList);
     }
 
@@ -199,7 +200,7 @@ public class EmployeeController {
             return ResponseEntity.badRequest().body("Invalid course ID");
         }
 
-        if (course.getEnrollments().stream().noneMatch(enrollment -> enrollment.getEmployee().equals(employee))) {
+        if (!enrollmentService.isEmployeeEnrolled(courseId, employee.getId())) {
             return ResponseEntity.ok("Unenrolled");
         }
 
@@ -271,7 +272,8 @@ public class EmployeeController {
      * the employeeCourseAuth service. If validation fails, an error response is returned. If validation succeeds, the
      * announcements for the course are fetched and sorted in descending order of their update time. Each announcement is
      * mapped to an AnnouncementRequestDTO containing the announcement's ID, title, content, and update timestamp. The
-     * resulting list of announcement DTOs is returned in the response.
+     * resulting list of announcement DTOs is returned in the response. The list is served pre-serialized from the feed
+     * cache with an ETag, and answered with 304 Not Modified when the client already has the current feed.
      *
      * @param courseId The ID of the course for which announcements are being retrieved.
      * @param authentication The authentication information of the current user (employee).
@@ -287,15 +289,46 @@ public class EmployeeController {
             return authResponse;
         }
 
-        // Fetch and return the announcements sorted by the updated first
-        Set<Announcement> announcements = announcementService.getAnnouncementsByCourseId( courseId );
+        // Fetch the announcements sorted by the updated first, already serialized by the feed cache
+        AnnouncementFeedCache.Feed announcementFeed = announcementService.getAnnouncementFeed( courseId );
+
+        //With the ETag, a client sending it back in If-None-Match gets 304 Not Modified without the body
+        return ResponseEntity.ok()
+                .contentType( MediaType.APPLICATION_JSON )
+                .cacheControl( CacheControl.noCache().cachePrivate() )
+                .eTag( announcementFeed.eTag() )
+                .body( announcementFeed.body() );
+    }
+
+    /**
+     * This endpoint retrieves one page of the announcements of a course as summaries: ID, title, the start of the content
+     * and the update timestamp, most recently updated first. The full content of an announcement is fetched by its ID.
+     *
+     * The method first validates whether the employee is authorized to view the announcements of the course. When more
+     * announcements exist, their cursor is returned in the X-Next-Cursor header and is passed back as the before parameter.
+     *
+     * @param courseId The ID of the course for which announcements are being retrieved.
+     * @param before The cursor of the page to fetch, from the X-Next-Cursor header of the previous page; absent for the most recent announcements.
+     * @param limit The number of announcements per page, announcements.page.default-size when absent.
+     * @param authentication The authentication information of the current user (employee).
+     * @return A ResponseEntity containing a list of AnnouncementSummaryDTO objects.
+     */
+    @GetMapping("/course/{courseId}/announcements/summary")
+    public ResponseEntity<?> viewAnnouncementSummaries( @PathVariable Long courseId,
+                                                        @RequestParam(value = "before", required = false) String before,
+                                                        @RequestParam(value = "limit", required = false) Integer limit,
+                                                        Authentication authentication )
+    {
+        ResponseEntity<String> authResponse = employeeCourseAuth.validateEmployeeForCourse(courseId, authentication);
+
+        if (authResponse != null) {
+            return authResponse;
+        }
 
-        List<AnnouncementRequestDTO> announcementDTOs = announcements.stream()
-                .sorted(Comparator.comparing(Announcement::getUpdatedAt).reversed())
-                .map(announcement -> new AnnouncementRequestDTO(announcement.getId(),announcement.getTitle(), announcement.getContent(), announcement.getUpdatedAt()))
-                .collect(Collectors.toList());
+        AnnouncementService.AnnouncementSummaryPage summaryPage = announcementService.getAnnouncementSummaries( courseId, KeysetCursor.parse( before ), limit );
 
-        return ResponseEntity.ok(announcementDTOs);
+        //Send the page, with the cursor of the next page when there is one
+        return KeysetCursor.withNextCursor( ResponseEntity.ok(), summaryPage.nextCursor() ).body( summaryPage.announcements() );
     }
 
     /**
@@ -347,16 +380,16 @@ public class EmployeeController {
      *
      * The method first fetches the course details using the provided course ID. If the course does not exist, an
      * error response is returned. If the course exists but does not have a syllabus uploaded, an appropriate error
-     * message is returned. If a syllabus is available, the method retrieves the syllabus data as a byte array from
-     * the fileService, wraps it in a ByteArrayResource, and returns it as a downloadable PDF file with appropriate
-     * headers set for content disposition and content type.
+     * message is returned. If a syllabus is available, the fileService streams it from S3 as a downloadable PDF file
+     * with appropriate headers set for content disposition, content type and length. Range and If-None-Match request
+     * headers are honoured.
      *
      * @param courseId The ID of the course whose syllabus is to be downloaded.
      * @return A ResponseEntity containing the syllabus as a downloadable PDF file or an error message if the course or
      *         syllabus is invalid or unavailable.
      */
     @GetMapping("/{courseId}/syllabus")
-    public ResponseEntity<?> viewSyllabus(@PathVariable Long courseId) {
+    public ResponseEntity<?> viewSyllabus(@PathVariable Long courseId, @RequestHeader HttpHeaders requestHeaders) {
 
         // Find the course by ID
         Course course = courseService.findCourseById(courseId);
@@ -372,15 +405,8 @@ public class EmployeeController {
             return ResponseEntity.badRequest().body("No syllabus uploaded for this course.");
         }
 
-        final byte[] data = fileService.viewSyllabus(courseId);
-        final ByteArrayResource resource = new ByteArrayResource(data);
-
-        return ResponseEntity
-                .ok()
-                .contentLength(data.length)
-                .header("Content-disposition", "attachment; filename=\"" + syllabusUrl + "\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(resource);
+        //Stream the syllabus straight from S3
+        return fileService.viewSyllabus(course, MediaType.APPLICATION_PDF, requestHeaders);
 
     }
 
@@ -432,9 +458,9 @@ public class EmployeeController {
      *
      * The method first validates whether the user is authorized to access the specified course using the employeeCourseAuth service.
      * If the validation fails, an error response is returned. If the validation succeeds, the course material is fetched by its ID.
-     * The file associated with the course material is then retrieved as a byte array using the fileService. The byte array is wrapped
-     * in a ByteArrayResource and returned as a downloadable file. The response includes appropriate headers for content disposition
-     * and content type to facilitate file download.
+     * The file associated with the course material is then streamed from S3 by the fileService and returned as a downloadable file.
+     * The response includes appropriate headers for content disposition, content type and length to facilitate file download, and
+     * Range and If-None-Match request headers are honoured.
      *
      * @param courseId The ID of the course containing the material.
      * @param courseMaterialId The ID of the specific course material to retrieve.
@@ -443,7 +469,7 @@ public class EmployeeController {
      *         or the material is unavailable.
      */
     @GetMapping("/getCourseMaterial/{courseId}/{courseMaterialId}")
-    public ResponseEntity<?> getCourseMaterialById(@PathVariable Long courseId, @PathVariable("courseMaterialId") Long courseMaterialId, Authentication authentication)
+    public ResponseEntity<?> getCourseMaterialById(@PathVariable Long courseId, @PathVariable("courseMaterialId") Long courseMaterialId, @RequestHeader HttpHeaders requestHeaders, Authentication authentication)
     {
 
         ResponseEntity<String> authResponse = employeeCourseAuth.validateEmployeeForCourse(courseId,authentication);
@@ -455,18 +481,10 @@ public class EmployeeController {
         //Fetch the corresponding course material details
         CourseMaterial courseMaterial = courseMaterialService.getCourseMaterialById( courseMaterialId );
 
-        final byte[] data = fileService.viewCourseMaterial( courseMaterial.getCourseMaterialUrl());
-
-        final ByteArrayResource resource = new ByteArrayResource(data);
-
         String courseMaterialName = courseMaterial.getCourseMaterialUrl().split("/")[2];
 
-        return ResponseEntity
-                .ok()
-                .contentLength(data.length)
-                .header("Content-disposition", "attachment; filename=\"" + courseMaterialName + "\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(resource);
+        //Stream the course material straight from S3
+        return fileService.viewCourseMaterial( courseMaterial.getCourseMaterialUrl(), courseMaterialName, requestHeaders );
 
     }
 
@@ -478,6 +496,10 @@ public class EmployeeController {
      * authentication object. The assignment and course details are fetched to ensure the assignment is valid and linked to the correct course.
      * The uploaded file is then stored using the fileService, and a success response with the upload details is returned.
      *
+     * When assignment.upload.mode is set to pipeline, the file is only spooled and the submission saved as UPLOADING;
+     * the endpoint then answers 202 Accepted with the submission status, and the file is stored in S3 in the background.
+     * The progress can be followed through the /submission/{submissionId}/uploadStatus endpoint.
+     *
      * @param file The multipart file containing the assignment submission.
      * @param authentication The authentication information of the current user (employee).
      * @param assignmentID The ID of the assignment being submitted.
@@ -504,10 +526,36 @@ public class EmployeeController {
         //Get the course details from the assignment details
         Course course = assignmentDetails.getCourse();
 
+        //In pipeline mode the upload to S3 happens in the background and the request returns as soon as the file is spooled
+        if( submissionUploadPipeline.isEnabled() )
+            return ResponseEntity.accepted().body( submissionUploadPipeline.stageSubmission( file, course, assignmentDetails, employee ) );
+
         //Upload the Assignment file to the assignment bucket
         return ResponseEntity.ok( fileService.uploadAssignmentSubmission( file, course, assignmentDetails, employee ) );
     }
 
+    /**
+     * This endpoint returns the upload status of an assignment submission made by the authenticated employee.
+     *
+     * Submissions uploaded through the pipeline stay UPLOADING until their file is stored in S3, they then become
+     * SUBMITTED, or UPLOAD_FAILED if every upload attempt failed, in which case the file has to be uploaded again
+     * through the update endpoint. Submissions of other employees are reported as not found.
+     *
+     * @param submissionID The ID of the submission.
+     * @param authentication The authentication information of the current user (employee).
+     * @return A ResponseEntity containing the submission status or an error message if the submission is not found.
+     */
+    @GetMapping("/submission/{submissionId}/uploadStatus")
+    public ResponseEntity<?> getSubmissionUploadStatus( @PathVariable("submissionId") Long submissionID, Authentication authentication )
+    {
+        Submission submission = submissionService.getSubmissionByID( submissionID );
+        if( submission == null || !submission.getEmployee().getEmail().equals( authentication.getName() ) )
+        {
+            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.NOT_FOUND.value(), "Submission not found" );
+        }
+        return ResponseEntity.ok( submissionUploadPipeline.toStatusDTO( submission ) );
+    }
+
     /**
      * This endpoint allows an authenticated user (employee) to update a previously uploaded assignment submission for a specific course.
      *
@@ -517,7 +565,8 @@ public class EmployeeController {
      *
      * If the submission is eligible for updating, the previously uploaded file is deleted using the fileService. If the deletion
      * is successful, the new file is uploaded as a replacement, and the updated submission details are returned. If the deletion fails,
-     * an appropriate error response is returned.
+     * an appropriate error response is returned. The deletion runs on the file I/O executor and the upload of the new file on the
+     * file update executor, so the servlet thread is released while S3 is busy and a long upload never holds a deletion thread.
      *
      * @param submissionID The ID of the existing submission to be updated.
      * @param file The new multipart file to replace the previous submission.
@@ -526,7 +575,7 @@ public class EmployeeController {
      * @return A ResponseEntity containing the updated submission details or an error message if validation, deletion, or update fails.
      */
     @PutMapping("/updateUploadedAssignment/{submissionId}")
-    public ResponseEntity<?> updateUploadedAssignment( @PathVariable("submissionId") String submissionID,
+    public CompletableFuture<ResponseEntity<?>> updateUploadedAssignment( @PathVariable("submissionId") String submissionID,
                                                        @RequestParam("file") MultipartFile file,
                                                        @RequestParam("courseId") String courseID,
                                                        Authentication authentication)
@@ -535,7 +584,7 @@ public class EmployeeController {
         ResponseEntity<String> authResponse = employeeCourseAuth.validateEmployeeForCourse(Long.parseLong( courseID ),authentication);
 
         if (authResponse != null) {
-            return authResponse;
+            return CompletableFuture.completedFuture(authResponse);
         }
         //Get the already submitted submission details
         Submission alreadySubmittedResponse = submissionService.getSubmissionByID(Long.parseLong(submissionID));
@@ -544,21 +593,218 @@ public class EmployeeController {
 
         if( gradebookDetails != null )
         {
-            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "Employee can not upload assignment past due date");
+            return CompletableFuture.completedFuture( errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "Employee can not upload assignment past due date") );
         }
 
-        //First delete the already submitted assignment so that the new assignment can be uploaded
-        FileDeletionResponse deletionResponse = fileService.deleteUploadedAssignment(alreadySubmittedResponse.getSubmissionUrl() );
-        //Check if the file is deleted
-        if( deletionResponse.isDeletionSuccessfull() ) {
-            //Invoke the update operation on the assignment
-            return new ResponseEntity<>( fileService.updateAssignmentSubmission( file, alreadySubmittedResponse ), HttpStatus.OK);
+        //The file of a submission still being uploaded must not be deleted underneath the upload worker
+        if( alreadySubmittedResponse.getStatus() == Submission.Status.UPLOADING )
+        {
+            return CompletableFuture.completedFuture( errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.CONFLICT.value(), "The submission is still being uploaded, please try again once it is submitted" ) );
         }
-        else
+
+        //First delete the already submitted assignment so that the new assignment can be uploaded, without holding this thread
+        return fileService.deleteUploadedAssignment(alreadySubmittedResponse.getSubmissionUrl() ).thenApplyAsync( deletionResponse ->
         {
-            return ResponseEntity.status(200).body("Failed to delete the existing uploaded Assignment, Please upload again later" );
+            //Check if the file is deleted
+            if( deletionResponse.isDeletionSuccessfull() ) {
+                //Invoke the update operation on the assignment
+                return new ResponseEntity<>( fileService.updateAssignmentSubmission( file, alreadySubmittedResponse ), HttpStatus.OK);
+            }
+            else
+            {
+                return ResponseEntity.status(200).body("Failed to delete the existing uploaded Assignment, Please upload again later" );
+            }
+        }, fileUpdateExecutor );
+    }
+
+    /**
+     * This endpoint starts a direct-to-storage assignment upload by issuing a short-lived pre-signed PUT URL.
+     *
+     * The same course authorization as the regular upload applies. The URL is scoped to the exact key the regular upload
+     * would use, and the client must send the given content type and file size with the PUT. The file never passes through this
+     * server, so it is not bound by the multipart size limit; the upload is only recorded once it is confirmed through
+     * the /uploadAssignment/confirm endpoint.
+     *
+     * @param assignmentID The ID of the assignment being submitted.
+     * @param courseID The ID of the course to which the assignment belongs.
+     * @param fileName The name of the file to be uploaded.
+     * @param fileSize The size of the file in bytes.
+     * @param contentType The content type of the file, PDF by default.
+     * @param authentication The authentication information of the current user (employee).
+     * @return A ResponseEntity containing the pre-signed URL and its expiry, or an error message if validation fails.
+     */
+    @PostMapping("/uploadAssignment/presign")
+    public ResponseEntity<?> presignAssignmentUpload( @RequestParam("assignmentId") Long assignmentID, @RequestParam("courseId") Long courseID,
+                                                      @RequestParam("fileName") String fileName, @RequestParam("fileSize") long fileSize,
+                                                      @RequestParam(value = "contentType", defaultValue = MediaType.APPLICATION_PDF_VALUE) String contentType,
+                                                      Authentication authentication )
+    {
+        ResponseEntity<String> authResponse = employeeCourseAuth.validateEmployeeForCourse( courseID, authentication );
+        if (authResponse != null) {
+            return authResponse;
         }
+        if( !isValidUploadFileName( fileName ) )
+            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "Invalid file name" );
+
+        Users employee = userService.findUserByEmail( authentication.getName() );
+        Assignment assignmentDetails = assignmentService.getAssignmentById( assignmentID );
+        if( assignmentDetails == null || !Objects.equals( assignmentDetails.getCourse().getId(), courseID ) )
+            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "Assignment is not linked with the course" );
+        //A second submission would be rejected on confirm, so don't let the file be uploaded
+        if( submissionService.hasSubmission( assignmentID, employee.getId() ) )
+            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.CONFLICT.value(), "The assignment has already been submitted, use the update endpoint to replace the file" );
+
+        PresignedUrlResponseDTO presignedUrl = fileService.presignAssignmentSubmission( assignmentDetails.getCourse(), assignmentDetails, employee, fileName, contentType, fileSize );
+        if( presignedUrl == null )
+            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "The file is empty or larger than the upload limit" );
+        return ResponseEntity.ok( presignedUrl );
+    }
 
+    /**
+     * This endpoint completes a direct-to-storage assignment upload started through /uploadAssignment/presign.
+     *
+     * The uploaded object is checked with a HEAD request, it must exist under the expected key with the announced size.
+     * Only then is the submission saved, so a submission never points to a missing or partial file. Confirming an
+     * assignment the employee has already submitted, for instance a retried confirm, is answered with 409 Conflict.
+     *
+     * @param assignmentID The ID of the assignment being submitted.
+     * @param courseID The ID of the course to which the assignment belongs.
+     * @param fileName The name of the uploaded file, as sent to the presign endpoint.
+     * @param fileSize The size of the uploaded file in bytes, as sent to the presign endpoint.
+     * @param authentication The authentication information of the current user (employee).
+     * @return A ResponseEntity containing the upload details, or an error message if validation or verification fails.
+     */
+    @PostMapping("/uploadAssignment/confirm")
+    public ResponseEntity<?> confirmAssignmentUpload( @RequestParam("assignmentId") Long assignmentID, @RequestParam("courseId") Long courseID,
+                                                      @RequestParam("fileName") String fileName, @RequestParam("fileSize") long fileSize,
+                                                      Authentication authentication )
+    {
+        ResponseEntity<String> authResponse = employeeCourseAuth.validateEmployeeForCourse( courseID, authentication );
+        if (authResponse != null) {
+            return authResponse;
+        }
+        if( !isValidUploadFileName( fileName ) )
+            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "Invalid file name" );
+
+        Users employee = userService.findUserByEmail( authentication.getName() );
+        Assignment assignmentDetails = assignmentService.getAssignmentById( assignmentID );
+        if( assignmentDetails == null || !Objects.equals( assignmentDetails.getCourse().getId(), courseID ) )
+            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "Assignment is not linked with the course" );
+
+        FileUploadResponse fileUploadResponse = fileService.confirmAssignmentSubmission( assignmentDetails.getCourse(), assignmentDetails, employee, fileName, fileSize );
+        if( fileUploadResponse == null )
+            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "The uploaded file was not found or its size does not match, please upload it again" );
+        return ResponseEntity.ok( fileUploadResponse );
+    }
+
+    /**
+     * This endpoint issues a pre-signed PUT URL to replace the file of an existing submission directly in storage.
+     *
+     * The same checks as the regular update apply: the submission must belong to the employee, must not be graded and
+     * must not be still uploading. The URL points to a new key, so the current file stays in place until the
+     * replacement is recorded through the matching confirm endpoint with the returned uploadId.
+     *
+     * @param submissionID The ID of the existing submission to be updated.
+     * @param courseID The ID of the course to which the submission belongs.
+     * @param fileName The name of the new file.
+     * @param fileSize The size of the new file in bytes.
+     * @param contentType The content type of the file, PDF by default.
+     * @param authentication The authentication information of the current user (employee).
+     * @return A ResponseEntity containing the pre-signed URL, its expiry and upload id, or an error message if validation fails.
+     */
+    @PutMapping("/updateUploadedAssignment/{submissionId}/presign")
+    public ResponseEntity<?> presignAssignmentUpdate( @PathVariable("submissionId") Long submissionID, @RequestParam("courseId") Long courseID,
+                                                      @RequestParam("fileName") String fileName, @RequestParam("fileSize") long fileSize,
+                                                      @RequestParam(value = "contentType", defaultValue = MediaType.APPLICATION_PDF_VALUE) String contentType,
+                                                      Authentication authentication )
+    {
+        ResponseEntity<String> authResponse = employeeCourseAuth.validateEmployeeForCourse( courseID, authentication );
+        if (authResponse != null) {
+            return authResponse;
+        }
+        if( !isValidUploadFileName( fileName ) )
+            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "Invalid file name" );
+
+        Submission alreadySubmittedResponse = submissionService.getSubmissionByID( submissionID );
+        ResponseEntity<?> submissionError = validateSubmissionForUpdate( alreadySubmittedResponse, courseID, authentication );
+        if( submissionError != null )
+            return submissionError;
+
+        PresignedUrlResponseDTO presignedUrl = fileService.presignAssignmentUpdate( alreadySubmittedResponse, fileName, contentType, fileSize );
+        if( presignedUrl == null )
+            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "The file is empty or larger than the upload limit" );
+        return ResponseEntity.ok( presignedUrl );
+    }
+
+    /**
+     * This endpoint completes the direct-to-storage replacement of a submission file started through the matching presign
+     * endpoint. The new object is verified with a HEAD request before the submission is pointed to it and the previous
+     * file is deleted. The graded check runs again, a file uploaded after grading is never recorded.
+     *
+     * @param submissionID The ID of the existing submission to be updated.
+     * @param courseID The ID of the course to which the submission belongs.
+     * @param uploadId The upload id returned by the presign endpoint.
+     * @param fileName The name of the uploaded file, as sent to the presign endpoint.
+     * @param fileSize The size of the uploaded file in bytes, as sent to the presign endpoint.
+     * @param authentication The authentication information of the current user (employee).
+     * @return A ResponseEntity containing the updated submission details, or an error message if validation or verification fails.
+     */
+    @PutMapping("/updateUploadedAssignment/{submissionId}/confirm")
+    public ResponseEntity<?> confirmAssignmentUpdate( @PathVariable("submissionId") Long submissionID, @RequestParam("courseId") Long courseID,
+                                                      @RequestParam("uploadId") String uploadId,
+                                                      @RequestParam("fileName") String fileName, @RequestParam("fileSize") long fileSize,
+                                                      Authentication authentication )
+    {
+        ResponseEntity<String> authResponse = employeeCourseAuth.validateEmployeeForCourse( courseID, authentication );
+        if (authResponse != null) {
+            return authResponse;
+        }
+        if( !isValidUploadFileName( fileName ) )
+            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "Invalid file name" );
+        if( !isValidUploadId( uploadId ) )
+            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "Invalid upload id" );
+
+        Submission alreadySubmittedResponse = submissionService.getSubmissionByID( submissionID );
+        ResponseEntity<?> submissionError = validateSubmissionForUpdate( alreadySubmittedResponse, courseID, authentication );
+        if( submissionError != null )
+            return submissionError;
+
+        FileUploadResponse fileUploadResponse = fileService.confirmAssignmentUpdate( alreadySubmittedResponse, uploadId, fileName, fileSize );
+        if( fileUploadResponse == null )
+            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "The uploaded file was not found or its size does not match, please upload it again" );
+        return ResponseEntity.ok( fileUploadResponse );
+    }
+
+    /**
+     * Checks that a submission can be replaced by the employee: it must be theirs, belong to the course, not be graded
+     * and not be still uploading. Returns the error response, or null if the update may go ahead.
+     */
+    private ResponseEntity<?> validateSubmissionForUpdate( Submission submission, Long courseID, Authentication authentication )
+    {
+        if( submission == null || !submission.getEmployee().getEmail().equals( authentication.getName() )
+                || !Objects.equals( submission.getAssignment().getCourse().getId(), courseID ) )
+            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.NOT_FOUND.value(), "Submission not found" );
+        if( submission.getGrade() != null )
+            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "Employee can not upload assignment past due date");
+        if( submission.getStatus() == Submission.Status.UPLOADING )
+            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.CONFLICT.value(), "The submission is still being uploaded, please try again once it is submitted" );
+        return null;
+    }
+
+    //The file name ends up in the S3 key, so path separators are not allowed
+    private boolean isValidUploadFileName( String fileName )
+    {
+        return !fileName.isBlank() && !fileName.contains("/") && !fileName.contains("\\");
+    }
+
+    //The upload id ends up in the S3 key too, only the UUIDs handed out by the presign endpoint are accepted
+    private boolean isValidUploadId( String uploadId )
+    {
+        try {
+            return UUID.fromString( uploadId ).toString().equals( uploadId );
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
     }
     /*
         Get Assignments for the enrolled course
@@ -573,36 +819,10 @@ public class EmployeeController {
 
         //Get the employee details
         Users employeeDetails = userService.findUserByEmail( authentication.getName() );
-        List<AssignmentResponseDTO> assignmentsList = assignmentService.getAllAssignmentsSortedByDeadLine(courseId)
-                .stream().map(assignment ->
-                {
-                    //Get the submission of the assignment pertaining to the User
-                    List<Submission> assignmentSubmissionOfUser = assignment.getSubmissions().stream().filter( assignmentSubmission ->{
-                        return Objects.equals(assignmentSubmission.getEmployee().getId(), employeeDetails.getId());
-                    }).toList();
-
-                    AssignmentResponseDTO assignmentResponseDTO = new AssignmentResponseDTO();
-
-                    //Create the assignmentDetails DTO Object for the Assignment Response DTO
-                    AssignmentDetailsDTO assignmentDetailsDTO = dtoObjectsCreator.createAssignmentDetailsDTO( assignment );
-                    assignmentResponseDTO.setAssignmentDetails( assignmentDetailsDTO );
-
-                    //Check if there are any submissions posted by the user for this assignment
-                    //If no submissions, then don't set the Submission Details for the user
-                    if( assignmentSubmissionOfUser.isEmpty() )
-                        assignmentResponseDTO.setSubmissionDetails( null );
-                    else
-                    {
-                        Submission assignmentSubmission = assignmentSubmissionOfUser.get(0);
-                        //Get the Submission Response DTO Object
-                        SubmissionResponseDTO submissionResponseDTO = dtoObjectsCreator.createSubmissionDTO( assignmentSubmission, assignment, employeeDetails );
-                        //Set the submissionResponse DTO in the assignment Response DTO
-                        assignmentResponseDTO.setSubmissionDetails( Collections.singletonList( submissionResponseDTO ) );
-                    }
-                    //Set the assignmentDetailsDTO in the assignmentResponse DTO
-
-                    return assignmentResponseDTO;
-                }).toList();
+        //The assignments come with only this employee's submission and grade, read in a single query
+        List<AssignmentResponseDTO> assignmentsList = assignmentService.getAssignmentsWithEmployeeSubmission( courseId, employeeDetails.getId() )
+                .stream().map( assignmentRow -> dtoObjectsCreator.createAssignmentResponseDTO( assignmentRow, employeeDetails ) )
+                .toList();
 
         return ResponseEntity.ok(assignmentsList);
     }
@@ -681,7 +901,7 @@ public class EmployeeController {
      * @return A ResponseEntity containing the assignment submission file if available, or an error message if validation fails or no submission exists.
      */
     @GetMapping( "/course/{courseId}/assignment/{assignmentId}/viewSubmission" )
-    public ResponseEntity<?> getAssignmentSubmissionForEmployee( @PathVariable Long courseId, @PathVariable Long assignmentId, Authentication authentication )
+    public ResponseEntity<?> getAssignmentSubmissionForEmployee( @PathVariable Long courseId, @PathVariable Long assignmentId, @RequestHeader HttpHeaders requestHeaders, Authentication authentication )
     {
         ResponseEntity<String> authResponse = employeeCourseAuth.validateEmployeeForCourse(courseId, authentication);
         if (authResponse != null) {
@@ -695,10 +915,8 @@ public class EmployeeController {
         if( courseDetails == null )
             return errorResponseMessageUtil.createErrorResponseMessages(HttpStatus.BAD_REQUEST.value(), "The courseID is invalid");
         //Check if the assignmentID belongs to the courseID
-        Map<String,Long> propertyMap = new HashMap<>();
-        propertyMap.put( "assignment",assignmentId );
         //If the assignmentId is not the property of the courseID, then send appropriate error message
-        if( !coursePropertyValidator.isPropertyOfTheCourse( courseId, propertyMap ) )
+        if( !coursePropertyValidator.isPropertyOfTheCourse( courseId, CoursePropertyValidator.CourseProperty.ASSIGNMENT, assignmentId ) )
             return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "The assignmentID doesn't belong to this course Details");
 
         //Get the assignmentDetails
@@ -718,15 +936,8 @@ public class EmployeeController {
             //Get the file name
             String submissionFileName = submissionURL.split("/")[2];
 
-            final byte[] data = fileService.viewAssignmentSubmission( submissionURL );
-            final ByteArrayResource resource = new ByteArrayResource(data);
-
-            return ResponseEntity
-                    .ok()
-                    .contentLength(data.length)
-                    .header("Content-disposition", "attachment; filename=\"" + submissionFileName + "\"")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(resource);
+            //Stream the submission straight from S3
+            return fileService.viewAssignmentSubmission( submissionURL, submissionFileName, requestHeaders );
 
         }
 
@@ -847,15 +1058,21 @@ public class EmployeeController {
      *
      * The method first validates if the employee is enrolled in the specified course. If the employee is not enrolled, an error response is returned.
      *
-     * If the employee is valid, it fetches the list of messages the employee has sent to the instructor for the given course. If messages exist, they are returned in the response DTO.
+     * If the employee is valid, it fetches one page of the messages the employee has sent to the instructor for the given course, newest first.
+     * When older messages exist, their cursor is returned in the X-Next-Cursor header and is passed back as the before parameter.
      * If no messages are found, an empty list is returned in the response DTO.
      *
      * @param courseId The ID of the course to fetch sent messages for.
+     * @param before The cursor of the page to fetch, from the X-Next-Cursor header of the previous page; absent for the newest messages.
+     * @param limit The number of messages per page, messages.page.default-size when absent.
      * @param authentication The authentication information of the current user (employee).
      * @return A ResponseEntity containing the response DTO with the list of sent messages.
      */
     @GetMapping( "/course/{courseId}/message/getSentMessages" )
-    public ResponseEntity<?> getMessagesSentToInstructor( @PathVariable("courseId") Long courseId, Authentication authentication )
+    public ResponseEntity<?> getMessagesSentToInstructor( @PathVariable("courseId") Long courseId,
+                                                          @RequestParam(value = "before", required = false) String before,
+                                                          @RequestParam(value = "limit", required = false) Integer limit,
+                                                          Authentication authentication )
     {
         //Check if the employee belongs to the particular course
         ResponseEntity<String> authResponse = employeeCourseAuth.validateEmployeeForCourse(courseId, authentication);
@@ -869,23 +1086,13 @@ public class EmployeeController {
         Map<String, String> userDetailsObject = new HashMap<>();
         userDetailsObject.put("name", employeeDetails.getFirstName() + " " + employeeDetails.getLastName());
         userDetailsObject.put("email", employeeDetails.getEmail());
-        //Fetch the list of the messages sent by the Employee for the particular course
-        Optional<List<Message>> optionalSentMessageList = messageService.getAllSentMessagesForEmployee( employeeDetails.getId(), courseId );
-        //if the List of Messages is null, create an empty response object and send the response
-        if( optionalSentMessageList.isPresent() )
-        {
-            List<Message> sentMessagesOfEmployee = optionalSentMessageList.get();
-            //Get the CourseMessages Response DTO object
-            CourseMessagesResponseDTO courseSentMessagesResponseDTO = dtoObjectsCreator.createCourseMessagesResponseDTO( userDetailsObject, sentMessagesOfEmployee );
+        //Fetch one page of the messages sent by the Employee for the particular course
+        MessageService.MessagePage sentMessagesPage = messageService.getSentMessagesForEmployee( employeeDetails.getId(), courseId, KeysetCursor.parse( before ), limit );
+        //Get the CourseMessages Response DTO object
+        CourseMessagesResponseDTO courseSentMessagesResponseDTO = dtoObjectsCreator.createCourseMessagesResponseDTO( userDetailsObject, sentMessagesPage.messages() );
 
-            //Send the created response DTO object
-            return ResponseEntity.ok( courseSentMessagesResponseDTO );
-        }
-        else
-        {
-            CourseMessagesResponseDTO courseSentMessagesResponseDTO = dtoObjectsCreator.createCourseMessagesResponseDTO( userDetailsObject, new ArrayList<>() );
-            return ResponseEntity.ok( courseSentMessagesResponseDTO );
-        }
+        //Send the created response DTO object, with the cursor of the next page when there is one
+        return KeysetCursor.withNextCursor( ResponseEntity.ok(), sentMessagesPage.nextCursor() ).body( courseSentMessagesResponseDTO );
     }
 
     /**
@@ -893,15 +1100,21 @@ public class EmployeeController {
      *
      * The method first validates if the employee is enrolled in the specified course. If the employee is not enrolled, an error response is returned.
      *
-     * If the employee is valid, it fetches the list of messages received by the employee for the given course. If messages exist, they are returned in the response DTO.
+     * If the employee is valid, it fetches one page of the messages received by the employee for the given course, newest first.
+     * When older messages exist, their cursor is returned in the X-Next-Cursor header and is passed back as the before parameter.
      * If no messages are found, an empty list is returned in the response DTO.
      *
      * @param courseId The ID of the course to fetch received messages for.
+     * @param before The cursor of the page to fetch, from the X-Next-Cursor header of the previous page; absent for the newest messages.
+     * @param limit The number of messages per page, messages.page.default-size when absent.
      * @param authentication The authentication information of the current user (employee).
      * @return A ResponseEntity containing the response DTO with the list of received messages.
      */
     @GetMapping("/course/{courseId}/message/getReceivedMessages")
-    public ResponseEntity<?> getMessagesReceivedFromInstructor( @PathVariable Long courseId , Authentication authentication )
+    public ResponseEntity<?> getMessagesReceivedFromInstructor( @PathVariable Long courseId,
+                                                                @RequestParam(value = "before", required = false) String before,
+                                                                @RequestParam(value = "limit", required = false) Integer limit,
+                                                                Authentication authentication )
     {
         //Check if the employee belongs to the particular course
         ResponseEntity<String> authResponse = employeeCourseAuth.validateEmployeeForCourse(courseId, authentication);
@@ -915,23 +1128,13 @@ public class EmployeeController {
         Map<String, String> userDetailsObject = new HashMap<>();
         userDetailsObject.put("name", employeeDetails.getFirstName() + " " + employeeDetails.getLastName());
         userDetailsObject.put("email", employeeDetails.getEmail());
-        //Fetch the list of the messages sent by the Employee for the particular course
-        Optional<List<Message>> optionalResponseMessageList = messageService.getAllReceivedMessageForEmployee( employeeDetails.getId(), courseId );
-        //if the List of Messages is null, create an empty response object and send the response
-        if( optionalResponseMessageList.isPresent() )
-        {
-            List<Message> receivedMessagesOfEmployee = optionalResponseMessageList.get();
-            //Get the CourseMessages Response DTO object
-            CourseMessagesResponseDTO courseReceivedMessagesResponseDTO = dtoObjectsCreator.createCourseMessagesResponseDTO( userDetailsObject, receivedMessagesOfEmployee );
+        //Fetch one page of the messages received by the Employee for the particular course
+        MessageService.MessagePage receivedMessagesPage = messageService.getReceivedMessagesForEmployee( employeeDetails.getId(), courseId, KeysetCursor.parse( before ), limit );
+        //Get the CourseMessages Response DTO object
+        CourseMessagesResponseDTO courseReceivedMessagesResponseDTO = dtoObjectsCreator.createCourseMessagesResponseDTO( userDetailsObject, receivedMessagesPage.messages() );
 
-            //Send the created response DTO object
-            return ResponseEntity.ok( courseReceivedMessagesResponseDTO );
-        }
-        else
-        {
-            CourseMessagesResponseDTO courseReceivedMessagesResponseDTO = dtoObjectsCreator.createCourseMessagesResponseDTO( userDetailsObject, new ArrayList<>() );
-            return ResponseEntity.ok( courseReceivedMessagesResponseDTO );
-        }
+        //Send the created response DTO object, with the cursor of the next page when there is one
+        return KeysetCursor.withNextCursor( ResponseEntity.ok(), receivedMessagesPage.nextCursor() ).body( courseReceivedMessagesResponseDTO );
     }
 
     /**
@@ -961,9 +1164,7 @@ public class EmployeeController {
         //Check if the message doesn't exist
         if (messageDetails.isPresent()) {
             Message messageDetail = messageDetails.get();
-            //Set the status of the message to read
-            messageDetail.setIsRead( true );
-            //Save the details to the database
+            //Set the status of the message to read in the database, updating the unread counter of the employee
             messageService.updateReadStatusOfMessage( messageDetail );
             return ResponseEntity.ok(  dtoObjectsCreator.createMessageResponseDTO( messageDetail )  );
         }
@@ -973,5 +1174,22 @@ public class EmployeeController {
         }
     }
 
+    /**
+     * This endpoint returns the number of unread messages of the authenticated employee, per course and sender.
+     *
+     * The counts are read from counters maintained when messages are sent and read, so the endpoint stays cheap
+     * enough to be polled for notification badges. Senders whose messages were all read are left out.
+     *
+     * @param courseId Optional ID of a course to restrict the counts to.
+     * @param authentication The authentication information of the current user (employee).
+     * @return A ResponseEntity containing the total number of unread messages and the breakdown per course and sender.
+     */
+    @GetMapping("/unreadCounts")
+    public ResponseEntity<?> getUnreadMessageCounts( @RequestParam(value = "courseId", required = false) Long courseId, Authentication authentication )
+    {
+        //Get the employee details from the authentication
+        Users employeeDetails = userService.findUserByEmail( authentication.getName() );
 
+        return ResponseEntity.ok( messageService.getUnreadCounts( employeeDetails.getId(), courseId ) );
+    }
 }
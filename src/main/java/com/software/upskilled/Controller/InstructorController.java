@@ -1,12 +1,15 @@
 package com.software.upskilled.Controller;
 
+import com.software.upskilled.config.AsyncConfig;
 import com.software.upskilled.Entity.*;
 import com.software.upskilled.dto.*;
 import com.software.upskilled.service.*;
 import com.software.upskilled.utils.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +19,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 @RestController
@@ -66,6 +71,14 @@ public class InstructorController {
     @Autowired
     private MessageService messageService;
 
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    //Runs the upload and database work chained to a completed file deletion, off the file I/O pool
+    @Autowired
+    @Qualifier(AsyncConfig.FILE_UPDATE_EXECUTOR)
+    private Executor fileUpdateExecutor;
+
 
     @GetMapping("/hello")
     public String hello(){
@@ -75,13 +88,15 @@ public class InstructorController {
     /**
      * Endpoint to retrieve details of the currently authenticated user.
      *
-     * @param user the authenticated user object, injected by Spring Security.
+     * @param principal the authenticated user, injected by Spring Security.
      * @return a CreateUserDTO object containing sanitized user information such as
      *         ID, email, role, first name, last name, designation, and status.
      *         The password field is obfuscated for security.
      */
     @GetMapping("/me")
-    public CreateUserDTO getCurrentUser(@AuthenticationPrincipal Users user) {
+    public CreateUserDTO getCurrentUser(@AuthenticationPrincipal AuthenticatedUser principal) {
+        //The principal only holds the identity, the profile is read from the database
+        Users user = userService.findUserById( principal.id() );
         CreateUserDTO userDTO = new CreateUserDTO();
         userDTO.setId(user.getId());
         userDTO.setEmail(user.getEmail());
@@ -169,7 +184,8 @@ public class InstructorController {
      * @param authentication the authentication object containing the user's details,
      *                       injected by Spring Security.
      * @return a ResponseEntity containing a list of AnnouncementRequestDTO objects, each
-     *         representing an announcement with details such as ID, title, content, and last updated timestamp.
+     *         representing an announcement with details such as ID, title, content, and last updated timestamp,
+     *         or 304 Not Modified when the If-None-Match header holds the ETag of the current list.
      *         If the authenticated user is not authorized to access the course, an appropriate error response is returned.
      */
     // View announcements for a specific course
@@ -183,16 +199,46 @@ public class InstructorController {
             return authResponse;
         }
 
-        // Fetch the announcements for the course
-        Set<Announcement> announcements = announcementService.getAnnouncementsByCourseId(courseId);
+        // Fetch the announcements sorted by the updated first, already serialized by the feed cache
+        AnnouncementFeedCache.Feed announcementFeed = announcementService.getAnnouncementFeed( courseId );
+
+        //With the ETag, a client sending it back in If-None-Match gets 304 Not Modified without the body
+        return ResponseEntity.ok()
+                .contentType( MediaType.APPLICATION_JSON )
+                .cacheControl( CacheControl.noCache().cachePrivate() )
+                .eTag( announcementFeed.eTag() )
+                .body( announcementFeed.body() );
+    }
+
+    /**
+     * This endpoint retrieves one page of the announcements of a course as summaries: ID, title, the start of the content
+     * and the update timestamp, most recently updated first. The full content of an announcement is fetched by its ID.
+     *
+     * The method first validates whether the instructor is authorized to view the announcements of the course. When more
+     * announcements exist, their cursor is returned in the X-Next-Cursor header and is passed back as the before parameter.
+     *
+     * @param courseId The ID of the course for which announcements are being retrieved.
+     * @param before The cursor of the page to fetch, from the X-Next-Cursor header of the previous page; absent for the most recent announcements.
+     * @param limit The number of announcements per page, announcements.page.default-size when absent.
+     * @param authentication The authentication information of the current user (instructor).
+     * @return A ResponseEntity containing a list of AnnouncementSummaryDTO objects.
+     */
+    @GetMapping("/course/{courseId}/announcements/summary")
+    public ResponseEntity<?> viewAnnouncementSummaries( @PathVariable Long courseId,
+                                                        @RequestParam(value = "before", required = false) String before,
+                                                        @RequestParam(value = "limit", required = false) Integer limit,
+                                                        Authentication authentication )
+    {
+        ResponseEntity<String> authResponse = instructorCourseAuth.validateInstructorForCourse(courseId, authentication);
+
+        if (authResponse != null) {
+            return authResponse;
+        }
 
-        // Convert announcements to AnnouncementDTO
-        List<AnnouncementRequestDTO> announcementDTOs = announcements.stream()
-                .sorted(Comparator.comparing(Announcement::getUpdatedAt).reversed())
-                .map(announcement -> new AnnouncementRequestDTO(announcement.getId(),announcement.getTitle(), announcement.getContent(),announcement.getUpdatedAt()))
-                .collect(Collectors.toList());
+        AnnouncementService.AnnouncementSummaryPage summaryPage = announcementService.getAnnouncementSummaries( courseId, KeysetCursor.parse( before ), limit );
 
-        return ResponseEntity.ok(announcementDTOs);
+        //Send the page, with the cursor of the next page when there is one
+        return KeysetCursor.withNextCursor( ResponseEntity.ok(), summaryPage.nextCursor() ).body( summaryPage.announcements() );
     }
 
     /**
@@ -389,7 +435,7 @@ public class InstructorController {
      * @return A ResponseEntity containing the syllabus file or an error message if not found.
      */
     @GetMapping("/{courseId}/syllabus")
-    public ResponseEntity<?>  viewSyllabus(@PathVariable Long courseId) {
+    public ResponseEntity<?>  viewSyllabus(@PathVariable Long courseId, @RequestHeader HttpHeaders requestHeaders) {
 
         // Find the course by ID
         Course course = courseService.findCourseById(courseId);
@@ -405,16 +451,8 @@ public class InstructorController {
             return ResponseEntity.badRequest().body("No syllabus uploaded for this course.");
         }
 
-        final byte[] data = fileService.viewSyllabus(courseId);
-        final ByteArrayResource resource = new ByteArrayResource(data);
-
-
-        return ResponseEntity
-                .ok()
-                .contentLength(data.length)
-                .header("Content-disposition", "attachment; filename=\"" + syllabusUrl + "\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(resource);
+        //Stream the syllabus straight from S3
+        return fileService.viewSyllabus(course, MediaType.APPLICATION_PDF, requestHeaders);
 
     }
 
@@ -629,11 +667,9 @@ public class InstructorController {
         }
 
         //Check if the assignment actually belongs to the course
-        Map<String,Long> propertyKeyValue = new HashMap<>();
-        propertyKeyValue.put("assignment", assignmentId);
         //Pass the courseID and the associated property to the validator
         //If not, then we send the error message that the assignment is not the property of the course
-        if( !coursePropertyValidator.isPropertyOfTheCourse( courseID, propertyKeyValue ) )
+        if( !coursePropertyValidator.isPropertyOfTheCourse( courseID, CoursePropertyValidator.CourseProperty.ASSIGNMENT, assignmentId ) )
         {
             return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "This assignment doesn't belong to the particular course");
         }
@@ -694,7 +730,7 @@ public class InstructorController {
      * @return A ResponseEntity containing the assignment submission file or an error message if not found.
      */
     @GetMapping("/{courseID}/assignments/{assignmentId}/submissions/{submissionID}/viewSubmission")
-    public ResponseEntity<?> viewParticularAssignmentSubmission(@PathVariable Long assignmentId, @PathVariable Long courseID, @PathVariable Long submissionID, Authentication authentication){
+    public ResponseEntity<?> viewParticularAssignmentSubmission(@PathVariable Long assignmentId, @PathVariable Long courseID, @PathVariable Long submissionID, @RequestHeader HttpHeaders requestHeaders, Authentication authentication){
 
         ResponseEntity<String> authResponse = instructorCourseAuth.validateInstructorForCourse(courseID, authentication);
 
@@ -708,16 +744,8 @@ public class InstructorController {
             return ResponseEntity.badRequest().body("Submission not found");
         else
         {
-            final byte[] data = fileService.viewAssignmentSubmission( uploadedSubmissionDetails.getSubmissionUrl() );
-            final ByteArrayResource resource = new ByteArrayResource(data);
-
-
-            return ResponseEntity
-                    .ok()
-                    .contentLength(data.length)
-                    .header("Content-disposition", "attachment; filename=\"" + uploadedSubmissionDetails.getSubmissionUrl() + "\"")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(resource);
+            //Stream the submission straight from S3
+            return fileService.viewAssignmentSubmission( uploadedSubmissionDetails.getSubmissionUrl(), uploadedSubmissionDetails.getSubmissionUrl(), requestHeaders );
         }
     }
 
@@ -740,11 +768,9 @@ public class InstructorController {
             return authResponse;
         }
         //Check if the assignment actually belongs to the course
-        Map<String,Long> propertyKeyValue = new HashMap<>();
-        propertyKeyValue.put("assignment", assignmentId);
         //Pass the courseID and the associated property to the validator
         //If not, then we send the error message that the assignment is not the property of the course
-        if( !coursePropertyValidator.isPropertyOfTheCourse( courseID, propertyKeyValue ) )
+        if( !coursePropertyValidator.isPropertyOfTheCourse( courseID, CoursePropertyValidator.CourseProperty.ASSIGNMENT, assignmentId ) )
         {
             return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "This assignment doesn't belong to this course");
         }
@@ -990,7 +1016,7 @@ public class InstructorController {
      * @return A ResponseEntity containing the course material file or an error message if not found.
      */
     @GetMapping("/getCourseMaterial/{courseId}/{courseMaterialId}")
-    public ResponseEntity<?> viewCourseMaterialById(@PathVariable Long courseId, @PathVariable("courseMaterialId") Long courseMaterialId , Authentication authentication)
+    public ResponseEntity<?> viewCourseMaterialById(@PathVariable Long courseId, @PathVariable("courseMaterialId") Long courseMaterialId , @RequestHeader HttpHeaders requestHeaders, Authentication authentication)
     {
         ResponseEntity<String> authResponse = instructorCourseAuth.validateInstructorForCourse(courseId, authentication);
 
@@ -999,10 +1025,8 @@ public class InstructorController {
         }
 
         //Check if the courseMaterialID belongs to this particular course
-        Map<String,Long> propertyKeyValue = new HashMap<>();
-        propertyKeyValue.put("courseMaterial", courseMaterialId);
         //If the courseMaterialID doesn't belong to the course, then send appropriate error message
-        if( !coursePropertyValidator.isPropertyOfTheCourse( courseId, propertyKeyValue ) )
+        if( !coursePropertyValidator.isPropertyOfTheCourse( courseId, CoursePropertyValidator.CourseProperty.COURSE_MATERIAL, courseMaterialId ) )
             return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "This courseMaterial is not part of the course");
 
         //Fetch the courseMaterial details
@@ -1011,18 +1035,10 @@ public class InstructorController {
         if( courseMaterial == null )
             return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "This courseMaterial doesn't exist" );
 
-        //Fetch the CourseMaterial
-        final byte[] data = fileService.viewCourseMaterial( courseMaterial.getCourseMaterialUrl() );
-        final ByteArrayResource resource = new ByteArrayResource(data);
-
         //Get the Submission File Name
         String courseMaterialName = courseMaterial.getCourseMaterialUrl().split("/")[2];
-        return ResponseEntity
-                .ok()
-                .contentLength(data.length)
-                .header("Content-disposition", "attachment; filename=\"" + courseMaterialName + "\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(resource);
+        //Stream the CourseMaterial straight from S3
+        return fileService.viewCourseMaterial( courseMaterial.getCourseMaterialUrl(), courseMaterialName, requestHeaders );
 
     }
 
@@ -1039,7 +1055,7 @@ public class InstructorController {
      * @return A ResponseEntity containing the result of the update or an error message if the operation fails.
      */
     @PutMapping("/updateCourseMaterial/{courseId}/{courseMaterialId}")
-    public ResponseEntity<?> updateCourseMaterial(@RequestParam(value = "file", required = true) MultipartFile file, @PathVariable Long courseId,
+    public CompletableFuture<ResponseEntity<?>> updateCourseMaterial(@RequestParam(value = "file", required = true) MultipartFile file, @PathVariable Long courseId,
                                                   @PathVariable Long courseMaterialId,
                                                   @RequestParam("newMaterialTitle") Optional<String> courseMaterialTitle,
                                                   @RequestParam("newMaterialDescription") Optional<String> courseMaterialDescription,
@@ -1053,7 +1069,7 @@ public class InstructorController {
         ResponseEntity<String> authResponse = instructorCourseAuth.validateInstructorForCourse(courseId, authentication);
 
         if (authResponse != null) {
-            return authResponse;
+            return CompletableFuture.completedFuture(authResponse);
         }
 
 
@@ -1061,17 +1077,18 @@ public class InstructorController {
         CourseMaterial existingCourseMaterial = courseMaterialService.getCourseMaterialById( courseMaterialId );
         //Check if the existing Course Material is null
         if( existingCourseMaterial == null )
-            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "The particular course material does not exist" );
+            return CompletableFuture.completedFuture( errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "The particular course material does not exist" ) );
 
         String instructorData = instructor.getFirstName()+"_"+instructor.getLastName()+"_"+instructor.getId();
         String courseData = course.getTitle()+"_"+course.getId();
 
-        //Try deleting the existing file first before removing the file
-        boolean isExistingCourseMaterialDeleted = fileService.deleteCourseMaterial( existingCourseMaterial.getCourseMaterialUrl() ).isDeletionSuccessfull();
-
-        //If the existing course material has been deleted then we proceed to upload the new material.
-        if( isExistingCourseMaterialDeleted )
+        //Try deleting the existing file first before removing the file, the rest of the update runs once the deletion completes
+        return fileService.deleteCourseMaterial( existingCourseMaterial.getCourseMaterialUrl() ).thenApplyAsync( deletionResponse ->
         {
+            //If the existing course material has been deleted then we proceed to upload the new material.
+            if( !deletionResponse.isDeletionSuccessfull() )
+                return errorResponseMessageUtil.createErrorResponseMessages(HttpStatus.INTERNAL_SERVER_ERROR.value(),"Failed to delete the existing course material, Please try again later or contact Admin" );
+
             CourseMaterialDTO courseMaterialDTO = new CourseMaterialDTO();
 
             //Handle the Course Material Title update operation
@@ -1100,17 +1117,13 @@ public class InstructorController {
             }
             else
                 return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.INTERNAL_SERVER_ERROR.value(), "The course material details have not updated, Please contact admin ");
-
-        }
-        else
-        {
-            return errorResponseMessageUtil.createErrorResponseMessages(HttpStatus.INTERNAL_SERVER_ERROR.value(),"Failed to delete the existing course material, Please try again later or contact Admin" );
-        }
+        }, fileUpdateExecutor );
     }
 
     /**
      * Endpoint to delete a specific course material for a course.
      * Verifies instructor authorization, checks material validity, deletes the material file and database entry.
+     * The file is deleted on the file I/O executor and the database entry is removed on the file update executor once that completes.
      *
      * @param courseId           The ID of the course from which the material is being deleted.
      * @param courseMaterialId   The ID of the course material to be deleted.
@@ -1118,39 +1131,38 @@ public class InstructorController {
      * @return A ResponseEntity containing the result of the deletion or an error message if the operation fails.
      */
     @DeleteMapping("/deleteCourseMaterial/{courseId}/{courseMaterialId}")
-    public ResponseEntity<?> deleteCourseMaterial(@PathVariable Long courseId, @PathVariable("courseMaterialId") Long courseMaterialId, Authentication authentication)
+    public CompletableFuture<ResponseEntity<?>> deleteCourseMaterial(@PathVariable Long courseId, @PathVariable("courseMaterialId") Long courseMaterialId, Authentication authentication)
     {
         String email = authentication.getName();
 
         ResponseEntity<String> authResponse = instructorCourseAuth.validateInstructorForCourse(courseId, authentication);
 
         if (authResponse != null) {
-            return authResponse;
+            return CompletableFuture.completedFuture(authResponse);
         }
 
         //Check if the course exist
         Course courseDetails = courseService.findCourseById(courseId);
         //If the course is null, send error message to the user
         if( courseDetails == null )
-            return errorResponseMessageUtil.createErrorResponseMessages(HttpStatus.BAD_REQUEST.value(), "No course exist corresponding to the particular courseId");
+            return CompletableFuture.completedFuture( errorResponseMessageUtil.createErrorResponseMessages(HttpStatus.BAD_REQUEST.value(), "No course exist corresponding to the particular courseId") );
 
         //Since the course exist, check if the courseMaterialId is a valid property of the course
-        Map<String, Long> propertyMap = new HashMap<>();
-        propertyMap.put("courseMaterial",courseMaterialId);
         //Check if the property is a valid property, if not then send appropriate error message
-        if( !coursePropertyValidator.isPropertyOfTheCourse( courseId, propertyMap ) )
-            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "No course Material with the following ID correspond to this course");
+        if( !coursePropertyValidator.isPropertyOfTheCourse( courseId, CoursePropertyValidator.CourseProperty.COURSE_MATERIAL, courseMaterialId ) )
+            return CompletableFuture.completedFuture( errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "No course Material with the following ID correspond to this course") );
 
         //Fetch the corresponding course material details
         CourseMaterial courseMaterial = courseMaterialService.getCourseMaterialById( courseMaterialId );
         //Get the course Material URL
         String courseMaterialURL = courseMaterial.getCourseMaterialUrl();
 
-        //Try deleting the existing file first before removing the file
-        boolean isExistingCourseMaterialDeleted = fileService.deleteCourseMaterial( courseMaterialURL ).isDeletionSuccessfull();
-
-        if(  isExistingCourseMaterialDeleted )
+        //Try deleting the existing file first before removing the file, the database entry goes once the deletion completes
+        return fileService.deleteCourseMaterial( courseMaterialURL ).thenApplyAsync( deletionResponse ->
         {
+            if( !deletionResponse.isDeletionSuccessfull() )
+                return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.INTERNAL_SERVER_ERROR.value(), "Failure in removing the course material from storage, Please contact admin");
+
             //Delete the courseMaterial entry from the database
             courseMaterialService.deleteCourseMaterial( courseMaterialId );
             //Validate if the courseMaterial is deleted or not
@@ -1159,17 +1171,13 @@ public class InstructorController {
                 return sucessResponseMessageUtil.createSuccessResponseMessages( HttpStatus.OK.value(), "Course Material has been successfully deleted" );
             else
                 return sucessResponseMessageUtil.createSuccessResponseMessages( HttpStatus.OK.value(), "Failure in removing courseMaterial from database, Please contact admin" );
-        }
-        else
-        {
-            return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.INTERNAL_SERVER_ERROR.value(), "Failure in removing the course material from storage, Please contact admin");
-
-        }
+        }, fileUpdateExecutor );
     }
 
     /**
      * Endpoint to send a message to employees of a specific course.
      * Verifies instructor authorization, checks for valid course and recipient employee IDs, and sends the message to the employees.
+     * The recipients are validated against the enrollments and the messages are saved in one transaction, a few statements for a whole cohort.
      *
      * @param messageRequestDTO The message request containing the course ID, employee IDs, and message content.
      * @param authentication    The authentication details of the instructor sending the message.
@@ -1199,32 +1207,13 @@ public class InstructorController {
         if( employeeIds == null || employeeIds.isEmpty() )
             return errorResponseMessageUtil.createErrorResponseMessages( HttpStatus.BAD_REQUEST.value(), "Employee Ids need to be present in order for the Instructor to send messages");
 
-        //Create a list of MessageResponseDTO  List; Skip the employee IDs which are not part of the course
-        List<MessageResponseDTO> messageResponsesDTOList = employeeIds.stream().filter( employeeId -> {
-
-            //Check if the employeeId belongs to this course
-            List<Enrollment> employeeEnrollmentRecord = courseDetails.getEnrollments().stream().filter(enrollment -> {
-                return Objects.equals(enrollment.getEmployee().getId(), employeeId);
-            }).toList();
-
-            //Filters the list on the basis of whether the employee belongs to the list
-            return !employeeEnrollmentRecord.isEmpty();
-        }).map( filteredEmployeeId ->{
-
-            //Get the employee details
-            Users employeeDetails = userService.findUserById( filteredEmployeeId );
-            //Save the message object in the database
-            Message instructorMessage = Message.builder().sender( courseDetails.getInstructor() )
-                    .recipient( employeeDetails ).isRead( false ).course( courseDetails ).content( messageRequestDTO.getMessage() ).build();
-
-            //Save the message in the database
-            Message savedMessageDetails = messageService.createNewMessage( instructorMessage );
+        //Save all the messages in one transaction; the employee IDs which are not part of the course are skipped
+        List<Message> savedMessages = messageService.sendMessageToEmployees( courseDetails, employeeIds, messageRequestDTO.getMessage() );
 
-            //Create the Message Response DTO object by invoking the factory
-
-            return dtoObjectsCreator.createMessageResponseDTO( savedMessageDetails );
-
-        }).toList();
+        //Create the Message Response DTO objects by invoking the factory
+        List<MessageResponseDTO> messageResponsesDTOList = savedMessages.stream()
+                .map( savedMessageDetails -> dtoObjectsCreator.createMessageResponseDTO( savedMessageDetails ) )
+                .toList();
 
         //Send all the details of the messages to the Instructor
         return ResponseEntity.ok( messageResponsesDTOList );
@@ -1232,14 +1221,21 @@ public class InstructorController {
 
     /**
      * Endpoint to retrieve messages sent to employees in a specific course.
-     * Verifies instructor authorization, checks for valid course and recipient employees, and returns the list of sent messages.
+     * Verifies instructor authorization and returns one page of the messages the instructor sent in the course, newest first,
+     * grouped by recipient employee. The messages and their recipients are loaded by a single query, whatever the number of employees.
+     * When older messages exist, their cursor is returned in the X-Next-Cursor header and is passed back as the before parameter.
      *
      * @param courseId       The ID of the course for which the sent messages are being requested.
+     * @param before         The cursor of the page to fetch, from the X-Next-Cursor header of the previous page; absent for the newest messages.
+     * @param limit          The number of messages per page, messages.page.default-size when absent.
      * @param authentication The authentication details of the instructor requesting the sent messages.
      * @return A ResponseEntity containing a list of sent messages grouped by employee or an empty list if no messages are found.
      */
     @GetMapping( "/course/{courseId}/message/getSentMessages" )
-    public ResponseEntity<?> getMessagesSentToEmployee( @PathVariable("courseId") Long courseId, Authentication authentication )
+    public ResponseEntity<?> getMessagesSentToEmployee( @PathVariable("courseId") Long courseId,
+                                                        @RequestParam(value = "before", required = false) String before,
+                                                        @RequestParam(value = "limit", required = false) Integer limit,
+                                                        Authentication authentication )
     {
         //Check if the employee belongs to the particular course
         ResponseEntity<String> authResponse = instructorCourseAuth.validateInstructorForCourse(courseId, authentication);
@@ -1253,60 +1249,37 @@ public class InstructorController {
         //Get the instructor Details from the course
         Users instructorDetails = courseDetails.getInstructor();
 
-        //Get the unique List of employee who are the recipients of the messages from the Instructor
-        List<Long> employeeIds = messageService.getUniqueListOfRecipientEmployeesForInstructor( instructorDetails.getId(), courseDetails.getId() );
-        //Check if the employeeIds is empty
-        if( employeeIds == null || employeeIds.isEmpty() )
-            return ResponseEntity.ok( new ArrayList<>() );
-        else
-        {
-            //We basically now create the entire array of the message object by looping over the messages, additionally, we have to group the messages by the user.
-            List< CourseMessagesResponseDTO > courseMessagesResponseDTOList = employeeIds.stream().map( employeeId -> {
-
-                //Get the employee details associated with the employeeID
-                Users employeeDetails = userService.findUserById( employeeId );
-                //Set the User Details in a map
-                Map<String, String> userDetailsObject = new HashMap<>();
-                userDetailsObject.put("name", employeeDetails.getFirstName()+ " " + employeeDetails.getLastName());
-                userDetailsObject.put("email", employeeDetails.getEmail());
-                userDetailsObject.put("employeeId", String.valueOf( employeeDetails.getId()));
-
-                //Now we fetch the messages where this employee is the recipient of the message for this courseId
-                Optional<List<Message>> receivedMessagesByEmployee = messageService.getAllReceivedMessageForEmployee( employeeId, courseDetails.getId() );
-                //Check if the messages exist
-                if( receivedMessagesByEmployee.isPresent() )
-                {
-                    //Get the messages received by the Employee from this Instructor for this Particular Course
-                    List<Message> messages = receivedMessagesByEmployee.get();
-
-                    //Create the course message Response DTO list
-                    return dtoObjectsCreator.createCourseMessagesResponseDTO( userDetailsObject, messages );
-                }
-                else
-                {
-                    return dtoObjectsCreator.createCourseMessagesResponseDTO( userDetailsObject, new ArrayList<>() );
-                }
-            }).toList();
-            return ResponseEntity.ok( courseMessagesResponseDTOList );
-        }
+        //Load one page of the messages the instructor sent in this course together with their recipients, grouped by employee
+        MessageService.MessagePage sentMessagesPage = messageService.getInstructorOutbox( instructorDetails.getId(), courseDetails.getId(), KeysetCursor.parse( before ), limit );
+
+        List< CourseMessagesResponseDTO > courseMessagesResponseDTOList = sentMessagesPage.groupBy( Message::getRecipient ).entrySet().stream()
+                .map( conversation -> dtoObjectsCreator.createCourseMessagesResponseDTO( employeeDetailsMap( conversation.getKey() ), conversation.getValue() ) )
+                .toList();
+        return KeysetCursor.withNextCursor( ResponseEntity.ok(), sentMessagesPage.nextCursor() ).body( courseMessagesResponseDTOList );
     }
 
     /**
      * This endpoint retrieves all messages received by employees from the instructor of a specific course.
      *
      * The method first validates if the current authenticated user (instructor) is authorized to view the messages
-     * for the given course. If the user is authorized, the course details are fetched, and a list of unique employee
-     * IDs who have sent messages to the instructor is retrieved. For each employee, the method compiles the employee's
-     * details (name, email, employee ID) and any messages they have received from the instructor for the specified course.
+     * for the given course. If the user is authorized, one page of the messages the instructor received in the course
+     * is loaded, newest first, together with their senders by a single query and grouped by employee. Each group holds
+     * the employee's details (name, email, employee ID) and the messages they sent.
      *
-     * The response will include a list of messages grouped by employee, or an empty list if no messages exist.
+     * The response will include a list of messages grouped by employee, or an empty list if no messages exist. When
+     * older messages exist, their cursor is returned in the X-Next-Cursor header and is passed back as the before parameter.
      *
      * @param courseId The ID of the course for which received messages are being fetched.
+     * @param before The cursor of the page to fetch, from the X-Next-Cursor header of the previous page; absent for the newest messages.
+     * @param limit The number of messages per page, messages.page.default-size when absent.
      * @param authentication The authentication information of the current user (instructor).
      * @return A ResponseEntity containing a list of course message details or an empty list if no messages are found.
      */
     @GetMapping( "/course/{courseId}/message/getReceivedMessages" )
-    public ResponseEntity<?> getMessagesReceivedFromEmployee( @PathVariable("courseId") Long courseId, Authentication authentication )
+    public ResponseEntity<?> getMessagesReceivedFromEmployee( @PathVariable("courseId") Long courseId,
+                                                              @RequestParam(value = "before", required = false) String before,
+                                                              @RequestParam(value = "limit", required = false) Integer limit,
+                                                              Authentication authentication )
     {
         //Check if the employee belongs to the particular course
         ResponseEntity<String> authResponse = instructorCourseAuth.validateInstructorForCourse(courseId, authentication);
@@ -1320,42 +1293,23 @@ public class InstructorController {
         //Get the instructor Details from the course
         Users instructorDetails = courseDetails.getInstructor();
 
-        //Get the unique List of employee who have sent the mail to the Instructor
-        List<Long> employeeIds = messageService.getUniqueListOfSenderEmployeesForInstructor( instructorDetails.getId(), courseDetails.getId() );
-        //Check if the employeeIds is empty
-        if( employeeIds == null || employeeIds.isEmpty() )
-            return ResponseEntity.ok( new ArrayList<>() );
-        else
-        {
-            //We basically now create the entire array of the message object by looping over the messages, additionally, we have to group the messages by the user.
-            List< CourseMessagesResponseDTO > courseMessagesResponseDTOList = employeeIds.stream().map( employeeId -> {
-
-                //Get the employee details associated with the employeeID
-                Users employeeDetails = userService.findUserById( employeeId );
-                //Set the User Details in a map
-                Map<String, String> userDetailsObject = new HashMap<>();
-                userDetailsObject.put("name", employeeDetails.getFirstName()+ " " + employeeDetails.getLastName());
-                userDetailsObject.put("email", employeeDetails.getEmail());
-                userDetailsObject.put("employeeId", String.valueOf( employeeDetails.getId()));
-
-                //Now we fetch the messages where this employee is the recipient of the message for this courseId
-                Optional<List<Message>> sentMessagesByEmployee = messageService.getAllSentMessagesForEmployee( employeeId, courseDetails.getId() );
-                //Check if the messages exist
-                if( sentMessagesByEmployee.isPresent() )
-                {
-                    //Get the messages received by the Employee from this Instructor for this Particular Course
-                    List<Message> messages = sentMessagesByEmployee.get();
-
-                    //Create the course message Response DTO list
-                    return dtoObjectsCreator.createCourseMessagesResponseDTO( userDetailsObject, messages );
-                }
-                else
-                {
-                    return dtoObjectsCreator.createCourseMessagesResponseDTO( userDetailsObject, new ArrayList<>() );
-                }
-            }).toList();
-            return ResponseEntity.ok( courseMessagesResponseDTOList );
-        }
+        //Load one page of the messages the instructor received in this course together with their senders, grouped by employee
+        MessageService.MessagePage receivedMessagesPage = messageService.getInstructorInbox( instructorDetails.getId(), courseDetails.getId(), KeysetCursor.parse( before ), limit );
+
+        List< CourseMessagesResponseDTO > courseMessagesResponseDTOList = receivedMessagesPage.groupBy( Message::getSender ).entrySet().stream()
+                .map( conversation -> dtoObjectsCreator.createCourseMessagesResponseDTO( employeeDetailsMap( conversation.getKey() ), conversation.getValue() ) )
+                .toList();
+        return KeysetCursor.withNextCursor( ResponseEntity.ok(), receivedMessagesPage.nextCursor() ).body( courseMessagesResponseDTOList );
+    }
+
+    //Details of the employee shown with each conversation
+    private Map<String, String> employeeDetailsMap( Users employeeDetails )
+    {
+        Map<String, String> userDetailsObject = new HashMap<>();
+        userDetailsObject.put("name", employeeDetails.getFirstName()+ " " + employeeDetails.getLastName());
+        userDetailsObject.put("email", employeeDetails.getEmail());
+        userDetailsObject.put("employeeId", String.valueOf( employeeDetails.getId()));
+        return userDetailsObject;
     }
 
     /**
@@ -1396,6 +1350,25 @@ public class InstructorController {
     }
 
 
+    /**
+     * This endpoint returns the number of unread messages of the authenticated instructor, per course and employee.
+     *
+     * The counts are read from counters maintained when messages are sent and read, so the endpoint stays cheap
+     * enough to be polled for notification badges. Employees whose messages were all read are left out.
+     *
+     * @param courseId Optional ID of a course to restrict the counts to.
+     * @param authentication The authentication information of the current user (instructor).
+     * @return A ResponseEntity containing the total number of unread messages and the breakdown per course and employee.
+     */
+    @GetMapping("/unreadCounts")
+    public ResponseEntity<?> getUnreadMessageCounts( @RequestParam(value = "courseId", required = false) Long courseId, Authentication authentication )
+    {
+        //Get the instructor details from the authentication
+        Users instructorDetails = userService.findUserByEmail( authentication.getName() );
+
+        return ResponseEntity.ok( messageService.getUnreadCounts( instructorDetails.getId(), courseId ) );
+    }
+
     /**
      * This endpoint retrieves a list of all employees (students) enrolled in a specific course.
      *
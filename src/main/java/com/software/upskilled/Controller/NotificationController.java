@@ -0,0 +1,88 @@
+package com.software.upskilled.Controller;
+
+import com.software.upskilled.Entity.Users;
+import com.software.upskilled.config.JwtFilter;
+import com.software.upskilled.dto.StreamTokenResponseDTO;
+import com.software.upskilled.service.NotificationStreamService;
+import com.software.upskilled.service.UserService;
+import com.software.upskilled.utils.JWTUtil;
+import com.software.upskilled.utils.VerifiedTokenClaims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Date;
+
+@RestController
+@RequestMapping("/api/notifications")
+public class NotificationController {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+
+    @Autowired
+    private JWTUtil jwtUtil;
+
+    @Value("${notifications.sse.stream-token-ttl-seconds:60}")
+    private long streamTokenTtlSeconds;
+
+    /**
+     * Endpoint issuing a short-lived token to open the notification stream with, for clients that cannot send the
+     * Authorization header (the browser EventSource). The stream opened with it lasts as long as the access token used
+     * here, and is closed when that token is revoked.
+     *
+     * @param tokenClaims The claims of the access token of the request.
+     * @return The stream token and its expiry time.
+     */
+    @PostMapping("/stream-token")
+    public ResponseEntity<StreamTokenResponseDTO> createStreamToken( @RequestAttribute( JwtFilter.TOKEN_CLAIMS_ATTRIBUTE ) VerifiedTokenClaims tokenClaims )
+    {
+        StreamTokenResponseDTO streamTokenResponse = new StreamTokenResponseDTO();
+        streamTokenResponse.setStreamToken( jwtUtil.generateStreamToken( tokenClaims, streamTokenTtlSeconds * 1000 ) );
+        streamTokenResponse.setExpiresAt( new Date( Math.min( System.currentTimeMillis() + streamTokenTtlSeconds * 1000, tokenClaims.expiresAt() ) ) );
+        return ResponseEntity.ok().cacheControl( CacheControl.noStore() ).body( streamTokenResponse );
+    }
+
+    /**
+     * Endpoint opening the server-sent event stream of the authenticated user, whatever their role.
+     * The stream pushes the "message", "message-read" and "announcement" events as they are committed, with a heartbeat
+     * comment in between. A reconnecting client sends the id of the last event it received (the Last-Event-ID header that
+     * EventSource sets by itself, or the lastEventId parameter) and gets the events it missed, or a "resync" event when
+     * they are no longer available and the lists have to be reloaded.
+     *
+     * The request is authenticated with the Authorization header, or with the streamToken parameter obtained from
+     * /stream-token. EventSource only reconnects by itself while its stream token is valid; after that the client
+     * fetches a new token and opens a new EventSource, passing the id of the last event in the lastEventId parameter.
+     * The stream is closed when the access token expires or is revoked (logout).
+     *
+     * @param lastEventId    The Last-Event-ID header of a reconnecting client.
+     * @param lastEventIdParam The same id passed as a request parameter, for a new EventSource resuming a previous stream.
+     * @param tokenClaims    The claims of the access token of the request.
+     * @param authentication The authentication details of the user.
+     * @return The event stream of the user.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotifications( @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                           @RequestParam(value = "lastEventId", required = false) String lastEventIdParam,
+                                                           @RequestAttribute( JwtFilter.TOKEN_CLAIMS_ATTRIBUTE ) VerifiedTokenClaims tokenClaims,
+                                                           Authentication authentication )
+    {
+        //Get the user details from the authentication
+        Users userDetails = userService.findUserByEmail( authentication.getName() );
+
+        SseEmitter emitter = notificationStreamService.subscribe( userDetails.getId(), lastEventId != null ? lastEventId : lastEventIdParam, tokenClaims );
+        //Proxies must neither cache nor buffer the stream
+        return ResponseEntity.ok()
+                .cacheControl( CacheControl.noCache() )
+                .header( "X-Accel-Buffering", "no" )
+                .body( emitter );
+    }
+}
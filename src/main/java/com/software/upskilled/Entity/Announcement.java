@@ -8,6 +8,9 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.util.Date;
 
 @Entity
+@Table(name = "announcement", indexes = {
+        @Index(name = "idx_announcement_course_updated", columnList = "course_id, updated_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -18,6 +21,9 @@ public class Announcement {
      * Entity class representing an Announcement.
      * This class maps to a table in the database where announcements related
      * to courses are stored. Each announcement is associated with a specific course.
+     *
+     * The (course_id, updated_at) index serves the summary listing: InnoDB appends the id to it, so a page of
+     * (updated_at, id) keyset pagination is a single range scan.
      */
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,25 @@
+package com.software.upskilled.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "data_migration")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DataMigration {
+    /**
+     * Entity class recording a one-off data migration that has been applied to this database.
+     * The row is inserted in the same transaction as the migration itself, so its lock keeps other nodes from
+     * running the migration concurrently and a failed migration leaves no row behind.
+     */
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(name = "applied_at", nullable = false)
+    private Long appliedAt;
+}
@@ -7,6 +7,9 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.util.Date;
 
 @Entity
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_enrollment_course_employee", columnNames = {"course_id", "employee_id"})
+})
 @Getter
 @Setter
 @NoArgsConstructor
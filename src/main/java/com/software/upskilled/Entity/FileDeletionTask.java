@@ -0,0 +1,55 @@
+package com.software.upskilled.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+@Entity
+@Table(name = "file_deletion_task", indexes = {
+        @Index(name = "idx_file_deletion_task_due", columnList = "status, next_attempt_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FileDeletionTask {
+    /**
+     * Entity class representing an S3 object waiting to be deleted.
+     * Rows are written in the same transaction as the database change that orphaned the object, and are removed
+     * by the deletion worker once S3 confirmed the delete. Objects that keep failing are retried with a growing
+     * delay and end up DEAD after the last attempt, so they can be inspected instead of being lost.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_name", nullable = false, length = 63)
+    private String bucketName;
+
+    @Column(name = "object_key", nullable = false, length = 1024)
+    private String objectKey;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Long nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Long createdAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    public enum Status {
+        PENDING,
+        DEAD
+    }
+}
@@ -6,6 +6,10 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.util.Date;
 
 @Entity
+@Table(name = "message", indexes = {
+        @Index(name = "idx_message_recipient_course_sent", columnList = "recipient_id, course_id, sent_at"),
+        @Index(name = "idx_message_sender_course_sent", columnList = "sender_id, course_id, sent_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -23,9 +27,18 @@ public class Message {
      * - sentAt: The timestamp when the message was sent.
      * - isRead: A flag indicating whether the message has been read by the recipient.
      * - course: An optional association with a course, in case the message pertains to a specific course.
+     *
+     * The indexes serve the paginated message lists: InnoDB appends the id to them, so a page of (sent_at, id) keyset
+     * pagination is a single range scan.
+     *
+     * The ids come from the pooled message_seq generator rather than IDENTITY, which would make Hibernate insert
+     * every message on its own to read its key back: a broadcast to a cohort is sent as JDBC batches instead.
      */
+    public static final int ID_ALLOCATION_SIZE = 100;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "message_seq")
+    @SequenceGenerator(name = "message_seq", sequenceName = "message_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne
@@ -0,0 +1,34 @@
+package com.software.upskilled.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "revoked_token", indexes = {
+        @Index(name = "idx_revoked_token_revoked_at", columnList = "revoked_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevokedToken {
+    /**
+     * Entity class representing a revoked (logged out) JWT.
+     * Only the SHA-256 fingerprint of the token is stored, together with the token's own expiry,
+     * so the row can be purged as soon as the token would have been rejected anyway.
+     * Shared by all application nodes when the database revocation store is enabled.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 43)
+    private String fingerprint;
+
+    @Column(name = "expires_at", nullable = false)
+    private Long expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Long revokedAt;
+}
@@ -2,6 +2,8 @@ package com.software.upskilled.Entity;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.util.Date;
 
@@ -20,7 +22,8 @@ public class Submission {
      * Fields:
      * - submissionUrl: URL or file path where the employee's assignment is stored.
      * - submittedAt: The timestamp when the assignment was submitted.
-     * - status: The current status of the submission (e.g., Submitted, Graded, Pending Review).
+     * - status: The current status of the submission (e.g., Submitted, Graded, Pending Review). Submissions accepted by
+     *   the upload pipeline stay UPLOADING until their file is in S3, and become UPLOAD_FAILED if it never gets there.
      * - assignment: The assignment that the submission is related to.
      * - employee: The employee who made the submission.
      * - grade: The gradebook entry associated with the submission (if applicable).
@@ -36,8 +39,10 @@ public class Submission {
     @Column(updatable = false, name = "submitted_at")
     private Date submittedAt;
 
+    //Stored as a plain VARCHAR so new states do not need a MySQL ENUM column change
     @Enumerated(EnumType.STRING)
-    @Column(nullable = false)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(nullable = false, length = 32)
     private Status status;// "Submitted", "Graded", "Pending Review"
 
     @ManyToOne
@@ -54,6 +59,8 @@ public class Submission {
     public enum Status {
         SUBMITTED,
         GRADED,
-        PENDING
+        PENDING,
+        UPLOADING,
+        UPLOAD_FAILED
     }
 }
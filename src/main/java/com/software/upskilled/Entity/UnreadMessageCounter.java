@@ -0,0 +1,37 @@
+package com.software.upskilled.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "unread_message_counter", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_unread_message_counter", columnNames = {"recipient_id", "course_id", "sender_id"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UnreadMessageCounter {
+    /**
+     * Entity class holding the number of unread messages a user received from one sender in one course.
+     * It is kept up to date in the transaction that sends or reads the messages, so badges can be shown without
+     * counting the message table. The unique key on (recipient, course, sender) is what the upserts rely on,
+     * and its leading recipient column serves the lookups of a user's counters.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "recipient_id", nullable = false)
+    private Long recipientId;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "sender_id", nullable = false)
+    private Long senderId;
+
+    @Column(name = "unread_count", nullable = false)
+    private int unreadCount;
+}
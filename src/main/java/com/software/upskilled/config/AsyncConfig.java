@@ -0,0 +1,148 @@
+package com.software.upskilled.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enables {@code @Async} and provides the executors used by the file operations.
+ *
+ * fileIoExecutor ({@code @Async("fileIoExecutor")}) runs the S3 deletions. fileUpdateExecutor runs the work chained to
+ * a completed deletion, the upload of the replacement file and the database updates, so a long upload never holds a
+ * file I/O thread and cannot starve the deletions. Both pools and their queues are bounded (file-io.executor.* and
+ * file-update.executor.*). Once both are full the rejection policy applies: abort (the default) fails the call with a
+ * RejectedExecutionException, answered with 503, while caller-runs runs the task on the calling thread and so slows
+ * the callers down instead.
+ *
+ * Metrics: the executor metrics of each pool under the names file.io and file.update (active, queued, completed, pool
+ * size), and file.io.rejected / file.update.rejected for the tasks the pool could not take.
+ *
+ * With spring.threads.virtual.enabled on Java 21 (the virtual profile), each task runs on its own virtual thread
+ * instead. There is no pool to size then, so max-size only caps the tasks running at once, and a caller over the cap
+ * waits for a slot (cheap on a virtual request thread) rather than being rejected. Only file.io.active and
+ * file.update.active are reported in that mode.
+ *
+ * Declaring these executors makes Spring Boot skip its own applicationTaskExecutor, so it is declared here as well,
+ * built from the spring.task.execution.* settings: it stays the executor of unqualified {@code @Async} methods and of
+ * Spring MVC async requests instead of an unbounded SimpleAsyncTaskExecutor.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    public static final String FILE_IO_EXECUTOR = "fileIoExecutor";
+    public static final String FILE_UPDATE_EXECUTOR = "fileUpdateExecutor";
+
+    @Bean(name = FILE_IO_EXECUTOR)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolExecutor fileIoExecutor(MeterRegistry meterRegistry,
+                                             @Value("${file-io.executor.core-size:8}") int coreSize,
+                                             @Value("${file-io.executor.max-size:16}") int maxSize,
+                                             @Value("${file-io.executor.queue-capacity:200}") int queueCapacity,
+                                             @Value("${file-io.executor.keep-alive-seconds:60}") long keepAliveSeconds,
+                                             @Value("${file-io.executor.rejection-policy:abort}") String rejectionPolicy) {
+        return boundedExecutor("file.io", "file-io-", meterRegistry, coreSize, maxSize, queueCapacity, keepAliveSeconds, rejectionPolicy);
+    }
+
+    @Bean(name = FILE_IO_EXECUTOR)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualFileIoExecutor(MeterRegistry meterRegistry,
+                                                         @Value("${file-io.executor.max-size:16}") int maxSize) {
+        return virtualExecutor("file.io", "file-io-", meterRegistry, maxSize);
+    }
+
+    @Bean(name = FILE_UPDATE_EXECUTOR)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolExecutor fileUpdateExecutor(MeterRegistry meterRegistry,
+                                                 @Value("${file-update.executor.core-size:8}") int coreSize,
+                                                 @Value("${file-update.executor.max-size:16}") int maxSize,
+                                                 @Value("${file-update.executor.queue-capacity:100}") int queueCapacity,
+                                                 @Value("${file-update.executor.keep-alive-seconds:60}") long keepAliveSeconds,
+                                                 @Value("${file-update.executor.rejection-policy:abort}") String rejectionPolicy) {
+        return boundedExecutor("file.update", "file-update-", meterRegistry, coreSize, maxSize, queueCapacity, keepAliveSeconds, rejectionPolicy);
+    }
+
+    @Bean(name = FILE_UPDATE_EXECUTOR)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualFileUpdateExecutor(MeterRegistry meterRegistry,
+                                                             @Value("${file-update.executor.max-size:16}") int maxSize) {
+        return virtualExecutor("file.update", "file-update-", meterRegistry, maxSize);
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder threadPoolTaskExecutorBuilder) {
+        return threadPoolTaskExecutorBuilder.build();
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor applicationTaskExecutorVirtualThreads(SimpleAsyncTaskExecutorBuilder simpleAsyncTaskExecutorBuilder) {
+        return simpleAsyncTaskExecutorBuilder.build();
+    }
+
+    private static ThreadPoolExecutor boundedExecutor(String metricName, String threadNamePrefix, MeterRegistry meterRegistry,
+                                                      int coreSize, int maxSize, int queueCapacity, long keepAliveSeconds,
+                                                      String rejectionPolicy) {
+        RejectedExecutionHandler policy = "caller-runs".equalsIgnoreCase(rejectionPolicy)
+                ? new ThreadPoolExecutor.CallerRunsPolicy()
+                : new ThreadPoolExecutor.AbortPolicy();
+        Counter rejectedTasks = Counter.builder(metricName + ".rejected")
+                .description("Tasks the " + metricName + " pool could not take")
+                .tag("policy", rejectionPolicy.toLowerCase())
+                .register(meterRegistry);
+
+        //The extra threads up to max-size only start once the queue is full
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(coreSize, maxSize, keepAliveSeconds, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(threadNamePrefix),
+                (task, pool) -> {
+                    rejectedTasks.increment();
+                    policy.rejectedExecution(task, pool);
+                });
+        executor.allowCoreThreadTimeOut(true);
+        new ExecutorServiceMetrics(executor, metricName, Tags.empty()).bindTo(meterRegistry);
+        return executor;
+    }
+
+    private static SimpleAsyncTaskExecutor virtualExecutor(String metricName, String threadNamePrefix, MeterRegistry meterRegistry,
+                                                           int maxSize) {
+        AtomicInteger activeTasks = new AtomicInteger();
+        Gauge.builder(metricName + ".active", activeTasks, AtomicInteger::get)
+                .description("Tasks of the " + metricName + " executor running on virtual threads")
+                .register(meterRegistry);
+
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(maxSize);
+        executor.setTaskDecorator(task -> () -> {
+            activeTasks.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                activeTasks.decrementAndGet();
+            }
+        });
+        return executor;
+    }
+}
@@ -2,8 +2,12 @@ package com.software.upskilled.config;
 
 
 import com.software.upskilled.service.UserService;
+import com.software.upskilled.utils.AuthenticatedUser;
 import com.software.upskilled.utils.JWTUtil;
+import com.software.upskilled.utils.PrincipalCache;
 import com.software.upskilled.utils.TokenBlackListService;
+import com.software.upskilled.utils.VerifiedTokenClaims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,7 +15,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -21,6 +24,13 @@ import java.io.IOException;
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
+    //Request attribute holding the VerifiedTokenClaims of the access token the request was authenticated with
+    public static final String TOKEN_CLAIMS_ATTRIBUTE = "com.software.upskilled.config.JwtFilter.tokenClaims";
+
+    //EventSource cannot set headers, this endpoint also accepts a stream token as a query parameter
+    public static final String NOTIFICATION_STREAM_PATH = "/api/notifications/stream";
+    public static final String STREAM_TOKEN_PARAMETER = "streamToken";
+
     @Autowired
     private JWTUtil jwtUtil;
 
@@ -30,6 +40,9 @@ public class JwtFilter extends OncePerRequestFilter {
     @Autowired
     private TokenBlackListService blacklistService;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
 
     /**
      * Performs internal filtering of HTTP requests to extract and validate JWT tokens,
@@ -45,6 +58,13 @@ public class JwtFilter extends OncePerRequestFilter {
      * validates the token, and sets up the authentication context if the token is valid and
      * the user is not already authenticated. If the token is blacklisted, the response will
      * be set to unauthorized. Otherwise, the filter proceeds to the next filter in the chain.
+     *
+     * Resolved user details are kept in the {@link PrincipalCache} keyed by email and token issue time,
+     * so repeated requests with the same token do not query the users table every time.
+     *
+     * The notification stream can instead be opened with a stream token (see {@link JWTUtil#generateStreamToken}),
+     * which stands for the access token it was issued for. The claims of that access token are exposed to the
+     * controllers in the {@link #TOKEN_CLAIMS_ATTRIBUTE} request attribute.
      */
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
@@ -54,32 +74,52 @@ public class JwtFilter extends OncePerRequestFilter {
 
         String email = null;
         String jwt = null;
+        VerifiedTokenClaims claims = null;
 
         // Check if the Authorization header is present and starts with "Bearer "
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             // Extract the JWT token by removing the "Bearer " prefix
             jwt = authorizationHeader.substring(7);
 
-            // Extract the email/username from the JWT using a utility method
-            email = jwtUtil.extractUsername(jwt);
+            // Verify the token once and read the email/username and issue time from the decoded claims
+            claims = jwtUtil.verifyAndDecode(jwt);
+        } else if (NOTIFICATION_STREAM_PATH.equals(request.getServletPath())
+                && request.getParameter(STREAM_TOKEN_PARAMETER) != null) {
+            try {
+                // The stream token resolves to the claims of the access token it was issued for
+                claims = jwtUtil.verifyStreamToken(request.getParameter(STREAM_TOKEN_PARAMETER));
+            } catch (JwtException e) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+        }
+
+        if (claims != null) {
+            email = claims.subject();
 
             // Check if the token is blacklisted (e.g., manually logged out or invalidated)
-            if (blacklistService.isTokenBlacklisted(jwt)) {
+            if (blacklistService.isTokenBlacklisted(claims)) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 return;
             }
-
         }
         // If an email/username is extracted and no authentication is set in the SecurityContext
         if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.myUserDetailsService.loadUserByUsername(email);
+            // Resolve the principal from the cache first and only hit the database on a miss
+            long issuedAt = claims.issuedAt();
+            AuthenticatedUser userDetails = principalCache.get(email, issuedAt);
+            if (userDetails == null) {
+                userDetails = this.myUserDetailsService.loadAuthenticatedUser(email);
+                principalCache.put(email, issuedAt, userDetails);
+            }
             // Validate the JWT against the user details
-            if (jwtUtil.validateToken(jwt, userDetails.getUsername())) {
+            if (claims.subject().equals(userDetails.getUsername()) && !claims.isExpired()) {
                 // Create an authentication object and set it in the context
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 usernamePasswordAuthenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+                request.setAttribute(TOKEN_CLAIMS_ATTRIBUTE, claims);
             }
         }
         // Pass the request and response to the next filter in the chain
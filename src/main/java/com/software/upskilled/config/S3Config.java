@@ -0,0 +1,42 @@
+package com.software.upskilled.config;
+
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.regions.Regions;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.software.upskilled.utils.LocalFileSystemS3;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Provides the S3 client shared by the file services.
+ *
+ * With aws.s3.mode=aws (the default) a regular client is built from the configured access keys. With
+ * aws.s3.mode=local the buckets are plain directories under aws.s3.local-root, served by {@link LocalFileSystemS3},
+ * so the application and the tests can run without an AWS account.
+ */
+@Configuration
+public class S3Config {
+
+    @Bean
+    @ConditionalOnProperty(name = "aws.s3.mode", havingValue = "aws", matchIfMissing = true)
+    public AmazonS3 amazonS3(@Value("${aws.s3.accessKey}") String accessKey,
+                             @Value("${aws.s3.secretKey}") String secretKey) {
+        BasicAWSCredentials awsCredentials = new BasicAWSCredentials(accessKey, secretKey);
+        return AmazonS3ClientBuilder.standard()
+                .withCredentials(new AWSStaticCredentialsProvider(awsCredentials))
+                .withRegion(Regions.US_EAST_1)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "aws.s3.mode", havingValue = "local")
+    public AmazonS3 localFileSystemS3(@Value("${aws.s3.local-root:${java.io.tmpdir}/upskilled-s3}") String localRoot) {
+        return new LocalFileSystemS3(Path.of(localRoot));
+    }
+}
@@ -1,6 +1,8 @@
 package com.software.upskilled.config;
 
 import com.software.upskilled.service.UserService;
+import com.software.upskilled.utils.KeysetCursor;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -50,7 +52,9 @@ public class SecurityConfig {
         httpSecurity
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests((auth) -> {
-                    auth.requestMatchers("/api/admin/**").hasAuthority("ADMIN")
+                    //Async dispatches resume requests that were already authorized, and errors are rendered for any request
+                    auth.dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+                            .requestMatchers("/api/admin/**").hasAuthority("ADMIN")
                             .requestMatchers("/api/instructor/**").hasAuthority("INSTRUCTOR")
                             .requestMatchers("/api/employee/**").hasAuthority("EMPLOYEE")
                             .requestMatchers("/api/auth/**").permitAll()
@@ -72,6 +76,8 @@ public class SecurityConfig {
         configuration.setAllowedOriginPatterns(Arrays.asList("*"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        //Lets browser clients read the cursor of the next page of the message lists
+        configuration.setExposedHeaders(Arrays.asList(KeysetCursor.NEXT_CURSOR_HEADER));
         configuration.setAllowCredentials(true); // Allows sending cookies, etc.
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,23 @@
+package com.software.upskilled.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnnouncementNotificationDTO
+{
+    /**
+     * Data Transfer Object (DTO) pushed on the event streams of the employees enrolled in a course when one of its
+     * announcements is created or updated.
+     */
+    private Long announcementId;
+    private Long courseId;
+    private String title;
+    private String content;
+    private Date updatedAt;
+}
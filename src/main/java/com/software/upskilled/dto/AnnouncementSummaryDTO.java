@@ -0,0 +1,22 @@
+package com.software.upskilled.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnnouncementSummaryDTO
+{
+    /**
+     * Data Transfer Object (DTO) for an announcement in the summary listing: the start of the content stands in for the
+     * full body, which is fetched through getAnnouncementById.
+     */
+    private Long id;
+    private String title;
+    private String preview;
+    private Date updatedAt;
+}
@@ -1,15 +1,20 @@
 package com.software.upskilled.dto;
 
 import com.software.upskilled.Entity.Course;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Getter
 @Setter
+@NoArgsConstructor
+@AllArgsConstructor
 public class CourseInfoDTO {
     /**
      * Data Transfer Object (DTO) for representing detailed information about a course.
      * This DTO is used to transfer course details, including course status and instructor information.
+     * The all-args constructor is used by the catalog projection in CourseRepository, keep the field order in sync.
      */
     private Long id;
     private String title;
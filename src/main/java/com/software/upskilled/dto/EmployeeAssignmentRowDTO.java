@@ -0,0 +1,33 @@
+package com.software.upskilled.dto;
+
+import com.software.upskilled.Entity.Submission;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeAssignmentRowDTO
+{
+    /**
+     * Projection of an assignment of a course together with the submission of one employee and its grade, read in a
+     * single query for the assignment dashboard of the employee. The submission and grade fields are null when the
+     * employee has not submitted or has not been graded yet.
+     */
+    private Long assignmentId;
+    private String title;
+    private String description;
+    private Long deadline;
+    private Long instructorId;
+    private Long submissionId;
+    private String submissionUrl;
+    private Date submittedAt;
+    private Submission.Status submissionStatus;
+    private Long gradeBookId;
+    private Integer grade;
+    private String feedback;
+    private Date gradedAt;
+}
@@ -0,0 +1,23 @@
+package com.software.upskilled.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageNotificationDTO
+{
+    /**
+     * Data Transfer Object (DTO) pushed on the event stream of the recipient when a message is sent to them.
+     */
+    private Long messageId;
+    private Long courseId;
+    private Long senderId;
+    private Long recipientId;
+    private String message;
+    private Date sentAt;
+}
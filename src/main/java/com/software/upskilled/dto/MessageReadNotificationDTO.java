@@ -0,0 +1,20 @@
+package com.software.upskilled.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageReadNotificationDTO
+{
+    /**
+     * Data Transfer Object (DTO) pushed on the event streams of both sides of a conversation when the recipient reads
+     * messages. messageId is null when every message of the sender in the course was marked as read at once.
+     */
+    private Long messageId;
+    private Long courseId;
+    private Long senderId;
+    private Long recipientId;
+}
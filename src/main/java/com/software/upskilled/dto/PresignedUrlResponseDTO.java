@@ -0,0 +1,18 @@
+package com.software.upskilled.dto;
+
+import lombok.Data;
+
+import java.util.Date;
+
+@Data
+public class PresignedUrlResponseDTO {
+        /**
+         * Data Transfer Object (DTO) returned by the file view endpoints when files are delivered through pre-signed URLs.
+         * The client downloads the file straight from S3 with the URL, which stops working at the expiry time.
+         * Upload URLs for a submission update also carry the uploadId to pass back to the confirm endpoint.
+         */
+        private String url;
+        private String fileName;
+        private Date expiresAt;
+        private String uploadId;
+}
@@ -0,0 +1,16 @@
+package com.software.upskilled.dto;
+
+import lombok.Data;
+
+import java.util.Date;
+
+@Data
+public class StreamTokenResponseDTO {
+        /**
+         * Data Transfer Object (DTO) returned by the stream token endpoint. The token is passed as the streamToken
+         * parameter of the notification stream by clients that cannot send the Authorization header (EventSource),
+         * and can only be used to open a stream until the expiry time.
+         */
+        private String streamToken;
+        private Date expiresAt;
+}
@@ -0,0 +1,19 @@
+package com.software.upskilled.dto;
+
+import com.software.upskilled.Entity.Submission;
+import lombok.Data;
+
+import java.util.Date;
+
+@Data
+public class SubmissionUploadStatusDTO {
+        /**
+         * Data Transfer Object (DTO) describing an assignment submission handled by the upload pipeline.
+         * The status stays UPLOADING until the file is stored in S3, then becomes SUBMITTED,
+         * or UPLOAD_FAILED if every upload attempt failed and the file has to be uploaded again.
+         */
+        private Long submissionId;
+        private String filePath;
+        private Submission.Status status;
+        private Date submittedAt;
+}
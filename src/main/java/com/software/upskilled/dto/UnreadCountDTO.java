@@ -0,0 +1,18 @@
+package com.software.upskilled.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UnreadCountDTO
+{
+    /**
+     * Data Transfer Object (DTO) for the number of unread messages received from one sender in one course.
+     */
+    private Long courseId;
+    private Long senderId;
+    private int unreadCount;
+}
@@ -0,0 +1,21 @@
+package com.software.upskilled.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UnreadCountsResponseDTO
+{
+    /**
+     * Data Transfer Object (DTO) for the unread message badges of a user.
+     * It holds the total number of unread messages and the breakdown per course and sender; senders whose messages
+     * were all read are left out.
+     */
+    private long totalUnread;
+    private List<UnreadCountDTO> counts;
+}
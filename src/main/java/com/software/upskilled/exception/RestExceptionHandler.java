@@ -0,0 +1,81 @@
+package com.software.upskilled.exception;
+
+import com.software.upskilled.dto.ErrorResponseDTO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Translates exceptions thrown by the services into error responses shared by all controllers.
+ */
+@RestControllerAdvice
+public class RestExceptionHandler {
+
+    /**
+     * Answers a saturated upload pipeline with 429 and a Retry-After header, so clients back off instead of
+     * piling more requests onto busy threads.
+     */
+    @ExceptionHandler(UploadCapacityExceededException.class)
+    public ResponseEntity<ErrorResponseDTO> handleUploadCapacityExceeded(UploadCapacityExceededException exception) {
+        ErrorResponseDTO errorResponseDTO = new ErrorResponseDTO();
+        errorResponseDTO.setHttpCode(HttpStatus.TOO_MANY_REQUESTS.value());
+        errorResponseDTO.setMessage(exception.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(errorResponseDTO);
+    }
+
+    /**
+     * Answers 503 when the file I/O or file update executor is saturated and its rejection policy is abort. The
+     * {@code @Async} calls fail with Spring's TaskRejectedException, the steps chained with thenApplyAsync with the
+     * plain RejectedExecutionException it extends.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ErrorResponseDTO> handleTaskRejected(RejectedExecutionException exception) {
+        ErrorResponseDTO errorResponseDTO = new ErrorResponseDTO();
+        errorResponseDTO.setHttpCode(HttpStatus.SERVICE_UNAVAILABLE.value());
+        errorResponseDTO.setMessage("The server is busy with other file operations, please try again shortly");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponseDTO);
+    }
+
+    /**
+     * Answers 503 with a Retry-After header when no database connection could be obtained within the Hikari
+     * connection timeout, so a burst of requests fails fast instead of queueing on the pool.
+     */
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<ErrorResponseDTO> handleConnectionPoolExhausted(CannotCreateTransactionException exception) {
+        ErrorResponseDTO errorResponseDTO = new ErrorResponseDTO();
+        errorResponseDTO.setHttpCode(HttpStatus.SERVICE_UNAVAILABLE.value());
+        errorResponseDTO.setMessage("The server is busy, please try again shortly");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponseDTO);
+    }
+
+    /**
+     * Answers 409 when a new submission is confirmed for an assignment the employee has already submitted.
+     */
+    @ExceptionHandler(SubmissionAlreadyExistsException.class)
+    public ResponseEntity<ErrorResponseDTO> handleSubmissionAlreadyExists(SubmissionAlreadyExistsException exception) {
+        ErrorResponseDTO errorResponseDTO = new ErrorResponseDTO();
+        errorResponseDTO.setHttpCode(HttpStatus.CONFLICT.value());
+        errorResponseDTO.setMessage(exception.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponseDTO);
+    }
+
+    /**
+     * Answers 400 when the before cursor of a paginated list was not issued by the server.
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponseDTO> handleInvalidCursor(InvalidCursorException exception) {
+        ErrorResponseDTO errorResponseDTO = new ErrorResponseDTO();
+        errorResponseDTO.setHttpCode(HttpStatus.BAD_REQUEST.value());
+        errorResponseDTO.setMessage(exception.getMessage());
+        return ResponseEntity.badRequest().body(errorResponseDTO);
+    }
+}
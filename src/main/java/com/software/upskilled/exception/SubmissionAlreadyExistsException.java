@@ -0,0 +1,11 @@
+package com.software.upskilled.exception;
+
+/**
+ * Thrown when an employee confirms a new submission for an assignment they have already submitted.
+ */
+public class SubmissionAlreadyExistsException extends RuntimeException {
+
+    public SubmissionAlreadyExistsException(Long assignmentId) {
+        super("The assignment " + assignmentId + " has already been submitted, use the update endpoint to replace the file");
+    }
+}
@@ -0,0 +1,18 @@
+package com.software.upskilled.exception;
+
+/**
+ * Thrown when every upload slot is busy, so the client should retry the upload later.
+ */
+public class UploadCapacityExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public UploadCapacityExceededException(long retryAfterSeconds) {
+        super("Too many uploads in progress, please retry in " + retryAfterSeconds + " seconds");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,10 +1,13 @@
 package com.software.upskilled.repository;
 
 import com.software.upskilled.Entity.Announcement;
+import com.software.upskilled.dto.AnnouncementSummaryDTO;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 
@@ -19,4 +22,16 @@ public interface AnnouncementRepository extends JpaRepository<Announcement, Long
     List<Announcement> getAnnouncementsSortedByUpdateTime(@Param("courseId") Long courseId);
 
     void deleteByCourseId(Long courseId);
+
+    //First page, only the start of the content is read and the ordering follows the (course_id, updated_at) index
+    @Query("select new com.software.upskilled.dto.AnnouncementSummaryDTO(a.id, a.title, substring(a.content, 1, :previewLength), a.updatedAt) " +
+            "from Announcement a where a.course.id = :courseId order by a.updatedAt desc, a.id desc")
+    List<AnnouncementSummaryDTO> getAnnouncementSummaries(@Param("courseId") Long courseId, @Param("previewLength") int previewLength, Limit limit);
+
+    //Only the start of the content is read, the keyset condition and ordering follow the (course_id, updated_at) index
+    @Query("select new com.software.upskilled.dto.AnnouncementSummaryDTO(a.id, a.title, substring(a.content, 1, :previewLength), a.updatedAt) " +
+            "from Announcement a where a.course.id = :courseId " +
+            "and (a.updatedAt < :beforeUpdatedAt or (a.updatedAt = :beforeUpdatedAt and a.id < :beforeId)) order by a.updatedAt desc, a.id desc")
+    List<AnnouncementSummaryDTO> getAnnouncementSummaries(@Param("courseId") Long courseId, @Param("previewLength") int previewLength,
+                                                          @Param("beforeUpdatedAt") Date beforeUpdatedAt, @Param("beforeId") long beforeId, Limit limit);
 }
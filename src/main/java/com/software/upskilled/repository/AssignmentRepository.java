@@ -1,6 +1,7 @@
 package com.software.upskilled.repository;
 
 import com.software.upskilled.Entity.Assignment;
+import com.software.upskilled.dto.EmployeeAssignmentRowDTO;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -21,6 +22,15 @@ public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     @Query("from Assignment where course.id =:courseId order by deadline asc")
     List<Assignment> findAssignmentsSortedByDeadline(@Param("courseId") long courseId );
 
+    //Only the submission of the given employee and its grade are joined, instead of loading every submission of each assignment
+    @Query("select new com.software.upskilled.dto.EmployeeAssignmentRowDTO(a.id, a.title, a.description, a.deadline, a.createdBy.id, " +
+            "s.id, s.submissionUrl, s.submittedAt, s.status, g.id, g.grade, g.feedback, g.gradedAt) " +
+            "from Assignment a left join Submission s on s.assignment = a and s.employee.id = :employeeId left join s.grade g " +
+            "where a.course.id = :courseId order by a.deadline asc, a.id asc, s.id asc")
+    List<EmployeeAssignmentRowDTO> findAssignmentsWithEmployeeSubmission(@Param("courseId") long courseId, @Param("employeeId") long employeeId );
+
     void deleteAllByCourseId(Long courseId);
+
+    boolean existsByIdAndCourseId(Long id, Long courseId);
 }
 
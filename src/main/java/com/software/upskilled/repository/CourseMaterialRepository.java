@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -26,4 +27,12 @@ public interface CourseMaterialRepository extends JpaRepository<CourseMaterial,
     List<CourseMaterial> findAllByCourseId(Long courseId);
 
     void deleteByCourseId(Long courseId);
+
+    boolean existsByIdAndCourseId(Long id, Long courseId);
+
+    /**
+     * Returns the given file paths that a course material still points to.
+     */
+    @Query("select cm.courseMaterialUrl from CourseMaterial cm where cm.courseMaterialUrl in :urls")
+    List<String> findReferencedCourseMaterialUrls(@Param("urls") Collection<String> urls);
 }
@@ -1,17 +1,51 @@
 package com.software.upskilled.repository;
 
 import com.software.upskilled.Entity.Course;
+import com.software.upskilled.dto.CourseInfoDTO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Repository for managing Course entities. Provides methods to retrieve
- * courses by title and by instructor ID.
+ * courses by title and by instructor ID, and the projections backing the course catalog.
  */
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long> {
     Course findByTitle(String title);
     List<Course> findByInstructorId(Long id);
+
+    /**
+     * Returns the given file paths that a course still uses as its syllabus.
+     */
+    @Query("SELECT c.syllabusUrl FROM Course c WHERE c.syllabusUrl IN :urls")
+    List<String> findReferencedSyllabusUrls(Collection<String> urls);
+
+    /**
+     * Catalog projection of the courses with the given status, newest first, joined with their instructor
+     * in the same query. Pass the id of the last course of the previous page as {@code afterId} (or null for
+     * the first page) and the page size through {@code pageable}.
+     */
+    @Query("SELECT new com.software.upskilled.dto.CourseInfoDTO(c.id, c.title, c.description, " +
+            "CONCAT(i.firstName, ' ', i.lastName), i.id, c.name, c.status) " +
+            "FROM Course c JOIN c.instructor i " +
+            "WHERE c.status = :status AND (:afterId IS NULL OR c.id < :afterId) " +
+            "ORDER BY c.id DESC")
+    List<CourseInfoDTO> findCourseCatalog(Course.Status status, Long afterId, Pageable pageable);
+
+    /**
+     * Same as {@link #findCourseCatalog} but leaves out the courses the employee is already enrolled in.
+     */
+    @Query("SELECT new com.software.upskilled.dto.CourseInfoDTO(c.id, c.title, c.description, " +
+            "CONCAT(i.firstName, ' ', i.lastName), i.id, c.name, c.status) " +
+            "FROM Course c JOIN c.instructor i " +
+            "WHERE c.status = :status AND (:afterId IS NULL OR c.id < :afterId) " +
+            "AND NOT EXISTS (SELECT e.id FROM Enrollment e WHERE e.course = c AND e.employee.id = :employeeId) " +
+            "ORDER BY c.id DESC")
+    List<CourseInfoDTO> findCourseCatalogExcludingEmployee(Course.Status status, Long employeeId, Long afterId,
+                                                          Pageable pageable);
 }
@@ -0,0 +1,24 @@
+package com.software.upskilled.repository;
+
+import com.software.upskilled.Entity.DataMigration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for the markers of the one-off data migrations.
+ */
+@Repository
+public interface DataMigrationRepository extends JpaRepository<DataMigration, String> {
+
+    /**
+     * Inserts the marker of the migration, joining the caller's transaction. A node racing for the same marker blocks
+     * on the row until the transaction that inserted it ends, then gets 0 if it committed.
+     *
+     * @return 1 if the caller now owns the migration, 0 if it has already been applied.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO data_migration (name, applied_at) VALUES (:name, :appliedAt)", nativeQuery = true)
+    int markApplied(String name, Long appliedAt);
+}
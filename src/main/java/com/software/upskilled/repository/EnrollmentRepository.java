@@ -1,15 +1,21 @@
 package com.software.upskilled.repository;
 
 import com.software.upskilled.Entity.Enrollment;
+import com.software.upskilled.Entity.Users;
 import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
 /**
  * Repository for managing Enrollment entities. Provides method to delete
- * an enrollment by employee ID and course ID.
+ * an enrollment by employee ID and course ID, and index-backed membership lookups
+ * on the unique (course_id, employee_id) constraint.
  */
 @Repository
 public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
@@ -17,4 +23,13 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     @Transactional
     @Query("DELETE FROM Enrollment e WHERE e.employee.id = :employeeId AND e.course.id = :courseId")
     void deleteByEmployeeIdAndCourseId(Long employeeId, Long courseId);
+
+    boolean existsByCourseIdAndEmployeeId(Long courseId, Long employeeId);
+
+    @Query("SELECT e.employee.id FROM Enrollment e WHERE e.course.id = :courseId")
+    Set<Long> findEmployeeIdsByCourseId(Long courseId);
+
+    //One IN query over the (course_id, employee_id) constraint validates a whole list of recipients
+    @Query("SELECT e.employee FROM Enrollment e WHERE e.course.id = :courseId AND e.employee.id IN :employeeIds")
+    List<Users> findEnrolledEmployees(Long courseId, Collection<Long> employeeIds);
 }
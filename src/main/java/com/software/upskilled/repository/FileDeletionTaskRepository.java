@@ -0,0 +1,32 @@
+package com.software.upskilled.repository;
+
+import com.software.upskilled.Entity.FileDeletionTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the S3 deletion queue.
+ */
+@Repository
+public interface FileDeletionTaskRepository extends JpaRepository<FileDeletionTask, Long> {
+
+    /**
+     * Locks a batch of due tasks for the calling transaction. SKIP LOCKED (MySQL 8) lets every node drain the queue
+     * at the same time without two of them picking the same rows.
+     */
+    @Query(value = "SELECT * FROM file_deletion_task WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<FileDeletionTask> lockDueTasks(Long now, int limit);
+
+    /**
+     * Ids of the tasks, pending or dead, queued for the given objects. A plain read that takes no locks, the rows are
+     * then deleted by id so only those rows are locked.
+     */
+    @Query("select t.id from FileDeletionTask t where t.bucketName = :bucketName and t.objectKey in :objectKeys")
+    List<Long> findIdsByBucketNameAndObjectKeys(String bucketName, Collection<String> objectKeys);
+
+}
@@ -1,6 +1,7 @@
 package com.software.upskilled.repository;
 
 import com.software.upskilled.Entity.Message;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,36 +11,80 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * Repository for managing Message entities. Provides methods for retrieving
  * sent and received messages for employees, as well as updating message read statuses.
- * It also includes queries to fetch unique sender and recipient lists based on course context.
+ * Message lists are read a page at a time, newest first, with keyset pagination on (sent_at, id).
  */
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long>
 {
-    @Query("from Message where sender.id = :senderId and course.id = :courseId order by sentAt desc ")
-    public Optional<List<Message>> getSentMessagesForEmployee(@Param("senderId") long senderId, @Param("courseId") long courseId);
+    //First page, the ordering follows the (sender_id, course_id, sent_at) index
+    @Query("from Message mssg where mssg.sender.id = :senderId and mssg.course.id = :courseId order by mssg.sentAt desc, mssg.id desc")
+    public List<Message> getSentMessagesForEmployee( @Param("senderId") long senderId, @Param("courseId") long courseId, Limit limit );
 
-    @Query("from Message where recipient.id = :recipientId and course.id = :courseId order by sentAt desc")
-    public Optional<List<Message>> getReceivedMessagesForEmployee(@Param("recipientId") long recipientId, @Param("courseId") long courseId);
+    //The keyset condition and ordering follow the (sender_id, course_id, sent_at) index
+    @Query("from Message mssg where mssg.sender.id = :senderId and mssg.course.id = :courseId " +
+            "and (mssg.sentAt < :beforeSentAt or (mssg.sentAt = :beforeSentAt and mssg.id < :beforeId)) order by mssg.sentAt desc, mssg.id desc")
+    public List<Message> getSentMessagesForEmployee( @Param("senderId") long senderId, @Param("courseId") long courseId,
+                                                     @Param("beforeSentAt") Date beforeSentAt, @Param("beforeId") long beforeId, Limit limit );
 
-    //Employees act as a sender in this instance
-    @Query("select distinct mssg.sender.id from Message mssg where mssg.recipient.id = :recipientId and mssg.course.id =:courseId")
-    public List<Long> getUniqueEmployeeSenderListForInstructor(@Param("recipientId") long recipientId, @Param("courseId") long courseId );
+    //First page, the ordering follows the (recipient_id, course_id, sent_at) index
+    @Query("from Message mssg where mssg.recipient.id = :recipientId and mssg.course.id = :courseId order by mssg.sentAt desc, mssg.id desc")
+    public List<Message> getReceivedMessagesForEmployee( @Param("recipientId") long recipientId, @Param("courseId") long courseId, Limit limit );
 
-    //Employees are the recipient in this instance
-    @Query("select distinct mssg.recipient.id from Message mssg where mssg.sender.id = :senderId and mssg.course.id = :courseId")
-    public List<Long> getUniqueEmployeeRecipientListFromInstructor( @Param("senderId") long senderId, @Param("courseId") long courseId );
+    //The keyset condition and ordering follow the (recipient_id, course_id, sent_at) index
+    @Query("from Message mssg where mssg.recipient.id = :recipientId and mssg.course.id = :courseId " +
+            "and (mssg.sentAt < :beforeSentAt or (mssg.sentAt = :beforeSentAt and mssg.id < :beforeId)) order by mssg.sentAt desc, mssg.id desc")
+    public List<Message> getReceivedMessagesForEmployee( @Param("recipientId") long recipientId, @Param("courseId") long courseId,
+                                                         @Param("beforeSentAt") Date beforeSentAt, @Param("beforeId") long beforeId, Limit limit );
+
+    //First page of the instructor outbox, the recipients are fetched in the same select
+    @Query("select mssg from Message mssg join fetch mssg.recipient where mssg.sender.id = :instructorId and mssg.course.id = :courseId " +
+            "order by mssg.sentAt desc, mssg.id desc")
+    public List<Message> getMessagesSentByInstructorWithRecipients( @Param("instructorId") long instructorId, @Param("courseId") long courseId, Limit limit );
+
+    //Page of the instructor outbox in one query, the recipients are fetched in the same select
+    @Query("select mssg from Message mssg join fetch mssg.recipient where mssg.sender.id = :instructorId and mssg.course.id = :courseId " +
+            "and (mssg.sentAt < :beforeSentAt or (mssg.sentAt = :beforeSentAt and mssg.id < :beforeId)) order by mssg.sentAt desc, mssg.id desc")
+    public List<Message> getMessagesSentByInstructorWithRecipients( @Param("instructorId") long instructorId, @Param("courseId") long courseId,
+                                                                    @Param("beforeSentAt") Date beforeSentAt, @Param("beforeId") long beforeId, Limit limit );
+
+    //First page of the instructor inbox, the senders are fetched in the same select
+    @Query("select mssg from Message mssg join fetch mssg.sender where mssg.recipient.id = :instructorId and mssg.course.id = :courseId " +
+            "order by mssg.sentAt desc, mssg.id desc")
+    public List<Message> getMessagesReceivedByInstructorWithSenders( @Param("instructorId") long instructorId, @Param("courseId") long courseId, Limit limit );
+
+    //Page of the instructor inbox in one query, the senders are fetched in the same select
+    @Query("select mssg from Message mssg join fetch mssg.sender where mssg.recipient.id = :instructorId and mssg.course.id = :courseId " +
+            "and (mssg.sentAt < :beforeSentAt or (mssg.sentAt = :beforeSentAt and mssg.id < :beforeId)) order by mssg.sentAt desc, mssg.id desc")
+    public List<Message> getMessagesReceivedByInstructorWithSenders( @Param("instructorId") long instructorId, @Param("courseId") long courseId,
+                                                                     @Param("beforeSentAt") Date beforeSentAt, @Param("beforeId") long beforeId, Limit limit );
 
     public Message getMessageById(long id);
 
+    //Only flips an unread message, so that concurrent reads update the unread counters once
+    @Modifying
+    @Query("update Message mssg set mssg.isRead = true where mssg.id = :messageId and mssg.isRead = false")
+    public int markMessageAsRead( @Param("messageId") Long messageId );
+
     @Transactional
     @Modifying( flushAutomatically = true )
     @Query("update Message mssg set mssg.isRead = true where mssg.recipient.id = :recipientId and mssg.sender.id = :senderId and mssg.course.id = :courseId and mssg.isRead = false")
     public int updateReadStatusOfReceivedMessagesFromEmployee( @Param("recipientId") Long recipientId, @Param("senderId") Long senderId,
                                                               @Param("courseId") Long courseId );
+
+    /**
+     * Moves the message id generator past the ids already in the table, for databases whose messages were keyed by
+     * AUTO_INCREMENT before the generator existed. MySQL has no sequences, Hibernate keeps message_seq as a one-row
+     * table; the margin of one allocation keeps the first pooled block clear of the existing ids.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE message_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + :allocationSize + 1 FROM message) " +
+            "WHERE next_val < (SELECT COALESCE(MAX(id), 0) + :allocationSize + 1 FROM message)", nativeQuery = true)
+    public int alignIdSequence( @Param("allocationSize") int allocationSize );
 }
@@ -0,0 +1,26 @@
+package com.software.upskilled.repository;
+
+import com.software.upskilled.Entity.RevokedToken;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for the shared token revocation table. Provides the incremental read used by every node
+ * to refresh its local copy and the cleanup of revocations whose token has expired.
+ */
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    @Query("SELECT r FROM RevokedToken r WHERE r.revokedAt >= :revokedSince AND r.expiresAt > :now")
+    List<RevokedToken> findActiveRevocationsSince(Long revokedSince, Long now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(Long now);
+}
@@ -2,10 +2,13 @@ package com.software.upskilled.repository;
 
 import com.software.upskilled.Entity.Submission;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -22,4 +25,22 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long>
     List<Submission> getSubmissionsSortedBySubmissionTime(@Param("assignmentId") Long assignmentId);
 
     List<Submission> findByEmployee_IdAndAssignment_Course_Id(Long employeeId, Long courseId);
+
+    boolean existsByIdAndAssignmentId(Long id, Long assignmentId);
+
+    boolean existsByAssignment_IdAndEmployee_Id(Long assignmentId, Long employeeId);
+
+    List<Submission> findByStatus(Submission.Status status);
+
+    /**
+     * Returns the given file paths that a submission still points to.
+     */
+    @Query("select s.submissionUrl from Submission s where s.submissionUrl in :urls")
+    List<String> findReferencedSubmissionUrls(@Param("urls") Collection<String> urls);
+
+    @Modifying
+    @Transactional
+    @Query("update Submission s set s.status = :newStatus where s.id = :id and s.status = :expectedStatus")
+    int updateStatusIfCurrent(@Param("id") Long id, @Param("expectedStatus") Submission.Status expectedStatus,
+                              @Param("newStatus") Submission.Status newStatus);
 }
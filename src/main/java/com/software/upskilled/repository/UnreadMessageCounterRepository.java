@@ -0,0 +1,53 @@
+package com.software.upskilled.repository;
+
+import com.software.upskilled.Entity.UnreadMessageCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the unread message counters. The writes are single-row statements that MySQL applies atomically,
+ * so concurrent sends and reads never lose an update; they join the transaction that changes the messages.
+ */
+@Repository
+public interface UnreadMessageCounterRepository extends JpaRepository<UnreadMessageCounter, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO unread_message_counter (recipient_id, course_id, sender_id, unread_count) " +
+            "VALUES (:recipientId, :courseId, :senderId, :count) " +
+            "ON DUPLICATE KEY UPDATE unread_count = unread_count + :count", nativeQuery = true)
+    int increment(Long recipientId, Long courseId, Long senderId, int count);
+
+    /**
+     * Counts one more unread message from the sender in the course for each recipient, in a single statement.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO unread_message_counter (recipient_id, course_id, sender_id, unread_count) " +
+            "SELECT u.id, :courseId, :senderId, 1 FROM users u WHERE u.id IN (:recipientIds) " +
+            "ON DUPLICATE KEY UPDATE unread_count = unread_count + 1", nativeQuery = true)
+    int incrementForRecipients(Collection<Long> recipientIds, Long courseId, Long senderId);
+
+    @Modifying
+    @Query(value = "UPDATE unread_message_counter SET unread_count = GREATEST(unread_count - :count, 0) " +
+            "WHERE recipient_id = :recipientId AND course_id = :courseId AND sender_id = :senderId", nativeQuery = true)
+    int decrement(Long recipientId, Long courseId, Long senderId, int count);
+
+    List<UnreadMessageCounter> findByRecipientIdAndUnreadCountGreaterThan(Long recipientId, int unreadCount);
+
+    List<UnreadMessageCounter> findByRecipientIdAndCourseIdAndUnreadCountGreaterThan(Long recipientId, Long courseId, int unreadCount);
+
+    /**
+     * Sets the counters to the number of messages that are still unread, for databases created before the counters
+     * existed. Counters already maintained by sends are overwritten with the same count rather than added to.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO unread_message_counter (recipient_id, course_id, sender_id, unread_count) " +
+            "SELECT * FROM (SELECT recipient_id, course_id, sender_id, COUNT(*) AS unread FROM message " +
+            "WHERE is_read = false AND course_id IS NOT NULL GROUP BY recipient_id, course_id, sender_id) AS unread_messages " +
+            "ON DUPLICATE KEY UPDATE unread_count = unread_messages.unread", nativeQuery = true)
+    int backfillFromMessages();
+}
@@ -1,7 +1,11 @@
 package com.software.upskilled.repository;
 
 import com.software.upskilled.Entity.Users;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,4 +20,9 @@ public interface UserRepository extends JpaRepository<Users, Long> {
     List<Users> findByRole(String role);
     List<Users> findByRoleAndStatus(String role, Users.Status status);
     void delete(Users user);
+
+    //Row lock held until the calling transaction ends, used to serialize writes made on behalf of one user
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("from Users u where u.id = :id")
+    Users lockById(@Param("id") Long id);
 }
@@ -1,8 +1,17 @@
 package com.software.upskilled.service;
 
 import com.software.upskilled.Entity.Announcement;
+import com.software.upskilled.dto.AnnouncementNotificationDTO;
+import com.software.upskilled.dto.AnnouncementRequestDTO;
+import com.software.upskilled.dto.AnnouncementSummaryDTO;
 import com.software.upskilled.repository.AnnouncementRepository;
+import com.software.upskilled.repository.EnrollmentRepository;
+import com.software.upskilled.utils.AnnouncementFeedCache;
+import com.software.upskilled.utils.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,14 +21,51 @@ import java.util.Set;
 /**
  * Service for handling operations related to announcements. Provides methods to save,
  * retrieve, delete announcements, and fetch announcements by course, sorted by update time.
+ * Saved announcements are pushed to the event streams of the employees enrolled in the course.
+ * The feed of each course is served from the {@link AnnouncementFeedCache}, which every write invalidates.
  */
 @Service
 public class AnnouncementService {
     @Autowired
     private AnnouncementRepository announcementRepository;
 
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AnnouncementFeedCache announcementFeedCache;
+
+    @Value("${announcements.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${announcements.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${announcements.summary.preview-length:200}")
+    private int previewLength;
+
+    /**
+     * A page of announcement summaries, most recently updated first, and the cursor of the next page, null on the last page.
+     */
+    public record AnnouncementSummaryPage(List<AnnouncementSummaryDTO> announcements, KeysetCursor nextCursor) {}
+
+    /**
+     * Creates or updates the announcement and notifies the employees enrolled in its course once it is committed.
+     */
+    @Transactional
     public Announcement saveAnnouncement(Announcement announcement) {
-        return announcementRepository.save(announcement);
+        //Flushed so that the notification carries the update timestamp
+        Announcement savedAnnouncement = announcementRepository.saveAndFlush(announcement);
+        Long courseId = savedAnnouncement.getCourse().getId();
+        announcementFeedCache.invalidate(courseId);
+        AnnouncementNotificationDTO notification = new AnnouncementNotificationDTO(savedAnnouncement.getId(), courseId,
+                savedAnnouncement.getTitle(), savedAnnouncement.getContent(), savedAnnouncement.getUpdatedAt());
+        eventPublisher.publishEvent(new NotificationEvent(NotificationEvent.ANNOUNCEMENT,
+                enrollmentRepository.findEmployeeIdsByCourseId(courseId), notification));
+        return savedAnnouncement;
     }
 
     public Announcement findAnnouncementById(Long id) {
@@ -35,12 +81,65 @@ public class AnnouncementService {
         return announcementRepository.getAnnouncementsSortedByUpdateTime( courseId );
     }
 
+    /**
+     * Returns the announcements of the course, most recently updated first, serialized as the JSON list of
+     * AnnouncementRequestDTO with its ETag. The feed is only read from the database after it was invalidated.
+     */
+    public AnnouncementFeedCache.Feed getAnnouncementFeed( Long courseId )
+    {
+        return announcementFeedCache.getOrBuild( courseId, () -> findAnnouncementSortedByUpdateTime( courseId ).stream()
+                .map( announcement -> new AnnouncementRequestDTO( announcement.getId(), announcement.getTitle(),
+                        announcement.getContent(), announcement.getUpdatedAt() ) )
+                .toList() );
+    }
+
+    /**
+     * Returns a page of the announcements of the course as summaries, most recently updated first. Only the first
+     * announcements.summary.preview-length characters of each content are read, cut with "..." when the content is longer.
+     *
+     * @param before the cursor returned with the previous page, null for the first page.
+     * @param limit the requested page size, null for the default size; capped at announcements.page.max-size.
+     */
+    public AnnouncementSummaryPage getAnnouncementSummaries(Long courseId, KeysetCursor before, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        //One row and one character more than needed tell whether a next page exists and whether the preview is cut
+        List<AnnouncementSummaryDTO> rows = before == null
+                ? announcementRepository.getAnnouncementSummaries(courseId, previewLength + 1, Limit.of(pageSize + 1))
+                : announcementRepository.getAnnouncementSummaries(courseId, previewLength + 1,
+                        before.sortKeyTimestamp(), before.id(), Limit.of(pageSize + 1));
+        List<AnnouncementSummaryDTO> summaries = rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+        summaries.forEach(summary -> summary.setPreview(truncatePreview(summary.getPreview())));
+
+        KeysetCursor nextCursor = null;
+        if (rows.size() > pageSize) {
+            AnnouncementSummaryDTO last = summaries.get(pageSize - 1);
+            nextCursor = KeysetCursor.after(last.getUpdatedAt(), last.getId());
+        }
+        return new AnnouncementSummaryPage(summaries, nextCursor);
+    }
+
+    private String truncatePreview(String contentStart) {
+        if (contentStart == null || contentStart.length() <= previewLength) {
+            return contentStart;
+        }
+        int end = previewLength;
+        //Never split a surrogate pair
+        if (Character.isHighSurrogate(contentStart.charAt(end - 1))) {
+            end--;
+        }
+        return contentStart.substring(0, end) + "...";
+    }
+
+    @Transactional
     public void deleteAnnouncement(Long id) {
+        //deleteById loads the announcement anyway, this lookup is served by the persistence context
+        announcementRepository.findById(id).ifPresent(announcement -> announcementFeedCache.invalidate(announcement.getCourse().getId()));
         announcementRepository.deleteById(id);
     }
 
     @Transactional
     public void deleteAnnouncementsByCourseId(Long courseId) {
         announcementRepository.deleteByCourseId(courseId);
+        announcementFeedCache.invalidate(courseId);
     }
 }
@@ -1,11 +1,13 @@
 package com.software.upskilled.service;
 
 import com.software.upskilled.Entity.Assignment;
+import com.software.upskilled.dto.EmployeeAssignmentRowDTO;
 import com.software.upskilled.repository.AssignmentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,6 +46,19 @@ public class AssignmentService {
         return assignmentRepository.findAssignmentsSortedByDeadline( courseId );
     }
 
+    //Assignments of the course sorted by deadline, each with the submission and grade of the employee read in the same query
+    public List<EmployeeAssignmentRowDTO> getAssignmentsWithEmployeeSubmission( long courseId, long employeeId ) {
+        //An employee is expected to have one submission per assignment, if there are more only the first one is kept
+        HashSet<Long> seenAssignments = new HashSet<>();
+        return assignmentRepository.findAssignmentsWithEmployeeSubmission( courseId, employeeId ).stream()
+                .filter( row -> seenAssignments.add( row.getAssignmentId() ) )
+                .toList();
+    }
+
+    public boolean isAssignmentOfCourse(Long assignmentId, Long courseId) {
+        return assignmentRepository.existsByIdAndCourseId(assignmentId, courseId);
+    }
+
     @Transactional
     public void deleteAssignmentsByCourseId(Long courseId) {
         assignmentRepository.deleteAllByCourseId(courseId);
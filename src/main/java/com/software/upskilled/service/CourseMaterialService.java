@@ -45,6 +45,10 @@ public class CourseMaterialService
         return courseMaterial.orElse(null);
     }
 
+    public boolean isCourseMaterialOfCourse(Long courseMaterialId, Long courseId) {
+        return courseMaterialRepository.existsByIdAndCourseId(courseMaterialId, courseId);
+    }
+
     public List<CourseMaterial> getAllCourseMaterialsByCourseId(Long courseId) {
         return courseMaterialRepository.findAllByCourseId(courseId);
     }
@@ -1,27 +1,37 @@
 package com.software.upskilled.service;
 
 import com.software.upskilled.Entity.Course;
+import com.software.upskilled.dto.CourseInfoDTO;
 import com.software.upskilled.repository.CourseRepository;
+import com.software.upskilled.utils.CourseAuthDecisionCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
-import java.util.Set;
 import java.util.List;
 
-import java.util.Set;
-
 /**
  * Service for managing courses. Provides methods to save, retrieve, and delete courses,
  * as well as finding courses by title or instructor ID.
  */
 @Service
 public class CourseService {
+    //Upper bound on the page size a client can request from the course catalog
+    private static final int MAX_CATALOG_PAGE_SIZE = 100;
+
     @Autowired
     private CourseRepository courseRepository;
 
+    @Autowired
+    private CourseAuthDecisionCache courseAuthDecisionCache;
+
 
     public Course saveCourse(Course course) {
-        return courseRepository.save(course);
+        Course savedCourse = courseRepository.save(course);
+        //Status or instructor changes affect who may access the course
+        courseAuthDecisionCache.invalidateCourse(savedCourse.getId());
+        return savedCourse;
     }
 
     public Course findCourseById(Long courseId) {
@@ -33,4 +43,35 @@ public class CourseService {
     public List<Course> getAllCourses() { return courseRepository.findAll(); }
 
     public List<Course> findByInstructorId(Long id){ return courseRepository.findByInstructorId(id); }
+
+    /**
+     * Returns the active courses as catalog entries, newest first.
+     *
+     * @param afterId id of the last course of the previous page, or null to start from the newest course.
+     * @param limit maximum number of courses to return, or null to return all remaining courses.
+     * @return the requested page of the catalog.
+     */
+    public List<CourseInfoDTO> getActiveCourseCatalog(Long afterId, Integer limit) {
+        return courseRepository.findCourseCatalog(Course.Status.ACTIVE, afterId, catalogPage(limit));
+    }
+
+    /**
+     * Returns the active courses the employee is not enrolled in as catalog entries, newest first.
+     *
+     * @param employeeId the employee browsing the catalog.
+     * @param afterId id of the last course of the previous page, or null to start from the newest course.
+     * @param limit maximum number of courses to return, or null to return all remaining courses.
+     * @return the requested page of the catalog.
+     */
+    public List<CourseInfoDTO> getActiveCourseCatalogForEmployee(Long employeeId, Long afterId, Integer limit) {
+        return courseRepository.findCourseCatalogExcludingEmployee(Course.Status.ACTIVE, employeeId, afterId,
+                catalogPage(limit));
+    }
+
+    private Pageable catalogPage(Integer limit) {
+        if (limit == null) {
+            return Pageable.unpaged();
+        }
+        return PageRequest.ofSize(Math.max(1, Math.min(limit, MAX_CATALOG_PAGE_SIZE)));
+    }
 }
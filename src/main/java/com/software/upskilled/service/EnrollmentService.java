@@ -8,20 +8,49 @@ import com.software.upskilled.repository.CourseRepository;
 import com.software.upskilled.repository.EnrollmentRepository;
 import com.software.upskilled.repository.SubmissionRepository;
 import com.software.upskilled.repository.UserRepository;
+import com.software.upskilled.utils.CourseAuthDecisionCache;
+import com.software.upskilled.utils.ExpiringCache;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service for handling employee enrollments in courses. Includes methods for enrolling and unenrolling employees,
  * checking enrollment status, and managing associated submissions and files.
+ *
+ * Membership checks go through {@link #isEmployeeEnrolled(Long, Long)}, which keeps the enrolled employee ids of
+ * recently used courses in memory. The sets are loaded with a single id-only query and updated by enroll/unenroll.
+ * An id missing from the set is confirmed with an index-backed exists query before access is refused, so an
+ * enrollment made on another node is picked up immediately.
+ *
+ * A local unenroll removes the member again once its transaction commits, and a set or confirmed id read while an
+ * unenroll was in flight is not cached. Positive hits are not rechecked against the database: an unenroll made on
+ * another node only takes effect here once the course's set expires, so revocation may lag by up to
+ * {@code enrollment.membership-cache.ttl-seconds}. That lag is an accepted limit of the cache; lower the TTL where
+ * access has to be revoked sooner.
  */
 @Service
 public class EnrollmentService {
 
+    private final ExpiringCache<Long, Set<Long>> courseMembers;
+
+    //Bumped on every unenroll, guarded by courseMembers. Membership read before the last unenroll is not cached
+    private long unenrollments;
+
+    public EnrollmentService(@Value("${enrollment.membership-cache.max-courses:1000}") int maxCourses,
+                             @Value("${enrollment.membership-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.courseMembers = new ExpiringCache<>(maxCourses, ttlSeconds * 1000);
+    }
+
     @Autowired
     private EnrollmentRepository enrollmentRepository;
 
@@ -37,6 +66,9 @@ public class EnrollmentService {
     @Autowired
     private FileService fileService;
 
+    @Autowired
+    private CourseAuthDecisionCache courseAuthDecisionCache;
+
     public String enrollEmployee(Long courseId, Long employeeId) {
         Optional<Course> courseOptional = courseRepository.findById(courseId);
         Optional<Users> employeeOptional = userRepository.findById(employeeId);
@@ -53,10 +85,7 @@ public class EnrollmentService {
         Users employee = employeeOptional.get();
 
         // Check if the employee is already enrolled in the course
-        boolean alreadyEnrolled = course.getEnrollments().stream()
-                .anyMatch(enrollment -> enrollment.getEmployee().getId().equals(employeeId));
-
-        if (alreadyEnrolled) {
+        if (isEmployeeEnrolled(courseId, employeeId)) {
             return "Employee is already enrolled in this course";
         }
 
@@ -65,22 +94,101 @@ public class EnrollmentService {
                 .employee(employee)
                 .build();
 
-        enrollmentRepository.save(enrollment);
+        try {
+            enrollmentRepository.save(enrollment);
+        } catch (DataIntegrityViolationException e) {
+            //A concurrent request enrolled the employee first, the unique (course_id, employee_id) index rejected this one
+            return "Employee is already enrolled in this course";
+        }
+
+        Set<Long> members = courseMembers.get(courseId);
+        if (members != null) {
+            members.add(employeeId);
+        }
+        courseAuthDecisionCache.invalidate(employee.getEmail(), courseId);
         return "Enrollment successful";
     }
 
+    /**
+     * Checks whether the employee is enrolled in the course without loading any entities.
+     *
+     * @param courseId the course to check.
+     * @param employeeId the employee to look for.
+     * @return true if the employee is enrolled in the course.
+     */
+    public boolean isEmployeeEnrolled(Long courseId, Long employeeId) {
+        if (courseId == null || employeeId == null) {
+            return false;
+        }
+
+        Set<Long> members = courseMembers.get(courseId);
+        if (members == null) {
+            long unenrollmentsBeforeLoad = unenrollmentCount();
+            members = ConcurrentHashMap.newKeySet();
+            members.addAll(enrollmentRepository.findEmployeeIdsByCourseId(courseId));
+            synchronized (courseMembers) {
+                if (unenrollments == unenrollmentsBeforeLoad) {
+                    courseMembers.put(courseId, members);
+                }
+            }
+        }
+
+        if (members.contains(employeeId)) {
+            return true;
+        }
+
+        //The set may predate an enrollment made on another node, confirm the miss against the index
+        long unenrollmentsBeforeCheck = unenrollmentCount();
+        boolean enrolled = enrollmentRepository.existsByCourseIdAndEmployeeId(courseId, employeeId);
+        if (enrolled) {
+            synchronized (courseMembers) {
+                if (unenrollments == unenrollmentsBeforeCheck) {
+                    members.add(employeeId);
+                }
+            }
+        }
+        return enrolled;
+    }
+
     @Transactional
     public void unenrollEmployee(Long courseId, Long employeeId) {
 
         List<Submission> submissions = submissionRepository.findByEmployee_IdAndAssignment_Course_Id(employeeId, courseId);
 
-        for(Submission submission: submissions) {
-            fileService.deleteUploadedAssignment(submission.getSubmissionUrl());
-        }
-
         submissionRepository.deleteAll(submissions); // Cascades to delete associated Gradebook entries
 
+        //Queued in this transaction, the files are deleted by the deletion worker only if the rows are gone
+        fileService.queueAssignmentDeletion(submissions.stream().map(Submission::getSubmissionUrl).toList());
+
         enrollmentRepository.deleteByEmployeeIdAndCourseId(employeeId,courseId);
+
+        removeMember(courseId, employeeId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            //A check running before the commit still sees the enrollment row, remove the member again once it is gone
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeMember(courseId, employeeId);
+                }
+            });
+        }
+        courseAuthDecisionCache.invalidateCourse(courseId);
+    }
+
+    private long unenrollmentCount() {
+        synchronized (courseMembers) {
+            return unenrollments;
+        }
+    }
+
+    private void removeMember(Long courseId, Long employeeId) {
+        synchronized (courseMembers) {
+            unenrollments++;
+            Set<Long> members = courseMembers.get(courseId);
+            if (members != null) {
+                members.remove(employeeId);
+            }
+        }
     }
 }
 
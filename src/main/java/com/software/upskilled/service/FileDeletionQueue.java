@@ -0,0 +1,266 @@
+package com.software.upskilled.service;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.software.upskilled.Entity.FileDeletionTask;
+import com.software.upskilled.repository.CourseMaterialRepository;
+import com.software.upskilled.repository.CourseRepository;
+import com.software.upskilled.repository.FileDeletionTaskRepository;
+import com.software.upskilled.repository.SubmissionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Durable queue of S3 objects to delete, kept in the file_deletion_task table.
+ *
+ * Callers {@link #enqueue(String, Collection)} the keys inside the transaction that removes the rows pointing to
+ * them, so an object is queued if and only if its row is gone. A scheduled worker locks due tasks with
+ * SELECT ... FOR UPDATE SKIP LOCKED and removes them with S3 multi-object deletes of up to 1000 keys per request.
+ * Keys S3 reports as failed (or whole batches the client could not send) are retried with exponential backoff, and
+ * marked DEAD once aws.s3.deletion.max-attempts is reached.
+ *
+ * Keys are derived from course, assignment, user and file names, so a queued key can be written again before the
+ * worker gets to it (a resubmission after a re-enrollment, a material re-uploaded under the same name). Writers
+ * {@link #cancel(String, Collection)} the pending tasks of a key before storing to it, and the worker drops every
+ * key a submission, course material or syllabus still points to instead of deleting it.
+ *
+ * Metrics: s3.deletion.deleted, s3.deletion.skipped, s3.deletion.retried and s3.deletion.dead.
+ */
+@Service
+@Slf4j
+public class FileDeletionQueue {
+
+    //Limit of a single S3 DeleteObjects request
+    private static final int MAX_KEYS_PER_REQUEST = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 3_600_000;
+
+    private final FileDeletionTaskRepository fileDeletionTaskRepository;
+    private final SubmissionRepository submissionRepository;
+    private final CourseMaterialRepository courseMaterialRepository;
+    private final CourseRepository courseRepository;
+    private final AmazonS3 s3Client;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final String syllabusBucketName;
+    private final String courseMaterialsBucketName;
+    private final String assignmentBucketName;
+    private final Counter deletedObjects;
+    private final Counter skippedObjects;
+    private final Counter retriedObjects;
+    private final Counter deadObjects;
+
+    public FileDeletionQueue(FileDeletionTaskRepository fileDeletionTaskRepository, SubmissionRepository submissionRepository,
+                             CourseMaterialRepository courseMaterialRepository, CourseRepository courseRepository,
+                             AmazonS3 s3Client, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                             @Value("${aws.s3.bucketName}") String syllabusBucketName,
+                             @Value("${aws.s3.course-materials-bucketName}") String courseMaterialsBucketName,
+                             @Value("${aws.s3.assignment-bucketName}") String assignmentBucketName,
+                             @Value("${aws.s3.deletion.batch-size:1000}") int batchSize,
+                             @Value("${aws.s3.deletion.max-batches-per-run:10}") int maxBatchesPerRun,
+                             @Value("${aws.s3.deletion.max-attempts:8}") int maxAttempts,
+                             @Value("${aws.s3.deletion.initial-backoff-ms:30000}") long initialBackoffMillis) {
+        this.fileDeletionTaskRepository = fileDeletionTaskRepository;
+        this.submissionRepository = submissionRepository;
+        this.courseMaterialRepository = courseMaterialRepository;
+        this.courseRepository = courseRepository;
+        this.s3Client = s3Client;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.min(batchSize, MAX_KEYS_PER_REQUEST);
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.syllabusBucketName = syllabusBucketName;
+        this.courseMaterialsBucketName = courseMaterialsBucketName;
+        this.assignmentBucketName = assignmentBucketName;
+        this.deletedObjects = Counter.builder("s3.deletion.deleted")
+                .description("S3 objects removed by the deletion worker")
+                .register(meterRegistry);
+        this.skippedObjects = Counter.builder("s3.deletion.skipped")
+                .description("Queued S3 deletions dropped because a row points to the object again")
+                .register(meterRegistry);
+        this.retriedObjects = Counter.builder("s3.deletion.retried")
+                .description("S3 deletions scheduled for another attempt")
+                .register(meterRegistry);
+        this.deadObjects = Counter.builder("s3.deletion.dead")
+                .description("S3 deletions that ran out of attempts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues the objects for deletion, joining the caller's transaction when there is one.
+     *
+     * @param bucketName the bucket holding the objects.
+     * @param keys the keys of the objects, blank keys are ignored.
+     */
+    public void enqueue(String bucketName, Collection<String> keys) {
+        enqueue(bucketName, keys, 0);
+    }
+
+    /**
+     * Queues the objects for deletion once the delay has passed, for objects that may still be claimed in the meantime
+     * such as unconfirmed direct uploads. Claiming an object means cancelling its task or pointing a row to it.
+     *
+     * @param bucketName the bucket holding the objects.
+     * @param keys the keys of the objects, blank keys are ignored.
+     * @param delayMillis how long to wait before the first deletion attempt.
+     */
+    public void enqueue(String bucketName, Collection<String> keys, long delayMillis) {
+        long now = System.currentTimeMillis();
+        List<FileDeletionTask> tasks = keys.stream()
+                .filter(key -> key != null && !key.isBlank())
+                .distinct()
+                .map(key -> FileDeletionTask.builder()
+                        .bucketName(bucketName)
+                        .objectKey(key)
+                        .status(FileDeletionTask.Status.PENDING)
+                        .attempts(0)
+                        .nextAttemptAt(now + delayMillis)
+                        .createdAt(now)
+                        .build())
+                .toList();
+        if (!tasks.isEmpty()) {
+            fileDeletionTaskRepository.saveAll(tasks);
+        }
+    }
+
+    /**
+     * Cancels the deletions queued for the objects, to be called before storing to a key that may have been queued.
+     * A task the worker is deleting right now is locked, so this waits for the worker to finish and the new object is
+     * written after the old one is gone.
+     *
+     * @param bucketName the bucket holding the objects.
+     * @param keys the keys about to be written.
+     */
+    public void cancel(String bucketName, Collection<String> keys) {
+        List<Long> taskIds = fileDeletionTaskRepository.findIdsByBucketNameAndObjectKeys(bucketName, keys);
+        if (!taskIds.isEmpty()) {
+            fileDeletionTaskRepository.deleteAllByIdInBatch(taskIds);
+        }
+    }
+
+    /**
+     * Drains the due tasks, one locked batch per transaction, until the queue is empty or the run limit is reached.
+     */
+    @Scheduled(fixedDelayString = "${aws.s3.deletion.poll-interval-ms:5000}")
+    public void drainQueue() {
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                Integer processed = transactionTemplate.execute(status -> processDueBatch());
+                if (processed == null || processed < batchSize) {
+                    return;
+                }
+            }
+        } catch (DataAccessException e) {
+            //The rows stay queued, the next run picks them up again
+            log.warn("Could not drain the S3 deletion queue: {}", e.getMessage());
+        }
+    }
+
+    private int processDueBatch() {
+        long now = System.currentTimeMillis();
+        List<FileDeletionTask> dueTasks = fileDeletionTaskRepository.lockDueTasks(now, batchSize);
+        Map<String, List<FileDeletionTask>> tasksByBucket = dueTasks.stream()
+                .collect(Collectors.groupingBy(FileDeletionTask::getBucketName, LinkedHashMap::new, Collectors.toList()));
+
+        List<FileDeletionTask> completed = new ArrayList<>();
+        tasksByBucket.forEach((bucketName, tasks) -> deleteFromBucket(bucketName, tasks, completed, now));
+        fileDeletionTaskRepository.deleteAllInBatch(completed);
+        return dueTasks.size();
+    }
+
+    private void deleteFromBucket(String bucketName, List<FileDeletionTask> tasks, List<FileDeletionTask> completed, long now) {
+        Map<String, List<FileDeletionTask>> tasksByKey = tasks.stream()
+                .collect(Collectors.groupingBy(FileDeletionTask::getObjectKey, LinkedHashMap::new, Collectors.toList()));
+
+        //A key written again since it was queued belongs to a live row, drop its tasks without touching the object
+        Set<String> referencedKeys = referencedKeys(bucketName, tasksByKey.keySet());
+        tasksByKey.entrySet().removeIf(keyTasks -> {
+            if (!referencedKeys.contains(keyTasks.getKey())) {
+                return false;
+            }
+            completed.addAll(keyTasks.getValue());
+            skippedObjects.increment();
+            log.info("Not deleting {}/{}, it is referenced again", bucketName, keyTasks.getKey());
+            return true;
+        });
+        if (tasksByKey.isEmpty()) {
+            return;
+        }
+
+        List<DeleteObjectsRequest.KeyVersion> keys = tasksByKey.keySet().stream()
+                .map(DeleteObjectsRequest.KeyVersion::new)
+                .toList();
+
+        //Quiet mode, S3 only lists the keys it could not delete
+        DeleteObjectsRequest deleteObjectsRequest = new DeleteObjectsRequest(bucketName).withKeys(keys).withQuiet(true);
+        Map<String, String> failedKeys = new LinkedHashMap<>();
+        try {
+            s3Client.deleteObjects(deleteObjectsRequest);
+        } catch (MultiObjectDeleteException e) {
+            e.getErrors().forEach(error -> failedKeys.put(error.getKey(), error.getCode() + ": " + error.getMessage()));
+        } catch (SdkClientException e) {
+            tasksByKey.keySet().forEach(key -> failedKeys.put(key, e.getMessage()));
+        }
+
+        tasksByKey.forEach((key, keyTasks) -> {
+            String error = failedKeys.get(key);
+            if (error == null) {
+                completed.addAll(keyTasks);
+                deletedObjects.increment();
+            } else {
+                keyTasks.forEach(task -> scheduleRetry(task, error, now));
+            }
+        });
+    }
+
+    private Set<String> referencedKeys(String bucketName, Collection<String> keys) {
+        List<String> referenced;
+        if (bucketName.equals(assignmentBucketName)) {
+            referenced = submissionRepository.findReferencedSubmissionUrls(keys);
+        } else if (bucketName.equals(courseMaterialsBucketName)) {
+            referenced = courseMaterialRepository.findReferencedCourseMaterialUrls(keys);
+        } else if (bucketName.equals(syllabusBucketName)) {
+            referenced = courseRepository.findReferencedSyllabusUrls(keys);
+        } else {
+            referenced = List.of();
+        }
+        return new HashSet<>(referenced);
+    }
+
+    private void scheduleRetry(FileDeletionTask task, String error, long now) {
+        int attempts = task.getAttempts() + 1;
+        task.setAttempts(attempts);
+        task.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        if (attempts >= maxAttempts) {
+            task.setStatus(FileDeletionTask.Status.DEAD);
+            deadObjects.increment();
+            log.error("Giving up on deleting {}/{} after {} attempts: {}", task.getBucketName(), task.getObjectKey(), attempts, error);
+        } else {
+            long backoffMillis = Math.min(initialBackoffMillis << (attempts - 1), MAX_BACKOFF_MILLIS);
+            task.setNextAttemptAt(now + backoffMillis);
+            retriedObjects.increment();
+            log.warn("Deleting {}/{} failed (attempt {}), retrying in {} ms: {}", task.getBucketName(), task.getObjectKey(), attempts, backoffMillis, error);
+        }
+    }
+}
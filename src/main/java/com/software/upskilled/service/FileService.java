@@ -4,8 +4,15 @@ import com.software.upskilled.Entity.*;
 import com.software.upskilled.dto.CourseMaterialDTO;
 import com.software.upskilled.dto.FileDeletionResponse;
 import com.software.upskilled.dto.FileUploadResponse;
+import com.software.upskilled.dto.PresignedUrlResponseDTO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Service for handling file operations related to course materials, syllabus, and assignment submissions.
  * Includes methods for uploading, updating, viewing, and deleting files, as well as managing responses related to file uploads and deletions.
@@ -21,13 +28,25 @@ public interface FileService {
 
     FileUploadResponse updateAssignmentSubmission(MultipartFile multipartFile, Submission alreadySubmittedSubmission );
 
-    public FileDeletionResponse deleteCourseMaterial(String courseMaterialURL);
+    PresignedUrlResponseDTO presignAssignmentSubmission( Course courseData, Assignment assignmentData, Users employeeData, String fileName, String contentType, long fileSize );
+
+    FileUploadResponse confirmAssignmentSubmission( Course courseData, Assignment assignmentData, Users employeeData, String fileName, long fileSize );
+
+    PresignedUrlResponseDTO presignAssignmentUpdate( Submission alreadySubmittedSubmission, String fileName, String contentType, long fileSize );
+
+    FileUploadResponse confirmAssignmentUpdate( Submission alreadySubmittedSubmission, String uploadId, String fileName, long fileSize );
+
+    public CompletableFuture<FileDeletionResponse> deleteCourseMaterial(String courseMaterialURL);
+
+    public CompletableFuture<FileDeletionResponse> deleteUploadedAssignment( String submissionURL );
+
+    void queueCourseMaterialDeletion( Collection<String> courseMaterialURLs );
 
-    public FileDeletionResponse deleteUploadedAssignment( String submissionURL );
+    void queueAssignmentDeletion( Collection<String> submissionURLs );
 
-    public byte[] viewCourseMaterial( String courseMaterialURL);
+    public ResponseEntity<?> viewCourseMaterial( String courseMaterialURL, String fileName, HttpHeaders requestHeaders );
 
-    public byte[] viewSyllabus(Long courseId);
+    public ResponseEntity<?> viewSyllabus( Course course, MediaType contentType, HttpHeaders requestHeaders );
 
-    public byte[] viewAssignmentSubmission(String assignmentSubmissionURL);
+    public ResponseEntity<?> viewAssignmentSubmission( String assignmentSubmissionURL, String fileName, HttpHeaders requestHeaders );
 }
\ No newline at end of file
@@ -1,33 +1,53 @@
 package com.software.upskilled.service;
 
 import com.amazonaws.AmazonServiceException;
-import com.amazonaws.auth.AWSStaticCredentialsProvider;
-import com.amazonaws.auth.BasicAWSCredentials;
-import com.amazonaws.regions.Regions;
+import com.amazonaws.HttpMethod;
+import com.amazonaws.SdkClientException;
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.ResponseHeaderOverrides;
 import com.amazonaws.services.s3.model.S3Object;
-import com.amazonaws.services.s3.model.S3ObjectInputStream;
-import com.amazonaws.util.IOUtils;
 import com.software.upskilled.Entity.*;
+import com.software.upskilled.config.AsyncConfig;
 import com.software.upskilled.dto.CourseMaterialDTO;
 import com.software.upskilled.dto.FileDeletionResponse;
 import com.software.upskilled.dto.FileUploadResponse;
+import com.software.upskilled.dto.PresignedUrlResponseDTO;
 import com.software.upskilled.exception.FileUploadException;
-import jakarta.annotation.PostConstruct;
+import com.software.upskilled.exception.SubmissionAlreadyExistsException;
+import com.software.upskilled.utils.S3LocalFileCache;
+import com.software.upskilled.utils.S3ObjectKeys;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
 
 /**
  * Implementation of the FileService interface for managing file uploads, updates, deletions, and retrievals
@@ -46,14 +66,34 @@ public class FileServiceImpl implements FileService {
     @Value("${aws.s3.assignment-bucketName}")
     private String assignmentBucketName;
 
-    @Value("${aws.s3.accessKey}")
-    private String accessKey;
+    //proxy streams the files through this server, redirect and json hand out pre-signed S3 URLs instead
+    @Value("${aws.s3.delivery.mode:proxy}")
+    private String deliveryMode;
 
-    @Value("${aws.s3.secretKey}")
-    private String secretKey;
+    @Value("${aws.s3.delivery.presigned-url-ttl-seconds:300}")
+    private long presignedUrlTtlSeconds;
 
+    @Value("${aws.s3.presigned-upload.ttl-seconds:900}")
+    private long presignedUploadTtlSeconds;
+
+    @Value("${aws.s3.presigned-upload.max-size-mb:200}")
+    private long presignedUploadMaxSizeMb;
+
+    @Value("${aws.s3.presigned-upload.unconfirmed-retention-seconds:3600}")
+    private long unconfirmedUploadRetentionSeconds;
+
+    @Autowired
     private AmazonS3 s3Client;
 
+    @Autowired
+    private S3LocalFileCache s3LocalFileCache;
+
+    @Autowired
+    private S3UploadService s3UploadService;
+
+    @Autowired
+    private FileDeletionQueue fileDeletionQueue;
+
     @Autowired
     private CourseService courseService;
 
@@ -66,15 +106,6 @@ public class FileServiceImpl implements FileService {
     @Autowired
     private SubmissionService submissionService;
 
-    @PostConstruct
-    private void initialize() {
-        BasicAWSCredentials awsCredentials = new BasicAWSCredentials(accessKey, secretKey);
-        s3Client = AmazonS3ClientBuilder.standard()
-                .withCredentials(new AWSStaticCredentialsProvider(awsCredentials))
-                .withRegion(Regions.US_EAST_1)
-                .build();
-    }
-
     /**
      * Uploads the syllabus file for a given course to the S3 bucket and updates the course's syllabus URL.
      *
@@ -99,7 +130,11 @@ public class FileServiceImpl implements FileService {
             objectMetadata.setContentType(multipartFile.getContentType());
             objectMetadata.setContentLength(multipartFile.getSize());
             filePath = course.getTitle() + "/" + multipartFile.getOriginalFilename();
-            s3Client.putObject(syllabusBucketName, filePath, multipartFile.getInputStream(), objectMetadata);
+            //The key may still be queued for deletion from an earlier file of the same name
+            fileDeletionQueue.cancel(syllabusBucketName, List.of(filePath));
+            s3UploadService.upload(syllabusBucketName, filePath, multipartFile, objectMetadata);
+            //A syllabus re-uploaded with the same name replaces the cached copy
+            s3LocalFileCache.invalidate(syllabusBucketName, filePath);
             fileUploadResponse.setFilePath(filePath);
             fileUploadResponse.setDateTime(LocalDateTime.now());
 
@@ -152,7 +187,9 @@ public class FileServiceImpl implements FileService {
             objectMetadata.setContentType(multipartFile.getContentType());
             objectMetadata.setContentLength(multipartFile.getSize());
             filePath = instructorName + "/"+ courseName + "/" + multipartFile.getOriginalFilename();
-            s3Client.putObject(courseMaterialsBucketName, filePath, multipartFile.getInputStream(), objectMetadata);
+            fileDeletionQueue.cancel(courseMaterialsBucketName, List.of(filePath));
+            s3UploadService.upload(courseMaterialsBucketName, filePath, multipartFile, objectMetadata);
+            s3LocalFileCache.invalidate(courseMaterialsBucketName, filePath);
             fileUploadResponse.setFilePath(filePath);
             fileUploadResponse.setDateTime(LocalDateTime.now());
 
@@ -214,7 +251,9 @@ public class FileServiceImpl implements FileService {
             objectMetadata.setContentType(multipartFile.getContentType());
             objectMetadata.setContentLength(multipartFile.getSize());
             filePath = instructorName + "/"+ courseName + "/" + multipartFile.getOriginalFilename();
-            s3Client.putObject(courseMaterialsBucketName, filePath, multipartFile.getInputStream(), objectMetadata);
+            fileDeletionQueue.cancel(courseMaterialsBucketName, List.of(filePath));
+            s3UploadService.upload(courseMaterialsBucketName, filePath, multipartFile, objectMetadata);
+            s3LocalFileCache.invalidate(courseMaterialsBucketName, filePath);
             fileUploadResponse.setFilePath(filePath);
             fileUploadResponse.setDateTime(LocalDateTime.now());
 
@@ -257,20 +296,15 @@ public class FileServiceImpl implements FileService {
         FileUploadResponse fileUploadResponse = new FileUploadResponse();
         String filePath = "";
 
-        //Getting the course name from the course Data
-        String courseName = courseData.getTitle();
-        //Getting the assignmentName from the assignmentData
-        String assignmentName = assignmentData.getTitle();
-        //Getting the employee userName from the employeeData
-        String employeeName = employeeData.getFirstName() + "_" + employeeData.getLastName() + "_" + employeeData.getId();
 
 
         try {
             ObjectMetadata objectMetadata = new ObjectMetadata();
             objectMetadata.setContentType(multipartFile.getContentType());
             objectMetadata.setContentLength(multipartFile.getSize());
-            filePath = courseName + "/"+ assignmentName + "/" + employeeName+"_"+multipartFile.getOriginalFilename();
-            s3Client.putObject( assignmentBucketName , filePath, multipartFile.getInputStream(), objectMetadata);
+            filePath = S3ObjectKeys.assignmentSubmission( courseData.getTitle(), assignmentData.getTitle(), employeeData, multipartFile.getOriginalFilename() );
+            fileDeletionQueue.cancel(assignmentBucketName, List.of(filePath));
+            s3UploadService.upload(assignmentBucketName, filePath, multipartFile, objectMetadata);
             fileUploadResponse.setFilePath(filePath);
             fileUploadResponse.setDateTime(LocalDateTime.now());
 
@@ -315,20 +349,15 @@ public class FileServiceImpl implements FileService {
 
         //Getting the Assignment Details from the already submittedResponse
         Assignment parentAssignment = alreadySubmittedSubmission.getAssignment();
-        //Getting the course name from the parent Assignment object
-        String courseName = parentAssignment.getCourse().getTitle();
-        //Getting the assignment title from the parentAssignment object
-        String assignmentName = parentAssignment.getTitle();
-        //Getting the employee name who uploaded the assignment
-        String employeeName = alreadySubmittedSubmission.getEmployee().getFirstName()+"_"+
-                alreadySubmittedSubmission.getEmployee().getLastName() + "_" + alreadySubmittedSubmission.getEmployee().getId();
 
         try {
             ObjectMetadata objectMetadata = new ObjectMetadata();
             objectMetadata.setContentType(multipartFile.getContentType());
             objectMetadata.setContentLength(multipartFile.getSize());
-            filePath = courseName + "/"+ assignmentName + "/" + employeeName+"_"+multipartFile.getOriginalFilename();
-            s3Client.putObject( assignmentBucketName , filePath, multipartFile.getInputStream(), objectMetadata);
+            filePath = S3ObjectKeys.assignmentSubmission( parentAssignment.getCourse().getTitle(), parentAssignment.getTitle(),
+                    alreadySubmittedSubmission.getEmployee(), multipartFile.getOriginalFilename() );
+            fileDeletionQueue.cancel(assignmentBucketName, List.of(filePath));
+            s3UploadService.upload(assignmentBucketName, filePath, multipartFile, objectMetadata);
             fileUploadResponse.setFilePath(filePath);
             fileUploadResponse.setDateTime(LocalDateTime.now());
 
@@ -339,6 +368,9 @@ public class FileServiceImpl implements FileService {
              * url and then save the file.
              */
             alreadySubmittedSubmission.setSubmissionUrl( filePath );
+            //Uploading again is how an employee recovers a submission whose pipeline upload failed
+            if( alreadySubmittedSubmission.getStatus() == Submission.Status.UPLOAD_FAILED )
+                alreadySubmittedSubmission.setStatus( Submission.Status.SUBMITTED );
 
             //Saving the new submission details to the database
             submissionService.modifySubmissionDetails( alreadySubmittedSubmission );
@@ -351,24 +383,213 @@ public class FileServiceImpl implements FileService {
 
     }
 
+    /**
+     * Issues a pre-signed PUT URL for a new assignment submission, the first step of a direct-to-S3 upload.
+     *
+     * The URL is scoped to the same key {@link #uploadAssignmentSubmission} would use, and the client has to send the
+     * given content type and exactly the announced size with the PUT. Nothing is written to the database until the
+     * upload is confirmed with {@link #confirmAssignmentSubmission}; an upload that is never confirmed is deleted by the
+     * deletion queue once aws.s3.presigned-upload.unconfirmed-retention-seconds have passed.
+     *
+     * @param courseData The course the assignment belongs to.
+     * @param assignmentData The assignment being submitted.
+     * @param employeeData The employee submitting the assignment.
+     * @param fileName The name of the file to be uploaded.
+     * @param contentType The content type the client will send with the PUT.
+     * @param fileSize The size of the file in bytes.
+     * @return The pre-signed URL and its expiry, or null if the file size is outside the allowed range.
+     */
+    @Override
+    public PresignedUrlResponseDTO presignAssignmentSubmission( Course courseData, Assignment assignmentData, Users employeeData, String fileName, String contentType, long fileSize )
+    {
+        if( !isAllowedUploadSize( fileSize ) )
+            return null;
+        String filePath = S3ObjectKeys.assignmentSubmission( courseData.getTitle(), assignmentData.getTitle(), employeeData, fileName );
+        //The client writes the key itself, so cancel a deletion queued for it before handing out the URL
+        fileDeletionQueue.cancel( assignmentBucketName, List.of( filePath ) );
+        return presignUpload( filePath, fileName, contentType, fileSize );
+    }
+
+    /**
+     * Confirms a direct-to-S3 assignment upload and saves the submission.
+     *
+     * A HEAD request checks that the object exists under the expected key with the announced size before the
+     * submission is written, so a submission never points to a missing or truncated file. A rejected upload is queued
+     * for deletion again, delayed so the client can still retry the PUT with its URL.
+     *
+     * @return A `FileUploadResponse` containing the file path and timestamp, or null if the object is missing or its
+     *         size does not match.
+     * @throws com.software.upskilled.exception.SubmissionAlreadyExistsException if the employee has already submitted
+     *         the assignment, for instance when the confirm call is retried.
+     */
+    @Override
+    public FileUploadResponse confirmAssignmentSubmission( Course courseData, Assignment assignmentData, Users employeeData, String fileName, long fileSize )
+    {
+        String filePath = S3ObjectKeys.assignmentSubmission( courseData.getTitle(), assignmentData.getTitle(), employeeData, fileName );
+        //Claim the upload before checking it, so the worker can't delete it between the check and the insert
+        fileDeletionQueue.cancel( assignmentBucketName, List.of( filePath ) );
+        if( !isAllowedUploadSize( fileSize ) || !isUploadedWithSize( filePath, fileSize ) ) {
+            queueUnconfirmedUpload( filePath );
+            return null;
+        }
+
+        Submission newSubmissionDetails = Submission.builder()
+                .status(Submission.Status.SUBMITTED)
+                .submissionUrl( filePath )
+                .assignment( assignmentData )
+                .employee( employeeData ).build();
+        try {
+            submissionService.saveNewSubmission( newSubmissionDetails );
+        } catch (SubmissionAlreadyExistsException e) {
+            //Skipped by the deletion worker if the existing submission points to the same key
+            queueUnconfirmedUpload( filePath );
+            throw e;
+        }
+
+        FileUploadResponse fileUploadResponse = new FileUploadResponse();
+        fileUploadResponse.setFilePath( filePath );
+        fileUploadResponse.setDateTime( LocalDateTime.now() );
+        return fileUploadResponse;
+    }
+
+    /**
+     * Issues a pre-signed PUT URL to replace the file of an existing submission.
+     *
+     * The URL targets a new key of its own rather than the key the submission points to, so the recorded file stays
+     * untouched until the replacement is confirmed with {@link #confirmAssignmentUpdate} and the submission is switched
+     * over. The returned uploadId identifies that key on confirm.
+     *
+     * @return The pre-signed URL, its expiry and upload id, or null if the file size is outside the allowed range.
+     */
+    @Override
+    public PresignedUrlResponseDTO presignAssignmentUpdate( Submission alreadySubmittedSubmission, String fileName, String contentType, long fileSize )
+    {
+        if( !isAllowedUploadSize( fileSize ) )
+            return null;
+        String uploadId = UUID.randomUUID().toString();
+        PresignedUrlResponseDTO presignedUrl = presignUpload( updatedSubmissionKey( alreadySubmittedSubmission, uploadId, fileName ), fileName, contentType, fileSize );
+        presignedUrl.setUploadId( uploadId );
+        return presignedUrl;
+    }
+
+    /**
+     * Confirms the direct-to-S3 replacement of a submission file and points the submission to it.
+     *
+     * The previous file is queued for deletion in the transaction that points the submission to the new one, so if the
+     * row update fails the old file stays. A rejected upload is queued for deletion instead, delayed like an
+     * unconfirmed one.
+     *
+     * @param uploadId The upload id returned with the pre-signed URL.
+     * @return A `FileUploadResponse` containing the file path and timestamp, or null if the object is missing or its
+     *         size does not match.
+     */
+    @Override
+    @Transactional
+    public FileUploadResponse confirmAssignmentUpdate( Submission alreadySubmittedSubmission, String uploadId, String fileName, long fileSize )
+    {
+        String filePath = updatedSubmissionKey( alreadySubmittedSubmission, uploadId, fileName );
+        fileDeletionQueue.cancel( assignmentBucketName, List.of( filePath ) );
+        if( !isAllowedUploadSize( fileSize ) || !isUploadedWithSize( filePath, fileSize ) ) {
+            queueUnconfirmedUpload( filePath );
+            return null;
+        }
+
+        String previousFilePath = alreadySubmittedSubmission.getSubmissionUrl();
+        alreadySubmittedSubmission.setSubmissionUrl( filePath );
+        //Uploading again is how an employee recovers a submission whose pipeline upload failed
+        if( alreadySubmittedSubmission.getStatus() == Submission.Status.UPLOAD_FAILED )
+            alreadySubmittedSubmission.setStatus( Submission.Status.SUBMITTED );
+        submissionService.modifySubmissionDetails( alreadySubmittedSubmission );
+
+        //Queued in the same transaction as the row update, so the old file is only deleted once nothing points to it.
+        //A retried confirm finds the submission already pointing to the new file
+        if( !filePath.equals( previousFilePath ) )
+            queueAssignmentDeletion( List.of( previousFilePath ) );
+
+        FileUploadResponse fileUploadResponse = new FileUploadResponse();
+        fileUploadResponse.setFilePath( filePath );
+        fileUploadResponse.setDateTime( LocalDateTime.now() );
+        return fileUploadResponse;
+    }
+
+    private String updatedSubmissionKey( Submission alreadySubmittedSubmission, String uploadId, String fileName )
+    {
+        Assignment parentAssignment = alreadySubmittedSubmission.getAssignment();
+        return S3ObjectKeys.assignmentUpdate( parentAssignment.getCourse().getTitle(), parentAssignment.getTitle(),
+                alreadySubmittedSubmission.getEmployee(), alreadySubmittedSubmission.getId(), uploadId, fileName );
+    }
+
+    private boolean isAllowedUploadSize( long fileSize )
+    {
+        return fileSize > 0 && fileSize <= presignedUploadMaxSizeMb * 1024 * 1024;
+    }
+
+    //Deleted unless a submission points to it or a confirm claims it before the retention runs out
+    private void queueUnconfirmedUpload( String filePath )
+    {
+        fileDeletionQueue.enqueue( assignmentBucketName, List.of( filePath ), unconfirmedUploadRetentionSeconds * 1000 );
+    }
+
+    /**
+     * Signs a PUT URL for the assignment bucket and queues the key for a delayed deletion, which the confirm cancels.
+     * The content type and the Content-Length are part of the signature, so S3 refuses a body of any other size and
+     * the upload limit holds for the bytes actually stored.
+     */
+    private PresignedUrlResponseDTO presignUpload( String filePath, String fileName, String contentType, long fileSize )
+    {
+        Date expiresAt = new Date( System.currentTimeMillis() + presignedUploadTtlSeconds * 1000 );
+        GeneratePresignedUrlRequest presignRequest = new GeneratePresignedUrlRequest( assignmentBucketName, filePath, HttpMethod.PUT )
+                .withExpiration( expiresAt )
+                .withContentType( contentType );
+        presignRequest.putCustomRequestHeader( HttpHeaders.CONTENT_LENGTH, String.valueOf( fileSize ) );
+        try {
+            PresignedUrlResponseDTO presignedUrl = new PresignedUrlResponseDTO();
+            presignedUrl.setUrl( s3Client.generatePresignedUrl( presignRequest ).toString() );
+            presignedUrl.setFileName( fileName );
+            presignedUrl.setExpiresAt( expiresAt );
+            queueUnconfirmedUpload( filePath );
+            return presignedUrl;
+        } catch (SdkClientException e) {
+            throw new IllegalStateException("Failed to pre-sign the assignment upload", e);
+        }
+    }
+
+    /**
+     * HEADs the uploaded object and checks it against the size announced by the client.
+     */
+    private boolean isUploadedWithSize( String filePath, long fileSize )
+    {
+        try {
+            ObjectMetadata objectMetadata = s3Client.getObjectMetadata( assignmentBucketName, filePath );
+            return objectMetadata.getContentLength() == fileSize;
+        } catch (AmazonS3Exception e) {
+            if( e.getStatusCode() == HttpStatus.NOT_FOUND.value() )
+                return false;
+            throw new IllegalStateException("Failed to verify the uploaded assignment file", e);
+        } catch (AmazonServiceException e) {
+            throw new IllegalStateException("Failed to verify the uploaded assignment file", e);
+        }
+    }
+
     /**
      * Asynchronously deletes a course material file from the S3 bucket.
      *
-     * This method accepts the URL of a course material file, deletes it from the S3 storage, and returns a response indicating
-     * whether the deletion was successful. The file name is extracted from the URL for the response, and if the deletion fails,
-     * an exception is thrown.
+     * This method accepts the URL of a course material file, deletes it from the S3 storage on the file I/O executor,
+     * and completes the returned future with a response indicating whether the deletion was successful. The file name is
+     * extracted from the URL for the response. If the deletion fails the future completes exceptionally.
      *
      * @param courseMaterialURL The URL of the course material file to be deleted from S3 storage.
-     * @return A `FileDeletionResponse` indicating the success of the deletion operation and the file name.
-     * @throws IllegalStateException if an error occurs during the file deletion process.
+     * @return A future of the `FileDeletionResponse` indicating the success of the deletion operation and the file name.
+     * @throws IllegalStateException (through the future) if an error occurs during the file deletion process.
      */
     @Override
-    @Async
-    public FileDeletionResponse deleteCourseMaterial(String courseMaterialURL) {
+    @Async(AsyncConfig.FILE_IO_EXECUTOR)
+    public CompletableFuture<FileDeletionResponse> deleteCourseMaterial(String courseMaterialURL) {
         try {
             DeleteObjectRequest deleteCourseMaterialRequest = new DeleteObjectRequest( courseMaterialsBucketName, courseMaterialURL );
 
             s3Client.deleteObject(deleteCourseMaterialRequest);
+            s3LocalFileCache.invalidate( courseMaterialsBucketName, courseMaterialURL );
 
             //Creating the File Deletion Response object
             FileDeletionResponse fileDeletionResponse = new FileDeletionResponse();
@@ -376,7 +597,7 @@ public class FileServiceImpl implements FileService {
             String [] courseMaterialURLArray = courseMaterialURL.split("_");
             fileDeletionResponse.setFileName( courseMaterialURLArray[2] );
 
-            return fileDeletionResponse;
+            return CompletableFuture.completedFuture( fileDeletionResponse );
 
         } catch (AmazonServiceException e) {
             throw new IllegalStateException("Failed to delete the file", e);
@@ -386,17 +607,17 @@ public class FileServiceImpl implements FileService {
     /**
      * Asynchronously deletes an uploaded assignment file from the S3 bucket.
      *
-     * This method accepts the URL of an assignment submission file, deletes it from the S3 storage, and returns a response indicating
-     * whether the deletion was successful. The file name is extracted from the URL for the response, and if the deletion fails,
-     * an exception is thrown.
+     * This method accepts the URL of an assignment submission file, deletes it from the S3 storage on the file I/O
+     * executor, and completes the returned future with a response indicating whether the deletion was successful. The
+     * file name is extracted from the URL for the response. If the deletion fails the future completes exceptionally.
      *
      * @param submissionURL The URL of the assignment submission file to be deleted from S3 storage.
-     * @return A `FileDeletionResponse` indicating the success of the deletion operation and the file name.
-     * @throws IllegalStateException if an error occurs during the file deletion process.
+     * @return A future of the `FileDeletionResponse` indicating the success of the deletion operation and the file name.
+     * @throws IllegalStateException (through the future) if an error occurs during the file deletion process.
      */
     @Override
-    @Async
-    public FileDeletionResponse deleteUploadedAssignment(String submissionURL) {
+    @Async(AsyncConfig.FILE_IO_EXECUTOR)
+    public CompletableFuture<FileDeletionResponse> deleteUploadedAssignment(String submissionURL) {
         try {
             DeleteObjectRequest deleteCourseMaterialRequest = new DeleteObjectRequest( assignmentBucketName, submissionURL );
 
@@ -408,86 +629,333 @@ public class FileServiceImpl implements FileService {
             String [] submissionURLArray = submissionURL.split("_");
             fileDeletionResponse.setFileName( submissionURLArray[2] );
 
-            return fileDeletionResponse;
+            return CompletableFuture.completedFuture( fileDeletionResponse );
 
         } catch (AmazonServiceException e) {
             throw new IllegalStateException("Failed to delete the uploaded assignment file", e);
         }
     }
 
+    /**
+     * Queues course material files for deletion by the {@link FileDeletionQueue} worker instead of deleting them one by
+     * one. To be called once the course material rows are removed; the local cached copies are dropped right away.
+     *
+     * @param courseMaterialURLs The URLs of the course material files to delete.
+     */
+    @Override
+    public void queueCourseMaterialDeletion( Collection<String> courseMaterialURLs )
+    {
+        fileDeletionQueue.enqueue( courseMaterialsBucketName, courseMaterialURLs );
+        courseMaterialURLs.forEach( courseMaterialURL -> s3LocalFileCache.invalidate( courseMaterialsBucketName, courseMaterialURL ) );
+    }
+
+    /**
+     * Queues assignment submission files for deletion by the {@link FileDeletionQueue} worker. Called inside the
+     * transaction that removes the submissions, the files are only queued if the rows are deleted.
+     *
+     * @param submissionURLs The URLs of the submission files to delete.
+     */
+    @Override
+    public void queueAssignmentDeletion( Collection<String> submissionURLs )
+    {
+        fileDeletionQueue.enqueue( assignmentBucketName, submissionURLs );
+    }
+
 //    View buckets
 
     /**
-     * Asynchronously retrieves the content of a course material file from the S3 bucket.
+     * Streams a course material file from the S3 bucket.
      *
-     * This method takes the URL of a course material file, fetches it from the S3 storage, and returns its content as a byte array.
-     * If the file retrieval fails due to an error in accessing the file or reading its content, an exception is thrown.
+     * The S3 object stream is handed to the response as-is and copied to the client with a fixed size buffer, so the
+     * memory used by a download no longer depends on the size of the file. Range and If-None-Match request headers are
+     * honoured, see {@link #streamObject(String, String, String, MediaType, HttpHeaders, boolean)}. Course materials are
+     * served from the local file cache when possible. In the redirect and json delivery modes a pre-signed URL is
+     * handed out instead, see {@link #deliverObject(String, String, String, MediaType, HttpHeaders, boolean)}.
      *
      * @param courseMaterialURL The URL of the course material file to be retrieved from S3 storage.
-     * @return A byte array representing the content of the course material file.
-     * @throws IllegalStateException if an error occurs during the file download or reading process.
+     * @param fileName The file name sent to the client in the Content-Disposition header.
+     * @param requestHeaders The headers of the download request.
+     * @return A ResponseEntity streaming the content of the course material file, or pointing to its pre-signed URL.
+     * @throws IllegalStateException if an error occurs while requesting the file from S3.
      */
     @Override
-    @Async
-    public byte[] viewCourseMaterial( String courseMaterialURL)
+    public ResponseEntity<?> viewCourseMaterial( String courseMaterialURL, String fileName, HttpHeaders requestHeaders )
     {
-        try {
-            S3Object object = s3Client.getObject(courseMaterialsBucketName,courseMaterialURL);
-            S3ObjectInputStream objectContent = object.getObjectContent();
-
-            return IOUtils.toByteArray(objectContent);
-        } catch (AmazonServiceException | IOException e) {
-            throw new IllegalStateException("Failed to download the file", e);
-        }
+        return deliverObject( courseMaterialsBucketName, courseMaterialURL, fileName, MediaType.APPLICATION_PDF, requestHeaders, true );
     }
 
     /**
-     * Asynchronously retrieves the syllabus file of a course from the S3 bucket.
+     * Streams the syllabus file of a course from the S3 bucket.
      *
-     * This method uses the course ID to find the associated course and fetches the syllabus file from S3 storage using the syllabus URL stored in the course object.
-     * The syllabus file is returned as a byte array. If there is an issue accessing or reading the file, an exception is thrown.
+     * The syllabus URL stored in the course is used both as the S3 key and as the file name sent to the client. Syllabi
+     * are served from the local file cache when possible.
      *
-     * @param courseId The ID of the course whose syllabus file is to be retrieved.
-     * @return A byte array representing the content of the syllabus file.
-     * @throws IllegalStateException if an error occurs while downloading or reading the file.
+     * @param course The course whose syllabus file is to be retrieved.
+     * @param contentType The content type of the response.
+     * @param requestHeaders The headers of the download request.
+     * @return A ResponseEntity streaming the content of the syllabus file, or pointing to its pre-signed URL.
+     * @throws IllegalStateException if an error occurs while requesting the file from S3.
      */
     @Override
-    @Async
-    public byte[] viewSyllabus(Long courseId) {
+    public ResponseEntity<?> viewSyllabus( Course course, MediaType contentType, HttpHeaders requestHeaders )
+    {
+        return deliverObject( syllabusBucketName, course.getSyllabusUrl(), course.getSyllabusUrl(), contentType, requestHeaders, true );
+    }
 
-        Course course = courseService.findCourseById(courseId);
+    /**
+     * Streams an assignment submission file from the S3 bucket.
+     *
+     * @param assignmentSubmissionURL The URL of the assignment submission file to be retrieved from S3.
+     * @param fileName The file name sent to the client in the Content-Disposition header.
+     * @param requestHeaders The headers of the download request.
+     * @return A ResponseEntity streaming the content of the assignment submission file, or pointing to its pre-signed URL.
+     * @throws IllegalStateException if an error occurs while requesting the file from S3.
+     */
+    @Override
+    public ResponseEntity<?> viewAssignmentSubmission( String assignmentSubmissionURL, String fileName, HttpHeaders requestHeaders )
+    {
+        return deliverObject( assignmentBucketName, assignmentSubmissionURL, fileName, MediaType.APPLICATION_PDF, requestHeaders, false );
+    }
+
+    /**
+     * Delivers an S3 object according to the aws.s3.delivery.mode property.
+     *
+     * - proxy (default): the object is streamed through this server, see {@link #streamObject}.
+     * - redirect: a 302 to a pre-signed GET URL, the client downloads the file straight from S3.
+     * - json: a 200 with a {@link PresignedUrlResponseDTO} holding the pre-signed URL and its expiry.
+     *
+     * Pre-signed URLs live for aws.s3.delivery.presigned-url-ttl-seconds and carry the Content-Disposition and content
+     * type as response header overrides, so S3 answers like the proxy would; Range and conditional requests are then
+     * handled by S3 itself. The callers run their authorization checks before getting here. If the URL cannot be
+     * signed the object is proxied instead.
+     */
+    private ResponseEntity<?> deliverObject( String bucketName, String key, String fileName, MediaType contentType, HttpHeaders requestHeaders, boolean cacheable )
+    {
+        boolean redirect = "redirect".equalsIgnoreCase( deliveryMode );
+        if( redirect || "json".equalsIgnoreCase( deliveryMode ) )
+        {
+            PresignedUrlResponseDTO presignedUrl = presignDownload( bucketName, key, fileName, contentType );
+            if( presignedUrl != null )
+            {
+                //The URL stops working once it expires, so neither response may be reused from a cache
+                if( redirect )
+                    return ResponseEntity.status( HttpStatus.FOUND )
+                            .location( URI.create( presignedUrl.getUrl() ) )
+                            .cacheControl( CacheControl.noStore() ).build();
+                return ResponseEntity.ok().cacheControl( CacheControl.noStore() ).body( presignedUrl );
+            }
+        }
+        return streamObject( bucketName, key, fileName, contentType, requestHeaders, cacheable );
+    }
 
+    /**
+     * Signs a short-lived GET URL for the object, returning null if the client cannot sign it.
+     */
+    private PresignedUrlResponseDTO presignDownload( String bucketName, String key, String fileName, MediaType contentType )
+    {
+        Date expiresAt = new Date( System.currentTimeMillis() + presignedUrlTtlSeconds * 1000 );
+        GeneratePresignedUrlRequest presignRequest = new GeneratePresignedUrlRequest( bucketName, key, HttpMethod.GET )
+                .withExpiration( expiresAt )
+                .withResponseHeaders( new ResponseHeaderOverrides()
+                        .withContentDisposition( "attachment; filename=\"" + fileName + "\"" )
+                        .withContentType( contentType.toString() ) );
         try {
-            S3Object object = s3Client.getObject(syllabusBucketName,course.getSyllabusUrl());
-            S3ObjectInputStream objectContent = object.getObjectContent();
+            URL url = s3Client.generatePresignedUrl( presignRequest );
+            PresignedUrlResponseDTO presignedUrl = new PresignedUrlResponseDTO();
+            presignedUrl.setUrl( url.toString() );
+            presignedUrl.setFileName( fileName );
+            presignedUrl.setExpiresAt( expiresAt );
+            return presignedUrl;
+        } catch (SdkClientException | UnsupportedOperationException e) {
+            log.warn("Could not pre-sign {}, streaming it instead: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Issues a single GET for the S3 object and wraps its content stream in the response.
+     *
+     * Cacheable objects are first looked up in the {@link S3LocalFileCache}, which downloads them on a miss; the
+     * direct S3 stream is only used when the cache is disabled or could not store the object.
+     *
+     * The If-None-Match values of the request are passed to S3 as ETag constraints, when one of them matches S3 returns
+     * no object and a 304 is sent without a body, carrying the object's current ETag. A single byte range (start-end, start- or -suffix) is passed to S3 as
+     * well and answered with a 206 and the matching Content-Range. Multiple ranges or malformed and unsatisfiable ranges
+     * are answered with a 416. Content-Length always comes from the object metadata.
+     *
+     * @param bucketName The bucket holding the object.
+     * @param key The key of the object.
+     * @param fileName The file name sent to the client in the Content-Disposition header.
+     * @param contentType The content type of the response.
+     * @param requestHeaders The headers of the download request.
+     * @param cacheable Whether the object may be served from the local file cache.
+     * @return A ResponseEntity with the object stream as the body, or a bodiless 304 / 416 response.
+     */
+    private ResponseEntity<Resource> streamObject( String bucketName, String key, String fileName, MediaType contentType, HttpHeaders requestHeaders, boolean cacheable )
+    {
+        if( cacheable )
+        {
+            S3LocalFileCache.CachedObject cachedObject;
+            try {
+                cachedObject = s3LocalFileCache.fetch( bucketName, key );
+            } catch (AmazonServiceException e) {
+                throw new IllegalStateException("Failed to download the file", e);
+            }
+            if( cachedObject != null )
+                return serveCachedObject( cachedObject, fileName, contentType, requestHeaders );
+        }
+
+        GetObjectRequest getObjectRequest = new GetObjectRequest( bucketName, key );
+
+        //S3 compares the strong ETag, so any weak validator prefix is dropped
+        List<String> clientETags = requestHeaders.getIfNoneMatch().stream()
+                .map( eTag -> eTag.startsWith("W/") ? eTag.substring(2) : eTag ).toList();
+        if( !clientETags.isEmpty() )
+            getObjectRequest.setNonmatchingETagConstraints( clientETags );
+
+        String rangeHeader = requestHeaders.getFirst( HttpHeaders.RANGE );
+        if( rangeHeader != null )
+        {
+            long[] byteRange = parseByteRange( rangeHeader, () -> s3Client.getObjectMetadata( bucketName, key ).getContentLength() );
+            if( byteRange == null )
+                return ResponseEntity.status( HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE ).build();
+            getObjectRequest.setRange( byteRange[0], byteRange[1] );
+        }
 
-            return IOUtils.toByteArray(objectContent);
-        } catch (AmazonServiceException | IOException e) {
+        S3Object object;
+        try {
+            object = s3Client.getObject( getObjectRequest );
+        } catch (AmazonS3Exception e) {
+            if( e.getStatusCode() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value() )
+                return ResponseEntity.status( HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE ).build();
+            throw new IllegalStateException("Failed to download the file", e);
+        } catch (AmazonServiceException e) {
             throw new IllegalStateException("Failed to download the file", e);
         }
 
+        //A null object means one of the If-None-Match ETags matched, S3 does not say which so the current one is read back
+        if( object == null )
+        {
+            ResponseEntity.HeadersBuilder<?> notModified = ResponseEntity.status( HttpStatus.NOT_MODIFIED );
+            try {
+                String currentETag = s3Client.getObjectMetadata( bucketName, key ).getETag();
+                if( currentETag != null )
+                    notModified.eTag( currentETag );
+            } catch (AmazonServiceException e) {
+                log.warn("Could not read the current ETag of {}, answering 304 without it: {}", key, e.getMessage());
+            }
+            return notModified.build();
+        }
+
+        ObjectMetadata objectMetadata = object.getObjectMetadata();
+        Long[] contentRange = objectMetadata.getContentRange();
+        boolean partialContent = rangeHeader != null && contentRange != null;
+
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status( partialContent ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK )
+                .contentLength( objectMetadata.getContentLength() )
+                .header( HttpHeaders.ACCEPT_RANGES, "bytes" )
+                .header("Content-disposition", "attachment; filename=\"" + fileName + "\"")
+                .contentType( contentType );
+        if( objectMetadata.getETag() != null )
+            responseBuilder.eTag( objectMetadata.getETag() );
+        if( partialContent )
+            responseBuilder.header( HttpHeaders.CONTENT_RANGE,
+                    "bytes " + contentRange[0] + "-" + contentRange[1] + "/" + objectMetadata.getInstanceLength() );
+
+        return responseBuilder.body( new InputStreamResource( object.getObjectContent() ) );
     }
 
     /**
-     * Asynchronously retrieves an assignment submission file from the S3 bucket.
+     * Serves an object from its local cached copy.
      *
-     * This method takes the assignment submission URL and fetches the corresponding file from the S3 storage.
-     * The file content is returned as a byte array. If there is an error during file retrieval or reading, an exception is thrown.
-     *
-     * @param assignmentSubmissionURL The URL of the assignment submission file to be retrieved from S3.
-     * @return A byte array representing the content of the assignment submission file.
-     * @throws IllegalStateException if an error occurs while downloading or reading the file.
+     * If-None-Match is checked against the cached ETag. The file is opened before this method returns, while the cache
+     * still pins it, and the pin is released when Spring closes the stream after writing it, so an eviction in the
+     * meantime cannot remove the file underneath the response. A single byte range is answered with a 206, multiple
+     * ranges or malformed and unsatisfiable ranges with a 416, like objects streamed from S3.
      */
-    @Override
-    @Async
-    public byte[] viewAssignmentSubmission(String assignmentSubmissionURL) {
+    private ResponseEntity<Resource> serveCachedObject( S3LocalFileCache.CachedObject cachedObject, String fileName, MediaType contentType, HttpHeaders requestHeaders )
+    {
+        String eTag = "\"" + cachedObject.eTag() + "\"";
+        boolean notModified = requestHeaders.getIfNoneMatch().stream()
+                .anyMatch( clientETag -> clientETag.equals("*") || clientETag.equals( eTag ) || clientETag.equals( "W/" + eTag ) );
+        if( notModified )
+        {
+            cachedObject.close();
+            return ResponseEntity.status( HttpStatus.NOT_MODIFIED ).eTag( eTag ).build();
+        }
+
+        long objectLength = cachedObject.size();
+        long[] byteRange = null;
+        String rangeHeader = requestHeaders.getFirst( HttpHeaders.RANGE );
+        if( rangeHeader != null )
+        {
+            byteRange = parseByteRange( rangeHeader, () -> objectLength );
+            if( byteRange == null || byteRange[0] >= objectLength )
+            {
+                cachedObject.close();
+                return ResponseEntity.status( HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE )
+                        .header( HttpHeaders.CONTENT_RANGE, "bytes */" + objectLength ).build();
+            }
+            byteRange[1] = Math.min( byteRange[1], objectLength - 1 );
+        }
+
+        long offset = byteRange == null ? 0 : byteRange[0];
+        long length = byteRange == null ? objectLength : byteRange[1] - byteRange[0] + 1;
+        InputStream content;
         try {
-            S3Object object = s3Client.getObject(assignmentBucketName,assignmentSubmissionURL);
-            S3ObjectInputStream objectContent = object.getObjectContent();
+            content = cachedObject.openStream( offset, length );
+        } catch (IOException e) {
+            cachedObject.close();
+            throw new IllegalStateException("Failed to read the cached file", e);
+        }
 
-            return IOUtils.toByteArray(objectContent);
-        } catch (AmazonServiceException | IOException e) {
-            throw new IllegalStateException("Failed to download the assignment file", e);
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status( byteRange == null ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT )
+                .contentLength( length )
+                .header( HttpHeaders.ACCEPT_RANGES, "bytes" )
+                .header("Content-disposition", "attachment; filename=\"" + fileName + "\"")
+                .contentType( contentType )
+                .eTag( eTag );
+        if( byteRange != null )
+            responseBuilder.header( HttpHeaders.CONTENT_RANGE, "bytes " + byteRange[0] + "-" + byteRange[1] + "/" + objectLength );
+        return responseBuilder.body( new InputStreamResource( content ) );
+    }
+
+    /**
+     * Parses a Range header holding a single byte range into the inclusive start and end offsets expected by S3.
+     *
+     * Open ended ranges are sent with the largest possible end, S3 clamps it to the object size. Suffix ranges need the
+     * object size, which is only looked up for that form.
+     *
+     * @param objectLength Supplies the size of the object, only called for suffix ranges.
+     * @return The start and end offsets, or null if the header is malformed, unsatisfiable or asks for several ranges.
+     */
+    private long[] parseByteRange( String rangeHeader, LongSupplier objectLength )
+    {
+        if( !rangeHeader.startsWith("bytes=") || rangeHeader.indexOf(',') >= 0 )
+            return null;
+
+        String byteRange = rangeHeader.substring( "bytes=".length() ).trim();
+        int separator = byteRange.indexOf('-');
+        if( separator < 0 )
+            return null;
+        try {
+            String start = byteRange.substring( 0, separator ).trim();
+            String end = byteRange.substring( separator + 1 ).trim();
+            if( start.isEmpty() )
+            {
+                long suffixLength = Long.parseLong( end );
+                long length = objectLength.getAsLong();
+                if( suffixLength <= 0 || length == 0 )
+                    return null;
+                return new long[]{ Math.max( 0, length - suffixLength ), length - 1 };
+            }
+            long rangeStart = Long.parseLong( start );
+            long rangeEnd = end.isEmpty() ? Long.MAX_VALUE - 1 : Long.parseLong( end );
+            if( rangeStart < 0 || rangeEnd < rangeStart )
+                return null;
+            return new long[]{ rangeStart, rangeEnd };
+        } catch (NumberFormatException e) {
+            return null;
         }
     }
 }
@@ -1,51 +1,222 @@
 package com.software.upskilled.service;
 
+import com.software.upskilled.Entity.Course;
 import com.software.upskilled.Entity.Message;
+import com.software.upskilled.Entity.UnreadMessageCounter;
+import com.software.upskilled.Entity.Users;
 import com.software.upskilled.dto.CourseMessagesResponseDTO;
+import com.software.upskilled.dto.MessageNotificationDTO;
+import com.software.upskilled.dto.MessageReadNotificationDTO;
+import com.software.upskilled.dto.UnreadCountDTO;
+import com.software.upskilled.dto.UnreadCountsResponseDTO;
+import com.software.upskilled.repository.DataMigrationRepository;
+import com.software.upskilled.repository.EnrollmentRepository;
 import com.software.upskilled.repository.MessageRepository;
+import com.software.upskilled.repository.UnreadMessageCounterRepository;
+import com.software.upskilled.utils.KeysetCursor;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service layer for handling messages between instructors and employees. Provides functionality to send, retrieve, and manage messages.
- * Includes methods to retrieve sent/received messages, update read statuses, and manage unique sender/recipient lists.
+ * Includes methods to retrieve sent/received messages and update read statuses.
  * Transaction management is applied for updating the read status of messages.
+ * Sending and reading messages also maintain the per (recipient, course, sender) unread counters in the same transaction,
+ * and publish a {@link NotificationEvent} that is pushed to the event streams of the users concerned after the commit.
  */
 @Service
+@Slf4j
 public class MessageService
 {
     @Autowired
     MessageRepository messageRepository;
 
+    @Autowired
+    UnreadMessageCounterRepository unreadMessageCounterRepository;
+
+    @Autowired
+    EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    DataMigrationRepository dataMigrationRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    static final String UNREAD_COUNTER_BACKFILL = "unread-message-counter-backfill";
+
+    @Value("${messages.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${messages.page.max-size:200}")
+    private int maxPageSize;
+
+    /**
+     * A page of messages, newest first, and the cursor of the next (older) page, null on the last page.
+     */
+    public record MessagePage( List<Message> messages, KeysetCursor nextCursor )
+    {
+        //The queries fetch one row more than the page size, its presence tells that an older page exists
+        static MessagePage of( List<Message> rows, int pageSize ) {
+            if( rows.size() <= pageSize )
+                return new MessagePage( rows, null );
+            List<Message> messages = rows.subList( 0, pageSize );
+            return new MessagePage( messages, KeysetCursor.after( messages.get( pageSize - 1 ) ) );
+        }
+
+        /**
+         * Groups the messages of the page by the employee on the other side, the most recent conversation first.
+         */
+        public Map<Users, List<Message>> groupBy( Function<Message, Users> employee ) {
+            return messages.stream().collect( Collectors.groupingBy( employee, LinkedHashMap::new, Collectors.toList() ) );
+        }
+    }
+
+    /**
+     * Saves the message and counts it as unread for its recipient, in the same transaction.
+     */
+    @Transactional
     public Message createNewMessage( Message message )
     {
-        return messageRepository.save(message);
+        Message savedMessage = messageRepository.save(message);
+        if( savedMessage.getCourse() != null && !Boolean.TRUE.equals( savedMessage.getIsRead() ) )
+            unreadMessageCounterRepository.increment( savedMessage.getRecipient().getId(), savedMessage.getCourse().getId(), savedMessage.getSender().getId(), 1 );
+        publishNewMessage( savedMessage );
+        return savedMessage;
     }
 
-    public Optional<List<Message>> getAllSentMessagesForEmployee( Long senderId, Long courseId ) {
-        //Check if sentMessages exist for the current senderId belonging to that particular course
-        return messageRepository.getSentMessagesForEmployee( senderId, courseId );
+    private void publishNewMessage( Message message ) {
+        MessageNotificationDTO notification = new MessageNotificationDTO( message.getId(),
+                message.getCourse() != null ? message.getCourse().getId() : null, message.getSender().getId(),
+                message.getRecipient().getId(), message.getContent(), message.getSentAt() );
+        eventPublisher.publishEvent( new NotificationEvent( NotificationEvent.MESSAGE, List.of( message.getRecipient().getId() ), notification ) );
     }
 
-    public Optional<List<Message>> getAllReceivedMessageForEmployee( Long receiverId, Long courseId ) {
-        //Check if the user has received any message
-        return messageRepository.getReceivedMessagesForEmployee( receiverId, courseId );
+    //Both sides are told: the sender sees the read receipt, the other streams of the reader update their badges
+    private void publishMessagesRead( Long messageId, Long courseId, Long senderId, Long recipientId ) {
+        eventPublisher.publishEvent( new NotificationEvent( NotificationEvent.MESSAGE_READ, List.of( senderId, recipientId ),
+                new MessageReadNotificationDTO( messageId, courseId, senderId, recipientId ) ) );
     }
 
-    //Get the unique list of employee who have sent the messages to The Instructor
-    public List<Long> getUniqueListOfSenderEmployeesForInstructor( Long instructorId, Long courseId ) {
-        return messageRepository.getUniqueEmployeeSenderListForInstructor( instructorId, courseId );
+    /**
+     * Sends the same message from the course instructor to each of the employees, skipping the ids that are not enrolled
+     * in the course. The recipients are validated by one query, the messages are inserted as JDBC batches and the unread
+     * counters are updated by one statement, all in a single transaction whatever the size of the cohort.
+     *
+     * @param course the course the message is about, its instructor is the sender.
+     * @param employeeIds the intended recipients; duplicates and nulls are ignored.
+     * @param content the content of the message.
+     * @return the saved messages, in the order of the employee ids.
+     */
+    @Transactional
+    public List<Message> sendMessageToEmployees( Course course, Collection<Long> employeeIds, String content )
+    {
+        Set<Long> requestedIds = employeeIds.stream().filter( Objects::nonNull ).collect( Collectors.toCollection( LinkedHashSet::new ) );
+        if( requestedIds.isEmpty() )
+            return List.of();
+
+        Map<Long, Users> enrolledEmployees = enrollmentRepository.findEnrolledEmployees( course.getId(), requestedIds ).stream()
+                .collect( Collectors.toMap( Users::getId, Function.identity(), ( first, second ) -> first ) );
+        Users instructor = course.getInstructor();
+        List<Message> messages = requestedIds.stream()
+                .map( enrolledEmployees::get )
+                .filter( Objects::nonNull )
+                .map( employee -> Message.builder().sender( instructor ).recipient( employee ).isRead( false )
+                        .course( course ).content( content ).build() )
+                .toList();
+        if( messages.isEmpty() )
+            return List.of();
+
+        List<Message> savedMessages = messageRepository.saveAllAndFlush( messages );
+        unreadMessageCounterRepository.incrementForRecipients(
+                savedMessages.stream().map( message -> message.getRecipient().getId() ).toList(), course.getId(), instructor.getId() );
+        savedMessages.forEach( this::publishNewMessage );
+        return savedMessages;
+    }
+
+    /**
+     * Returns a page of the messages the employee sent in the course, newest first.
+     *
+     * @param before the cursor returned with the previous page, null for the first page.
+     * @param limit the requested page size, null for the default size; capped at messages.page.max-size.
+     */
+    public MessagePage getSentMessagesForEmployee( Long senderId, Long courseId, KeysetCursor before, Integer limit ) {
+        int pageSize = pageSize( limit );
+        List<Message> rows = before == null
+                ? messageRepository.getSentMessagesForEmployee( senderId, courseId, Limit.of( pageSize + 1 ) )
+                : messageRepository.getSentMessagesForEmployee( senderId, courseId, before.sortKeyTimestamp(), before.id(), Limit.of( pageSize + 1 ) );
+        return MessagePage.of( rows, pageSize );
+    }
+
+    /**
+     * Returns a page of the messages the employee received in the course, newest first.
+     *
+     * @param before the cursor returned with the previous page, null for the first page.
+     * @param limit the requested page size, null for the default size; capped at messages.page.max-size.
+     */
+    public MessagePage getReceivedMessagesForEmployee( Long receiverId, Long courseId, KeysetCursor before, Integer limit ) {
+        int pageSize = pageSize( limit );
+        List<Message> rows = before == null
+                ? messageRepository.getReceivedMessagesForEmployee( receiverId, courseId, Limit.of( pageSize + 1 ) )
+                : messageRepository.getReceivedMessagesForEmployee( receiverId, courseId, before.sortKeyTimestamp(), before.id(), Limit.of( pageSize + 1 ) );
+        return MessagePage.of( rows, pageSize );
+    }
+
+    /**
+     * Returns a page of the messages the instructor sent in the course, newest first, with their recipients loaded by
+     * the same query. {@link MessagePage#groupBy} then gives the conversations per employee.
+     */
+    public MessagePage getInstructorOutbox( Long instructorId, Long courseId, KeysetCursor before, Integer limit ) {
+        int pageSize = pageSize( limit );
+        List<Message> rows = before == null
+                ? messageRepository.getMessagesSentByInstructorWithRecipients( instructorId, courseId, Limit.of( pageSize + 1 ) )
+                : messageRepository.getMessagesSentByInstructorWithRecipients( instructorId, courseId, before.sortKeyTimestamp(), before.id(), Limit.of( pageSize + 1 ) );
+        return MessagePage.of( rows, pageSize );
     }
 
-    //Get the unique list of employee who are the recipient of the messages from the Instructor
-    public List<Long> getUniqueListOfRecipientEmployeesForInstructor( Long instructorId, Long courseId ) {
-        return messageRepository.getUniqueEmployeeRecipientListFromInstructor( instructorId, courseId );
+    /**
+     * Returns a page of the messages the instructor received in the course, newest first, with their senders loaded
+     * by the same query. {@link MessagePage#groupBy} then gives the conversations per employee.
+     */
+    public MessagePage getInstructorInbox( Long instructorId, Long courseId, KeysetCursor before, Integer limit ) {
+        int pageSize = pageSize( limit );
+        List<Message> rows = before == null
+                ? messageRepository.getMessagesReceivedByInstructorWithSenders( instructorId, courseId, Limit.of( pageSize + 1 ) )
+                : messageRepository.getMessagesReceivedByInstructorWithSenders( instructorId, courseId, before.sortKeyTimestamp(), before.id(), Limit.of( pageSize + 1 ) );
+        return MessagePage.of( rows, pageSize );
+    }
+
+    private int pageSize( Integer limit ) {
+        if( limit == null )
+            return defaultPageSize;
+        return Math.max( 1, Math.min( limit, maxPageSize ) );
     }
 
     public Optional<Message> getMessageById( Long messageId )
@@ -53,13 +224,88 @@ public class MessageService
         return messageRepository.findById( messageId );
     }
 
+    /**
+     * Marks the message as read. The unread counter of its recipient only goes down if this call flipped the flag,
+     * so reading a message twice, or twice at the same time, counts once.
+     */
     @Transactional
-    @Modifying( flushAutomatically = true )
     public Message updateReadStatusOfMessage( Message existingMessage ) {
-        return messageRepository.save( existingMessage );
+        int updatedRows = messageRepository.markMessageAsRead( existingMessage.getId() );
+        if( updatedRows > 0 && existingMessage.getCourse() != null ) {
+            unreadMessageCounterRepository.decrement( existingMessage.getRecipient().getId(), existingMessage.getCourse().getId(), existingMessage.getSender().getId(), updatedRows );
+            publishMessagesRead( existingMessage.getId(), existingMessage.getCourse().getId(), existingMessage.getSender().getId(), existingMessage.getRecipient().getId() );
+        }
+        existingMessage.setIsRead( true );
+        return existingMessage;
     }
 
+    /**
+     * Marks every message the employee sent to the instructor in the course as read, and takes the number of messages
+     * that were actually unread off the instructor's counter.
+     */
+    @Transactional
     public int updateReadStatusOfMessagesReceivedByEmployee( Long instructorId, Long employeeId, Long courseId ) {
-        return messageRepository.updateReadStatusOfReceivedMessagesFromEmployee( instructorId, employeeId, courseId );
+        int updatedRows = messageRepository.updateReadStatusOfReceivedMessagesFromEmployee( instructorId, employeeId, courseId );
+        if( updatedRows > 0 ) {
+            unreadMessageCounterRepository.decrement( instructorId, courseId, employeeId, updatedRows );
+            publishMessagesRead( null, courseId, employeeId, instructorId );
+        }
+        return updatedRows;
+    }
+
+    /**
+     * Returns the unread message counts of the user, per course and sender, read from the counters rather than the messages.
+     *
+     * @param recipientId the user whose badges are shown.
+     * @param courseId restricts the counts to one course, or null for every course.
+     */
+    public UnreadCountsResponseDTO getUnreadCounts( Long recipientId, Long courseId ) {
+        List<UnreadMessageCounter> counters = courseId == null
+                ? unreadMessageCounterRepository.findByRecipientIdAndUnreadCountGreaterThan( recipientId, 0 )
+                : unreadMessageCounterRepository.findByRecipientIdAndCourseIdAndUnreadCountGreaterThan( recipientId, courseId, 0 );
+        List<UnreadCountDTO> counts = counters.stream()
+                .map( counter -> new UnreadCountDTO( counter.getCourseId(), counter.getSenderId(), counter.getUnreadCount() ) )
+                .toList();
+        long totalUnread = counts.stream().mapToLong( UnreadCountDTO::getUnreadCount ).sum();
+        return new UnreadCountsResponseDTO( totalUnread, counts );
+    }
+
+    /**
+     * Moves the message id generator past the existing messages before anything is sent, see
+     * {@link MessageRepository#alignIdSequence}.
+     */
+    @PostConstruct
+    public void alignMessageIdSequence() {
+        try {
+            if( messageRepository.alignIdSequence( Message.ID_ALLOCATION_SIZE ) > 0 )
+                log.info( "Moved the message id generator past the existing messages" );
+        } catch ( DataAccessException e ) {
+            log.warn( "Could not align the message id generator: {}", e.getMessage() );
+        }
+    }
+
+    /**
+     * Seeds the unread counters from the message table once per database, so that messages sent before the counters
+     * existed are counted too.
+     *
+     * The backfill runs in its own transaction, which first inserts its data_migration marker: nodes starting at the
+     * same time wait on that row and then skip the backfill, and a failed backfill rolls the marker back so the next
+     * start runs it again. Counters are set to the unread count rather than added to, so messages sent while the
+     * application starts are not counted twice.
+     */
+    @EventListener( ApplicationReadyEvent.class )
+    public void backfillUnreadCounters() {
+        try {
+            Integer seededCounters = new TransactionTemplate( transactionManager ).execute( status -> {
+                if( dataMigrationRepository.markApplied( UNREAD_COUNTER_BACKFILL, System.currentTimeMillis() ) == 0 )
+                    return null;
+                return unreadMessageCounterRepository.backfillFromMessages();
+            } );
+            if( seededCounters != null )
+                log.info( "Seeded the unread message counters from existing messages ({} rows affected)", seededCounters );
+        } catch ( DataAccessException | TransactionException e ) {
+            //The transaction is already rolled back here, the backfill is tried again at the next start
+            log.warn( "Could not seed the unread message counters: {}", e.getMessage() );
+        }
     }
 }
@@ -0,0 +1,19 @@
+package com.software.upskilled.service;
+
+import java.util.Collection;
+
+/**
+ * Event published on the application event bus when something a user should be told about has been saved: a new
+ * message, a change of read status or a course announcement. {@link NotificationStreamService} pushes it, once the
+ * transaction that saved it has committed, to the event streams of the recipients.
+ *
+ * @param type the name of the server-sent event, one of the constants below.
+ * @param recipientIds the users whose streams receive the event.
+ * @param payload the DTO serialized as the data of the event.
+ */
+public record NotificationEvent( String type, Collection<Long> recipientIds, Object payload )
+{
+    public static final String MESSAGE = "message";
+    public static final String MESSAGE_READ = "message-read";
+    public static final String ANNOUNCEMENT = "announcement";
+}
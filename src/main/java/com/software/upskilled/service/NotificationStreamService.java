@@ -0,0 +1,427 @@
+package com.software.upskilled.service;
+
+import com.software.upskilled.utils.TokenBlackListService;
+import com.software.upskilled.utils.VerifiedTokenClaims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Server-sent event streams of the users (GET /api/notifications/stream), fed by the {@link NotificationEvent}s the
+ * services publish once their transaction has committed.
+ *
+ * An open stream holds no thread: the emitters are servlet async requests, and the events are written by a small
+ * sender pool (notifications.sse.sender-threads), one stream at a time so that each stream keeps the order of its events.
+ * A heartbeat comment keeps idle streams open through proxies and detects the clients that went away.
+ *
+ * A client that stops reading must not hold the sender pool: each stream queues at most notifications.sse.max-pending-events
+ * events, and a stream over that limit, or whose write has been blocked for notifications.sse.write-timeout-ms, is
+ * dropped. The blocked write itself ends with the connector's write timeout; the client reconnects and resumes from
+ * Last-Event-ID. A stream lives no longer than the access token it was opened with, and the heartbeat closes the
+ * streams whose token has been revoked (logout also closes them right away on this instance).
+ *
+ * Every event has an id "&lt;boot&gt;-&lt;sequence&gt;". The last notifications.sse.replay-size events of each user are kept
+ * while the user is connected, and for notifications.sse.replay-ttl-seconds after the last stream closed, so a client
+ * reconnecting with Last-Event-ID gets the events it missed. When they are no longer available (the gap is too long, or
+ * the application restarted) the stream starts with a "resync" event and the client reloads through the REST endpoints.
+ * The streams and the replay buffers live in this instance: behind a load balancer the clients need sticky sessions.
+ *
+ * Metrics: notifications.sse.streams (open streams), notifications.sse.resyncs and notifications.sse.slow-consumers.
+ */
+@Service
+@Slf4j
+public class NotificationStreamService {
+
+    public static final String RESYNC = "resync";
+
+    //Marker queued to every channel by the heartbeat, never stored for replay
+    private static final StoredEvent HEARTBEAT = new StoredEvent(-1, null, null, null);
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final Executor sender;
+    private final long emitterTimeoutMillis;
+    private final long reconnectMillis;
+    private final int replaySize;
+    private final long replayTtlMillis;
+    private final int maxStreamsPerUser;
+    private final int maxPendingEvents;
+    private final long writeTimeoutMillis;
+    private final Predicate<VerifiedTokenClaims> revokedSession;
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private final Counter resyncs;
+    private final Counter slowConsumers;
+
+    private record StoredEvent(long sequence, String id, String type, Object payload) {
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        //The access token the stream was opened with
+        private final VerifiedTokenClaims session;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private final Queue<StoredEvent> outbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingEvents = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        //Start of the write in progress, 0 when the stream is not being written to
+        private volatile long writeStartedMillis;
+        //Guarded by the subscriber, events up to this sequence were already sent (live or replayed)
+        private long lastSentSequence;
+
+        private Subscriber(SseEmitter emitter, VerifiedTokenClaims session) {
+            this.emitter = emitter;
+            this.session = session;
+        }
+    }
+
+    private static final class Channel {
+        //Guarded by the channel
+        private final Deque<StoredEvent> recent = new ArrayDeque<>();
+        //Events of this user with a sequence up to this one may be gone from the replay buffer
+        private long evictedUpTo;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private volatile long lastActiveMillis = System.currentTimeMillis();
+
+        private Channel(long evictedUpTo) {
+            this.evictedUpTo = evictedUpTo;
+        }
+    }
+
+    @Autowired
+    public NotificationStreamService(MeterRegistry meterRegistry, TokenBlackListService tokenBlackListService,
+                                     @Value("${notifications.sse.sender-threads:4}") int senderThreads,
+                                     @Value("${notifications.sse.timeout-minutes:30}") long timeoutMinutes,
+                                     @Value("${notifications.sse.reconnect-ms:3000}") long reconnectMillis,
+                                     @Value("${notifications.sse.replay-size:100}") int replaySize,
+                                     @Value("${notifications.sse.replay-ttl-seconds:300}") long replayTtlSeconds,
+                                     @Value("${notifications.sse.max-streams-per-user:5}") int maxStreamsPerUser,
+                                     @Value("${notifications.sse.max-pending-events:50}") int maxPendingEvents,
+                                     @Value("${notifications.sse.write-timeout-ms:10000}") long writeTimeoutMillis) {
+        //At most one drain task per stream is queued, so the queue is bounded by the number of open streams
+        this(meterRegistry, new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(), new CustomizableThreadFactory("sse-sender-")),
+                TimeUnit.MINUTES.toMillis(timeoutMinutes), reconnectMillis, replaySize,
+                TimeUnit.SECONDS.toMillis(replayTtlSeconds), maxStreamsPerUser, maxPendingEvents, writeTimeoutMillis,
+                tokenBlackListService::isTokenBlacklisted);
+    }
+
+    NotificationStreamService(MeterRegistry meterRegistry, Executor sender, long emitterTimeoutMillis, long reconnectMillis,
+                              int replaySize, long replayTtlMillis, int maxStreamsPerUser, int maxPendingEvents,
+                              long writeTimeoutMillis, Predicate<VerifiedTokenClaims> revokedSession) {
+        this.sender = sender;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.reconnectMillis = reconnectMillis;
+        this.replaySize = replaySize;
+        this.replayTtlMillis = replayTtlMillis;
+        this.maxStreamsPerUser = maxStreamsPerUser;
+        this.maxPendingEvents = maxPendingEvents;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.revokedSession = revokedSession;
+        Gauge.builder("notifications.sse.streams", openStreams, AtomicInteger::get)
+                .description("Open server-sent event streams")
+                .register(meterRegistry);
+        this.resyncs = Counter.builder("notifications.sse.resyncs")
+                .description("Streams resumed after their missed events were dropped")
+                .register(meterRegistry);
+        this.slowConsumers = Counter.builder("notifications.sse.slow-consumers")
+                .description("Streams dropped because the client did not read its events in time")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens an event stream for the user. The emitter times out after notifications.sse.timeout-minutes, or when the
+     * access token expires if that comes first; the client then reconnects (with a fresh token) and resumes from the
+     * last event it received.
+     *
+     * @param userId the authenticated user.
+     * @param lastEventId the Last-Event-ID sent by a reconnecting client, null for a new stream.
+     * @param session the claims of the access token the stream is opened with.
+     * @return the emitter to return from the controller.
+     */
+    public SseEmitter subscribe(Long userId, String lastEventId, VerifiedTokenClaims session) {
+        long tokenLifetimeMillis = session.expiresAt() - System.currentTimeMillis();
+        SseEmitter emitter = createEmitter(Math.max(1, Math.min(emitterTimeoutMillis, tokenLifetimeMillis)));
+        Subscriber subscriber = new Subscriber(emitter, session);
+        openStreams.incrementAndGet();
+
+        //The channel is looked up again in the callbacks, it may have been replaced after an idle eviction
+        emitter.onCompletion(() -> {
+            subscriber.completed.set(true);
+            unsubscribe(userId, subscriber);
+        });
+        emitter.onTimeout(() -> {
+            subscriber.completed.set(true);
+            unsubscribe(userId, subscriber);
+            emitter.complete();
+        });
+        emitter.onError(error -> {
+            subscriber.completed.set(true);
+            unsubscribe(userId, subscriber);
+        });
+
+        Channel channel = channels.compute(userId, (id, existing) -> {
+            Channel target = existing != null ? existing : new Channel(sequence.get());
+            //Holding the channel, no event of this user can be published between the replay and the registration
+            synchronized (target) {
+                synchronized (subscriber) {
+                    replay(target, subscriber, lastEventId);
+                }
+                target.subscribers.add(subscriber);
+                target.lastActiveMillis = System.currentTimeMillis();
+            }
+            return target;
+        });
+
+        //A user opening more streams than allowed (forgotten tabs) closes the oldest ones
+        while (channel.subscribers.size() > maxStreamsPerUser) {
+            channel.subscribers.stream().findFirst().ifPresent(oldest -> end(channel, oldest));
+        }
+        return emitter;
+    }
+
+    /**
+     * Closes the streams opened with the given access token, called on logout. Streams of the token on other
+     * instances are closed by their next heartbeat, once the revocation has reached them.
+     *
+     * @param tokenFingerprint the fingerprint of the revoked access token.
+     */
+    public void closeSession(String tokenFingerprint) {
+        channels.values().forEach(channel -> channel.subscribers.stream()
+                .filter(subscriber -> subscriber.session.fingerprint().equals(tokenFingerprint))
+                .forEach(subscriber -> end(channel, subscriber)));
+    }
+
+    //Overridden by the tests to capture what is sent
+    protected SseEmitter createEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private void replay(Channel channel, Subscriber subscriber, String lastEventId) {
+        long latest = sequence.get();
+        try {
+            subscriber.emitter.send(SseEmitter.event().comment("connected").reconnectTime(reconnectMillis));
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                long resumeAfter = parseSequence(lastEventId);
+                if (resumeAfter < channel.evictedUpTo || resumeAfter > latest) {
+                    resyncs.increment();
+                    subscriber.emitter.send(SseEmitter.event().id(eventId(latest)).name(RESYNC)
+                            .data(Map.of(), MediaType.APPLICATION_JSON));
+                } else {
+                    for (StoredEvent event : channel.recent) {
+                        if (event.sequence() > resumeAfter) {
+                            subscriber.emitter.send(toSseEvent(event));
+                        }
+                    }
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            //The stream is not started yet, the events are only buffered in the emitter
+            log.debug("Could not replay the missed events: {}", e.getMessage());
+        }
+        subscriber.lastSentSequence = latest;
+    }
+
+    //-1 for ids of another run of the application, which always need a resync
+    private long parseSequence(String lastEventId) {
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator <= 0 || !bootId.equals(lastEventId.substring(0, separator))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String eventId(long eventSequence) {
+        return bootId + "-" + eventSequence;
+    }
+
+    private static SseEmitter.SseEventBuilder toSseEvent(StoredEvent event) {
+        return SseEmitter.event().id(event.id()).name(event.type()).data(event.payload(), MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Pushes the event to the streams of its recipients once the transaction that saved it has committed (or right
+     * away when it was published outside a transaction). Only users with a stream, or one that closed recently, are
+     * concerned; the others read the change through the REST endpoints when they come back.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotification(NotificationEvent event) {
+        for (Long recipientId : event.recipientIds()) {
+            Channel channel = channels.get(recipientId);
+            if (channel == null) {
+                continue;
+            }
+            synchronized (channel) {
+                long eventSequence = sequence.incrementAndGet();
+                StoredEvent stored = new StoredEvent(eventSequence, eventId(eventSequence), event.type(), event.payload());
+                channel.recent.addLast(stored);
+                if (channel.recent.size() > replaySize) {
+                    channel.evictedUpTo = channel.recent.removeFirst().sequence();
+                }
+                //Queued while holding the channel, so a stream registering now gets the event either replayed or live
+                channel.subscribers.forEach(subscriber -> enqueue(channel, subscriber, stored));
+            }
+            channel.subscribers.forEach(subscriber -> scheduleDrain(channel, subscriber));
+        }
+    }
+
+    /**
+     * Sends a heartbeat comment on every open stream, and drops the replay buffers of the users gone for longer than
+     * notifications.sse.replay-ttl-seconds. Streams whose access token expired or was revoked are closed, and so are
+     * the streams stuck on a write for longer than notifications.sse.write-timeout-ms.
+     */
+    @Scheduled(fixedDelayString = "${notifications.sse.heartbeat-interval-ms:20000}")
+    public void sendHeartbeats() {
+        long now = System.currentTimeMillis();
+        channels.forEach((userId, channel) -> {
+            if (channel.subscribers.isEmpty()) {
+                channels.computeIfPresent(userId, (id, current) ->
+                        current.subscribers.isEmpty() && now - current.lastActiveMillis > replayTtlMillis ? null : current);
+                return;
+            }
+            for (Subscriber subscriber : channel.subscribers) {
+                long writeStartedMillis = subscriber.writeStartedMillis;
+                if (subscriber.session.isExpired() || revokedSession.test(subscriber.session)) {
+                    end(channel, subscriber);
+                } else if (writeStartedMillis != 0 && now - writeStartedMillis > writeTimeoutMillis) {
+                    slowConsumers.increment();
+                    end(channel, subscriber);
+                } else {
+                    enqueue(channel, subscriber, HEARTBEAT);
+                    scheduleDrain(channel, subscriber);
+                }
+            }
+        });
+    }
+
+    private void enqueue(Channel channel, Subscriber subscriber, StoredEvent event) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        if (subscriber.pendingEvents.incrementAndGet() > maxPendingEvents) {
+            //The client does not keep up, it reconnects and gets the missed events from the replay buffer
+            slowConsumers.increment();
+            end(channel, subscriber);
+            return;
+        }
+        subscriber.outbox.add(event);
+    }
+
+    private void scheduleDrain(Channel channel, Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> drain(channel, subscriber));
+            } catch (RejectedExecutionException e) {
+                //Only on shutdown, the streams are being closed anyway
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Channel channel, Subscriber subscriber) {
+        try {
+            StoredEvent event;
+            while (!subscriber.closed.get() && (event = subscriber.outbox.poll()) != null) {
+                subscriber.pendingEvents.decrementAndGet();
+                deliver(channel, subscriber, event);
+            }
+            //Completed from the sender, never while another thread is writing to the emitter
+            if (subscriber.closed.get() && subscriber.completed.compareAndSet(false, true)) {
+                subscriber.outbox.clear();
+                subscriber.emitter.complete();
+            }
+        } finally {
+            subscriber.draining.set(false);
+            //An event queued after the last poll but before the flag was cleared would otherwise wait for the next one
+            if (!subscriber.outbox.isEmpty() || (subscriber.closed.get() && !subscriber.completed.get())) {
+                scheduleDrain(channel, subscriber);
+            }
+        }
+    }
+
+    private void deliver(Channel channel, Subscriber subscriber, StoredEvent event) {
+        try {
+            synchronized (subscriber) {
+                subscriber.writeStartedMillis = System.currentTimeMillis();
+                if (event == HEARTBEAT) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else if (event.sequence() > subscriber.lastSentSequence) {
+                    subscriber.emitter.send(toSseEvent(event));
+                    subscriber.lastSentSequence = event.sequence();
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            //The client went away; the container completes the request, the stream only has to stop receiving
+            subscriber.completed.set(true);
+            close(channel, subscriber);
+        } finally {
+            subscriber.writeStartedMillis = 0;
+        }
+    }
+
+    //Stops the stream and has the sender complete its emitter once any write in progress has returned
+    private void end(Channel channel, Subscriber subscriber) {
+        close(channel, subscriber);
+        scheduleDrain(channel, subscriber);
+    }
+
+    private void unsubscribe(Long userId, Subscriber subscriber) {
+        Channel channel = channels.get(userId);
+        if (channel != null) {
+            close(channel, subscriber);
+        } else if (subscriber.closed.compareAndSet(false, true)) {
+            openStreams.decrementAndGet();
+        }
+    }
+
+    private void close(Channel channel, Subscriber subscriber) {
+        channel.subscribers.remove(subscriber);
+        channel.lastActiveMillis = System.currentTimeMillis();
+        if (subscriber.closed.compareAndSet(false, true)) {
+            openStreams.decrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        channels.values().forEach(channel -> channel.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        if (sender instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+}
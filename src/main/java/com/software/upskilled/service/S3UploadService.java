@@ -0,0 +1,205 @@
+package com.software.upskilled.service;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import com.software.upskilled.exception.FileUploadException;
+import com.software.upskilled.exception.UploadCapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uploads files to S3 through a {@link TransferManager} running on a bounded thread pool.
+ *
+ * Files at or above the multipart threshold are first moved out of the request into a spool file, since the transfer
+ * manager only sends the parts of a file (not of a stream) in parallel. Smaller files are streamed in a single put.
+ *
+ * The number of uploads in flight is capped by a semaphore. A request that cannot get a slot within the acquire
+ * timeout fails with {@link UploadCapacityExceededException}, answered with 429 and Retry-After, instead of holding
+ * its servlet thread until S3 catches up. The pool has more threads than there are upload slots, so the thread that
+ * waits for the parts of an upload never starves the parts themselves.
+ *
+ * Metrics: s3.upload.in-flight, s3.upload.duration, s3.upload.throughput (bytes per second of each upload),
+ * s3.upload.rejected, and the executor metrics of the pool under the name s3.upload (queue depth included).
+ */
+@Service
+@Slf4j
+public class S3UploadService {
+
+    private final TransferManager transferManager;
+    private final Semaphore uploadSlots;
+    private final long acquireTimeoutMillis;
+    private final long retryAfterSeconds;
+    private final long multipartThresholdBytes;
+    private final Path spoolDirectory;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejectedUploads;
+
+    public S3UploadService(AmazonS3 s3Client, MeterRegistry meterRegistry,
+                           @Value("${aws.s3.upload.threads:16}") int threads,
+                           @Value("${aws.s3.upload.queue-capacity:256}") int queueCapacity,
+                           @Value("${aws.s3.upload.max-concurrent:8}") int maxConcurrentUploads,
+                           @Value("${aws.s3.upload.acquire-timeout-ms:2000}") long acquireTimeoutMillis,
+                           @Value("${aws.s3.upload.retry-after-seconds:5}") long retryAfterSeconds,
+                           @Value("${aws.s3.upload.multipart-threshold-mb:8}") long multipartThresholdMb,
+                           @Value("${aws.s3.upload.part-size-mb:5}") long partSizeMb,
+                           @Value("${aws.s3.upload.spool-directory:${java.io.tmpdir}/upskilled-upload-spool}") String spoolDirectory) {
+        if (threads <= maxConcurrentUploads) {
+            throw new IllegalStateException("aws.s3.upload.threads must be larger than aws.s3.upload.max-concurrent");
+        }
+        this.uploadSlots = new Semaphore(maxConcurrentUploads);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.multipartThresholdBytes = multipartThresholdMb * 1024 * 1024;
+        this.spoolDirectory = Path.of(spoolDirectory).toAbsolutePath().normalize();
+        this.meterRegistry = meterRegistry;
+        try {
+            Files.createDirectories(this.spoolDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the upload spool directory " + this.spoolDirectory, e);
+        }
+
+        ThreadPoolExecutor uploadExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("s3-upload-"));
+        uploadExecutor.allowCoreThreadTimeOut(true);
+        ExecutorService monitoredExecutor = ExecutorServiceMetrics.monitor(meterRegistry, uploadExecutor, "s3.upload");
+        this.transferManager = TransferManagerBuilder.standard()
+                .withS3Client(s3Client)
+                .withExecutorFactory(() -> monitoredExecutor)
+                .withMultipartUploadThreshold(multipartThresholdBytes)
+                .withMinimumUploadPartSize(partSizeMb * 1024 * 1024)
+                .build();
+
+        Gauge.builder("s3.upload.in-flight", uploadSlots, slots -> maxConcurrentUploads - slots.availablePermits())
+                .description("Uploads currently holding an upload slot")
+                .register(meterRegistry);
+        this.rejectedUploads = Counter.builder("s3.upload.rejected")
+                .description("Uploads refused because every upload slot was busy")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Uploads the file to the given bucket and key, returning once S3 has stored it.
+     *
+     * @param bucketName The bucket to upload to.
+     * @param key The key of the object.
+     * @param multipartFile The uploaded file.
+     * @param objectMetadata The metadata of the object, including content type and length.
+     * @throws IOException if the uploaded file cannot be read.
+     * @throws UploadCapacityExceededException if no upload slot frees up within the acquire timeout.
+     */
+    public void upload(String bucketName, String key, MultipartFile multipartFile, ObjectMetadata objectMetadata) throws IOException {
+        acquireUploadSlot();
+        File spoolFile = null;
+        try {
+            PutObjectRequest putObjectRequest;
+            if (multipartFile.getSize() >= multipartThresholdBytes) {
+                spoolFile = spool(multipartFile);
+                putObjectRequest = new PutObjectRequest(bucketName, key, spoolFile).withMetadata(objectMetadata);
+            } else {
+                putObjectRequest = new PutObjectRequest(bucketName, key, multipartFile.getInputStream(), objectMetadata);
+            }
+            transfer(putObjectRequest, multipartFile.getSize());
+        } finally {
+            uploadSlots.release();
+            if (spoolFile != null) {
+                Files.deleteIfExists(spoolFile.toPath());
+            }
+        }
+    }
+
+    /**
+     * Uploads a file that is already on the local disk, returning once S3 has stored it. The file is left in place.
+     *
+     * @param bucketName The bucket to upload to.
+     * @param key The key of the object.
+     * @param file The local file to upload.
+     * @param objectMetadata The metadata of the object, including content type and length.
+     * @throws UploadCapacityExceededException if no upload slot frees up within the acquire timeout.
+     */
+    public void upload(String bucketName, String key, File file, ObjectMetadata objectMetadata) {
+        acquireUploadSlot();
+        try {
+            transfer(new PutObjectRequest(bucketName, key, file).withMetadata(objectMetadata), file.length());
+        } finally {
+            uploadSlots.release();
+        }
+    }
+
+    private void transfer(PutObjectRequest putObjectRequest, long bytes) {
+        long startNanos = System.nanoTime();
+        try {
+            transferManager.upload(putObjectRequest).waitForCompletion();
+            recordUpload(putObjectRequest.getBucketName(), bytes, System.nanoTime() - startNanos);
+        } catch (RejectedExecutionException e) {
+            rejectedUploads.increment();
+            throw new UploadCapacityExceededException(retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileUploadException("The upload of " + putObjectRequest.getKey() + " was interrupted");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        //Stops the upload pool, the S3 client is a shared bean and stays open
+        transferManager.shutdownNow(false);
+    }
+
+    private void acquireUploadSlot() {
+        try {
+            if (uploadSlots.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileUploadException("Interrupted while waiting for an upload slot");
+        }
+        rejectedUploads.increment();
+        throw new UploadCapacityExceededException(retryAfterSeconds);
+    }
+
+    private File spool(MultipartFile multipartFile) throws IOException {
+        //transferTo moves the container's temporary file when it can, so only the unique name is kept
+        Path spoolFile = Files.createTempFile(spoolDirectory, "upload-", ".part");
+        Files.delete(spoolFile);
+        multipartFile.transferTo(spoolFile.toFile());
+        return spoolFile.toFile();
+    }
+
+    private void recordUpload(String bucketName, long bytes, long elapsedNanos) {
+        Timer.builder("s3.upload.duration")
+                .tag("bucket", bucketName)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("s3.upload.throughput")
+                .baseUnit("bytes_per_second")
+                .tag("bucket", bucketName)
+                .register(meterRegistry)
+                .record(bytes * 1_000_000_000d / Math.max(elapsedNanos, 1));
+    }
+}
@@ -1,7 +1,9 @@
 package com.software.upskilled.service;
 
 import com.software.upskilled.Entity.Submission;
+import com.software.upskilled.exception.SubmissionAlreadyExistsException;
 import com.software.upskilled.repository.SubmissionRepository;
+import com.software.upskilled.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Service;
@@ -20,11 +22,35 @@ public class SubmissionService
     @Autowired
     SubmissionRepository submissionRepository;
 
+    @Autowired
+    UserRepository userRepository;
+
     public Submission saveSubmissionDetails( Submission submission )
     {
         return submissionRepository.save( submission );
     }
 
+    /**
+     * Saves the first submission of an employee for an assignment.
+     *
+     * The employee's row is locked while the existing submissions are checked, so a retried or repeated confirm
+     * cannot insert a second submission next to the first one.
+     *
+     * @throws SubmissionAlreadyExistsException if the employee has already submitted the assignment.
+     */
+    @Transactional
+    public Submission saveNewSubmission( Submission submission )
+    {
+        userRepository.lockById( submission.getEmployee().getId() );
+        if( submissionRepository.existsByAssignment_IdAndEmployee_Id( submission.getAssignment().getId(), submission.getEmployee().getId() ) )
+            throw new SubmissionAlreadyExistsException( submission.getAssignment().getId() );
+        return submissionRepository.save( submission );
+    }
+
+    public boolean hasSubmission( Long assignmentId, Long employeeId ) {
+        return submissionRepository.existsByAssignment_IdAndEmployee_Id( assignmentId, employeeId );
+    }
+
     @Transactional
     @Modifying
     public Submission modifySubmissionDetails( Submission submission ) {
@@ -38,4 +64,8 @@ public class SubmissionService
     public List<Submission> getSubmissionsSortedBySubmittedTime( Long assignmentId ) {
         return submissionRepository.getSubmissionsSortedBySubmissionTime( assignmentId );
     }
+
+    public boolean isSubmissionOfAssignment( Long submissionId, Long assignmentId ) {
+        return submissionRepository.existsByIdAndAssignmentId( submissionId, assignmentId );
+    }
 }
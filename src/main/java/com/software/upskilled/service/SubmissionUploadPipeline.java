@@ -0,0 +1,299 @@
+package com.software.upskilled.service;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.software.upskilled.Entity.Assignment;
+import com.software.upskilled.Entity.Course;
+import com.software.upskilled.Entity.Submission;
+import com.software.upskilled.Entity.Users;
+import com.software.upskilled.dto.SubmissionUploadStatusDTO;
+import com.software.upskilled.exception.FileUploadException;
+import com.software.upskilled.exception.UploadCapacityExceededException;
+import com.software.upskilled.repository.SubmissionRepository;
+import com.software.upskilled.utils.S3ObjectKeys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pipeline mode for assignment uploads (assignment.upload.mode=pipeline).
+ *
+ * The request only spools the file to the local disk and saves the submission as UPLOADING, then returns. A pool of
+ * workers pushes the spooled file to S3 and flips the submission to SUBMITTED. Failed uploads are retried with
+ * exponential backoff; once the attempts are used up the submission becomes UPLOAD_FAILED and the employee has to
+ * upload it again. Spool files are named after the submission id, so uploads interrupted by a restart are picked up
+ * again on startup.
+ *
+ * The number of spooled uploads waiting for S3 is bounded, beyond it new uploads are refused with
+ * {@link UploadCapacityExceededException} (429 with Retry-After).
+ */
+@Service
+@Slf4j
+public class SubmissionUploadPipeline {
+
+    private static final String MODE_PIPELINE = "pipeline";
+    private static final String SPOOL_PREFIX = "submission-";
+    private static final String SPOOL_SUFFIX = ".upload";
+    private static final String STAGING_SUFFIX = ".part";
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final SubmissionRepository submissionRepository;
+    private final S3UploadService s3UploadService;
+    private final String assignmentBucketName;
+    private final boolean enabled;
+    private final Path spoolDirectory;
+    private final int maxPending;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long staleAfterMillis;
+    private final long retryAfterSeconds;
+    private final ScheduledThreadPoolExecutor workers;
+    private final AtomicInteger pendingUploads = new AtomicInteger();
+    private final Counter retriedUploads;
+    private final Counter failedUploads;
+
+    private record UploadJob(Long submissionId, String key, Path spoolFile, String contentType, int attempt) {
+        UploadJob nextAttempt() {
+            return new UploadJob(submissionId, key, spoolFile, contentType, attempt + 1);
+        }
+    }
+
+    public SubmissionUploadPipeline(SubmissionRepository submissionRepository, S3UploadService s3UploadService,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${aws.s3.assignment-bucketName}") String assignmentBucketName,
+                                    @Value("${assignment.upload.mode:direct}") String mode,
+                                    @Value("${assignment.upload.pipeline.workers:4}") int workerThreads,
+                                    @Value("${assignment.upload.pipeline.max-pending:500}") int maxPending,
+                                    @Value("${assignment.upload.pipeline.max-attempts:5}") int maxAttempts,
+                                    @Value("${assignment.upload.pipeline.initial-backoff-ms:2000}") long initialBackoffMillis,
+                                    @Value("${assignment.upload.pipeline.stale-after-minutes:60}") long staleAfterMinutes,
+                                    @Value("${aws.s3.upload.retry-after-seconds:5}") long retryAfterSeconds,
+                                    @Value("${assignment.upload.pipeline.spool-directory:${java.io.tmpdir}/upskilled-submission-spool}") String spoolDirectory) {
+        this.submissionRepository = submissionRepository;
+        this.s3UploadService = s3UploadService;
+        this.assignmentBucketName = assignmentBucketName;
+        this.enabled = MODE_PIPELINE.equalsIgnoreCase(mode);
+        this.spoolDirectory = Path.of(spoolDirectory).toAbsolutePath().normalize();
+        this.maxPending = maxPending;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.staleAfterMillis = TimeUnit.MINUTES.toMillis(staleAfterMinutes);
+        this.retryAfterSeconds = retryAfterSeconds;
+        try {
+            Files.createDirectories(this.spoolDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the submission spool directory " + this.spoolDirectory, e);
+        }
+
+        this.workers = new ScheduledThreadPoolExecutor(workerThreads, new CustomizableThreadFactory("submission-upload-"));
+        //Uploads still waiting for a retry on shutdown are left on disk for the startup recovery
+        this.workers.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+
+        Gauge.builder("submission.upload.pending", pendingUploads, AtomicInteger::get)
+                .description("Spooled submissions waiting to be stored in S3")
+                .register(meterRegistry);
+        this.retriedUploads = Counter.builder("submission.upload.retried")
+                .description("Submission uploads scheduled for another attempt")
+                .register(meterRegistry);
+        this.failedUploads = Counter.builder("submission.upload.failed")
+                .description("Submission uploads that ran out of attempts")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Spools the uploaded file, saves the submission as UPLOADING and hands the file over to the upload workers.
+     *
+     * @param multipartFile The assignment submission file.
+     * @param courseData The course the assignment belongs to.
+     * @param assignmentData The assignment being submitted.
+     * @param employeeData The employee submitting the assignment.
+     * @return The status of the staged submission.
+     * @throws UploadCapacityExceededException if too many submissions are already waiting for S3.
+     * @throws FileUploadException if the file cannot be spooled.
+     */
+    public SubmissionUploadStatusDTO stageSubmission(MultipartFile multipartFile, Course courseData, Assignment assignmentData, Users employeeData) {
+        if (pendingUploads.incrementAndGet() > maxPending) {
+            pendingUploads.decrementAndGet();
+            throw new UploadCapacityExceededException(retryAfterSeconds);
+        }
+
+        boolean handedOver = false;
+        Path stagingFile = null;
+        Submission submission = null;
+        try {
+            //transferTo moves the container's temporary file when it can, so only the unique name is kept
+            stagingFile = Files.createTempFile(spoolDirectory, "staging-", STAGING_SUFFIX);
+            Files.delete(stagingFile);
+            multipartFile.transferTo(stagingFile.toFile());
+
+            String key = S3ObjectKeys.assignmentSubmission(courseData.getTitle(), assignmentData.getTitle(), employeeData,
+                    multipartFile.getOriginalFilename());
+            submission = submissionRepository.save(Submission.builder()
+                    .status(Submission.Status.UPLOADING)
+                    .submissionUrl(key)
+                    .assignment(assignmentData)
+                    .employee(employeeData).build());
+
+            Path spoolFile = spoolFile(submission.getId());
+            Files.move(stagingFile, spoolFile, StandardCopyOption.REPLACE_EXISTING);
+            stagingFile = null;
+
+            String contentType = multipartFile.getContentType() != null ? multipartFile.getContentType() : contentTypeOf(key);
+            handedOver = schedule(new UploadJob(submission.getId(), key, spoolFile, contentType, 0), 0);
+            if (!handedOver) {
+                throw new FileUploadException("The upload workers are shutting down, please upload again later");
+            }
+            return toStatusDTO(submission);
+        } catch (IOException e) {
+            log.error("Error occurred ==> {}", e.getMessage());
+            throw new FileUploadException("Error occurred in uploading Assignment File ==> " + e.getMessage());
+        } finally {
+            if (!handedOver) {
+                pendingUploads.decrementAndGet();
+                if (submission != null) {
+                    submissionRepository.updateStatusIfCurrent(submission.getId(), Submission.Status.UPLOADING, Submission.Status.UPLOAD_FAILED);
+                }
+                if (stagingFile != null) {
+                    deleteQuietly(stagingFile);
+                }
+            }
+        }
+    }
+
+    public SubmissionUploadStatusDTO toStatusDTO(Submission submission) {
+        SubmissionUploadStatusDTO statusDTO = new SubmissionUploadStatusDTO();
+        statusDTO.setSubmissionId(submission.getId());
+        statusDTO.setFilePath(submission.getSubmissionUrl());
+        statusDTO.setStatus(submission.getStatus());
+        statusDTO.setSubmittedAt(submission.getSubmittedAt());
+        return statusDTO;
+    }
+
+    /**
+     * Resumes the uploads interrupted by the last shutdown.
+     *
+     * Submissions still UPLOADING whose spool file is on this node are scheduled again. Those without a spool file
+     * may belong to another node, so they are only marked UPLOAD_FAILED once they are older than the stale window.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverPendingUploads() {
+        try (DirectoryStream<Path> stagingFiles = Files.newDirectoryStream(spoolDirectory, "staging-*" + STAGING_SUFFIX)) {
+            stagingFiles.forEach(SubmissionUploadPipeline::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Could not clean the submission spool directory: {}", e.getMessage());
+        }
+
+        long staleBefore = System.currentTimeMillis() - staleAfterMillis;
+        for (Submission submission : submissionRepository.findByStatus(Submission.Status.UPLOADING)) {
+            Path spoolFile = spoolFile(submission.getId());
+            if (Files.exists(spoolFile)) {
+                pendingUploads.incrementAndGet();
+                UploadJob job = new UploadJob(submission.getId(), submission.getSubmissionUrl(), spoolFile,
+                        contentTypeOf(submission.getSubmissionUrl()), 0);
+                if (schedule(job, 0)) {
+                    log.info("Resuming the upload of submission {}", submission.getId());
+                } else {
+                    pendingUploads.decrementAndGet();
+                }
+            } else if (submission.getSubmittedAt() != null && submission.getSubmittedAt().getTime() < staleBefore) {
+                log.warn("Submission {} has no spooled file left, marking it as failed", submission.getId());
+                submissionRepository.updateStatusIfCurrent(submission.getId(), Submission.Status.UPLOADING, Submission.Status.UPLOAD_FAILED);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private void upload(UploadJob job) {
+        try {
+            ObjectMetadata objectMetadata = new ObjectMetadata();
+            objectMetadata.setContentType(job.contentType());
+            objectMetadata.setContentLength(Files.size(job.spoolFile()));
+            s3UploadService.upload(assignmentBucketName, job.key(), job.spoolFile().toFile(), objectMetadata);
+
+            if (submissionRepository.updateStatusIfCurrent(job.submissionId(), Submission.Status.UPLOADING, Submission.Status.SUBMITTED) == 0) {
+                log.warn("Submission {} was no longer uploading when its file reached S3", job.submissionId());
+            }
+            finish(job);
+        } catch (IOException | RuntimeException e) {
+            if (job.attempt() + 1 >= maxAttempts) {
+                log.error("Giving up on the upload of submission {} after {} attempts: {}", job.submissionId(), maxAttempts, e.getMessage());
+                failedUploads.increment();
+                try {
+                    submissionRepository.updateStatusIfCurrent(job.submissionId(), Submission.Status.UPLOADING, Submission.Status.UPLOAD_FAILED);
+                } finally {
+                    finish(job);
+                }
+                return;
+            }
+
+            long backoffMillis = Math.min(initialBackoffMillis << job.attempt(), MAX_BACKOFF_MILLIS);
+            log.warn("Upload of submission {} failed (attempt {}), retrying in {} ms: {}", job.submissionId(), job.attempt() + 1, backoffMillis, e.getMessage());
+            retriedUploads.increment();
+            if (!schedule(job.nextAttempt(), backoffMillis)) {
+                pendingUploads.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return false if the workers are shut down, the spool file then stays on disk for the startup recovery.
+     */
+    private boolean schedule(UploadJob job, long delayMillis) {
+        try {
+            workers.schedule(() -> upload(job), delayMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.info("Upload of submission {} left for the next startup", job.submissionId());
+            return false;
+        }
+    }
+
+    private void finish(UploadJob job) {
+        deleteQuietly(job.spoolFile());
+        pendingUploads.decrementAndGet();
+    }
+
+    private Path spoolFile(Long submissionId) {
+        return spoolDirectory.resolve(SPOOL_PREFIX + submissionId + SPOOL_SUFFIX);
+    }
+
+    private static String contentTypeOf(String key) {
+        return MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled file {}: {}", file, e.getMessage());
+        }
+    }
+}
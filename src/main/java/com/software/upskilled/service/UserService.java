@@ -3,6 +3,9 @@ package com.software.upskilled.service;
 
 import com.software.upskilled.Entity.Users;
 import com.software.upskilled.repository.UserRepository;
+import com.software.upskilled.utils.AuthenticatedUser;
+import com.software.upskilled.utils.CourseAuthDecisionCache;
+import com.software.upskilled.utils.PrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -29,6 +32,12 @@ public class UserService implements UserDetailsService {
     @Lazy
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private CourseAuthDecisionCache courseAuthDecisionCache;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         UserDetails userDetails = userRepository.findByEmail(username);
@@ -38,6 +47,17 @@ public class UserService implements UserDetailsService {
         return userDetails;
     }
 
+    /**
+     * Loads the snapshot of the user the JWT filter authenticates requests with, see {@link AuthenticatedUser}.
+     */
+    public AuthenticatedUser loadAuthenticatedUser(String email) throws UsernameNotFoundException {
+        Users user = userRepository.findByEmail(email);
+        if(user == null) {
+            throw new UsernameNotFoundException("User does not exists");
+        }
+        return AuthenticatedUser.of(user);
+    }
+
     public void createUser(Users appUser) throws Exception {
         Users user = findUserByEmail(appUser.getEmail());
         if(user != null) {
@@ -50,6 +70,7 @@ public class UserService implements UserDetailsService {
     public void updateUser(Users appUser) throws Exception {
         appUser.setPassword(passwordEncoder.encode(appUser.getPassword()));
         userRepository.save(appUser);
+        evictCachedUser(appUser);
     }
 
     public Users findUserById(Long id) {
@@ -73,8 +94,19 @@ public class UserService implements UserDetailsService {
     }
 
     public Users saveUser(Users user) {
-        return userRepository.save(user);
+        Users savedUser = userRepository.save(user);
+        //Status or profile changes must be visible to the JWT filter and course checks on the next request
+        evictCachedUser(user);
+        return savedUser;
     }
 
-    public void deleteUser(Users user){ userRepository.delete(user); }
+    public void deleteUser(Users user){
+        userRepository.delete(user);
+        evictCachedUser(user);
+    }
+
+    private void evictCachedUser(Users user) {
+        principalCache.invalidate(user.getEmail());
+        courseAuthDecisionCache.invalidatePrincipal(user.getEmail());
+    }
 }
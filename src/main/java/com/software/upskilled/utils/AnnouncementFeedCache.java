@@ -0,0 +1,95 @@
+package com.software.upskilled.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the announcement feed of each course, kept as the JSON bytes sent to the clients together with their ETag.
+ *
+ * A course's announcements change rarely but are listed by every enrolled employee, so the feed is serialized once and
+ * then served from memory; clients that send the ETag back in If-None-Match get a 304 without a body. Every write to
+ * the announcements of a course must call {@link #invalidate(Long)}, which drops the feed right away and once more
+ * after the writing transaction commits, so that a feed rebuilt from the data not committed yet is not kept.
+ * Other instances only see the change once their copy expires (announcements.feed-cache.ttl-seconds).
+ */
+@Component
+public class AnnouncementFeedCache {
+
+    private final ExpiringCache<Long, Feed> cache;
+    private final ObjectMapper objectMapper;
+    //Guarded by the cache instance, a feed built before the last invalidation is not cached
+    private long invalidations;
+
+    /**
+     * A serialized feed and its strong ETag, already quoted for the ETag header.
+     */
+    public record Feed(byte[] body, String eTag) {}
+
+    public AnnouncementFeedCache(ObjectMapper objectMapper,
+                                 @Value("${announcements.feed-cache.max-courses:1000}") int maxCourses,
+                                 @Value("${announcements.feed-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.objectMapper = objectMapper;
+        this.cache = new ExpiringCache<>(maxCourses, ttlSeconds * 1000);
+    }
+
+    /**
+     * Returns the cached feed of the course, building it from the loaded announcements on a miss.
+     *
+     * @param courseId the course of the feed.
+     * @param loader loads the announcement DTOs of the course, in the order they are listed.
+     */
+    public Feed getOrBuild(Long courseId, Supplier<List<?>> loader) {
+        Feed feed = cache.get(courseId);
+        if (feed != null) {
+            return feed;
+        }
+
+        long invalidationsBeforeLoad;
+        synchronized (this) {
+            invalidationsBeforeLoad = invalidations;
+        }
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(loader.get());
+            feed = new Feed(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the announcements of course " + courseId, e);
+        }
+        synchronized (this) {
+            if (invalidations == invalidationsBeforeLoad) {
+                cache.put(courseId, feed);
+            }
+        }
+        return feed;
+    }
+
+    /**
+     * Drops the feed of the course, now and again after the current transaction commits (if there is one).
+     */
+    public void invalidate(Long courseId) {
+        if (courseId == null) {
+            return;
+        }
+        evict(courseId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(courseId);
+                }
+            });
+        }
+    }
+
+    private synchronized void evict(Long courseId) {
+        invalidations++;
+        cache.invalidate(courseId);
+    }
+}
@@ -0,0 +1,56 @@
+package com.software.upskilled.utils;
+
+import com.software.upskilled.Entity.Users;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the user a request is authenticated as, set as the principal by the JWT filter.
+ *
+ * It is what the {@link PrincipalCache} keeps instead of the {@link Users} entity: a cached entity would be shared by
+ * concurrent requests, detached from any persistence context and carry its lazy collections along. Controllers that
+ * need more than the identity and role load the user again through {@link #id()}.
+ *
+ * @param id           the id of the user
+ * @param email        the email of the user, which is also the username
+ * @param role         the role of the user, its only authority
+ * @param passwordHash the encoded password of the user
+ * @param status       the status of the user, only ACTIVE users are enabled
+ */
+public record AuthenticatedUser(Long id, String email, String role, String passwordHash, Users.Status status)
+        implements UserDetails {
+
+    public static AuthenticatedUser of(Users user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getRole(), user.getPassword(), user.getStatus());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role));
+    }
+
+    @Override
+    public String getPassword() {
+        return passwordHash;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return status == Users.Status.ACTIVE;
+    }
+
+    //Keeps the password hash out of logs
+    @Override
+    public String toString() {
+        return "AuthenticatedUser[id=" + id + ", email=" + email + ", role=" + role + ", status=" + status + "]";
+    }
+}
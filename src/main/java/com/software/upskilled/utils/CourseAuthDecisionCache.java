@@ -0,0 +1,112 @@
+package com.software.upskilled.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of the course authorization decisions made by {@link InstructorCourseAuth} and
+ * {@link EmployeeCourseAuth}.
+ *
+ * Decisions are keyed by principal (the authenticated email), course and role, and store only the HTTP status and
+ * body of the refusal, so a cached answer produces exactly the same response as a fresh check. Anything that can
+ * change a decision must invalidate it: course changes (status, instructor) through {@link #invalidateCourse(Long)},
+ * enrollment changes through {@link #invalidate(String, Long)} or {@link #invalidateCourse(Long)}, and user status
+ * changes through {@link #invalidatePrincipal(String)}. Invalidations apply right away and once more after the
+ * writing transaction commits, and a decision computed while an invalidation happened is not cached, so a check that
+ * still saw the data not committed yet cannot keep its answer.
+ */
+@Component
+public class CourseAuthDecisionCache {
+
+    public static final String INSTRUCTOR = "INSTRUCTOR";
+    public static final String EMPLOYEE = "EMPLOYEE";
+
+    private static final Decision ALLOWED = new Decision(0, null);
+
+    private final ExpiringCache<DecisionKey, Decision> cache;
+    //Guarded by the cache instance, a decision computed before the last invalidation is not cached
+    private long invalidations;
+
+    private record DecisionKey(String principal, Long courseId, String role) {}
+
+    private record Decision(int status, String body) {}
+
+    public CourseAuthDecisionCache(@Value("${security.course-auth-cache.max-size:10000}") int maxSize,
+                                   @Value("${security.course-auth-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.cache = new ExpiringCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    /**
+     * Returns the cached decision for the principal, course and role, computing and caching it on a miss.
+     *
+     * @param principal the email of the authenticated user.
+     * @param courseId the course being accessed.
+     * @param role the role the check is made for ({@link #INSTRUCTOR} or {@link #EMPLOYEE}).
+     * @param check the actual authorization check, returning null when access is allowed.
+     * @return null if access is allowed, otherwise the refusal response.
+     */
+    public ResponseEntity<String> getOrCompute(String principal, Long courseId, String role,
+                                               Supplier<ResponseEntity<String>> check) {
+        DecisionKey key = new DecisionKey(principal, courseId, role);
+        Decision decision = cache.get(key);
+        if (decision == null) {
+            long invalidationsBeforeCheck;
+            synchronized (this) {
+                invalidationsBeforeCheck = invalidations;
+            }
+            ResponseEntity<String> response = check.get();
+            decision = response == null ? ALLOWED : new Decision(response.getStatusCode().value(), response.getBody());
+            synchronized (this) {
+                if (invalidations == invalidationsBeforeCheck) {
+                    cache.put(key, decision);
+                }
+            }
+        }
+        return decision == ALLOWED ? null : ResponseEntity.status(decision.status()).body(decision.body());
+    }
+
+    public void invalidate(String principal, Long courseId) {
+        invalidateIf(key -> Objects.equals(key.principal(), principal) && Objects.equals(key.courseId(), courseId));
+    }
+
+    public void invalidateCourse(Long courseId) {
+        if (courseId == null) {
+            return;
+        }
+        invalidateIf(key -> courseId.equals(key.courseId()));
+    }
+
+    public void invalidatePrincipal(String principal) {
+        if (principal == null) {
+            return;
+        }
+        invalidateIf(key -> principal.equals(key.principal()));
+    }
+
+    /**
+     * Drops the matching decisions, now and again after the current transaction commits (if there is one).
+     */
+    private void invalidateIf(Predicate<DecisionKey> keyPredicate) {
+        evict(keyPredicate);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(keyPredicate);
+                }
+            });
+        }
+    }
+
+    private synchronized void evict(Predicate<DecisionKey> keyPredicate) {
+        invalidations++;
+        cache.invalidateIf(keyPredicate);
+    }
+}
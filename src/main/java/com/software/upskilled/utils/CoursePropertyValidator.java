@@ -1,16 +1,10 @@
 package com.software.upskilled.utils;
 
-import com.software.upskilled.Entity.Assignment;
-import com.software.upskilled.Entity.Course;
-import com.software.upskilled.Entity.CourseMaterial;
-import com.software.upskilled.service.CourseService;
+import com.software.upskilled.service.AssignmentService;
+import com.software.upskilled.service.CourseMaterialService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 /**
  * A util method that validates whether the sub-property of the course such
  * as assignments, announcements, messages, submissions are actually of that course
@@ -18,54 +12,37 @@ import java.util.Map;
 @Component
 public class CoursePropertyValidator
 {
+    /**
+     * The kinds of course properties that can be validated against a course.
+     */
+    public enum CourseProperty {
+        COURSE_MATERIAL,
+        ASSIGNMENT
+    }
+
+    @Autowired
+    CourseMaterialService courseMaterialService;
+
     @Autowired
-    CourseService courseService;
+    AssignmentService assignmentService;
 
     /**
      * Checks whether a given property belongs to a specific course.
      *
      * This method validates if a property (such as a course material or assignment) is associated with the course identified
-     * by the provided course ID. The property is specified through a map where the key is the type of property (e.g.,
-     * "courseMaterial" or "assignment") and the value is the ID of the property. The method will check whether the given
-     * property ID exists within the specified course's associated materials or assignments.
+     * by the provided course ID. The check is a single existence query on the property's table using its primary key and
+     * course id, so no course or collection is loaded.
      *
      * @param courseId The ID of the course to validate the property against.
-     * @param propertyValue A map containing the property type as the key and the property ID as the value.
+     * @param propertyType The kind of property being validated.
+     * @param propertyId The ID of the property.
      * @return `true` if the property exists in the specified course, otherwise `false`.
      */
-    public boolean isPropertyOfTheCourse(long courseId , Map<String,Long> propertyValue)
+    public boolean isPropertyOfTheCourse( long courseId, CourseProperty propertyType, long propertyId )
     {
-        //Fetch the corresponding course related to the courseID;
-        Course course = courseService.findCourseById( courseId );
-        if( course == null )
-            return false;
-        //Extract the propertyName that is passed in the Map as the key
-        String propertyType = propertyValue.keySet().stream().toList().get(0);
-        boolean isPropertyOfTheCourse = false;
-        switch( propertyType )
-        {
-            case "courseMaterial":
-                //Get the value of the property
-                long courseMaterialId = propertyValue.get( propertyType );
-                //Check if the courseMaterial belongs to the list of CourseMaterial associated with that ID
-                List<CourseMaterial> courseMaterial = course.getCourseMaterials().stream()
-                        .filter( cm -> cm.getId() == courseMaterialId )
-                        .toList();
-                isPropertyOfTheCourse = courseMaterial.size() == 1;
-                break;
-
-            case "assignment":
-                long assignmentID = propertyValue.get( propertyType );
-                //Check if the assignment is the property of the Course
-                List<Assignment> assignmentObject = course.getAssignments().stream()
-                        .filter( assignment -> assignment.getId() == assignmentID  )
-                        .toList();
-                isPropertyOfTheCourse = assignmentObject.size() == 1;
-                break;
-            default:
-                System.out.println("Invalid property type");
-                break;
-        }
-        return isPropertyOfTheCourse;
+        return switch ( propertyType ) {
+            case COURSE_MATERIAL -> courseMaterialService.isCourseMaterialOfCourse( propertyId, courseId );
+            case ASSIGNMENT -> assignmentService.isAssignmentOfCourse( propertyId, courseId );
+        };
     }
 }
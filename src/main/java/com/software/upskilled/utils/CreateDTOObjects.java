@@ -24,6 +24,8 @@ public interface CreateDTOObjects
 
     public AssignmentResponseDTO createAssignmentResponseDTO(AssignmentDetailsDTO assignmentDetailsDTO, List<SubmissionResponseDTO> submissionResponseDTOList);
 
+    public AssignmentResponseDTO createAssignmentResponseDTO(EmployeeAssignmentRowDTO assignmentRow, Users userDetails);
+
     public MessageResponseDTO createMessageResponseDTO( Message messageDetails );
 
     public CourseMessagesResponseDTO createCourseMessagesResponseDTO(Map<String,String> userDetails, List<Message> messages);
@@ -5,6 +5,7 @@ import com.software.upskilled.dto.*;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -148,6 +149,58 @@ public class CreateDTOObjectsImpl implements CreateDTOObjects
         return assignmentResponseDTO;
     }
 
+    /**
+     * Converts an assignment row of the employee dashboard into an AssignmentResponseDTO for data transfer.
+     *
+     * This method builds the same response as `createAssignmentDetailsDTO`, `createSubmissionDTO` and
+     * `createGradeBookResponseDTO` would from the entities, but from the flat `EmployeeAssignmentRowDTO` projection, so
+     * nothing is loaded lazily. The submission details are left null when the employee has not submitted the assignment,
+     * and the grade details are only added to graded submissions.
+     *
+     * @param assignmentRow The `EmployeeAssignmentRowDTO` holding the assignment and the employee's submission and grade.
+     * @param userDetails The `Users` entity representing the employee who submitted the assignment.
+     * @return An `AssignmentResponseDTO` containing the assignment details and the employee's submission, if any.
+     */
+    @Override
+    public AssignmentResponseDTO createAssignmentResponseDTO(EmployeeAssignmentRowDTO assignmentRow, Users userDetails) {
+
+        //Creating the Assignment Details DTO from the row
+        AssignmentDetailsDTO assignmentDetailsDTO = new AssignmentDetailsDTO();
+        assignmentDetailsDTO.setId( assignmentRow.getAssignmentId() );
+        assignmentDetailsDTO.setTitle( assignmentRow.getTitle() );
+        assignmentDetailsDTO.setDescription( assignmentRow.getDescription() );
+        assignmentDetailsDTO.setDeadline( assignmentRow.getDeadline() );
+
+        //If the employee has not submitted the assignment, then don't set the Submission Details
+        if( assignmentRow.getSubmissionId() == null )
+            return createAssignmentResponseDTO( assignmentDetailsDTO, null );
+
+        //Create the Submission Response DTO Object
+        SubmissionResponseDTO submissionResponseDTO = new SubmissionResponseDTO();
+        submissionResponseDTO.setSubmissionId( assignmentRow.getSubmissionId() );
+        submissionResponseDTO.setSubmissionUrl( assignmentRow.getSubmissionUrl() );
+        submissionResponseDTO.setSubmissionAt( assignmentRow.getSubmittedAt() );
+        submissionResponseDTO.setSubmissionStatus( assignmentRow.getSubmissionStatus() );
+        submissionResponseDTO.setAssignmentID( assignmentRow.getAssignmentId() );
+        submissionResponseDTO.setUserDetails( createUserDTO( userDetails ) );
+
+        //Set the GradeBook details only when the submission is graded and its grade was found
+        if( Submission.Status.GRADED.equals( assignmentRow.getSubmissionStatus() ) && assignmentRow.getGradeBookId() != null )
+        {
+            GradeBookResponseDTO gradeBookResponseDTO = new GradeBookResponseDTO();
+            gradeBookResponseDTO.setGrade( assignmentRow.getGrade() );
+            gradeBookResponseDTO.setGradeBookId( assignmentRow.getGradeBookId() );
+            gradeBookResponseDTO.setFeedback( assignmentRow.getFeedback() );
+            gradeBookResponseDTO.setSubmissionID( assignmentRow.getSubmissionId() );
+            gradeBookResponseDTO.setInstructorID( assignmentRow.getInstructorId() );
+            gradeBookResponseDTO.setGradedDate( assignmentRow.getGradedAt() );
+            submissionResponseDTO.setGradeBook( gradeBookResponseDTO );
+        }
+
+        //Return the Response
+        return createAssignmentResponseDTO( assignmentDetailsDTO, Collections.singletonList( submissionResponseDTO ) );
+    }
+
     /**
      * Converts message data into a MessageResponseDTO for data transfer.
      *
@@ -0,0 +1,89 @@
+package com.software.upskilled.utils;
+
+import com.software.upskilled.Entity.RevokedToken;
+import com.software.upskilled.repository.RevokedTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@link TokenRevocationStore} shared by all application nodes through the revoked_token table.
+ *
+ * Every node keeps a local near-cache of the active revocations, so {@link #isRevoked(String)} never touches the
+ * database. Logouts are written to the table and to the local cache straight away, and each node pulls the
+ * revocations made by other nodes on a fixed interval ({@code security.token-revocation.sync-interval-ms}).
+ * A token revoked on another node is therefore rejected everywhere after at most one sync interval.
+ */
+@Component
+@ConditionalOnProperty(name = "security.token-revocation.store", havingValue = "database")
+@Slf4j
+public class DatabaseTokenRevocationStore implements TokenRevocationStore {
+
+    //Rows are read again for this long after a sync, to cover commit delays and clock skew between nodes
+    private static final long SYNC_OVERLAP_MILLIS = 30_000;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private final InMemoryTokenRevocationStore nearCache = new InMemoryTokenRevocationStore();
+    private volatile long lastSyncStartedAt = 0;
+
+    @Override
+    public void revoke(String fingerprint, long expiresAt) {
+        nearCache.revoke(fingerprint, expiresAt);
+        try {
+            revokedTokenRepository.save(RevokedToken.builder()
+                    .fingerprint(fingerprint)
+                    .expiresAt(expiresAt)
+                    .revokedAt(System.currentTimeMillis())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            //Token was already revoked, possibly by another node
+            log.debug("Token {} is already present in the revocation table", fingerprint);
+        }
+    }
+
+    @Override
+    public boolean isRevoked(String fingerprint) {
+        return nearCache.isRevoked(fingerprint);
+    }
+
+    /**
+     * Pulls revocations recorded since the previous sync into the local near-cache.
+     * The first run loads every revocation that has not expired yet.
+     */
+    @Scheduled(fixedDelayString = "${security.token-revocation.sync-interval-ms:5000}")
+    public void syncFromDatabase() {
+        long syncStartedAt = System.currentTimeMillis();
+        long revokedSince = lastSyncStartedAt == 0 ? 0 : lastSyncStartedAt - SYNC_OVERLAP_MILLIS;
+        try {
+            List<RevokedToken> revokedTokens = revokedTokenRepository.findActiveRevocationsSince(revokedSince, syncStartedAt);
+            revokedTokens.forEach(revokedToken -> nearCache.revoke(revokedToken.getFingerprint(), revokedToken.getExpiresAt()));
+            lastSyncStartedAt = syncStartedAt;
+        } catch (DataAccessException e) {
+            //Keep serving from the near-cache, the next run retries from the same point
+            log.warn("Could not refresh token revocations from the database: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public int purgeExpired() {
+        try {
+            revokedTokenRepository.deleteExpired(System.currentTimeMillis());
+        } catch (DataAccessException e) {
+            log.warn("Could not purge expired token revocations: {}", e.getMessage());
+        }
+        return nearCache.purgeExpired();
+    }
+
+    @Override
+    public int size() {
+        return nearCache.size();
+    }
+}
@@ -3,6 +3,7 @@ package com.software.upskilled.utils;
 import com.software.upskilled.Entity.Course;
 import com.software.upskilled.Entity.Users;
 import com.software.upskilled.service.CourseService;
+import com.software.upskilled.service.EnrollmentService;
 import com.software.upskilled.service.UserService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -17,24 +18,38 @@ public class EmployeeCourseAuth {
 
     private final UserService userService;
     private final CourseService courseService;
+    private final EnrollmentService enrollmentService;
+    private final CourseAuthDecisionCache decisionCache;
 
-    public EmployeeCourseAuth(UserService userService, CourseService courseService) {
+    public EmployeeCourseAuth(UserService userService, CourseService courseService, EnrollmentService enrollmentService,
+                              CourseAuthDecisionCache decisionCache) {
         this.userService = userService;
         this.courseService = courseService;
+        this.enrollmentService = enrollmentService;
+        this.decisionCache = decisionCache;
     }
 
     /**
      * Validates whether the currently authenticated employee is enrolled in the specified course.
      *
      * This method checks if the course exists and is active, then verifies whether the authenticated user (employee) is enrolled
-     * in the course by matching their email with the course's enrollment list. If the course is invalid or the employee is not enrolled,
+     * in the course through the enrollment membership index. If the course is invalid or the employee is not enrolled,
      * an appropriate error response is returned.
      *
+     * Decisions are served from the {@link CourseAuthDecisionCache} when available, so repeated requests from the
+     * same employee for the same course do not query the user and course again.
+     *
      * @param courseId The ID of the course to validate the employee's enrollment for.
      * @param authentication The authentication object containing the currently authenticated user's details.
      * @return A `ResponseEntity` containing a message indicating the validation result, or `null` if the validation passes.
      */
     public ResponseEntity<String> validateEmployeeForCourse(Long courseId, Authentication authentication) {
+        String email = authentication.getName();
+        return decisionCache.getOrCompute(email, courseId, CourseAuthDecisionCache.EMPLOYEE,
+                () -> checkEmployeeForCourse(courseId, email));
+    }
+
+    private ResponseEntity<String> checkEmployeeForCourse(Long courseId, String email) {
 
         Course course = courseService.findCourseById(courseId);
 
@@ -42,10 +57,9 @@ public class EmployeeCourseAuth {
             return ResponseEntity.badRequest().body("Invalid course ID");
         }
 
-        String email = authentication.getName();
         Users employee = userService.findUserByEmail(email);
 
-        if (course.getEnrollments().stream().noneMatch(enrollment -> enrollment.getEmployee().equals(employee))) {
+        if (employee == null || !enrollmentService.isEmployeeEnrolled(courseId, employee.getId())) {
             return ResponseEntity.status(403).body("You are not enrolled in this course");
         }
 
@@ -0,0 +1,120 @@
+package com.software.upskilled.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Small bounded in-memory cache with a per-entry expiry time.
+ *
+ * Entries are kept in access order, so once the configured maximum size is reached the least recently used
+ * entry is dropped to make room for the new one. Every entry also carries an absolute expiry timestamp;
+ * expired entries are never returned and are removed lazily on lookup or eagerly through {@link #purgeExpired()}.
+ *
+ * All operations synchronize on the cache instance. The critical sections are tiny map operations, which keeps
+ * the class simple and is more than fast enough for the request-path lookups it is used for.
+ *
+ * @param <K> the type of the cache keys
+ * @param <V> the type of the cached values
+ */
+public class ExpiringCache<K, V> {
+
+    private final int maxSize;
+    private final long defaultTtlMillis;
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    public ExpiringCache(int maxSize, long defaultTtlMillis) {
+        this.maxSize = maxSize;
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                boolean evict = size() > ExpiringCache.this.maxSize;
+                if (evict) {
+                    evictionCount.incrementAndGet();
+                }
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for the key, or null when it is absent or has already expired.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    /**
+     * Caches the value using the default time to live of this cache.
+     */
+    public void put(K key, V value) {
+        put(key, value, System.currentTimeMillis() + defaultTtlMillis);
+    }
+
+    /**
+     * Caches the value until the given epoch millisecond timestamp, capped by the default time to live.
+     */
+    public synchronized void put(K key, V value, long expiresAt) {
+        long cappedExpiry = Math.min(expiresAt, System.currentTimeMillis() + defaultTtlMillis);
+        if (cappedExpiry <= System.currentTimeMillis()) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, cappedExpiry));
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes every entry whose key matches the predicate.
+     */
+    public synchronized void invalidateIf(Predicate<K> keyPredicate) {
+        entries.keySet().removeIf(keyPredicate);
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Drops all expired entries and returns how many were removed.
+     */
+    public synchronized int purgeExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt() <= now) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Number of entries dropped so far because the cache was full.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+}
@@ -0,0 +1,48 @@
+package com.software.upskilled.utils;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Default {@link TokenRevocationStore} keeping revocations in a concurrent map of fingerprint to expiry time.
+ * Revocations are only visible on the node that handled the logout.
+ */
+@Component
+@ConditionalOnProperty(name = "security.token-revocation.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryTokenRevocationStore implements TokenRevocationStore {
+
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    @Override
+    public void revoke(String fingerprint, long expiresAt) {
+        revokedTokens.merge(fingerprint, expiresAt, Math::max);
+    }
+
+    @Override
+    public boolean isRevoked(String fingerprint) {
+        return revokedTokens.containsKey(fingerprint);
+    }
+
+    @Override
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        AtomicInteger removed = new AtomicInteger();
+        revokedTokens.values().removeIf(expiresAt -> {
+            boolean expired = expiresAt <= now;
+            if (expired) {
+                removed.incrementAndGet();
+            }
+            return expired;
+        });
+        return removed.get();
+    }
+
+    @Override
+    public int size() {
+        return revokedTokens.size();
+    }
+}
@@ -18,10 +18,12 @@ public class InstructorCourseAuth {
 
     private final UserService userService;
     private final CourseService courseService;
+    private final CourseAuthDecisionCache decisionCache;
 
-    public InstructorCourseAuth(UserService userService, CourseService courseService) {
+    public InstructorCourseAuth(UserService userService, CourseService courseService, CourseAuthDecisionCache decisionCache) {
         this.userService = userService;
         this.courseService = courseService;
+        this.decisionCache = decisionCache;
     }
 
     /**
@@ -31,6 +33,9 @@ public class InstructorCourseAuth {
      * the correct instructor for the provided course. It also ensures that the course is valid and not inactive.
      * If any of these checks fail, it returns an appropriate error message.
      *
+     * Decisions are served from the {@link CourseAuthDecisionCache} when available, so repeated requests from the
+     * same instructor for the same course do not query the user and course again.
+     *
      * @param courseId The ID of the course to validate the instructor for.
      * @param authentication The authentication object containing the currently logged-in user's details.
      * @return A `ResponseEntity` containing an error message and the corresponding HTTP status code, or null if validation is successful.
@@ -38,6 +43,11 @@ public class InstructorCourseAuth {
     public ResponseEntity<String> validateInstructorForCourse(Long courseId, Authentication authentication) {
         // Get the currently authenticated user (instructor)
         String email = authentication.getName();
+        return decisionCache.getOrCompute(email, courseId, CourseAuthDecisionCache.INSTRUCTOR,
+                () -> checkInstructorForCourse(courseId, email));
+    }
+
+    private ResponseEntity<String> checkInstructorForCourse(Long courseId, String email) {
         Users instructor = userService.findUserByEmail(email);
 
         Course course = courseService.findCourseById(courseId);
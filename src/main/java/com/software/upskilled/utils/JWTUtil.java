@@ -2,12 +2,20 @@ package com.software.upskilled.utils;
 
 import com.software.upskilled.Entity.Users;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.io.Decoders;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -15,15 +23,41 @@ import java.util.Map;
 /**
  * Service class for JWT (JSON Web Token) operations.
  * This class handles token generation, validation, and claim extraction.
+ *
+ * The signing key and the token parser are built once when the secret is injected and shared by all requests,
+ * both are thread-safe. Tokens are verified through {@link #verifyAndDecode(String)}, which remembers recently
+ * verified tokens (by fingerprint) until they expire, so a client reusing its token does not pay for a full
+ * HMAC verification and JSON parse on every call.
+ *
+ * Browsers' EventSource cannot send the Authorization header, so the notification stream is opened with a separate
+ * short-lived stream token ({@link #generateStreamToken}). It carries the identity of the access token it was issued
+ * for, is only accepted on the stream endpoint, and is rejected by {@link #verifyAndDecode(String)}.
  */
 @Service
 public class JWTUtil {
-    private String secret;
     private long EXPIRATION_TIME = 1000 * 60 * 60 * 24; // 1 day
 
+    //Claims of the stream tokens: their purpose and the access token they were issued for
+    private static final String SCOPE_CLAIM = "scope";
+    private static final String STREAM_SCOPE = "notification-stream";
+    private static final String SESSION_FINGERPRINT_CLAIM = "sessionFingerprint";
+    private static final String SESSION_ISSUED_AT_CLAIM = "sessionIssuedAt";
+    private static final String SESSION_EXPIRES_AT_CLAIM = "sessionExpiresAt";
+
+    private Key signingKey;
+    private JwtParser jwtParser;
+    private final ExpiringCache<String, VerifiedTokenClaims> verifiedTokenCache;
+
+    public JWTUtil(@Value("${security.verified-token-cache.max-size:10000}") int verifiedTokenCacheSize) {
+        //Entries never outlive the token itself, the default TTL only acts as an upper bound
+        this.verifiedTokenCache = new ExpiringCache<>(verifiedTokenCacheSize, EXPIRATION_TIME);
+    }
+
     @Value("${jwt.secret}")
     public void setSecret(String secret) {
-        this.secret = secret;
+        //Same key material the old signWith(HS256, String) / setSigningKey(String) calls derived from the Base64 secret
+        this.signingKey = new SecretKeySpec(Decoders.BASE64.decode(secret), SignatureAlgorithm.HS256.getJcaName());
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
     }
 
     /**
@@ -65,7 +99,7 @@ public class JWTUtil {
                 .setSubject(email)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(SignatureAlgorithm.HS256, secret)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -81,44 +115,131 @@ public class JWTUtil {
      * @return True if the token is valid (username matches and the token is not expired), otherwise false.
      */
     public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        VerifiedTokenClaims claims = verifyAndDecode(token);
+        return (claims.subject().equals(username) && !claims.isExpired());
+    }
+
+    /**
+     * Verifies the signature of the JWT token and decodes its claims in a single pass.
+     *
+     * The result is cached against the SHA-256 fingerprint of the token until the token expires, so repeated
+     * calls with the same token skip the HMAC verification and parsing entirely. Invalid or expired tokens are
+     * never cached and raise the same {@link io.jsonwebtoken.JwtException} the parser throws.
+     *
+     * @param token The JWT token to verify.
+     * @return The verified claims of the token.
+     */
+    public VerifiedTokenClaims verifyAndDecode(String token) {
+        String fingerprint = fingerprint(token);
+        VerifiedTokenClaims cachedClaims = verifiedTokenCache.get(fingerprint);
+        if (cachedClaims != null) {
+            return cachedClaims;
+        }
+
+        Claims claims = extractAllClaims(token);
+        if (claims.get(SCOPE_CLAIM) != null) {
+            throw new UnsupportedJwtException("Stream tokens cannot be used as access tokens");
+        }
+        Date issuedAt = claims.getIssuedAt();
+        VerifiedTokenClaims verifiedClaims = new VerifiedTokenClaims(
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.get("status", String.class),
+                issuedAt == null ? 0L : issuedAt.getTime(),
+                claims.getExpiration().getTime(),
+                fingerprint);
+        verifiedTokenCache.put(fingerprint, verifiedClaims, verifiedClaims.expiresAt());
+        return verifiedClaims;
+    }
+
+    /**
+     * Issues a stream token for the verified access token, valid for the given time but never past the access token.
+     *
+     * @param session the claims of the access token the stream token is requested with.
+     * @param ttlMillis how long the stream token can be used to open a stream.
+     * @return A compact JWT only accepted by {@link #verifyStreamToken(String)}.
+     */
+    public String generateStreamToken(VerifiedTokenClaims session, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(SCOPE_CLAIM, STREAM_SCOPE);
+        claims.put("role", session.role());
+        claims.put("status", session.status());
+        claims.put(SESSION_FINGERPRINT_CLAIM, session.fingerprint());
+        claims.put(SESSION_ISSUED_AT_CLAIM, session.issuedAt());
+        claims.put(SESSION_EXPIRES_AT_CLAIM, session.expiresAt());
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject(session.subject())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(Math.min(now + ttlMillis, session.expiresAt())))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    /**
+     * Verifies a stream token and returns the claims of the access token it was issued for, so the stream is checked
+     * against the expiry and the revocation of that access token.
+     *
+     * @param token The stream token.
+     * @return The claims of the access token behind the stream token.
+     * @throws io.jsonwebtoken.JwtException if the token is invalid, expired or not a stream token.
+     */
+    public VerifiedTokenClaims verifyStreamToken(String token) {
+        Claims claims = extractAllClaims(token);
+        if (!STREAM_SCOPE.equals(claims.get(SCOPE_CLAIM))) {
+            throw new UnsupportedJwtException("Not a stream token");
+        }
+        return new VerifiedTokenClaims(
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.get("status", String.class),
+                claims.get(SESSION_ISSUED_AT_CLAIM, Long.class),
+                claims.get(SESSION_EXPIRES_AT_CLAIM, Long.class),
+                claims.get(SESSION_FINGERPRINT_CLAIM, String.class));
+    }
+
+    /**
+     * Computes a compact fingerprint of the raw token (URL-safe Base64 of its SHA-256 digest).
+     *
+     * The fingerprint is what gets stored in caches and the revocation list, so the full token string
+     * never has to be kept in memory.
+     *
+     * @param token The raw JWT token.
+     * @return The 43 character fingerprint of the token.
+     */
+    public String fingerprint(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
     /**
      * Extracts the username (subject) from the JWT token.
      *
      * This method retrieves the subject (which typically represents the username) from the provided JWT token.
-     * It calls a helper method `extractAllClaims` to parse and extract the claims before returning the subject.
+     * It goes through `verifyAndDecode`, so the token is only parsed if it has not been verified recently.
      *
      * @param token The JWT token from which the username will be extracted.
      * @return The username (subject) stored in the token's claims.
      */
     public String extractUsername(String token) {
-        return extractAllClaims(token).getSubject();
+        return verifyAndDecode(token).subject();
     }
 
     /**
      * Extracts all claims from the provided JWT token.
      *
-     * This method parses the JWT token using the signing key and retrieves the claims (body) of the token.
+     * This method parses the JWT token using the shared parser and retrieves the claims (body) of the token.
      * The claims may contain user-specific information, including the subject, roles, and other custom fields.
      *
      * @param token The JWT token from which the claims will be extracted.
      * @return The claims extracted from the token.
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(secret).build().parseClaimsJws(token).getBody();
-    }
-
-    /**
-     * Checks if the given JWT token has expired.
-     *
-     * @param token the JWT token to be checked.
-     * @return true if the token's expiration date is before the current date, indicating it has expired;
-     *         false otherwise.
-     */
-    private Boolean isTokenExpired(String token) {
-        return extractAllClaims(token).getExpiration().before(new Date());
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 }
@@ -0,0 +1,97 @@
+package com.software.upskilled.utils;
+
+import com.software.upskilled.Entity.Message;
+import com.software.upskilled.exception.InvalidCursorException;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position in a list sorted from the newest by (timestamp, id) descending: messages by (sent_at, id), announcement
+ * summaries by (updated_at, id).
+ *
+ * A page "before" a cursor holds the rows strictly older than it, the id breaking ties between rows with the same
+ * timestamp. The cursor travels as an opaque URL-safe string; it keeps the timestamp at full precision, since MySQL
+ * stores fractional seconds that a millisecond Date would round away and rows would be skipped.
+ *
+ * @param sortKey the timestamp the list is sorted on, of the last row of the previous page.
+ * @param id the id of the last row of the previous page.
+ */
+public record KeysetCursor(Instant sortKey, long id) {
+
+    //Response header carrying the cursor of the next page
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Returns the cursor pointing right after the given message.
+     */
+    public static KeysetCursor after(Message message) {
+        return after(message.getSentAt(), message.getId());
+    }
+
+    /**
+     * Returns the cursor pointing right after the row with the given sort timestamp and id.
+     */
+    public static KeysetCursor after(Date sortedAt, long id) {
+        //Hibernate reads the column as a Timestamp, which carries the nanoseconds Date.toInstant() would drop
+        Instant instant = sortedAt instanceof Timestamp timestamp ? timestamp.toInstant() : sortedAt.toInstant();
+        return new KeysetCursor(instant, id);
+    }
+
+    /**
+     * Decodes a cursor received from a client.
+     *
+     * @return the cursor, or null for a missing cursor, meaning the first page. The first page is read by queries
+     * without the keyset condition rather than with a far-future cursor, which could not be bound in every time zone.
+     *
+     * @throws InvalidCursorException if the value is not a cursor produced by {@link #encode()}.
+     */
+    public static KeysetCursor parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(":");
+            if (parts.length != 3) {
+                throw new InvalidCursorException(value);
+            }
+            Instant sortKey = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new KeysetCursor(sortKey, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new InvalidCursorException(value);
+        }
+    }
+
+    /**
+     * Adds the cursor of the next page to a response, the client passing it back as the before parameter to read
+     * the older rows. Nothing is added on the last page.
+     *
+     * @param response the response being built.
+     * @param nextCursor the cursor of the next page, or null when there is none.
+     * @return the same response builder.
+     */
+    public static ResponseEntity.BodyBuilder withNextCursor(ResponseEntity.BodyBuilder response, KeysetCursor nextCursor) {
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor.encode());
+        }
+        return response;
+    }
+
+    public String encode() {
+        String raw = sortKey.getEpochSecond() + ":" + sortKey.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The sort timestamp to bind to the keyset queries.
+     */
+    public Timestamp sortKeyTimestamp() {
+        return Timestamp.from(sortKey);
+    }
+}
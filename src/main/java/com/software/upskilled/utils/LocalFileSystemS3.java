@@ -0,0 +1,366 @@
+package com.software.upskilled.utils;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsResult;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ListPartsRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PartListing;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Minimal S3 stand-in that keeps every bucket as a directory under a local root.
+ *
+ * Only the operations used by the file services are implemented (put, multipart upload, get with range and ETag
+ * constraints, metadata, single and multi-object delete and pre-signed URLs, which are plain file: URLs without a signature), everything else throws {@link UnsupportedOperationException}. Parts of a
+ * multipart upload are kept under a hidden directory of the root until the upload is completed or aborted. ETags are the hex MD5 of the content,
+ * like the ones S3 returns for single part uploads. Meant for development and tests, not for production traffic.
+ */
+public class LocalFileSystemS3 extends AbstractAmazonS3 {
+
+    private static final String MULTIPART_DIRECTORY = ".multipart";
+
+    private final Path root;
+
+    public LocalFileSystemS3(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the local S3 root " + this.root, e);
+        }
+    }
+
+    @Override
+    public PutObjectResult putObject(String bucketName, String key, InputStream input, ObjectMetadata metadata) {
+        return putObject(new PutObjectRequest(bucketName, key, input, metadata));
+    }
+
+    @Override
+    public PutObjectResult putObject(String bucketName, String key, File file) {
+        return putObject(new PutObjectRequest(bucketName, key, file));
+    }
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest putObjectRequest) {
+        Path target = resolve(putObjectRequest.getBucketName(), putObjectRequest.getKey());
+        try {
+            Files.createDirectories(target.getParent());
+            Path part = Files.createTempFile(target.getParent(), null, ".part");
+            try (InputStream input = putObjectRequest.getFile() != null
+                    ? Files.newInputStream(putObjectRequest.getFile().toPath())
+                    : putObjectRequest.getInputStream()) {
+                Files.copy(input, part, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(part);
+            }
+
+            PutObjectResult putObjectResult = new PutObjectResult();
+            putObjectResult.setETag(eTag(target));
+            return putObjectResult;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store " + putObjectRequest.getKey(), e);
+        }
+    }
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+        String uploadId = UUID.randomUUID().toString();
+        try {
+            Files.createDirectories(multipartDirectory(uploadId));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start the upload of " + request.getKey(), e);
+        }
+        InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        result.setUploadId(uploadId);
+        return result;
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        Path partFile = multipartDirectory(request.getUploadId()).resolve(String.valueOf(request.getPartNumber()));
+        try {
+            if (request.getFile() != null) {
+                try (FileChannel source = FileChannel.open(request.getFile().toPath(), StandardOpenOption.READ);
+                     FileChannel target = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                             StandardOpenOption.TRUNCATE_EXISTING)) {
+                    long position = request.getFileOffset();
+                    long remaining = request.getPartSize();
+                    while (remaining > 0) {
+                        long transferred = source.transferTo(position, remaining, target);
+                        if (transferred <= 0) {
+                            break;
+                        }
+                        position += transferred;
+                        remaining -= transferred;
+                    }
+                }
+            } else {
+                //The stream is a view of the whole upload owned by the caller, so it is not closed here
+                Files.copy(request.getInputStream(), partFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag(eTag(partFile));
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store part " + request.getPartNumber() + " of " + request.getKey(), e);
+        }
+    }
+
+    @Override
+    public PartListing listParts(ListPartsRequest request) {
+        PartListing partListing = new PartListing();
+        partListing.setBucketName(request.getBucketName());
+        partListing.setKey(request.getKey());
+        partListing.setUploadId(request.getUploadId());
+        partListing.setTruncated(false);
+        try (DirectoryStream<Path> partFiles = Files.newDirectoryStream(multipartDirectory(request.getUploadId()))) {
+            List<PartSummary> parts = new ArrayList<>();
+            for (Path partFile : partFiles) {
+                PartSummary partSummary = new PartSummary();
+                partSummary.setPartNumber(Integer.parseInt(partFile.getFileName().toString()));
+                partSummary.setSize(Files.size(partFile));
+                partSummary.setETag(eTag(partFile));
+                parts.add(partSummary);
+            }
+            parts.sort(Comparator.comparingInt(PartSummary::getPartNumber));
+            partListing.setParts(parts);
+            return partListing;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list the parts of " + request.getKey(), e);
+        }
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        Path uploadDirectory = multipartDirectory(request.getUploadId());
+        Path target = resolve(request.getBucketName(), request.getKey());
+        try {
+            Files.createDirectories(target.getParent());
+            Path part = Files.createTempFile(target.getParent(), null, ".part");
+            try (OutputStream output = Files.newOutputStream(part)) {
+                List<PartETag> partETags = request.getPartETags().stream()
+                        .sorted(Comparator.comparingInt(PartETag::getPartNumber)).toList();
+                for (PartETag partETag : partETags) {
+                    Files.copy(uploadDirectory.resolve(String.valueOf(partETag.getPartNumber())), output);
+                }
+            }
+            try {
+                Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(part);
+            }
+            FileSystemUtils.deleteRecursively(uploadDirectory);
+
+            CompleteMultipartUploadResult result = new CompleteMultipartUploadResult();
+            result.setBucketName(request.getBucketName());
+            result.setKey(request.getKey());
+            result.setETag(eTag(target));
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not complete the upload of " + request.getKey(), e);
+        }
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+        try {
+            FileSystemUtils.deleteRecursively(multipartDirectory(request.getUploadId()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not abort the upload of " + request.getKey(), e);
+        }
+    }
+
+    @Override
+    public S3Object getObject(String bucketName, String key) {
+        return getObject(new GetObjectRequest(bucketName, key));
+    }
+
+    /**
+     * Returns the object, or null when one of the non-matching ETag constraints matches, as the real client does.
+     * A requested range is read into memory, which is fine for the object sizes this class is used with.
+     */
+    @Override
+    public S3Object getObject(GetObjectRequest getObjectRequest) {
+        String bucketName = getObjectRequest.getBucketName();
+        String key = getObjectRequest.getKey();
+        ObjectMetadata metadata = getObjectMetadata(bucketName, key);
+        String eTag = metadata.getETag();
+
+        List<String> nonMatchingETags = getObjectRequest.getNonmatchingETagConstraints();
+        if (nonMatchingETags != null && nonMatchingETags.stream()
+                .anyMatch(clientETag -> clientETag.equals("*") || clientETag.replace("\"", "").equals(eTag))) {
+            return null;
+        }
+
+        Path file = resolve(bucketName, key);
+        try {
+            InputStream content = Files.newInputStream(file);
+            long length = metadata.getContentLength();
+            long[] range = getObjectRequest.getRange();
+            if (range != null) {
+                if (range[0] >= length) {
+                    content.close();
+                    AmazonS3Exception exception = new AmazonS3Exception("The requested range is not satisfiable");
+                    exception.setStatusCode(416);
+                    exception.setErrorCode("InvalidRange");
+                    throw exception;
+                }
+                long end = Math.min(range[1], length - 1);
+                try (InputStream wholeContent = content) {
+                    wholeContent.skipNBytes(range[0]);
+                    content = new ByteArrayInputStream(wholeContent.readNBytes((int) (end - range[0] + 1)));
+                }
+                metadata.setContentLength(end - range[0] + 1);
+                metadata.setHeader(Headers.CONTENT_RANGE, "bytes " + range[0] + "-" + end + "/" + length);
+            }
+
+            S3Object object = new S3Object();
+            object.setBucketName(bucketName);
+            object.setKey(key);
+            object.setObjectMetadata(metadata);
+            object.setObjectContent(new S3ObjectInputStream(content, null));
+            return object;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + key, e);
+        }
+    }
+
+    @Override
+    public ObjectMetadata getObjectMetadata(String bucketName, String key) {
+        return getObjectMetadata(new GetObjectMetadataRequest(bucketName, key));
+    }
+
+    @Override
+    public ObjectMetadata getObjectMetadata(GetObjectMetadataRequest getObjectMetadataRequest) {
+        Path file = resolve(getObjectMetadataRequest.getBucketName(), getObjectMetadataRequest.getKey());
+        if (!Files.isRegularFile(file)) {
+            AmazonS3Exception exception = new AmazonS3Exception("The specified key does not exist.");
+            exception.setStatusCode(404);
+            exception.setErrorCode("NoSuchKey");
+            throw exception;
+        }
+        try {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(Files.size(file));
+            metadata.setLastModified(new Date(Files.getLastModifiedTime(file).toMillis()));
+            metadata.setHeader(Headers.ETAG, eTag(file));
+            return metadata;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + getObjectMetadataRequest.getKey(), e);
+        }
+    }
+
+    @Override
+    public boolean doesObjectExist(String bucketName, String key) {
+        return Files.isRegularFile(resolve(bucketName, key));
+    }
+
+    @Override
+    public void deleteObject(String bucketName, String key) {
+        deleteObject(new DeleteObjectRequest(bucketName, key));
+    }
+
+    @Override
+    public void deleteObject(DeleteObjectRequest deleteObjectRequest) {
+        try {
+            Files.deleteIfExists(resolve(deleteObjectRequest.getBucketName(), deleteObjectRequest.getKey()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete " + deleteObjectRequest.getKey(), e);
+        }
+    }
+
+    @Override
+    public DeleteObjectsResult deleteObjects(DeleteObjectsRequest deleteObjectsRequest) {
+        List<DeleteObjectsResult.DeletedObject> deletedObjects = new ArrayList<>();
+        for (DeleteObjectsRequest.KeyVersion keyVersion : deleteObjectsRequest.getKeys()) {
+            deleteObject(deleteObjectsRequest.getBucketName(), keyVersion.getKey());
+            DeleteObjectsResult.DeletedObject deletedObject = new DeleteObjectsResult.DeletedObject();
+            deletedObject.setKey(keyVersion.getKey());
+            deletedObjects.add(deletedObject);
+        }
+        return new DeleteObjectsResult(deleteObjectsRequest.getQuiet() ? List.of() : deletedObjects);
+    }
+
+    @Override
+    public URL generatePresignedUrl(GeneratePresignedUrlRequest generatePresignedUrlRequest) {
+        try {
+            return resolve(generatePresignedUrlRequest.getBucketName(), generatePresignedUrlRequest.getKey()).toUri().toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("No URL for " + generatePresignedUrlRequest.getKey(), e);
+        }
+    }
+
+    private Path resolve(String bucketName, String key) {
+        Path file = root.resolve(bucketName).resolve(key).normalize();
+        if (!file.startsWith(root.resolve(bucketName))) {
+            throw new IllegalArgumentException("Key escapes the bucket directory: " + key);
+        }
+        return file;
+    }
+
+    private Path multipartDirectory(String uploadId) {
+        Path directory = root.resolve(MULTIPART_DIRECTORY).resolve(uploadId).normalize();
+        if (!directory.getParent().equals(root.resolve(MULTIPART_DIRECTORY))) {
+            throw new IllegalArgumentException("Invalid upload id: " + uploadId);
+        }
+        return directory;
+    }
+
+    private String eTag(Path file) throws IOException {
+        try (DigestInputStream input = new DigestInputStream(Files.newInputStream(file), MessageDigest.getInstance("MD5"))) {
+            input.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(input.getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.software.upskilled.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded, time limited cache of the principals resolved by the JWT filter.
+ *
+ * Entries are keyed by the user's email together with the issue time of the token that was presented, so a freshly
+ * issued token always resolves its principal from the database once. Any change to a user (profile update, status
+ * change by an admin, deletion) must call {@link #invalidate(String)} so the next request sees the new state.
+ * The cached values are immutable {@link AuthenticatedUser} snapshots, safe to share between concurrent requests.
+ */
+@Component
+public class PrincipalCache {
+
+    private final ExpiringCache<PrincipalKey, AuthenticatedUser> cache;
+
+    private record PrincipalKey(String email, long issuedAt) {}
+
+    public PrincipalCache(@Value("${security.principal-cache.max-size:10000}") int maxSize,
+                          @Value("${security.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.cache = new ExpiringCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    /**
+     * Returns the cached principal for the email and token issue time, or null if it has to be loaded again.
+     */
+    public AuthenticatedUser get(String email, long tokenIssuedAt) {
+        return cache.get(new PrincipalKey(email, tokenIssuedAt));
+    }
+
+    public void put(String email, long tokenIssuedAt, AuthenticatedUser principal) {
+        cache.put(new PrincipalKey(email, tokenIssuedAt), principal);
+    }
+
+    /**
+     * Drops every cached principal of the given user, whatever token it was resolved for.
+     */
+    public void invalidate(String email) {
+        if (email == null) {
+            return;
+        }
+        cache.invalidateIf(key -> key.email().equals(email));
+    }
+}
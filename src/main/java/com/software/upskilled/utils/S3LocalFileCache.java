@@ -0,0 +1,416 @@
+package com.software.upskilled.utils;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Size-bounded read-through cache of S3 objects kept on the local disk.
+ *
+ * Objects are stored as files in the cache directory and indexed by bucket and key in LRU order. When the total size
+ * goes above the limit the least recently used files are deleted. A cached file is served without asking S3 during
+ * the freshness window; after that a HEAD request checks that the ETag is unchanged before the file is served again,
+ * so objects replaced by another node are picked up. Writers on this node call {@link #invalidate(String, String)}
+ * after overwriting or deleting a key.
+ *
+ * {@link #fetch(String, String)} hands out a {@link CachedObject} that pins its file: a file evicted or invalidated
+ * while it is being read is only deleted once the last reader has closed it. Concurrent misses on the same key share
+ * a single download.
+ *
+ * The index lives in memory only, leftover files of a previous run are removed on startup.
+ */
+@Component
+@Slf4j
+public class S3LocalFileCache {
+
+    private static final String OBJECT_SUFFIX = ".object";
+    private static final String PART_SUFFIX = ".part";
+
+    private final AmazonS3 s3Client;
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxSizeBytes;
+    private final long freshnessMillis;
+
+    //Access ordered, the first entry is the least recently used one
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    //Downloads in progress, the threads missing on the same key wait for the first one
+    private final Map<String, CompletableFuture<Entry>> pendingLoads = new HashMap<>();
+    private long totalBytes;
+
+    //A cached file, the mutable fields are guarded by the cache instance
+    private static final class Entry {
+        private final String eTag;
+        private final Path file;
+        private final long size;
+        private long validatedAt;
+        private int readers;
+        private boolean retired;
+
+        private Entry(String eTag, Path file, long size, long validatedAt) {
+            this.eTag = eTag;
+            this.file = file;
+            this.size = size;
+            this.validatedAt = validatedAt;
+        }
+    }
+
+    /**
+     * A pinned copy of an S3 object. The file stays on disk until {@link #close()} is called, directly or by closing
+     * the stream returned by {@link #openStream(long, long)}.
+     */
+    public static final class CachedObject implements Closeable {
+        private final S3LocalFileCache cache;
+        private final Entry entry;
+        private boolean closed;
+
+        private CachedObject(S3LocalFileCache cache, Entry entry) {
+            this.cache = cache;
+            this.entry = entry;
+        }
+
+        /**
+         * The ETag of the object the file was downloaded from.
+         */
+        public String eTag() {
+            return entry.eTag;
+        }
+
+        /**
+         * The size of the object in bytes.
+         */
+        public long size() {
+            return entry.size;
+        }
+
+        Path file() {
+            return entry.file;
+        }
+
+        /**
+         * Opens the given part of the file. The returned stream takes over the pin, closing it releases the file.
+         *
+         * @param offset the first byte to read.
+         * @param length the number of bytes to read.
+         */
+        public InputStream openStream(long offset, long length) throws IOException {
+            FileChannel channel = FileChannel.open(entry.file, StandardOpenOption.READ);
+            channel.position(offset);
+            return new FilterInputStream(Channels.newInputStream(channel)) {
+                private long remaining = length;
+
+                @Override
+                public int read() throws IOException {
+                    if (remaining <= 0) {
+                        return -1;
+                    }
+                    int read = super.read();
+                    if (read >= 0) {
+                        remaining--;
+                    }
+                    return read;
+                }
+
+                @Override
+                public int read(byte[] buffer, int off, int len) throws IOException {
+                    if (remaining <= 0) {
+                        return -1;
+                    }
+                    int read = super.read(buffer, off, (int) Math.min(len, remaining));
+                    if (read > 0) {
+                        remaining -= read;
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        CachedObject.this.close();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            synchronized (cache) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            cache.release(entry);
+        }
+    }
+
+    public S3LocalFileCache(AmazonS3 s3Client,
+                            @Value("${aws.s3.local-cache.enabled:true}") boolean enabled,
+                            @Value("${aws.s3.local-cache.directory:${java.io.tmpdir}/upskilled-s3-cache}") String directory,
+                            @Value("${aws.s3.local-cache.max-size-mb:512}") long maxSizeMb,
+                            @Value("${aws.s3.local-cache.freshness-seconds:30}") long freshnessSeconds) {
+        this.s3Client = s3Client;
+        this.enabled = enabled;
+        this.directory = Path.of(directory).toAbsolutePath().normalize();
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        this.freshnessMillis = freshnessSeconds * 1000;
+        if (enabled) {
+            prepareDirectory();
+        }
+    }
+
+    /**
+     * Returns a pinned local copy of the object, downloading it on a miss or when it changed in S3. The caller must
+     * close the returned object, or the stream it opens, once it is done with the file.
+     *
+     * @param bucketName the bucket holding the object.
+     * @param key the key of the object.
+     * @return the cached object, or null if the cache is disabled or the object could not be kept on disk, in which
+     *         case the caller should read it from S3 directly.
+     * @throws AmazonServiceException if S3 rejects the request, e.g. because the key does not exist.
+     */
+    public CachedObject fetch(String bucketName, String key) {
+        if (!enabled) {
+            return null;
+        }
+
+        String indexKey = bucketName + "/" + key;
+        Entry cached;
+        synchronized (this) {
+            cached = entries.get(indexKey);
+            if (cached != null && System.currentTimeMillis() - cached.validatedAt < freshnessMillis) {
+                return pin(cached);
+            }
+        }
+
+        if (cached != null) {
+            try {
+                //Past the freshness window, a HEAD request tells whether the object changed in the meantime
+                ObjectMetadata metadata = s3Client.getObjectMetadata(bucketName, key);
+                if (cached.eTag.equals(metadata.getETag()) && Files.exists(cached.file)) {
+                    synchronized (this) {
+                        //Only an indexed entry is sure to still have its file
+                        if (entries.get(indexKey) == cached) {
+                            cached.validatedAt = System.currentTimeMillis();
+                            return pin(cached);
+                        }
+                    }
+                }
+            } catch (AmazonServiceException e) {
+                remove(indexKey, cached);
+                throw e;
+            }
+            remove(indexKey, cached);
+        }
+        return load(bucketName, key, indexKey);
+    }
+
+    /**
+     * Drops the cached copy of the object, to be called after the key was overwritten or deleted. The file itself is
+     * deleted once the requests still reading it are done.
+     */
+    public void invalidate(String bucketName, String key) {
+        if (!enabled) {
+            return;
+        }
+        String indexKey = bucketName + "/" + key;
+        Entry removed;
+        boolean deleteNow = false;
+        synchronized (this) {
+            removed = entries.remove(indexKey);
+            if (removed != null) {
+                totalBytes -= removed.size;
+                deleteNow = retire(removed);
+            }
+        }
+        if (deleteNow) {
+            deleteQuietly(removed.file);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private CachedObject load(String bucketName, String key, String indexKey) {
+        CompletableFuture<Entry> loading;
+        boolean loader = false;
+        synchronized (this) {
+            loading = pendingLoads.get(indexKey);
+            if (loading == null) {
+                loading = new CompletableFuture<>();
+                pendingLoads.put(indexKey, loading);
+                loader = true;
+            }
+        }
+
+        if (loader) {
+            try {
+                //The entry comes back already pinned for this thread
+                Entry loaded = download(bucketName, key, indexKey);
+                loading.complete(loaded);
+                return loaded == null ? null : new CachedObject(this, loaded);
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+                throw e;
+            } finally {
+                synchronized (this) {
+                    pendingLoads.remove(indexKey, loading);
+                }
+            }
+        }
+
+        Entry loaded;
+        try {
+            loaded = loading.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            //Evicted before this thread could pin it, the caller reads from S3 instead
+            if (loaded == null || loaded.retired) {
+                return null;
+            }
+            return pin(loaded);
+        }
+    }
+
+    private Entry download(String bucketName, String key, String indexKey) {
+        S3Object object = s3Client.getObject(bucketName, key);
+        String eTag = object.getObjectMetadata().getETag();
+        Path part = null;
+        try (InputStream content = object.getObjectContent()) {
+            part = Files.createTempFile(directory, null, PART_SUFFIX);
+            long size = Files.copy(content, part, StandardCopyOption.REPLACE_EXISTING);
+            //Every download gets a file of its own, so a retired file is never shared with its replacement
+            String partName = part.getFileName().toString();
+            Path file = directory.resolve(partName.substring(0, partName.length() - PART_SUFFIX.length()) + OBJECT_SUFFIX);
+            Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+
+            Entry loaded = new Entry(eTag, file, size, System.currentTimeMillis());
+            add(indexKey, loaded);
+            return loaded;
+        } catch (IOException e) {
+            log.warn("Could not cache {} locally: {}", indexKey, e.getMessage());
+            if (part != null) {
+                deleteQuietly(part);
+            }
+            return null;
+        }
+    }
+
+    private void add(String indexKey, Entry loaded) {
+        //Files are deleted after leaving the lock, so no thread holds the monitor during disk I/O
+        List<Path> staleFiles = new ArrayList<>();
+        synchronized (this) {
+            loaded.readers = 1;
+            Entry previous = entries.put(indexKey, loaded);
+            if (previous != null) {
+                totalBytes -= previous.size;
+                if (retire(previous)) {
+                    staleFiles.add(previous.file);
+                }
+            }
+            totalBytes += loaded.size;
+
+            //The entry just added is never evicted here, even if it alone exceeds the limit, as it is about to be served
+            Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+            while (totalBytes > maxSizeBytes && entries.size() > 1) {
+                Entry evicted = leastRecentlyUsed.next();
+                leastRecentlyUsed.remove();
+                totalBytes -= evicted.size;
+                if (retire(evicted)) {
+                    staleFiles.add(evicted.file);
+                }
+            }
+        }
+        staleFiles.forEach(S3LocalFileCache::deleteQuietly);
+    }
+
+    private void remove(String indexKey, Entry expected) {
+        boolean deleteNow = false;
+        synchronized (this) {
+            if (entries.remove(indexKey, expected)) {
+                totalBytes -= expected.size;
+                deleteNow = retire(expected);
+            }
+        }
+        if (deleteNow) {
+            deleteQuietly(expected.file);
+        }
+    }
+
+    //Called with the lock held
+    private CachedObject pin(Entry entry) {
+        entry.readers++;
+        return new CachedObject(this, entry);
+    }
+
+    //Called with the lock held on an entry just removed from the index, returns whether its file can be deleted now
+    private boolean retire(Entry entry) {
+        entry.retired = true;
+        return entry.readers == 0;
+    }
+
+    private void release(Entry entry) {
+        boolean deleteNow;
+        synchronized (this) {
+            entry.readers--;
+            deleteNow = entry.retired && entry.readers == 0;
+        }
+        if (deleteNow) {
+            deleteQuietly(entry.file);
+        }
+    }
+
+    private void prepareDirectory() {
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, "*{" + OBJECT_SUFFIX + "," + PART_SUFFIX + "}")) {
+                for (Path leftover : leftovers) {
+                    deleteQuietly(leftover);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not prepare the local S3 cache directory " + directory, e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete cached file {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.software.upskilled.utils;
+
+import com.software.upskilled.Entity.Users;
+
+/**
+ * Builds the S3 keys of uploaded files, so every upload path stores the same kind of file under the same layout.
+ */
+public final class S3ObjectKeys {
+
+    private S3ObjectKeys() {
+    }
+
+    /**
+     * Key of an assignment submission: {course-title}/{assignment-title}/{first}_{last}_{employee-id}_{file-name}.
+     */
+    public static String assignmentSubmission(String courseTitle, String assignmentTitle, Users employee, String fileName) {
+        String employeeName = employee.getFirstName() + "_" + employee.getLastName() + "_" + employee.getId();
+        return courseTitle + "/" + assignmentTitle + "/" + employeeName + "_" + fileName;
+    }
+
+    /**
+     * Key of a replacement file uploaded straight to S3:
+     * {course-title}/{assignment-title}/{submission-id}-{upload-id}/{first}_{last}_{employee-id}_{file-name}.
+     * Each upload gets its own key, so the file the submission points to is never overwritten before the replacement
+     * is confirmed.
+     */
+    public static String assignmentUpdate(String courseTitle, String assignmentTitle, Users employee, Long submissionId,
+                                          String uploadId, String fileName) {
+        String employeeName = employee.getFirstName() + "_" + employee.getLastName() + "_" + employee.getId();
+        return courseTitle + "/" + assignmentTitle + "/" + submissionId + "-" + uploadId + "/" + employeeName + "_" + fileName;
+    }
+}
@@ -1,23 +1,77 @@
 package com.software.upskilled.utils;
 
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import java.util.HashSet;
-import java.util.Set;
+
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * class for managing a token blacklist.
  * This class provides functionality to blacklist tokens and check if a token is blacklisted.
+ *
+ * Revoked tokens are handed to the configured {@link TokenRevocationStore} by their fingerprint
+ * (see {@link JWTUtil#fingerprint(String)}) together with the token's own expiry time. Once a token has expired
+ * the JWT filter rejects it anyway, so a background sweeper drops those entries and the store only ever holds
+ * tokens that are both revoked and still valid. The current size and the number of swept entries are published
+ * as metrics.
  */
 @Service
+@Slf4j
 public class TokenBlackListService {
 
-    private final Set<String> tokenBlacklist = new HashSet<>(); // Replace with Redis in production
+    private final JWTUtil jwtUtil;
+    private final TokenRevocationStore revocationStore;
+    private final AtomicLong evictedTokens = new AtomicLong();
+
+    public TokenBlackListService(JWTUtil jwtUtil, TokenRevocationStore revocationStore, MeterRegistry meterRegistry) {
+        this.jwtUtil = jwtUtil;
+        this.revocationStore = revocationStore;
+        Gauge.builder("security.token.revocations", revocationStore, TokenRevocationStore::size)
+                .description("Revoked tokens that have not expired yet")
+                .register(meterRegistry);
+        FunctionCounter.builder("security.token.revocations.evicted", evictedTokens, AtomicLong::get)
+                .description("Revoked tokens dropped from the store after their expiry")
+                .register(meterRegistry);
+    }
 
+    /**
+     * Revokes the token until its expiry time.
+     *
+     * Tokens that are already expired or cannot be verified are ignored, since the JWT filter rejects them
+     * regardless of the revocation list.
+     *
+     * @param token the raw JWT token to revoke.
+     */
     public void blacklistToken(String token) {
-        tokenBlacklist.add(token);
+        try {
+            VerifiedTokenClaims claims = jwtUtil.verifyAndDecode(token);
+            revocationStore.revoke(claims.fingerprint(), claims.expiresAt());
+        } catch (JwtException e) {
+            log.debug("Ignoring revocation of an invalid or expired token: {}", e.getMessage());
+        }
     }
 
     public boolean isTokenBlacklisted(String token) {
-        return tokenBlacklist.contains(token);
+        return revocationStore.isRevoked(jwtUtil.fingerprint(token));
+    }
+
+    /**
+     * Checks the revocation list for a token that has already been verified, reusing its fingerprint.
+     */
+    public boolean isTokenBlacklisted(VerifiedTokenClaims claims) {
+        return revocationStore.isRevoked(claims.fingerprint());
+    }
+
+    /**
+     * Periodically removes revocations whose token has expired on its own.
+     */
+    @Scheduled(fixedDelayString = "${security.token-revocation.sweep-interval-ms:60000}")
+    public void sweepExpiredTokens() {
+        evictedTokens.addAndGet(revocationStore.purgeExpired());
     }
 }
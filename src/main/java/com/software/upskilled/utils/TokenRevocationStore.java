@@ -0,0 +1,31 @@
+package com.software.upskilled.utils;
+
+/**
+ * Storage backend for revoked JWTs, used by {@link TokenBlackListService}.
+ *
+ * Tokens are identified by their fingerprint (see {@link JWTUtil#fingerprint(String)}) and only need to be
+ * remembered until their own expiry time. {@link #isRevoked(String)} sits on the hot path of every authenticated
+ * request, so implementations must answer it from memory.
+ *
+ * The implementation is selected with the {@code security.token-revocation.store} property:
+ * {@code memory} (default, single node) or {@code database} (shared across nodes through the revoked_token table).
+ */
+public interface TokenRevocationStore {
+
+    /**
+     * Marks the token with the given fingerprint as revoked until {@code expiresAt} (epoch milliseconds).
+     */
+    void revoke(String fingerprint, long expiresAt);
+
+    boolean isRevoked(String fingerprint);
+
+    /**
+     * Removes revocations of tokens that have expired and returns how many were dropped locally.
+     */
+    int purgeExpired();
+
+    /**
+     * Number of revocations currently held in memory.
+     */
+    int size();
+}
@@ -0,0 +1,22 @@
+package com.software.upskilled.utils;
+
+/**
+ * Immutable view of the claims of a JWT whose signature has already been verified.
+ *
+ * Produced by {@link JWTUtil#verifyAndDecode(String)} so callers can read everything they need from a token
+ * after a single verification, instead of parsing it again for every claim.
+ *
+ * @param subject     the email of the user the token was issued to
+ * @param role        the role claim of the token
+ * @param status      the user status claim at the time the token was issued
+ * @param issuedAt    the issue time of the token in epoch milliseconds (0 when absent)
+ * @param expiresAt   the expiry time of the token in epoch milliseconds
+ * @param fingerprint compact SHA-256 fingerprint of the raw token, safe to keep in memory instead of the token
+ */
+public record VerifiedTokenClaims(String subject, String role, String status, long issuedAt, long expiresAt,
+                                  String fingerprint) {
+
+    public boolean isExpired() {
+        return expiresAt <= System.currentTimeMillis();
+    }
+}
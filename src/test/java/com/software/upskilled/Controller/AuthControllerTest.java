@@ -4,7 +4,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.software.upskilled.Entity.Users;
 import com.software.upskilled.dto.AuthRequest;
 import com.software.upskilled.dto.CreateUserDTO;
+import com.software.upskilled.service.NotificationStreamService;
 import com.software.upskilled.service.UserService;
+import com.software.upskilled.utils.AuthenticatedUser;
 import com.software.upskilled.utils.JWTUtil;
 import com.software.upskilled.utils.TokenBlackListService;
 import org.junit.jupiter.api.Test;
@@ -49,6 +51,9 @@ public class AuthControllerTest {
     @MockBean
     private TokenBlackListService tokenBlackListService;
 
+    @MockBean
+    private NotificationStreamService notificationStreamService;
+
 
     @Test
     void testGetCurrentUser_Success() throws Exception {
@@ -65,9 +70,10 @@ public class AuthControllerTest {
                 .build();
 
         // Mock the SecurityContextHolder to simulate an authenticated user
-        Authentication authentication = new UsernamePasswordAuthenticationToken(currentUser, null,
+        Authentication authentication = new UsernamePasswordAuthenticationToken(AuthenticatedUser.of(currentUser), null,
                 AuthorityUtils.createAuthorityList("ROLE_INSTRUCTOR"));
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(userDetailsService.findUserById(1L)).thenReturn(currentUser);
 
         // Perform the GET request to the /user endpoint
         mockMvc.perform(get("/api/auth/user")
@@ -174,11 +180,15 @@ public class AuthControllerTest {
         String token = "sample-jwt-token";
 
         doNothing().when(tokenBlackListService).blacklistToken(token);
+        when(jwtUtil.fingerprint(token)).thenReturn("sample-fingerprint");
 
         mockMvc.perform(post("/api/auth/logout")
                         .header("Authorization", "Bearer " + token))
                 .andExpect(status().isOk())
                 .andExpect(content().string("Logged out successfully"));
+
+        // The notification streams opened with the token are closed too
+        verify(notificationStreamService).closeSession("sample-fingerprint");
     }
 
     @Test
@@ -11,6 +11,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
@@ -75,6 +76,9 @@ public class EmployeeControllerTest
     @MockBean
     private EnrollmentService enrollmentService;
 
+    @MockBean
+    private SubmissionUploadPipeline submissionUploadPipeline;
+
     @Test
     void testViewCourses() throws Exception {
         String email = "employee1@upskilled.com";
@@ -131,7 +135,11 @@ public class EmployeeControllerTest
         employee2.setEnrollments(Set.of(enrollment2));
 
         when(userService.findUserByEmail(email)).thenReturn(employee1);
-        when(courseService.getAllCourses()).thenReturn(List.of(course1, course2));
+        //Enrolled courses are excluded by the catalog query itself
+        CourseInfoDTO courseInfo2 = new CourseInfoDTO(course2.getId(), course2.getTitle(), course2.getDescription(),
+                "John Smith", instructor.getId(), course2.getName(), course2.getStatus());
+        when(courseService.getActiveCourseCatalogForEmployee(employee1.getId(), null, null))
+                .thenReturn(List.of(courseInfo2));
 
         mockMvc.perform(get("/api/employee/courses")
                         .principal(authentication))
@@ -141,7 +149,7 @@ public class EmployeeControllerTest
 
         //Verify that the invocations were made
         verify( userService ).findUserByEmail( email );
-        verify(  courseService  ).getAllCourses();
+        verify(  courseService  ).getActiveCourseCatalogForEmployee( employee1.getId(), null, null );
     }
 
 
@@ -282,6 +290,7 @@ public class EmployeeControllerTest
         // Mock behavior
         when(userService.findUserByEmail(email)).thenReturn(employee1);
         when(courseService.findCourseById(101L)).thenReturn(course1);
+        when(enrollmentService.isEmployeeEnrolled(101L, employee1.getId())).thenReturn(true);
 
         mockMvc.perform(get("/api/employee/enrollment/101")
                         .principal(authentication))
@@ -344,16 +353,61 @@ public class EmployeeControllerTest
         announcement.setContent("Announcement Content");
         announcement.setUpdatedAt(new Date());
 
-        when(announcementService.getAnnouncementsByCourseId(101L)).thenReturn(Set.of(announcement));
+        AnnouncementFeedCache.Feed feed = new AnnouncementFeedCache(new ObjectMapper(), 10, 60).getOrBuild(101L, () -> List.of(
+                new AnnouncementRequestDTO(announcement.getId(), announcement.getTitle(), announcement.getContent(), announcement.getUpdatedAt())));
+        when(announcementService.getAnnouncementFeed(101L)).thenReturn(feed);
 
         mockMvc.perform(get("/api/employee/course/101/announcements")
                         .principal(authentication))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, feed.eTag()))
                 .andExpect(jsonPath("$[0].id").value(1L))
                 .andExpect(jsonPath("$[0].title").value("Announcement Title"))
                 .andExpect(jsonPath("$[0].content").value("Announcement Content"));
 
-        verify(announcementService).getAnnouncementsByCourseId(101L);
+        verify(announcementService).getAnnouncementFeed(101L);
+    }
+
+    @Test
+    void testViewAnnouncements_NotModified() throws Exception {
+        String email = "employee@upskilled.com";
+        Authentication authentication = mock(Authentication.class);
+        when(authentication.getName()).thenReturn(email);
+        when(employeeCourseAuth.validateEmployeeForCourse(101L, authentication)).thenReturn(null);
+
+        AnnouncementFeedCache.Feed feed = new AnnouncementFeedCache(new ObjectMapper(), 10, 60).getOrBuild(101L, () -> List.of(
+                new AnnouncementRequestDTO(1L, "Announcement Title", "Announcement Content", new Date())));
+        when(announcementService.getAnnouncementFeed(101L)).thenReturn(feed);
+
+        mockMvc.perform(get("/api/employee/course/101/announcements")
+                        .header(HttpHeaders.IF_NONE_MATCH, feed.eTag())
+                        .principal(authentication))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testViewAnnouncementSummaries() throws Exception {
+        String email = "employee@upskilled.com";
+        Authentication authentication = mock(Authentication.class);
+        when(authentication.getName()).thenReturn(email);
+        when(employeeCourseAuth.validateEmployeeForCourse(101L, authentication)).thenReturn(null);
+
+        AnnouncementSummaryDTO summary = new AnnouncementSummaryDTO(2L, "Exam", "Exam moved...", new Date());
+        KeysetCursor nextCursor = KeysetCursor.after(summary.getUpdatedAt(), summary.getId());
+        when(announcementService.getAnnouncementSummaries(101L, null, 1))
+                .thenReturn(new AnnouncementService.AnnouncementSummaryPage(List.of(summary), nextCursor));
+
+        mockMvc.perform(get("/api/employee/course/101/announcements/summary")
+                        .param("limit", "1")
+                        .principal(authentication))
+                .andExpect(status().isOk())
+                .andExpect(header().string(KeysetCursor.NEXT_CURSOR_HEADER, nextCursor.encode()))
+                .andExpect(jsonPath("$[0].id").value(2L))
+                .andExpect(jsonPath("$[0].preview").value("Exam moved..."))
+                .andExpect(jsonPath("$[0].content").doesNotExist());
+
+        verify(announcementService).getAnnouncementSummaries(101L, null, 1);
     }
 
     @Test
@@ -407,7 +461,11 @@ public class EmployeeControllerTest
         byte[] syllabusData = "Sample PDF Content".getBytes();
 
         when(courseService.findCourseById(101L)).thenReturn(course);
-        when(fileService.viewSyllabus(101L)).thenReturn(syllabusData);
+        doReturn(ResponseEntity.ok()
+                .header("Content-disposition", "attachment; filename=\"syllabus.pdf\"")
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(new ByteArrayResource(syllabusData)))
+                .when(fileService).viewSyllabus(eq(course), eq(MediaType.APPLICATION_PDF), any(HttpHeaders.class));
 
         mockMvc.perform(get("/api/employee/101/syllabus"))
                 .andExpect(status().isOk())
@@ -416,7 +474,7 @@ public class EmployeeControllerTest
 
         // Verify interactions
         verify(courseService).findCourseById(101L);
-        verify(fileService).viewSyllabus(101L);
+        verify(fileService).viewSyllabus(eq(course), eq(MediaType.APPLICATION_PDF), any(HttpHeaders.class));
     }
 
     @Test
@@ -478,7 +536,11 @@ public class EmployeeControllerTest
         //ByteArrayResource materialDataResource = new ByteArrayResource( materialData );
 
         when(courseMaterialService.getCourseMaterialById(1L)).thenReturn(material);
-        when(fileService.viewCourseMaterial( "Varad_Instructor_37/ENPM662/Discussion Week11 (1).pdf" )).thenReturn(materialData);
+        doReturn(ResponseEntity.ok()
+                .header("Content-disposition", "attachment; filename=\"Discussion Week11 (1).pdf\"")
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(new ByteArrayResource(materialData)))
+                .when(fileService).viewCourseMaterial( eq("Varad_Instructor_37/ENPM662/Discussion Week11 (1).pdf"), eq("Discussion Week11 (1).pdf"), any(HttpHeaders.class) );
 
         mockMvc.perform(get("/api/employee/getCourseMaterial/101/1")
                         .principal(authentication))
@@ -488,7 +550,7 @@ public class EmployeeControllerTest
 
         // Verify interactions
         verify(courseMaterialService).getCourseMaterialById(1L);
-        verify(fileService).viewCourseMaterial("Varad_Instructor_37/ENPM662/Discussion Week11 (1).pdf");
+        verify(fileService).viewCourseMaterial(eq("Varad_Instructor_37/ENPM662/Discussion Week11 (1).pdf"), eq("Discussion Week11 (1).pdf"), any(HttpHeaders.class));
     }
 
     @Test
@@ -551,53 +613,16 @@ public class EmployeeControllerTest
         employee.setId(1L);
         employee.setEmail(email);
 
-        // Mock Assignment
-        Assignment assignment = new Assignment();
-        assignment.setId(1L);
-        assignment.setTitle("Test Assignment");
-        assignment.setDescription("Assignment Description");
-        assignment.setDeadline(1683571200000L); // some deadline timestamp
-
-        // Mock Submission
-        Submission submission = new Submission();
-        submission.setId(1L);
-        submission.setEmployee(employee);
-        submission.setStatus(Submission.Status.SUBMITTED);
-        submission.setSubmittedAt( new Date() );
-
-        // Mocking Assignment's Submissions
-        Set<Submission> submissions = new HashSet<>();
-        submissions.add(submission);
-        assignment.setSubmissions(submissions);
+        // Mock the assignment row holding the employee's graded submission
+        EmployeeAssignmentRowDTO assignmentRow = new EmployeeAssignmentRowDTO(1L, "Test Assignment", "Assignment Description",
+                1683571200000L, 7L, 1L, "assignment.pdf", new Date(), Submission.Status.GRADED, 3L, 90, "Well done", new Date());
 
         // Mock Responses
         when(employeeCourseAuth.validateEmployeeForCourse(courseId, authentication)).thenReturn(null); // Authorized
         when(userService.findUserByEmail(email)).thenReturn(employee);
-        when(assignmentService.getAllAssignmentsSortedByDeadLine(courseId)).thenReturn(Collections.singletonList(assignment));
-
-        // Create SubmissionResponseDTO with mock values
-        SubmissionResponseDTO submissionResponseDTO = new SubmissionResponseDTO();
-        submissionResponseDTO.setSubmissionId(submission.getId());
-        submissionResponseDTO.setSubmissionUrl("assignment.pdf");
-        submissionResponseDTO.setSubmissionAt(submission.getSubmittedAt());
-        submissionResponseDTO.setSubmissionStatus(submission.getStatus());
-        submissionResponseDTO.setAssignmentID(assignment.getId());
-
-        // Mocking DTO creation for Submission
-        when(dtoObjectsCreator.createSubmissionDTO(eq(submission), eq(assignment), eq(employee)))
-                .thenReturn(submissionResponseDTO);
-
-        // Create AssignmentDetailsDTO and set its properties
-        AssignmentDetailsDTO assignmentDetailsDTO = new AssignmentDetailsDTO();
-        assignmentDetailsDTO.setTitle(assignment.getTitle());
-        assignmentDetailsDTO.setDescription(assignment.getDescription());
-        assignmentDetailsDTO.setDeadline(assignment.getDeadline());
-        assignmentDetailsDTO.setId(assignment.getId());
-
-        // Create AssignmentResponseDTO and set its properties
-        AssignmentResponseDTO assignmentResponseDTO = new AssignmentResponseDTO();
-        assignmentResponseDTO.setAssignmentDetails(assignmentDetailsDTO);
-        assignmentResponseDTO.setSubmissionDetails(Collections.singletonList(submissionResponseDTO));
+        when(assignmentService.getAssignmentsWithEmployeeSubmission(courseId, employee.getId())).thenReturn(Collections.singletonList(assignmentRow));
+        when(dtoObjectsCreator.createAssignmentResponseDTO(any(EmployeeAssignmentRowDTO.class), any(Users.class)))
+                .thenAnswer(invocation -> new CreateDTOObjectsImpl().createAssignmentResponseDTO(assignmentRow, employee));
 
         // Perform Request
         mockMvc.perform(get("/api/employee/course/{courseId}/assignments", courseId)
@@ -606,13 +631,49 @@ public class EmployeeControllerTest
                 .andExpect(jsonPath("$.length()").value(1))  // Verifying that one assignment is returned
                 .andExpect(jsonPath("$[0].assignmentDetails.title").value("Test Assignment"))
                 .andExpect(jsonPath("$[0].assignmentDetails.description").value("Assignment Description"))
-                .andExpect(jsonPath("$[0].submissionDetails[0].submissionUrl").value("assignment.pdf"));
+                .andExpect(jsonPath("$[0].submissionDetails[0].submissionUrl").value("assignment.pdf"))
+                .andExpect(jsonPath("$[0].submissionDetails[0].userDetails.email").value(email))
+                .andExpect(jsonPath("$[0].submissionDetails[0].gradeBook.grade").value(90))
+                .andExpect(jsonPath("$[0].submissionDetails[0].gradeBook.instructorID").value(7));
 
         // Verify Interactions
         verify(employeeCourseAuth).validateEmployeeForCourse(courseId, authentication);
         verify(userService).findUserByEmail(email);
-        verify(assignmentService).getAllAssignmentsSortedByDeadLine(courseId);
-        verify(dtoObjectsCreator).createSubmissionDTO(eq(submission), eq(assignment), eq(employee));
+        verify(assignmentService).getAssignmentsWithEmployeeSubmission(courseId, employee.getId());
+        verify(assignmentService, never()).getAllAssignmentsSortedByDeadLine(courseId);
+        verify(dtoObjectsCreator).createAssignmentResponseDTO(assignmentRow, employee);
+    }
+
+    @Test
+    void testGetAssignmentsForTheCourse_NotSubmitted() throws Exception {
+        String email = "employee1@upskilled.com";
+        Long courseId = 101L;
+
+        Authentication authentication = mock(Authentication.class);
+        when(authentication.getName()).thenReturn(email);
+
+        Users employee = new Users();
+        employee.setId(1L);
+        employee.setEmail(email);
+
+        EmployeeAssignmentRowDTO assignmentRow = new EmployeeAssignmentRowDTO();
+        assignmentRow.setAssignmentId(1L);
+        assignmentRow.setTitle("Test Assignment");
+        assignmentRow.setDescription("Assignment Description");
+        assignmentRow.setDeadline(1683571200000L);
+
+        when(employeeCourseAuth.validateEmployeeForCourse(courseId, authentication)).thenReturn(null);
+        when(userService.findUserByEmail(email)).thenReturn(employee);
+        when(assignmentService.getAssignmentsWithEmployeeSubmission(courseId, employee.getId())).thenReturn(Collections.singletonList(assignmentRow));
+        when(dtoObjectsCreator.createAssignmentResponseDTO(any(EmployeeAssignmentRowDTO.class), any(Users.class)))
+                .thenAnswer(invocation -> new CreateDTOObjectsImpl().createAssignmentResponseDTO(assignmentRow, employee));
+
+        // The submission details are left out when the employee has not submitted
+        mockMvc.perform(get("/api/employee/course/{courseId}/assignments", courseId)
+                        .principal(authentication))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].assignmentDetails.id").value(1))
+                .andExpect(jsonPath("$[0].submissionDetails").doesNotExist());
     }
 
     @Test
@@ -820,13 +881,14 @@ public class EmployeeControllerTest
         message1.setIsRead(false);
         message1.setSentAt(new Date());
 
-        // Mock MessageService to return sent messages
-        Optional<List<Message>> sentMessages = Optional.of(Arrays.asList(message1));
+        // Mock MessageService to return sent messages, with an older page left
+        KeysetCursor nextCursor = KeysetCursor.after(message1);
+        MessageService.MessagePage sentMessages = new MessageService.MessagePage(Arrays.asList(message1), nextCursor);
 
         // Mock Services
         when(employeeCourseAuth.validateEmployeeForCourse(courseId, authentication)).thenReturn(null); // Authorized
         when(userService.findUserByEmail(email)).thenReturn(employee);
-        when(messageService.getAllSentMessagesForEmployee(employee.getId(), courseId)).thenReturn(sentMessages);
+        when(messageService.getSentMessagesForEmployee(employee.getId(), courseId, null, 20)).thenReturn(sentMessages);
 
         // Mock DTO creation
         Map<String, String> userDetails = new HashMap<>();
@@ -851,10 +913,12 @@ public class EmployeeControllerTest
         ObjectMapper objectMapper = new ObjectMapper();
 
         mockMvc.perform(get("/api/employee/course/{courseId}/message/getSentMessages", courseId)
+                        .param("limit", "20")
                         .contentType(MediaType.APPLICATION_JSON)
                         .principal(authentication))
                 .andExpect(status().isOk())
                 .andDo(print())
+                .andExpect(header().string("X-Next-Cursor", nextCursor.encode()))
                 .andExpect(jsonPath("$.user.name").value("John Smith"))
                 .andExpect(jsonPath("$.messages[0].message").value("Message from Employee to Instructor"))
                 .andExpect(jsonPath("$.messages[0].sentAt").exists())
@@ -863,7 +927,7 @@ public class EmployeeControllerTest
         // Verify service interactions
         verify(employeeCourseAuth).validateEmployeeForCourse(courseId, authentication);
         verify(userService).findUserByEmail(email);
-        verify(messageService).getAllSentMessagesForEmployee(employee.getId(), courseId);
+        verify(messageService).getSentMessagesForEmployee(employee.getId(), courseId, null, 20);
         verify(dtoObjectsCreator).createCourseMessagesResponseDTO(userDetails, Arrays.asList(message1));
     }
 
@@ -933,7 +997,8 @@ public class EmployeeControllerTest
         when(employeeCourseAuth.validateEmployeeForCourse(courseId, authentication)).thenReturn(null);
         when(courseService.findCourseById(courseId)).thenReturn(course);
         when(userService.findUserByEmail("john@upskilled.com")).thenReturn( employee );
-        when(messageService.getAllReceivedMessageForEmployee(employee.getId(), courseId)).thenReturn(Optional.of(Arrays.asList(message1, message2)));
+        when(messageService.getReceivedMessagesForEmployee(employee.getId(), courseId, null, null))
+                .thenReturn(new MessageService.MessagePage(Arrays.asList(message1, message2), null));
 
         // Mock DTO creation
         Map<String, String> userDetails = new HashMap<>();
@@ -973,12 +1038,43 @@ public class EmployeeControllerTest
                 .andExpect(jsonPath("$").isNotEmpty())
                 .andExpect(jsonPath("$.user.name").value("John Smith"))
                 .andExpect(jsonPath("$.messages[0].message").value("Message from Instructor 1"))
-                .andExpect(jsonPath("$.messages[1].message").value("Message from Instructor 2"));
+                .andExpect(jsonPath("$.messages[1].message").value("Message from Instructor 2"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
 
         // Verify service interactions
         verify(employeeCourseAuth).validateEmployeeForCourse(courseId, authentication);
-        verify(messageService).getAllReceivedMessageForEmployee(employee.getId(), courseId);
+        verify(messageService).getReceivedMessagesForEmployee(employee.getId(), courseId, null, null);
         verify(dtoObjectsCreator).createCourseMessagesResponseDTO(eq(userDetails), eq(Arrays.asList(message1,message2)));
     }
 
+    @Test
+    void testGetUnreadMessageCounts() throws Exception {
+        String email = "john@upskilled.com";
+
+        // Mock Authentication
+        Authentication authentication = mock(Authentication.class);
+        when(authentication.getName()).thenReturn(email);
+
+        // Mock User (Employee)
+        Users employee = new Users();
+        employee.setId(1L);
+        employee.setEmail(email);
+
+        UnreadCountsResponseDTO unreadCounts = new UnreadCountsResponseDTO(3, List.of(new UnreadCountDTO(101L, 2L, 3)));
+
+        when(userService.findUserByEmail(email)).thenReturn(employee);
+        when(messageService.getUnreadCounts(1L, 101L)).thenReturn(unreadCounts);
+
+        // Act and Assert
+        mockMvc.perform(get("/api/employee/unreadCounts")
+                        .param("courseId", "101")
+                        .principal(authentication))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalUnread").value(3))
+                .andExpect(jsonPath("$.counts[0].courseId").value(101))
+                .andExpect(jsonPath("$.counts[0].senderId").value(2))
+                .andExpect(jsonPath("$.counts[0].unreadCount").value(3));
+
+        verify(messageService).getUnreadCounts(1L, 101L);
+    }
 }
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.software.upskilled.Entity.*;
 import com.software.upskilled.dto.*;
 import com.software.upskilled.service.*;
+import com.software.upskilled.utils.AnnouncementFeedCache;
 import com.software.upskilled.utils.AssignmentPropertyValidator;
 import com.software.upskilled.utils.CoursePropertyValidator;
 import com.software.upskilled.utils.CreateDTOObjectsImpl;
@@ -13,6 +14,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
@@ -26,6 +29,7 @@ import static org.mockito.Mockito.*;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -78,6 +82,9 @@ public class InstructorControllerTest
     @MockBean
     private AssignmentPropertyValidator assignmentPropertyValidator;
 
+    @MockBean
+    private EnrollmentService enrollmentService;
+
 
     @Test
     void testGetAllCoursesForInstructor() throws Exception {
@@ -225,8 +232,11 @@ public class InstructorControllerTest
         announcement2.setContent("Content of Announcement 2");
         announcement2.setUpdatedAt(new Date( System.currentTimeMillis() + 100000000L));
 
-        Set<Announcement> announcements = new HashSet<>(Arrays.asList(announcement1, announcement2));
-        when(announcementService.getAnnouncementsByCourseId(courseId)).thenReturn(announcements);
+        //The service lists the most recently updated announcement first
+        AnnouncementFeedCache.Feed feed = new AnnouncementFeedCache(new ObjectMapper(), 10, 60).getOrBuild(courseId, () -> Stream.of(announcement2, announcement1)
+                .map(announcement -> new AnnouncementRequestDTO(announcement.getId(), announcement.getTitle(), announcement.getContent(), announcement.getUpdatedAt()))
+                .toList());
+        when(announcementService.getAnnouncementFeed(courseId)).thenReturn(feed);
 
         // Act and Assert
         mockMvc.perform(get("/api/instructor/course/{courseId}/announcements", courseId)
@@ -241,7 +251,7 @@ public class InstructorControllerTest
                 .andExpect(jsonPath("$[1].content").value("Content of Announcement 1"));
 
         // Verify interactions with mock services
-        verify(announcementService).getAnnouncementsByCourseId(courseId);
+        verify(announcementService).getAnnouncementFeed(courseId);
         verify(instructorCourseAuth).validateInstructorForCourse(courseId, authentication);
     }
 
@@ -719,7 +729,7 @@ public class InstructorControllerTest
 
         // Mock Services and Validators
         when(instructorCourseAuth.validateInstructorForCourse(courseId, authentication)).thenReturn(null);
-        when(coursePropertyValidator.isPropertyOfTheCourse(courseId, Map.of("assignment", assignmentId))).thenReturn(true);
+        when(coursePropertyValidator.isPropertyOfTheCourse(courseId, CoursePropertyValidator.CourseProperty.ASSIGNMENT, assignmentId)).thenReturn(true);
         when(assignmentService.getAssignmentById(assignmentId)).thenReturn(assignment);
         when(submissionService.getSubmissionsSortedBySubmittedTime(assignmentId)).thenReturn(submissions);
         when(dtoObjectsCreator.createSubmissionDTO(submission1, assignment, submission1.getEmployee())).thenReturn(submissionResponseDTO1);
@@ -739,7 +749,7 @@ public class InstructorControllerTest
 
         // Verify interactions with mock services
         verify(instructorCourseAuth).validateInstructorForCourse(courseId, authentication);
-        verify(coursePropertyValidator).isPropertyOfTheCourse(courseId, Map.of("assignment", assignmentId));
+        verify(coursePropertyValidator).isPropertyOfTheCourse(courseId, CoursePropertyValidator.CourseProperty.ASSIGNMENT, assignmentId);
         verify(assignmentService).getAssignmentById(assignmentId);
         verify(submissionService).getSubmissionsSortedBySubmittedTime(assignmentId);
         verify(dtoObjectsCreator).createSubmissionDTO(submission1, assignment, submission1.getEmployee());
@@ -768,7 +778,11 @@ public class InstructorControllerTest
         // Mock Services
         when(instructorCourseAuth.validateInstructorForCourse(courseId, authentication)).thenReturn(null);
         when(submissionService.getSubmissionByID(submissionId)).thenReturn(submission);
-        when(fileService.viewAssignmentSubmission(submissionFileUrl)).thenReturn(fileData);
+        doReturn(ResponseEntity.ok()
+                .header("Content-disposition", "attachment; filename=\"" + submissionFileUrl + "\"")
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(new ByteArrayResource(fileData)))
+                .when(fileService).viewAssignmentSubmission(eq(submissionFileUrl), eq(submissionFileUrl), any(HttpHeaders.class));
 
         // Act and Assert
         mockMvc.perform(get("/api/instructor/{courseID}/assignments/{assignmentId}/submissions/{submissionID}/viewSubmission", courseId, assignmentId, submissionId)
@@ -782,7 +796,7 @@ public class InstructorControllerTest
         // Verify interactions with mock services
         verify(instructorCourseAuth).validateInstructorForCourse(courseId, authentication);
         verify(submissionService).getSubmissionByID(submissionId);
-        verify(fileService).viewAssignmentSubmission(submissionFileUrl);
+        verify(fileService).viewAssignmentSubmission(eq(submissionFileUrl), eq(submissionFileUrl), any(HttpHeaders.class));
     }
 
     @Test
@@ -843,7 +857,7 @@ public class InstructorControllerTest
 
         // Mock Service and Validator Behavior
         when(instructorCourseAuth.validateInstructorForCourse(courseId, authentication)).thenReturn(null);
-        when(coursePropertyValidator.isPropertyOfTheCourse(courseId, Map.of("assignment", assignmentId))).thenReturn(true);
+        when(coursePropertyValidator.isPropertyOfTheCourse(courseId, CoursePropertyValidator.CourseProperty.ASSIGNMENT, assignmentId)).thenReturn(true);
         when(assignmentService.getAssignmentById(assignmentId)).thenReturn(assignment);
         when(assignmentPropertyValidator.validateSubmissionAgainstAssignment(assignmentId, submissionId)).thenReturn(true);
         when(submissionService.getSubmissionByID(submissionId)).thenReturn(submission);
@@ -869,7 +883,7 @@ public class InstructorControllerTest
 
         // Verify interactions with mock services
         verify(instructorCourseAuth).validateInstructorForCourse(courseId, authentication);
-        verify(coursePropertyValidator).isPropertyOfTheCourse(courseId, Map.of("assignment", assignmentId));
+        verify(coursePropertyValidator).isPropertyOfTheCourse(courseId, CoursePropertyValidator.CourseProperty.ASSIGNMENT, assignmentId);
         verify(assignmentService).getAssignmentById(assignmentId);
         verify(assignmentPropertyValidator).validateSubmissionAgainstAssignment(assignmentId, submissionId);
         verify(submissionService).getSubmissionByID(submissionId);
@@ -1134,9 +1148,13 @@ public class InstructorControllerTest
 
         // Mock Services
         when(instructorCourseAuth.validateInstructorForCourse(courseId, authentication)).thenReturn(null);
-        when(coursePropertyValidator.isPropertyOfTheCourse(courseId, Map.of("courseMaterial", courseMaterialId))).thenReturn(true);
+        when(coursePropertyValidator.isPropertyOfTheCourse(courseId, CoursePropertyValidator.CourseProperty.COURSE_MATERIAL, courseMaterialId)).thenReturn(true);
         when(courseMaterialService.getCourseMaterialById(courseMaterialId)).thenReturn(courseMaterial);
-        when(fileService.viewCourseMaterial(courseMaterialUrl)).thenReturn(fileData);
+        doReturn(ResponseEntity.ok()
+                .header("Content-disposition", "attachment; filename=\"" + courseMaterialUrl.split("/")[2] + "\"")
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(new ByteArrayResource(fileData)))
+                .when(fileService).viewCourseMaterial(eq(courseMaterialUrl), eq(courseMaterialUrl.split("/")[2]), any(HttpHeaders.class));
 
         // Act and Assert
 
@@ -1150,9 +1168,9 @@ public class InstructorControllerTest
         // Verify interactions with mock services
 
         verify(instructorCourseAuth).validateInstructorForCourse(courseId, authentication);
-        verify(coursePropertyValidator).isPropertyOfTheCourse(courseId, Map.of("courseMaterial", courseMaterialId));
+        verify(coursePropertyValidator).isPropertyOfTheCourse(courseId, CoursePropertyValidator.CourseProperty.COURSE_MATERIAL, courseMaterialId);
         verify(courseMaterialService).getCourseMaterialById(courseMaterialId);
-        verify(fileService).viewCourseMaterial(courseMaterialUrl);
+        verify(fileService).viewCourseMaterial(eq(courseMaterialUrl), eq(courseMaterialUrl.split("/")[2]), any(HttpHeaders.class));
 
     }
 
@@ -1217,8 +1235,6 @@ public class InstructorControllerTest
         // Mock Services
         when(instructorCourseAuth.validateInstructorForCourse(courseId, authentication)).thenReturn(null);
         when(courseService.findCourseById(courseId)).thenReturn(course);
-        when(userService.findUserById(employeeId1)).thenReturn(employee1);
-        when(userService.findUserById(employeeId2)).thenReturn(employee2);
 
         // Mock Message Service
         Message savedMessage = new Message();
@@ -1236,7 +1252,17 @@ public class InstructorControllerTest
         messageResponseDTO.setSentAt(savedMessage.getSentAt());
         messageResponseDTO.setIsRead(savedMessage.getIsRead());
 
-        when(messageService.createNewMessage(any(Message.class))).thenReturn(savedMessage);
+        Message savedMessage2 = new Message();
+        savedMessage2.setId(102L);
+        savedMessage2.setSender(instructor);
+        savedMessage2.setRecipient(employee2);
+        savedMessage2.setContent(messageContent);
+        savedMessage2.setCourse(course);
+        savedMessage2.setIsRead(false);
+        savedMessage2.setSentAt(new Date());
+
+        when(messageService.sendMessageToEmployees(course, Arrays.asList(employeeId1, employeeId2), messageContent))
+                .thenReturn(List.of(savedMessage, savedMessage2));
         when(dtoObjectsCreator.createMessageResponseDTO(any(Message.class))).thenReturn(messageResponseDTO);
 
         // Act and Assert
@@ -1257,9 +1283,8 @@ public class InstructorControllerTest
         // Verify service interactions
         verify(instructorCourseAuth).validateInstructorForCourse(courseId, authentication);
         verify(courseService).findCourseById(courseId);
-        verify(userService).findUserById(employeeId1);
-        verify(userService).findUserById(employeeId2);
-        verify(messageService, times(2)).createNewMessage(any(Message.class));
+        verify(messageService).sendMessageToEmployees(course, Arrays.asList(employeeId1, employeeId2), messageContent);
+        verify(messageService, never()).createNewMessage(any(Message.class));
         verify(dtoObjectsCreator, times(2)).createMessageResponseDTO(any(Message.class));
     }
 
@@ -1330,11 +1355,8 @@ public class InstructorControllerTest
         // Mock MessageService
         when(instructorCourseAuth.validateInstructorForCourse(courseId, authentication)).thenReturn(null);
         when(courseService.findCourseById(courseId)).thenReturn(course);
-        when(messageService.getUniqueListOfRecipientEmployeesForInstructor(instructor.getId(), courseId)).thenReturn(Arrays.asList(employeeId1, employeeId2));
-        when( userService.findUserById(employeeId1) ).thenReturn( employee1 );
-        when( userService.findUserById( employeeId2 )).thenReturn( employee2 );
-        when(messageService.getAllReceivedMessageForEmployee(employeeId1, courseId)).thenReturn(Optional.of(Arrays.asList(message1)));
-        when(messageService.getAllReceivedMessageForEmployee(employeeId2, courseId)).thenReturn(Optional.of(Arrays.asList(message2)));
+        when(messageService.getInstructorOutbox(instructor.getId(), courseId, null, null))
+                .thenReturn(new MessageService.MessagePage(Arrays.asList(message1, message2), null));
 
         // Mock DTO creation
         Map<String, String> userDetails1 = new HashMap<>();
@@ -1399,9 +1421,8 @@ public class InstructorControllerTest
         // Verify service interactions
         verify(instructorCourseAuth).validateInstructorForCourse(courseId, authentication);
         verify(courseService).findCourseById(courseId);
-        verify(messageService).getUniqueListOfRecipientEmployeesForInstructor(instructor.getId(), courseId);
-        verify(messageService).getAllReceivedMessageForEmployee(employeeId1, courseId);
-        verify(messageService).getAllReceivedMessageForEmployee(employeeId2, courseId);
+        verify(messageService).getInstructorOutbox(instructor.getId(), courseId, null, null);
+        verify(userService, never()).findUserById(anyLong());
     }
 
     @Test
@@ -1469,12 +1490,8 @@ public class InstructorControllerTest
         // Mock MessageService
         when(instructorCourseAuth.validateInstructorForCourse(courseId, authentication)).thenReturn(null);
         when(courseService.findCourseById(courseId)).thenReturn(course);
-        when(messageService.getUniqueListOfSenderEmployeesForInstructor(instructor.getId(), courseId))
-                .thenReturn(Arrays.asList(employeeId1, employeeId2));
-        when(userService.findUserById(employeeId1)).thenReturn(employee1);
-        when(userService.findUserById(employeeId2)).thenReturn(employee2);
-        when(messageService.getAllSentMessagesForEmployee(employeeId1, courseId)).thenReturn(Optional.of(Arrays.asList(message1)));
-        when(messageService.getAllSentMessagesForEmployee(employeeId2, courseId)).thenReturn(Optional.of(Arrays.asList(message2)));
+        when(messageService.getInstructorInbox(instructor.getId(), courseId, null, null))
+                .thenReturn(new MessageService.MessagePage(Arrays.asList(message1, message2), null));
 
         // Mock DTO creation
         Map<String, String> userDetails1 = new HashMap<>();
@@ -1537,9 +1554,8 @@ public class InstructorControllerTest
         // Verify service interactions
         verify(instructorCourseAuth).validateInstructorForCourse(courseId, authentication);
         verify(courseService).findCourseById(courseId);
-        verify(messageService).getUniqueListOfSenderEmployeesForInstructor(instructor.getId(), courseId);
-        verify(messageService).getAllSentMessagesForEmployee(employeeId1, courseId);
-        verify(messageService).getAllSentMessagesForEmployee(employeeId2, courseId);
+        verify(messageService).getInstructorInbox(instructor.getId(), courseId, null, null);
+        verify(userService, never()).findUserById(anyLong());
     }
 
 }
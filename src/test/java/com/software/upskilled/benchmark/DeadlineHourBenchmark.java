@@ -0,0 +1,195 @@
+package com.software.upskilled.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator replaying the deadline hour: a large number of employees uploading their assignment and downloading
+ * course material at the same time. It is not a test, run it against a running instance once per profile and compare
+ * the reports (see "Virtual threads" in the README).
+ *
+ * Every client alternates POST /api/employee/uploadAssignment and GET /api/employee/getCourseMaterial, and the report
+ * lists the throughput, the latency percentiles of each operation and the status codes received.
+ *
+ * Settings (system properties): benchmark.baseUrl (http://localhost:8080), benchmark.tokens (file with one employee
+ * JWT per line, the clients take them in turn), benchmark.courseId, benchmark.assignmentId, benchmark.courseMaterialId,
+ * benchmark.clients (1000), benchmark.iterations (5 per client) and benchmark.uploadKb (512).
+ */
+public class DeadlineHourBenchmark
+{
+    private static final String UPLOAD = "upload";
+    private static final String DOWNLOAD = "download";
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final List<String> tokens;
+    private final String courseId;
+    private final String assignmentId;
+    private final String courseMaterialId;
+    private final byte[] uploadContent;
+    private final Map<String, List<Long>> latenciesByOperation = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> statusCounts = new ConcurrentHashMap<>();
+
+    private DeadlineHourBenchmark(String baseUrl, List<String> tokens, String courseId, String assignmentId,
+                                  String courseMaterialId, int uploadKb, ExecutorService clientExecutor) {
+        this.httpClient = HttpClient.newBuilder()
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.baseUrl = baseUrl;
+        this.tokens = tokens;
+        this.courseId = courseId;
+        this.assignmentId = assignmentId;
+        this.courseMaterialId = courseMaterialId;
+        this.uploadContent = new byte[uploadKb * 1024];
+        latenciesByOperation.put(UPLOAD, Collections.synchronizedList(new ArrayList<>()));
+        latenciesByOperation.put(DOWNLOAD, Collections.synchronizedList(new ArrayList<>()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        String tokenFile = required("benchmark.tokens");
+        List<String> tokens = Files.readAllLines(Path.of(tokenFile)).stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .toList();
+        if (tokens.isEmpty()) {
+            throw new IllegalArgumentException("No token found in " + tokenFile);
+        }
+        int clients = Integer.getInteger("benchmark.clients", 1000);
+        int iterations = Integer.getInteger("benchmark.iterations", 5);
+
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(clients);
+        DeadlineHourBenchmark benchmark = new DeadlineHourBenchmark(
+                System.getProperty("benchmark.baseUrl", "http://localhost:8080"), tokens,
+                required("benchmark.courseId"), required("benchmark.assignmentId"),
+                required("benchmark.courseMaterialId"), Integer.getInteger("benchmark.uploadKb", 512), clientExecutor);
+        try {
+            benchmark.run(clients, iterations, clientExecutor);
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    private static String required(String property) {
+        String value = System.getProperty(property);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing -D" + property);
+        }
+        return value;
+    }
+
+    private void run(int clients, int iterations, ExecutorService clientExecutor) throws InterruptedException {
+        //All clients wait on the same gate, so the requests hit the server at once like at the deadline
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(clients);
+        AtomicInteger nextToken = new AtomicInteger();
+        for (int client = 0; client < clients; client++) {
+            String token = tokens.get(nextToken.getAndIncrement() % tokens.size());
+            clientExecutor.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < iterations; i++) {
+                        timed(UPLOAD, uploadRequest(token));
+                        timed(DOWNLOAD, downloadRequest(token));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        done.await();
+        report(clients, System.nanoTime() - startNanos);
+    }
+
+    private void timed(String operation, HttpRequest request) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        String status;
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            status = String.valueOf(response.statusCode());
+        } catch (IOException e) {
+            status = e.getClass().getSimpleName();
+        }
+        latenciesByOperation.get(operation).add(System.nanoTime() - startNanos);
+        statusCounts.computeIfAbsent(operation + " " + status, key -> new LongAdder()).increment();
+    }
+
+    private HttpRequest uploadRequest(String token) {
+        String boundary = UUID.randomUUID().toString();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writePart(body, boundary, "name=\"assignmentId\"", assignmentId.getBytes(StandardCharsets.UTF_8));
+        writePart(body, boundary, "name=\"courseId\"", courseId.getBytes(StandardCharsets.UTF_8));
+        writePart(body, boundary, "name=\"file\"; filename=\"benchmark.pdf\"\r\nContent-Type: application/pdf", uploadContent);
+        body.writeBytes(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/employee/uploadAssignment"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .timeout(Duration.ofSeconds(120))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    private static void writePart(ByteArrayOutputStream body, String boundary, String disposition, byte[] content) {
+        String header = "--" + boundary + "\r\nContent-Disposition: form-data; " + disposition + "\r\n\r\n";
+        body.writeBytes(header.getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(content);
+        body.writeBytes("\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private HttpRequest downloadRequest(String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/employee/getCourseMaterial/" + courseId + "/" + courseMaterialId))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(120))
+                .GET()
+                .build();
+    }
+
+    private void report(int clients, long elapsedNanos) {
+        double elapsedSeconds = elapsedNanos / 1e9;
+        long requests = latenciesByOperation.values().stream().mapToLong(List::size).sum();
+        System.out.printf("clients=%d requests=%d elapsed=%.1fs throughput=%.1f req/s%n",
+                clients, requests, elapsedSeconds, requests / elapsedSeconds);
+        latenciesByOperation.forEach((operation, latencies) -> {
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            System.out.printf("%-8s count=%d p50=%dms p95=%dms p99=%dms max=%dms%n", operation, sorted.size(),
+                    percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99), percentile(sorted, 100));
+        });
+        new TreeMap<>(statusCounts).forEach((status, count) -> System.out.printf("%-24s %d%n", status, count.sum()));
+    }
+
+    private static long percentile(List<Long> sortedNanos, int percentile) {
+        if (sortedNanos.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sortedNanos.size()) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sortedNanos.get(Math.max(index, 0)));
+    }
+}
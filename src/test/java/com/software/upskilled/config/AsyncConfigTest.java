@@ -0,0 +1,84 @@
+package com.software.upskilled.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncConfigTest
+{
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPoolExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    //Fills the single thread and the single queue slot so that the next task is rejected
+    private void saturate() {
+        Runnable blocked = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        executor.execute(blocked);
+        executor.execute(blocked);
+    }
+
+    @Test
+    void testFileIoExecutor_AbortPolicyRejectsAndCounts() {
+        // Arrange
+        executor = new AsyncConfig().fileIoExecutor(meterRegistry, 1, 1, 1, 60, "abort");
+        saturate();
+
+        // Act & Assert
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        assertEquals(1, meterRegistry.get("file.io.rejected").tag("policy", "abort").counter().count());
+        assertEquals(1, meterRegistry.get("executor.queued").tag("name", "file.io").gauge().value());
+    }
+
+    @Test
+    void testFileIoExecutor_CallerRunsPolicyRunsOnCallingThread() {
+        // Arrange
+        executor = new AsyncConfig().fileIoExecutor(meterRegistry, 1, 1, 1, 60, "caller-runs");
+        saturate();
+        AtomicReference<Thread> runner = new AtomicReference<>();
+
+        // Act
+        executor.execute(() -> runner.set(Thread.currentThread()));
+
+        // Assert
+        assertSame(Thread.currentThread(), runner.get());
+        assertEquals(1, meterRegistry.get("file.io.rejected").tag("policy", "caller-runs").counter().count());
+    }
+
+    @Test
+    void testFileUpdateExecutor_HasItsOwnPoolAndMetrics() {
+        // Arrange
+        executor = new AsyncConfig().fileUpdateExecutor(meterRegistry, 1, 1, 1, 60, "abort");
+        ThreadPoolExecutor fileIoExecutor = new AsyncConfig().fileIoExecutor(meterRegistry, 1, 1, 1, 60, "abort");
+        saturate();
+
+        // Act & Assert
+        try {
+            //A saturated update pool leaves the deletions running
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+            fileIoExecutor.execute(() -> { });
+            assertEquals(1, meterRegistry.get("file.update.rejected").tag("policy", "abort").counter().count());
+            assertEquals(0, meterRegistry.get("file.io.rejected").tag("policy", "abort").counter().count());
+        } finally {
+            fileIoExecutor.shutdownNow();
+        }
+    }
+}
@@ -4,22 +4,32 @@ import com.software.upskilled.Entity.Announcement;
 import com.software.upskilled.Entity.Course;
 import com.software.upskilled.Entity.CourseMaterial;
 import com.software.upskilled.Entity.Users;
+import com.software.upskilled.dto.AnnouncementSummaryDTO;
 import com.software.upskilled.repository.AnnouncementRepository;
 import com.software.upskilled.repository.CourseRepository;
+import com.software.upskilled.utils.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -29,6 +39,20 @@ public class AnnouncementServiceTest
     @MockBean
     private AnnouncementService announcementService;
 
+    @Mock
+    private AnnouncementRepository announcementRepository;
+
+    //Real service over the mocked repository, for the summary pagination
+    @InjectMocks
+    private AnnouncementService summaryService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(summaryService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(summaryService, "maxPageSize", 5);
+        ReflectionTestUtils.setField(summaryService, "previewLength", 10);
+    }
+
     @Test
     void testSaveAnnouncement() {
 
@@ -123,7 +147,40 @@ public class AnnouncementServiceTest
         verify(announcementService, times(1)).deleteAnnouncementsByCourseId(courseId);
     }
 
+    @Test
+    void testGetAnnouncementSummaries_CutsPreviewAndReturnsNextCursor() {
+        // Arrange
+        Date updatedAt = new Date();
+        //The repository returns one row and one character more than asked
+        when(announcementRepository.getAnnouncementSummaries(1L, 11, Limit.of(3)))
+                .thenReturn(new ArrayList<>(List.of(
+                        new AnnouncementSummaryDTO(3L, "Exam", "Exam moved ", updatedAt),
+                        new AnnouncementSummaryDTO(2L, "Quiz", "Quiz today", updatedAt),
+                        new AnnouncementSummaryDTO(1L, "Welcome", "Welcome", updatedAt))));
+
+        // Act
+        AnnouncementService.AnnouncementSummaryPage page = summaryService.getAnnouncementSummaries(1L, null, null);
+
+        // Assert
+        assertEquals(2, page.announcements().size());
+        assertEquals("Exam moved...", page.announcements().get(0).getPreview());
+        assertEquals("Quiz today", page.announcements().get(1).getPreview());
+        assertEquals(2L, page.nextCursor().id());
+        assertEquals(updatedAt.toInstant(), page.nextCursor().sortKey());
+    }
 
+    @Test
+    void testGetAnnouncementSummaries_LastPage() {
+        // Arrange
+        KeysetCursor before = KeysetCursor.after(new Date(), 3L);
+        when(announcementRepository.getAnnouncementSummaries(1L, 11, before.sortKeyTimestamp(), 3L, Limit.of(6)))
+                .thenReturn(new ArrayList<>(List.of(new AnnouncementSummaryDTO(1L, "Welcome", "Welcome", new Date()))));
 
+        // Act
+        AnnouncementService.AnnouncementSummaryPage page = summaryService.getAnnouncementSummaries(1L, before, 50);
 
+        // Assert
+        assertEquals(1, page.announcements().size());
+        assertNull(page.nextCursor());
+    }
 }
@@ -1,8 +1,11 @@
 package com.software.upskilled.service;
 
 import com.software.upskilled.Entity.Assignment;
+import com.software.upskilled.dto.EmployeeAssignmentRowDTO;
 import com.software.upskilled.repository.AssignmentRepository;
 import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ActiveProfiles;
@@ -20,6 +23,13 @@ public class AssignmentServiceTest
     @MockBean
     AssignmentService assignmentService;
 
+    @Mock
+    AssignmentRepository assignmentRepository;
+
+    //Real service over the mocked repository, for the employee dashboard rows
+    @InjectMocks
+    AssignmentService dashboardService;
+
     @Test
     void testCreateAssignment() {
         // Arrange
@@ -151,4 +161,27 @@ public class AssignmentServiceTest
 
 
 
+
+    @Test
+    void testGetAssignmentsWithEmployeeSubmission_KeepsOneRowPerAssignment() {
+        // Arrange
+        EmployeeAssignmentRowDTO unsubmitted = new EmployeeAssignmentRowDTO();
+        unsubmitted.setAssignmentId(1L);
+        EmployeeAssignmentRowDTO firstSubmission = new EmployeeAssignmentRowDTO();
+        firstSubmission.setAssignmentId(2L);
+        firstSubmission.setSubmissionId(10L);
+        EmployeeAssignmentRowDTO secondSubmission = new EmployeeAssignmentRowDTO();
+        secondSubmission.setAssignmentId(2L);
+        secondSubmission.setSubmissionId(11L);
+
+        when(assignmentRepository.findAssignmentsWithEmployeeSubmission(101L, 5L))
+                .thenReturn(List.of(unsubmitted, firstSubmission, secondSubmission));
+
+        // Act
+        List<EmployeeAssignmentRowDTO> result = dashboardService.getAssignmentsWithEmployeeSubmission(101L, 5L);
+
+        // Assert
+        assertEquals(List.of(unsubmitted, firstSubmission), result);
+        verify(assignmentRepository, times(1)).findAssignmentsWithEmployeeSubmission(101L, 5L);
+    }
 }
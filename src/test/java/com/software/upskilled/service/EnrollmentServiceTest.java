@@ -0,0 +1,120 @@
+package com.software.upskilled.service;
+
+import com.software.upskilled.Entity.Submission;
+import com.software.upskilled.repository.EnrollmentRepository;
+import com.software.upskilled.repository.SubmissionRepository;
+import com.software.upskilled.utils.CourseAuthDecisionCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EnrollmentServiceTest
+{
+    @Mock
+    private EnrollmentRepository enrollmentRepository;
+
+    @Mock
+    private SubmissionRepository submissionRepository;
+
+    @Mock
+    private FileService fileService;
+
+    private EnrollmentService enrollmentService;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentService = new EnrollmentService(10, 60);
+        ReflectionTestUtils.setField(enrollmentService, "enrollmentRepository", enrollmentRepository);
+        ReflectionTestUtils.setField(enrollmentService, "submissionRepository", submissionRepository);
+        ReflectionTestUtils.setField(enrollmentService, "fileService", fileService);
+        ReflectionTestUtils.setField(enrollmentService, "courseAuthDecisionCache", new CourseAuthDecisionCache(10, 30));
+    }
+
+    @Test
+    void testIsEmployeeEnrolled_LoadsCourseMembersOnce() {
+        // Arrange
+        when(enrollmentRepository.findEmployeeIdsByCourseId(1L)).thenReturn(Set.of(10L, 11L));
+
+        // Act
+        boolean first = enrollmentService.isEmployeeEnrolled(1L, 10L);
+        boolean second = enrollmentService.isEmployeeEnrolled(1L, 11L);
+
+        // Assert
+        assertTrue(first);
+        assertTrue(second);
+        verify(enrollmentRepository, times(1)).findEmployeeIdsByCourseId(1L);
+        verify(enrollmentRepository, never()).existsByCourseIdAndEmployeeId(anyLong(), anyLong());
+    }
+
+    @Test
+    void testIsEmployeeEnrolled_ConfirmsMissAgainstDatabase() {
+        // Arrange
+        when(enrollmentRepository.findEmployeeIdsByCourseId(1L)).thenReturn(Set.of(10L));
+        when(enrollmentRepository.existsByCourseIdAndEmployeeId(1L, 12L)).thenReturn(true);
+        when(enrollmentRepository.existsByCourseIdAndEmployeeId(1L, 13L)).thenReturn(false);
+
+        // Act & Assert
+        assertTrue(enrollmentService.isEmployeeEnrolled(1L, 12L));
+        assertFalse(enrollmentService.isEmployeeEnrolled(1L, 13L));
+
+        //The confirmed member is now answered from memory
+        assertTrue(enrollmentService.isEmployeeEnrolled(1L, 12L));
+        verify(enrollmentRepository, times(1)).existsByCourseIdAndEmployeeId(1L, 12L);
+    }
+
+    @Test
+    void testUnenrollEmployee_RemovesMemberFromIndex() {
+        // Arrange
+        when(enrollmentRepository.findEmployeeIdsByCourseId(1L)).thenReturn(Set.of(10L));
+        assertTrue(enrollmentService.isEmployeeEnrolled(1L, 10L));
+        Submission submission = new Submission();
+        submission.setSubmissionUrl("assignment-1.pdf");
+        List<Submission> submissions = List.of(submission);
+        when(submissionRepository.findByEmployee_IdAndAssignment_Course_Id(10L, 1L)).thenReturn(submissions);
+
+        // Act
+        enrollmentService.unenrollEmployee(1L, 10L);
+
+        // Assert
+        assertFalse(enrollmentService.isEmployeeEnrolled(1L, 10L));
+        verify(enrollmentRepository).deleteByEmployeeIdAndCourseId(10L, 1L);
+        verify(submissionRepository).deleteAll(submissions);
+        verify(fileService).queueAssignmentDeletion(List.of("assignment-1.pdf"));
+    }
+
+    @Test
+    void testUnenrollEmployee_RemovesMemberCachedBeforeCommitAfterCommit() {
+        // Arrange
+        when(enrollmentRepository.findEmployeeIdsByCourseId(1L)).thenReturn(Set.of(10L));
+        assertTrue(enrollmentService.isEmployeeEnrolled(1L, 10L));
+        when(submissionRepository.findByEmployee_IdAndAssignment_Course_Id(10L, 1L)).thenReturn(List.of());
+        //The enrollment row is still visible to other transactions until the unenroll commits
+        when(enrollmentRepository.existsByCourseIdAndEmployeeId(1L, 10L)).thenReturn(true, false);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            enrollmentService.unenrollEmployee(1L, 10L);
+            assertTrue(enrollmentService.isEmployeeEnrolled(1L, 10L));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        assertFalse(enrollmentService.isEmployeeEnrolled(1L, 10L));
+        verify(enrollmentRepository, times(2)).existsByCourseIdAndEmployeeId(1L, 10L);
+    }
+}
@@ -0,0 +1,218 @@
+package com.software.upskilled.service;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.software.upskilled.Entity.FileDeletionTask;
+import com.software.upskilled.repository.CourseMaterialRepository;
+import com.software.upskilled.repository.CourseRepository;
+import com.software.upskilled.repository.FileDeletionTaskRepository;
+import com.software.upskilled.repository.SubmissionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FileDeletionQueueTest
+{
+    @Mock
+    private FileDeletionTaskRepository fileDeletionTaskRepository;
+
+    @Mock
+    private SubmissionRepository submissionRepository;
+
+    @Mock
+    private CourseMaterialRepository courseMaterialRepository;
+
+    @Mock
+    private CourseRepository courseRepository;
+
+    @Mock
+    private AmazonS3 s3Client;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private FileDeletionQueue fileDeletionQueue;
+
+    @BeforeEach
+    void setUp() {
+        fileDeletionQueue = createQueue(1000);
+    }
+
+    private FileDeletionQueue createQueue(int batchSize) {
+        return new FileDeletionQueue(fileDeletionTaskRepository, submissionRepository, courseMaterialRepository,
+                courseRepository, s3Client, transactionManager, new SimpleMeterRegistry(),
+                "syllabus", "materials", "assignments", batchSize, 10, 3, 1000);
+    }
+
+    private FileDeletionTask task(String bucketName, String key, int attempts) {
+        return FileDeletionTask.builder()
+                .bucketName(bucketName)
+                .objectKey(key)
+                .status(FileDeletionTask.Status.PENDING)
+                .attempts(attempts)
+                .nextAttemptAt(0L)
+                .createdAt(0L)
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testEnqueue_SavesOnePendingTaskPerKey() {
+        // Act
+        fileDeletionQueue.enqueue("materials", List.of("a.pdf", "b.pdf", "a.pdf", " "));
+
+        // Assert
+        ArgumentCaptor<Collection<FileDeletionTask>> tasks = ArgumentCaptor.forClass(Collection.class);
+        verify(fileDeletionTaskRepository).saveAll(tasks.capture());
+        assertEquals(List.of("a.pdf", "b.pdf"), tasks.getValue().stream().map(FileDeletionTask::getObjectKey).toList());
+        assertTrue(tasks.getValue().stream().allMatch(task -> task.getStatus() == FileDeletionTask.Status.PENDING));
+    }
+
+    @Test
+    void testDrainQueue_DeletesEachBucketInOneRequest() {
+        // Arrange
+        List<FileDeletionTask> dueTasks = List.of(task("materials", "a.pdf", 0), task("materials", "b.pdf", 0),
+                task("assignments", "c.pdf", 0));
+        when(fileDeletionTaskRepository.lockDueTasks(anyLong(), anyInt())).thenReturn(dueTasks);
+
+        // Act
+        fileDeletionQueue.drainQueue();
+
+        // Assert
+        ArgumentCaptor<DeleteObjectsRequest> requests = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(s3Client, times(2)).deleteObjects(requests.capture());
+        assertEquals("materials", requests.getAllValues().get(0).getBucketName());
+        assertEquals(2, requests.getAllValues().get(0).getKeys().size());
+        assertEquals("assignments", requests.getAllValues().get(1).getBucketName());
+        verify(fileDeletionTaskRepository).deleteAllInBatch(dueTasks);
+        verify(fileDeletionTaskRepository, times(1)).lockDueTasks(anyLong(), anyInt());
+    }
+
+    @Test
+    void testDrainQueue_RetriesOnlyKeysReportedAsFailed() {
+        // Arrange
+        FileDeletionTask deleted = task("materials", "a.pdf", 0);
+        FileDeletionTask failed = task("materials", "b.pdf", 0);
+        when(fileDeletionTaskRepository.lockDueTasks(anyLong(), anyInt())).thenReturn(List.of(deleted, failed));
+        MultiObjectDeleteException.DeleteError error = new MultiObjectDeleteException.DeleteError();
+        error.setKey("b.pdf");
+        error.setCode("AccessDenied");
+        error.setMessage("Access Denied");
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class)))
+                .thenThrow(new MultiObjectDeleteException(List.of(error), List.of()));
+
+        // Act
+        fileDeletionQueue.drainQueue();
+
+        // Assert
+        verify(fileDeletionTaskRepository).deleteAllInBatch(List.of(deleted));
+        assertEquals(1, failed.getAttempts());
+        assertEquals(FileDeletionTask.Status.PENDING, failed.getStatus());
+        assertTrue(failed.getNextAttemptAt() > System.currentTimeMillis());
+        assertTrue(failed.getLastError().startsWith("AccessDenied"));
+    }
+
+    @Test
+    void testDrainQueue_MarksTaskDeadAfterLastAttempt() {
+        // Arrange
+        FileDeletionTask failing = task("materials", "a.pdf", 2);
+        when(fileDeletionTaskRepository.lockDueTasks(anyLong(), anyInt())).thenReturn(List.of(failing));
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenThrow(new SdkClientException("Connection reset"));
+
+        // Act
+        fileDeletionQueue.drainQueue();
+
+        // Assert
+        verify(fileDeletionTaskRepository).deleteAllInBatch(List.of());
+        assertEquals(3, failing.getAttempts());
+        assertEquals(FileDeletionTask.Status.DEAD, failing.getStatus());
+    }
+
+    @Test
+    void testDrainQueue_KeepsDrainingFullBatches() {
+        // Arrange
+        fileDeletionQueue = createQueue(2);
+        List<FileDeletionTask> fullBatch = new ArrayList<>();
+        IntStream.range(0, 2).forEach(i -> fullBatch.add(task("materials", i + ".pdf", 0)));
+        when(fileDeletionTaskRepository.lockDueTasks(anyLong(), anyInt()))
+                .thenReturn(fullBatch)
+                .thenReturn(List.of(task("materials", "last.pdf", 0)));
+
+        // Act
+        fileDeletionQueue.drainQueue();
+
+        // Assert
+        verify(fileDeletionTaskRepository, times(2)).lockDueTasks(anyLong(), anyInt());
+        verify(s3Client, times(2)).deleteObjects(any(DeleteObjectsRequest.class));
+    }
+
+    @Test
+    void testDrainQueue_SkipsKeysReferencedAgain() {
+        // Arrange
+        //Unenrolled then resubmitted under the same file name before the worker ran
+        FileDeletionTask reused = task("assignments", "Java/Essay/Jane_Doe_7_essay.pdf", 0);
+        FileDeletionTask orphaned = task("assignments", "Java/Essay/John_Roe_8_essay.pdf", 0);
+        when(fileDeletionTaskRepository.lockDueTasks(anyLong(), anyInt())).thenReturn(List.of(reused, orphaned));
+        when(submissionRepository.findReferencedSubmissionUrls(anyCollection()))
+                .thenReturn(List.of("Java/Essay/Jane_Doe_7_essay.pdf"));
+
+        // Act
+        fileDeletionQueue.drainQueue();
+
+        // Assert
+        ArgumentCaptor<DeleteObjectsRequest> request = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(s3Client).deleteObjects(request.capture());
+        assertEquals(List.of("Java/Essay/John_Roe_8_essay.pdf"),
+                request.getValue().getKeys().stream().map(DeleteObjectsRequest.KeyVersion::getKey).toList());
+        verify(fileDeletionTaskRepository).deleteAllInBatch(List.of(reused, orphaned));
+    }
+
+    @Test
+    void testDrainQueue_SendsNoRequestWhenEveryKeyIsReferenced() {
+        // Arrange
+        FileDeletionTask reused = task("materials", "Jane_Doe_3/Java/week1.pdf", 0);
+        when(fileDeletionTaskRepository.lockDueTasks(anyLong(), anyInt())).thenReturn(List.of(reused));
+        when(courseMaterialRepository.findReferencedCourseMaterialUrls(anyCollection()))
+                .thenReturn(List.of("Jane_Doe_3/Java/week1.pdf"));
+
+        // Act
+        fileDeletionQueue.drainQueue();
+
+        // Assert
+        verify(s3Client, never()).deleteObjects(any(DeleteObjectsRequest.class));
+        verify(fileDeletionTaskRepository).deleteAllInBatch(List.of(reused));
+    }
+
+    @Test
+    void testCancel_DeletesTasksQueuedForKey() {
+        // Arrange
+        when(fileDeletionTaskRepository.findIdsByBucketNameAndObjectKeys("assignments", List.of("essay.pdf")))
+                .thenReturn(List.of(4L, 9L));
+
+        // Act
+        fileDeletionQueue.cancel("assignments", List.of("essay.pdf"));
+
+        // Assert
+        verify(fileDeletionTaskRepository).deleteAllByIdInBatch(List.of(4L, 9L));
+    }
+}
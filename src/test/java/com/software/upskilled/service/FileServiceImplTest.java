@@ -0,0 +1,436 @@
+package com.software.upskilled.service;
+
+import com.amazonaws.HttpMethod;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.software.upskilled.Entity.Assignment;
+import com.software.upskilled.Entity.Course;
+import com.software.upskilled.Entity.Submission;
+import com.software.upskilled.Entity.Users;
+import com.software.upskilled.dto.FileUploadResponse;
+import com.software.upskilled.dto.PresignedUrlResponseDTO;
+import com.software.upskilled.utils.LocalFileSystemS3;
+import com.software.upskilled.utils.S3LocalFileCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FileServiceImplTest
+{
+    private static final String MATERIAL_URL = "John_Smith_1/ENPM613/Week1.pdf";
+
+    @Mock
+    private AmazonS3 s3Client;
+
+    @Mock
+    private SubmissionService submissionService;
+
+    @Mock
+    private FileDeletionQueue fileDeletionQueue;
+
+    @TempDir
+    Path tempDir;
+
+    private FileServiceImpl fileService;
+
+    @BeforeEach
+    void setUp() {
+        fileService = new FileServiceImpl();
+        ReflectionTestUtils.setField(fileService, "s3Client", s3Client);
+        ReflectionTestUtils.setField(fileService, "courseMaterialsBucketName", "materials");
+        ReflectionTestUtils.setField(fileService, "s3LocalFileCache", new S3LocalFileCache(s3Client, false, tempDir.toString(), 1, 0));
+        ReflectionTestUtils.setField(fileService, "assignmentBucketName", "assignments");
+        ReflectionTestUtils.setField(fileService, "submissionService", submissionService);
+        ReflectionTestUtils.setField(fileService, "fileDeletionQueue", fileDeletionQueue);
+        ReflectionTestUtils.setField(fileService, "presignedUploadTtlSeconds", 900L);
+        ReflectionTestUtils.setField(fileService, "presignedUploadMaxSizeMb", 1L);
+        ReflectionTestUtils.setField(fileService, "unconfirmedUploadRetentionSeconds", 3600L);
+    }
+
+    private Assignment assignment() {
+        Course course = new Course();
+        course.setTitle("ENPM613");
+        Assignment assignment = new Assignment();
+        assignment.setTitle("HW1");
+        assignment.setCourse(course);
+        return assignment;
+    }
+
+    private Users employee() {
+        Users employee = new Users();
+        employee.setId(1L);
+        employee.setFirstName("John");
+        employee.setLastName("Smith");
+        return employee;
+    }
+
+    private S3Object s3Object(byte[] content, String eTag) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(content.length);
+        metadata.setHeader("ETag", eTag);
+        S3Object object = new S3Object();
+        object.setObjectMetadata(metadata);
+        object.setObjectContent(new ByteArrayInputStream(content));
+        return object;
+    }
+
+    @Test
+    void testViewCourseMaterial_StreamsWholeObject() throws Exception {
+        // Arrange
+        byte[] content = "Sample PDF content".getBytes();
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(s3Object(content, "abc123"));
+
+        // Act
+        ResponseEntity<?> response = fileService.viewCourseMaterial(MATERIAL_URL, "Week1.pdf", new HttpHeaders());
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(content.length, response.getHeaders().getContentLength());
+        assertEquals("\"abc123\"", response.getHeaders().getETag());
+        assertEquals("attachment; filename=\"Week1.pdf\"", response.getHeaders().getFirst("Content-disposition"));
+        assertArrayEquals(content, ((Resource) response.getBody()).getInputStream().readAllBytes());
+    }
+
+    @Test
+    void testViewCourseMaterial_ServesSingleRange() {
+        // Arrange
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(10);
+        metadata.setHeader("Content-Range", "bytes 5-14/100");
+        S3Object object = new S3Object();
+        object.setObjectMetadata(metadata);
+        object.setObjectContent(new ByteArrayInputStream(new byte[10]));
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(object);
+
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.set(HttpHeaders.RANGE, "bytes=5-14");
+
+        // Act
+        ResponseEntity<?> response = fileService.viewCourseMaterial(MATERIAL_URL, "Week1.pdf", requestHeaders);
+
+        // Assert
+        ArgumentCaptor<GetObjectRequest> request = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client).getObject(request.capture());
+        assertArrayEquals(new long[]{5, 14}, request.getValue().getRange());
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals(10, response.getHeaders().getContentLength());
+        assertEquals("bytes 5-14/100", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void testViewCourseMaterial_ReturnsNotModifiedWhenETagMatches() {
+        // Arrange
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(null);
+        ObjectMetadata currentMetadata = new ObjectMetadata();
+        currentMetadata.setHeader("ETag", "abc123");
+        when(s3Client.getObjectMetadata("materials", MATERIAL_URL)).thenReturn(currentMetadata);
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.setIfNoneMatch(List.of("\"old999\"", "\"abc123\""));
+
+        // Act
+        ResponseEntity<?> response = fileService.viewCourseMaterial(MATERIAL_URL, "Week1.pdf", requestHeaders);
+
+        // Assert
+        ArgumentCaptor<GetObjectRequest> request = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client).getObject(request.capture());
+        assertEquals(List.of("\"old999\"", "\"abc123\""), request.getValue().getNonmatchingETagConstraints());
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        //The validator sent back is the object's current ETag, not the first one the client listed
+        assertEquals("\"abc123\"", response.getHeaders().getETag());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void testViewCourseMaterial_ServesCachedCopy() throws Exception {
+        // Arrange
+        LocalFileSystemS3 localS3 = new LocalFileSystemS3(tempDir.resolve("s3"));
+        localS3.putObject("materials", MATERIAL_URL, new ByteArrayInputStream("Sample PDF content".getBytes()), new ObjectMetadata());
+        ReflectionTestUtils.setField(fileService, "s3Client", localS3);
+        ReflectionTestUtils.setField(fileService, "s3LocalFileCache",
+                new S3LocalFileCache(localS3, true, tempDir.resolve("cache").toString(), 1, 60));
+
+        // Act
+        ResponseEntity<?> response = fileService.viewCourseMaterial(MATERIAL_URL, "Week1.pdf", new HttpHeaders());
+        HttpHeaders conditionalHeaders = new HttpHeaders();
+        conditionalHeaders.setIfNoneMatch(response.getHeaders().getETag());
+        ResponseEntity<?> conditionalResponse = fileService.viewCourseMaterial(MATERIAL_URL, "Week1.pdf", conditionalHeaders);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(18, response.getHeaders().getContentLength());
+        assertArrayEquals("Sample PDF content".getBytes(), ((Resource) response.getBody()).getInputStream().readAllBytes());
+        assertEquals(HttpStatus.NOT_MODIFIED, conditionalResponse.getStatusCode());
+    }
+
+    @Test
+    void testViewCourseMaterial_ServesRangeOfCachedCopy() throws Exception {
+        // Arrange
+        LocalFileSystemS3 localS3 = new LocalFileSystemS3(tempDir.resolve("s3"));
+        localS3.putObject("materials", MATERIAL_URL, new ByteArrayInputStream("Sample PDF content".getBytes()), new ObjectMetadata());
+        ReflectionTestUtils.setField(fileService, "s3Client", localS3);
+        ReflectionTestUtils.setField(fileService, "s3LocalFileCache",
+                new S3LocalFileCache(localS3, true, tempDir.resolve("cache").toString(), 1, 60));
+        HttpHeaders rangeHeaders = new HttpHeaders();
+        rangeHeaders.set(HttpHeaders.RANGE, "bytes=7-9");
+        HttpHeaders multipleRangeHeaders = new HttpHeaders();
+        multipleRangeHeaders.set(HttpHeaders.RANGE, "bytes=0-1,4-5");
+
+        // Act
+        ResponseEntity<?> response = fileService.viewCourseMaterial(MATERIAL_URL, "Week1.pdf", rangeHeaders);
+        ResponseEntity<?> multipleRanges = fileService.viewCourseMaterial(MATERIAL_URL, "Week1.pdf", multipleRangeHeaders);
+
+        // Assert
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 7-9/18", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals("PDF".getBytes(), ((Resource) response.getBody()).getInputStream().readAllBytes());
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, multipleRanges.getStatusCode());
+    }
+
+    @Test
+    void testViewCourseMaterial_RedirectsToPresignedUrl() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(fileService, "deliveryMode", "redirect");
+        ReflectionTestUtils.setField(fileService, "presignedUrlTtlSeconds", 300L);
+        URL presignedUrl = new URL("https://materials.s3.amazonaws.com/Week1.pdf?X-Amz-Signature=abc");
+        when(s3Client.generatePresignedUrl(any(GeneratePresignedUrlRequest.class))).thenReturn(presignedUrl);
+
+        // Act
+        ResponseEntity<?> response = fileService.viewCourseMaterial(MATERIAL_URL, "Week1.pdf", new HttpHeaders());
+
+        // Assert
+        ArgumentCaptor<GeneratePresignedUrlRequest> request = ArgumentCaptor.forClass(GeneratePresignedUrlRequest.class);
+        verify(s3Client).generatePresignedUrl(request.capture());
+        assertEquals("materials", request.getValue().getBucketName());
+        assertEquals(MATERIAL_URL, request.getValue().getKey());
+        assertEquals("attachment; filename=\"Week1.pdf\"", request.getValue().getResponseHeaders().getContentDisposition());
+        assertEquals(HttpStatus.FOUND, response.getStatusCode());
+        assertEquals(URI.create(presignedUrl.toString()), response.getHeaders().getLocation());
+        assertEquals("no-store", response.getHeaders().getCacheControl());
+        verify(s3Client, never()).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void testViewCourseMaterial_ReturnsPresignedUrlAsJson() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(fileService, "deliveryMode", "json");
+        ReflectionTestUtils.setField(fileService, "presignedUrlTtlSeconds", 300L);
+        URL presignedUrl = new URL("https://materials.s3.amazonaws.com/Week1.pdf?X-Amz-Signature=abc");
+        when(s3Client.generatePresignedUrl(any(GeneratePresignedUrlRequest.class))).thenReturn(presignedUrl);
+
+        // Act
+        ResponseEntity<?> response = fileService.viewCourseMaterial(MATERIAL_URL, "Week1.pdf", new HttpHeaders());
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        PresignedUrlResponseDTO body = assertInstanceOf(PresignedUrlResponseDTO.class, response.getBody());
+        assertEquals(presignedUrl.toString(), body.getUrl());
+        assertEquals("Week1.pdf", body.getFileName());
+        assertTrue(body.getExpiresAt().getTime() > System.currentTimeMillis());
+    }
+
+    @Test
+    void testViewCourseMaterial_FallsBackToProxyWhenSigningFails() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(fileService, "deliveryMode", "redirect");
+        when(s3Client.generatePresignedUrl(any(GeneratePresignedUrlRequest.class)))
+                .thenThrow(new SdkClientException("Unable to load credentials"));
+        byte[] content = "Sample PDF content".getBytes();
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(s3Object(content, "abc123"));
+
+        // Act
+        ResponseEntity<?> response = fileService.viewCourseMaterial(MATERIAL_URL, "Week1.pdf", new HttpHeaders());
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(content, ((Resource) response.getBody()).getInputStream().readAllBytes());
+    }
+
+    @Test
+    void testViewCourseMaterial_RejectsMultipleRanges() {
+        // Arrange
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.set(HttpHeaders.RANGE, "bytes=0-9,20-29");
+
+        // Act
+        ResponseEntity<?> response = fileService.viewCourseMaterial(MATERIAL_URL, "Week1.pdf", requestHeaders);
+
+        // Assert
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+        verifyNoInteractions(s3Client);
+    }
+
+    @Test
+    void testPresignAssignmentSubmission_SignsPutForSubmissionKey() throws Exception {
+        // Arrange
+        Assignment assignment = assignment();
+        when(s3Client.generatePresignedUrl(any(GeneratePresignedUrlRequest.class)))
+                .thenReturn(new URL("https://assignments.s3.amazonaws.com/upload?X-Amz-Signature=abc"));
+
+        // Act
+        PresignedUrlResponseDTO presignedUrl = fileService.presignAssignmentSubmission(assignment.getCourse(), assignment, employee(),
+                "essay.pdf", "application/pdf", 1024);
+
+        // Assert
+        ArgumentCaptor<GeneratePresignedUrlRequest> request = ArgumentCaptor.forClass(GeneratePresignedUrlRequest.class);
+        verify(s3Client).generatePresignedUrl(request.capture());
+        assertEquals(HttpMethod.PUT, request.getValue().getMethod());
+        assertEquals("assignments", request.getValue().getBucketName());
+        assertEquals("ENPM613/HW1/John_Smith_1_essay.pdf", request.getValue().getKey());
+        assertEquals("application/pdf", request.getValue().getContentType());
+        assertEquals("1024", request.getValue().getCustomRequestHeaders().get("Content-Length"));
+        assertEquals("essay.pdf", presignedUrl.getFileName());
+        //Deleted later unless the upload is confirmed
+        verify(fileDeletionQueue).enqueue("assignments", List.of("ENPM613/HW1/John_Smith_1_essay.pdf"), 3_600_000L);
+    }
+
+    @Test
+    void testPresignAssignmentSubmission_RejectsFilesOverLimit() {
+        // Arrange
+        Assignment assignment = assignment();
+
+        // Act
+        PresignedUrlResponseDTO presignedUrl = fileService.presignAssignmentSubmission(assignment.getCourse(), assignment, employee(),
+                "essay.pdf", "application/pdf", 2 * 1024 * 1024);
+
+        // Assert
+        assertNull(presignedUrl);
+        verifyNoInteractions(s3Client);
+    }
+
+    @Test
+    void testConfirmAssignmentSubmission_SavesSubmissionWhenObjectMatches() {
+        // Arrange
+        LocalFileSystemS3 localS3 = new LocalFileSystemS3(tempDir.resolve("s3"));
+        localS3.putObject("assignments", "ENPM613/HW1/John_Smith_1_essay.pdf", new ByteArrayInputStream("essay".getBytes()), new ObjectMetadata());
+        ReflectionTestUtils.setField(fileService, "s3Client", localS3);
+        Assignment assignment = assignment();
+
+        // Act
+        FileUploadResponse response = fileService.confirmAssignmentSubmission(assignment.getCourse(), assignment, employee(), "essay.pdf", 5);
+
+        // Assert
+        assertEquals("ENPM613/HW1/John_Smith_1_essay.pdf", response.getFilePath());
+        ArgumentCaptor<Submission> submission = ArgumentCaptor.forClass(Submission.class);
+        verify(submissionService).saveNewSubmission(submission.capture());
+        assertEquals(Submission.Status.SUBMITTED, submission.getValue().getStatus());
+        assertEquals("ENPM613/HW1/John_Smith_1_essay.pdf", submission.getValue().getSubmissionUrl());
+    }
+
+    @Test
+    void testConfirmAssignmentSubmission_RejectsMissingOrResizedObject() {
+        // Arrange
+        LocalFileSystemS3 localS3 = new LocalFileSystemS3(tempDir.resolve("s3"));
+        localS3.putObject("assignments", "ENPM613/HW1/John_Smith_1_essay.pdf", new ByteArrayInputStream("essay".getBytes()), new ObjectMetadata());
+        ReflectionTestUtils.setField(fileService, "s3Client", localS3);
+        Assignment assignment = assignment();
+
+        // Act
+        FileUploadResponse resized = fileService.confirmAssignmentSubmission(assignment.getCourse(), assignment, employee(), "essay.pdf", 4);
+        FileUploadResponse missing = fileService.confirmAssignmentSubmission(assignment.getCourse(), assignment, employee(), "other.pdf", 5);
+
+        // Assert
+        assertNull(resized);
+        assertNull(missing);
+        verifyNoInteractions(submissionService);
+        //The rejected uploads go back on the deletion queue instead of staying in the bucket
+        verify(fileDeletionQueue).enqueue("assignments", List.of("ENPM613/HW1/John_Smith_1_essay.pdf"), 3_600_000L);
+        verify(fileDeletionQueue).enqueue("assignments", List.of("ENPM613/HW1/John_Smith_1_other.pdf"), 3_600_000L);
+    }
+
+    private Submission submission() {
+        Submission submission = new Submission();
+        submission.setId(12L);
+        submission.setAssignment(assignment());
+        submission.setEmployee(employee());
+        submission.setStatus(Submission.Status.SUBMITTED);
+        submission.setSubmissionUrl("ENPM613/HW1/John_Smith_1_essay.pdf");
+        return submission;
+    }
+
+    @Test
+    void testPresignAssignmentUpdate_SignsPutForNewKeyEvenWithSameFileName() throws Exception {
+        // Arrange
+        when(s3Client.generatePresignedUrl(any(GeneratePresignedUrlRequest.class)))
+                .thenReturn(new URL("https://assignments.s3.amazonaws.com/upload?X-Amz-Signature=abc"));
+        Submission submission = submission();
+
+        // Act
+        PresignedUrlResponseDTO presignedUrl = fileService.presignAssignmentUpdate(submission, "essay.pdf", "application/pdf", 1024);
+
+        // Assert
+        ArgumentCaptor<GeneratePresignedUrlRequest> request = ArgumentCaptor.forClass(GeneratePresignedUrlRequest.class);
+        verify(s3Client).generatePresignedUrl(request.capture());
+        assertEquals("ENPM613/HW1/12-" + presignedUrl.getUploadId() + "/John_Smith_1_essay.pdf", request.getValue().getKey());
+        assertEquals("1024", request.getValue().getCustomRequestHeaders().get("Content-Length"));
+        assertEquals("ENPM613/HW1/John_Smith_1_essay.pdf", submission.getSubmissionUrl());
+        verifyNoInteractions(submissionService);
+    }
+
+    @Test
+    void testConfirmAssignmentUpdate_SwitchesToUploadAndQueuesOldFileAfterRowUpdate() {
+        // Arrange
+        String uploadId = "5f0c7d2e-3b1a-4c8e-9d6f-2a4b6c8d0e1f";
+        String uploadKey = "ENPM613/HW1/12-" + uploadId + "/John_Smith_1_essay.pdf";
+        LocalFileSystemS3 localS3 = new LocalFileSystemS3(tempDir.resolve("s3"));
+        localS3.putObject("assignments", uploadKey, new ByteArrayInputStream("essay".getBytes()), new ObjectMetadata());
+        ReflectionTestUtils.setField(fileService, "s3Client", localS3);
+        Submission submission = submission();
+
+        // Act
+        FileUploadResponse response = fileService.confirmAssignmentUpdate(submission, uploadId, "essay.pdf", 5);
+
+        // Assert
+        assertEquals(uploadKey, response.getFilePath());
+        assertEquals(uploadKey, submission.getSubmissionUrl());
+        InOrder inOrder = inOrder(submissionService, fileDeletionQueue);
+        inOrder.verify(fileDeletionQueue).cancel("assignments", List.of(uploadKey));
+        inOrder.verify(submissionService).modifySubmissionDetails(submission);
+        inOrder.verify(fileDeletionQueue).enqueue("assignments", List.of("ENPM613/HW1/John_Smith_1_essay.pdf"));
+    }
+
+    @Test
+    void testConfirmAssignmentUpdate_RejectedUploadLeavesSubmissionAndIsQueuedForDeletion() {
+        // Arrange
+        String uploadId = "5f0c7d2e-3b1a-4c8e-9d6f-2a4b6c8d0e1f";
+        String uploadKey = "ENPM613/HW1/12-" + uploadId + "/John_Smith_1_essay.pdf";
+        LocalFileSystemS3 localS3 = new LocalFileSystemS3(tempDir.resolve("s3"));
+        localS3.putObject("assignments", uploadKey, new ByteArrayInputStream("truncated".getBytes()), new ObjectMetadata());
+        ReflectionTestUtils.setField(fileService, "s3Client", localS3);
+        Submission submission = submission();
+
+        // Act
+        FileUploadResponse response = fileService.confirmAssignmentUpdate(submission, uploadId, "essay.pdf", 5);
+
+        // Assert
+        assertNull(response);
+        assertEquals("ENPM613/HW1/John_Smith_1_essay.pdf", submission.getSubmissionUrl());
+        verifyNoInteractions(submissionService);
+        verify(fileDeletionQueue).enqueue("assignments", List.of(uploadKey), 3_600_000L);
+        verify(fileDeletionQueue, never()).enqueue("assignments", List.of("ENPM613/HW1/John_Smith_1_essay.pdf"));
+    }
+}
@@ -2,20 +2,43 @@ package com.software.upskilled.service;
 
 import com.software.upskilled.Entity.Course;
 import com.software.upskilled.Entity.Message;
+import com.software.upskilled.Entity.UnreadMessageCounter;
 import com.software.upskilled.Entity.Users;
+import com.software.upskilled.dto.MessageNotificationDTO;
+import com.software.upskilled.dto.MessageReadNotificationDTO;
+import com.software.upskilled.dto.UnreadCountsResponseDTO;
+import com.software.upskilled.repository.DataMigrationRepository;
+import com.software.upskilled.repository.EnrollmentRepository;
 import com.software.upskilled.repository.MessageRepository;
+import com.software.upskilled.repository.UnreadMessageCounterRepository;
+import com.software.upskilled.utils.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -25,6 +48,21 @@ public class MessageServiceTest
     @Mock
     private MessageRepository messageRepository;
 
+    @Mock
+    private UnreadMessageCounterRepository unreadMessageCounterRepository;
+
+    @Mock
+    private EnrollmentRepository enrollmentRepository;
+
+    @Mock
+    private DataMigrationRepository dataMigrationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private MessageService messageService;
 
@@ -56,6 +94,10 @@ public class MessageServiceTest
         message.setRecipient(recipient);
         message.setCourse(course);
         message.setIsRead(false);
+        message.setSentAt(new Date());
+
+        ReflectionTestUtils.setField(messageService, "defaultPageSize", 50);
+        ReflectionTestUtils.setField(messageService, "maxPageSize", 200);
     }
 
     @Test
@@ -71,68 +113,135 @@ public class MessageServiceTest
         assertEquals(message.getId(), savedMessage.getId());
         assertEquals(message.getContent(), savedMessage.getContent());
         verify(messageRepository, times(1)).save(message);
+        verify(unreadMessageCounterRepository, times(1)).increment(2L, 101L, 1L, 1);
+        ArgumentCaptor<NotificationEvent> event = ArgumentCaptor.forClass(NotificationEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(NotificationEvent.MESSAGE, event.getValue().type());
+        assertEquals(List.of(2L), event.getValue().recipientIds());
+        assertEquals(1L, ((MessageNotificationDTO) event.getValue().payload()).getMessageId());
     }
 
+    @SuppressWarnings("unchecked")
     @Test
-    void testGetAllSentMessagesForEmployee() {
+    void testSendMessageToEmployees_SkipsEmployeesNotEnrolled() {
+        // Arrange
+        course.setInstructor(sender);
+        Users otherRecipient = new Users();
+        otherRecipient.setId(3L);
+        when(enrollmentRepository.findEnrolledEmployees(eq(101L), anyCollection())).thenReturn(List.of(otherRecipient, recipient));
+        when(messageRepository.saveAllAndFlush(anyCollection())).thenAnswer(invocation -> List.copyOf(invocation.getArgument(0)));
+
+        // Act
+        List<Message> result = messageService.sendMessageToEmployees(course, Arrays.asList(2L, 9L, 3L, 2L, null), "Exam on Friday");
+
+        // Assert
+        assertEquals(List.of(2L, 3L), result.stream().map(sentMessage -> sentMessage.getRecipient().getId()).toList());
+        assertTrue(result.stream().allMatch(sentMessage -> sentMessage.getSender() == sender && !sentMessage.getIsRead()
+                && "Exam on Friday".equals(sentMessage.getContent())));
+        verify(enrollmentRepository, times(1)).findEnrolledEmployees(101L, new LinkedHashSet<>(List.of(2L, 9L, 3L)));
+        verify(unreadMessageCounterRepository, times(1)).incrementForRecipients(List.of(2L, 3L), 101L, 1L);
+        verify(messageRepository, never()).save(any(Message.class));
+        verify(eventPublisher, times(2)).publishEvent(any(NotificationEvent.class));
+    }
+
+    @Test
+    void testSendMessageToEmployees_NobodyEnrolled() {
+        // Arrange
+        course.setInstructor(sender);
+        when(enrollmentRepository.findEnrolledEmployees(eq(101L), anyCollection())).thenReturn(List.of());
+
+        // Act
+        List<Message> result = messageService.sendMessageToEmployees(course, List.of(9L), "Exam on Friday");
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(messageRepository, never()).saveAllAndFlush(anyCollection());
+        verify(unreadMessageCounterRepository, never()).incrementForRecipients(anyCollection(), anyLong(), anyLong());
+    }
+
+    @Test
+    void testGetSentMessagesForEmployee_LastPage() {
         // Arrange
         List<Message> sentMessages = List.of(message);
-        when(messageRepository.getSentMessagesForEmployee(1L, 101L)).thenReturn(Optional.of(sentMessages));
+        when(messageRepository.getSentMessagesForEmployee(1L, 101L, Limit.of(51))).thenReturn(sentMessages);
 
         // Act
-        Optional<List<Message>> result = messageService.getAllSentMessagesForEmployee(1L, 101L);
+        MessageService.MessagePage result = messageService.getSentMessagesForEmployee(1L, 101L, null, null);
 
         // Assert
-        assertTrue(result.isPresent());
-        assertEquals(1, result.get().size());
-        assertEquals(message.getContent(), result.get().get(0).getContent());
-        verify(messageRepository, times(1)).getSentMessagesForEmployee(1L, 101L);
+        assertEquals(1, result.messages().size());
+        assertEquals(message.getContent(), result.messages().get(0).getContent());
+        assertNull(result.nextCursor());
     }
 
     @Test
-    void testGetAllReceivedMessagesForEmployee() {
+    void testGetReceivedMessagesForEmployee_MorePagesLeft() {
         // Arrange
-        List<Message> receivedMessages = List.of(message);
-        when(messageRepository.getReceivedMessagesForEmployee(2L, 101L)).thenReturn(Optional.of(receivedMessages));
+        Message olderMessage = new Message();
+        olderMessage.setId(0L);
+        olderMessage.setSentAt(new Date(0));
+        KeysetCursor before = new KeysetCursor(Instant.parse("2024-10-01T10:00:00.123456Z"), 7L);
+        when(messageRepository.getReceivedMessagesForEmployee(2L, 101L, before.sortKeyTimestamp(), 7L, Limit.of(2)))
+                .thenReturn(List.of(message, olderMessage));
 
         // Act
-        Optional<List<Message>> result = messageService.getAllReceivedMessageForEmployee(2L, 101L);
+        MessageService.MessagePage result = messageService.getReceivedMessagesForEmployee(2L, 101L, before, 1);
 
         // Assert
-        assertTrue(result.isPresent());
-        assertEquals(1, result.get().size());
-        assertEquals(message.getContent(), result.get().get(0).getContent());
-        verify(messageRepository, times(1)).getReceivedMessagesForEmployee(2L, 101L);
+        assertEquals(List.of(message), result.messages());
+        assertEquals(KeysetCursor.after(message), result.nextCursor());
+    }
+
+    @Test
+    void testGetSentMessagesForEmployee_CapsPageSize() {
+        // Arrange
+        when(messageRepository.getSentMessagesForEmployee(anyLong(), anyLong(), any(Limit.class))).thenReturn(List.of());
+
+        // Act
+        messageService.getSentMessagesForEmployee(1L, 101L, null, 10_000);
+
+        // Assert
+        verify(messageRepository).getSentMessagesForEmployee(1L, 101L, Limit.of(201));
+        verify(messageRepository, never()).getSentMessagesForEmployee(anyLong(), anyLong(), any(Date.class), anyLong(), any(Limit.class));
     }
 
     @Test
-    void testGetUniqueListOfSenderEmployeesForInstructor() {
+    void testGetInstructorOutbox_GroupedByEmployee() {
         // Arrange
-        List<Long> senderIds = List.of(1L, 2L);
-        when(messageRepository.getUniqueEmployeeSenderListForInstructor(3L, 101L)).thenReturn(senderIds);
+        Users otherRecipient = new Users();
+        otherRecipient.setId(3L);
+        Message secondMessage = new Message();
+        secondMessage.setId(2L);
+        secondMessage.setRecipient(recipient);
+        Message thirdMessage = new Message();
+        thirdMessage.setId(3L);
+        thirdMessage.setRecipient(otherRecipient);
+        when(messageRepository.getMessagesSentByInstructorWithRecipients(1L, 101L, Limit.of(51)))
+                .thenReturn(List.of(message, secondMessage, thirdMessage));
 
         // Act
-        List<Long> result = messageService.getUniqueListOfSenderEmployeesForInstructor(3L, 101L);
+        Map<Users, List<Message>> result = messageService.getInstructorOutbox(1L, 101L, null, null)
+                .groupBy(Message::getRecipient);
 
         // Assert
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        verify(messageRepository, times(1)).getUniqueEmployeeSenderListForInstructor(3L, 101L);
+        assertEquals(List.of(recipient, otherRecipient), List.copyOf(result.keySet()));
+        assertEquals(List.of(message, secondMessage), result.get(recipient));
+        assertEquals(List.of(thirdMessage), result.get(otherRecipient));
     }
 
     @Test
-    void testGetUniqueListOfRecipientEmployeesForInstructor() {
+    void testGetInstructorInbox_GroupedByEmployee() {
         // Arrange
-        List<Long> recipientIds = List.of(2L, 3L);
-        when(messageRepository.getUniqueEmployeeRecipientListFromInstructor(1L, 101L)).thenReturn(recipientIds);
+        when(messageRepository.getMessagesReceivedByInstructorWithSenders(2L, 101L, Limit.of(51)))
+                .thenReturn(List.of(message));
 
         // Act
-        List<Long> result = messageService.getUniqueListOfRecipientEmployeesForInstructor(1L, 101L);
+        Map<Users, List<Message>> result = messageService.getInstructorInbox(2L, 101L, null, null)
+                .groupBy(Message::getSender);
 
         // Assert
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        verify(messageRepository, times(1)).getUniqueEmployeeRecipientListFromInstructor(1L, 101L);
+        assertEquals(1, result.size());
+        assertEquals(List.of(message), result.get(sender));
     }
 
     @Test
@@ -152,8 +261,7 @@ public class MessageServiceTest
     @Test
     void testUpdateReadStatusOfMessage() {
         // Arrange
-        message.setIsRead(true);
-        when(messageRepository.save(message)).thenReturn(message);
+        when(messageRepository.markMessageAsRead(1L)).thenReturn(1);
 
         // Act
         Message updatedMessage = messageService.updateReadStatusOfMessage(message);
@@ -161,7 +269,25 @@ public class MessageServiceTest
         // Assert
         assertNotNull(updatedMessage);
         assertTrue(updatedMessage.getIsRead());
-        verify(messageRepository, times(1)).save(message);
+        verify(unreadMessageCounterRepository, times(1)).decrement(2L, 101L, 1L, 1);
+        ArgumentCaptor<NotificationEvent> event = ArgumentCaptor.forClass(NotificationEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(NotificationEvent.MESSAGE_READ, event.getValue().type());
+        assertEquals(List.of(1L, 2L), event.getValue().recipientIds());
+        assertEquals(1L, ((MessageReadNotificationDTO) event.getValue().payload()).getMessageId());
+    }
+
+    @Test
+    void testUpdateReadStatusOfMessage_AlreadyReadKeepsCounter() {
+        // Arrange
+        when(messageRepository.markMessageAsRead(1L)).thenReturn(0);
+
+        // Act
+        messageService.updateReadStatusOfMessage(message);
+
+        // Assert
+        verifyNoInteractions(unreadMessageCounterRepository);
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -176,5 +302,52 @@ public class MessageServiceTest
         // Assert
         assertEquals(5, result);
         verify(messageRepository, times(1)).updateReadStatusOfReceivedMessagesFromEmployee(1L, 2L, 101L);
+        verify(unreadMessageCounterRepository, times(1)).decrement(1L, 101L, 2L, 5);
+    }
+
+    @Test
+    void testGetUnreadCounts() {
+        // Arrange
+        when(unreadMessageCounterRepository.findByRecipientIdAndUnreadCountGreaterThan(2L, 0)).thenReturn(List.of(
+                UnreadMessageCounter.builder().recipientId(2L).courseId(101L).senderId(1L).unreadCount(3).build(),
+                UnreadMessageCounter.builder().recipientId(2L).courseId(102L).senderId(4L).unreadCount(2).build()));
+
+        // Act
+        UnreadCountsResponseDTO result = messageService.getUnreadCounts(2L, null);
+
+        // Assert
+        assertEquals(5, result.getTotalUnread());
+        assertEquals(2, result.getCounts().size());
+        assertEquals(101L, result.getCounts().get(0).getCourseId());
+        assertEquals(3, result.getCounts().get(0).getUnreadCount());
+        verify(unreadMessageCounterRepository, never()).findByRecipientIdAndCourseIdAndUnreadCountGreaterThan(anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    void testBackfillUnreadCounters_RunsOnceBehindMarker() {
+        // Arrange
+        when(dataMigrationRepository.markApplied(eq(MessageService.UNREAD_COUNTER_BACKFILL), anyLong())).thenReturn(1, 0);
+
+        // Act
+        messageService.backfillUnreadCounters();
+        messageService.backfillUnreadCounters();
+
+        // Assert
+        verify(unreadMessageCounterRepository, times(1)).backfillFromMessages();
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void testBackfillUnreadCounters_RollsBackFailedBackfill() {
+        // Arrange
+        when(dataMigrationRepository.markApplied(eq(MessageService.UNREAD_COUNTER_BACKFILL), anyLong())).thenReturn(1);
+        when(unreadMessageCounterRepository.backfillFromMessages()).thenThrow(new QueryTimeoutException("lock wait timeout"));
+
+        // Act
+        assertDoesNotThrow(() -> messageService.backfillUnreadCounters());
+
+        // Assert
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, never()).commit(any());
     }
 }
@@ -0,0 +1,242 @@
+package com.software.upskilled.service;
+
+import com.software.upskilled.dto.MessageNotificationDTO;
+import com.software.upskilled.utils.VerifiedTokenClaims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NotificationStreamServiceTest
+{
+    //Keeps what is sent as text instead of writing it to a response
+    private static class RecordingEmitter extends SseEmitter
+    {
+        private final List<String> sent = new ArrayList<>();
+        private boolean broken;
+        private boolean completed;
+
+        @Override
+        public synchronized void send(SseEventBuilder builder) throws IOException {
+            if (broken) {
+                throw new IOException("Broken pipe");
+            }
+            sent.add(builder.build().stream().map(part -> String.valueOf(part.getData())).collect(Collectors.joining()));
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+
+        private List<String> events() {
+            return sent.stream().filter(event -> event.contains("event:")).toList();
+        }
+    }
+
+    private NotificationStreamService notificationStreamService;
+    private final Set<String> revokedTokens = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        //Events are delivered on the calling thread
+        notificationStreamService = createService(Runnable::run);
+    }
+
+    private NotificationStreamService createService(java.util.concurrent.Executor sender) {
+        return new NotificationStreamService(new SimpleMeterRegistry(), sender, 60_000, 3000, 2, 60_000, 2, 3, 10_000,
+                session -> revokedTokens.contains(session.fingerprint())) {
+            @Override
+            protected SseEmitter createEmitter(long timeoutMillis) {
+                return new RecordingEmitter();
+            }
+        };
+    }
+
+    private static VerifiedTokenClaims session(String fingerprint, long expiresAt) {
+        return new VerifiedTokenClaims("user@upskilled.com", "EMPLOYEE", "ACTIVE", 0L, expiresAt, fingerprint);
+    }
+
+    private RecordingEmitter subscribe(Long userId, String lastEventId) {
+        return (RecordingEmitter) notificationStreamService.subscribe(userId, lastEventId,
+                session("token-" + userId, System.currentTimeMillis() + 60_000));
+    }
+
+    private void publishMessage(Long recipientId, Long messageId) {
+        notificationStreamService.onNotification(new NotificationEvent(NotificationEvent.MESSAGE, List.of(recipientId),
+                new MessageNotificationDTO(messageId, 101L, 1L, recipientId, "Hello", null)));
+    }
+
+    private static String idOf(String event) {
+        return event.substring(event.indexOf("id:") + 3, event.indexOf('\n', event.indexOf("id:")));
+    }
+
+    @Test
+    void testOnNotification_PushesToTheRecipientStreamsOnly() {
+        // Arrange
+        RecordingEmitter recipientStream = subscribe(2L, null);
+        RecordingEmitter otherStream = subscribe(3L, null);
+
+        // Act
+        publishMessage(2L, 10L);
+
+        // Assert
+        assertEquals(1, recipientStream.events().size());
+        assertTrue(recipientStream.events().get(0).contains("event:message"));
+        assertTrue(recipientStream.events().get(0).contains("messageId=10"));
+        assertTrue(otherStream.events().isEmpty());
+        assertTrue(recipientStream.sent.get(0).contains("retry:3000"));
+    }
+
+    @Test
+    void testSubscribe_ReplaysEventsAfterLastEventId() {
+        // Arrange
+        RecordingEmitter firstStream = subscribe(2L, null);
+        publishMessage(2L, 10L);
+        String lastEventId = idOf(firstStream.events().get(0));
+        publishMessage(2L, 11L);
+
+        // Act
+        RecordingEmitter resumedStream = subscribe(2L, lastEventId);
+
+        // Assert
+        assertEquals(1, resumedStream.events().size());
+        assertTrue(resumedStream.events().get(0).contains("messageId=11"));
+
+        publishMessage(2L, 12L);
+        assertEquals(2, resumedStream.events().size());
+        assertTrue(resumedStream.events().get(1).contains("messageId=12"));
+    }
+
+    @Test
+    void testSubscribe_ResyncWhenMissedEventsWereDropped() {
+        // Arrange
+        RecordingEmitter firstStream = subscribe(2L, null);
+        publishMessage(2L, 10L);
+        String lastEventId = idOf(firstStream.events().get(0));
+        //The replay buffer keeps 2 events, the first missed one is gone
+        publishMessage(2L, 11L);
+        publishMessage(2L, 12L);
+        publishMessage(2L, 13L);
+
+        // Act
+        RecordingEmitter resumedStream = subscribe(2L, lastEventId);
+        RecordingEmitter staleStream = subscribe(2L, "otherboot-1");
+
+        // Assert
+        assertEquals(1, resumedStream.events().size());
+        assertTrue(resumedStream.events().get(0).contains("event:" + NotificationStreamService.RESYNC));
+        assertTrue(staleStream.events().get(0).contains("event:" + NotificationStreamService.RESYNC));
+    }
+
+    @Test
+    void testSubscribe_ClosesTheOldestStreamsOverTheLimit() {
+        // Arrange
+        RecordingEmitter oldestStream = subscribe(2L, null);
+        RecordingEmitter secondStream = subscribe(2L, null);
+        RecordingEmitter newestStream = subscribe(2L, null);
+
+        // Act
+        publishMessage(2L, 10L);
+
+        // Assert
+        assertTrue(oldestStream.events().isEmpty());
+        assertEquals(1, secondStream.events().size());
+        assertEquals(1, newestStream.events().size());
+    }
+
+    @Test
+    void testSendHeartbeats_DropsBrokenStreams() {
+        // Arrange
+        RecordingEmitter brokenStream = subscribe(2L, null);
+        RecordingEmitter liveStream = subscribe(2L, null);
+        brokenStream.broken = true;
+
+        // Act
+        notificationStreamService.sendHeartbeats();
+        brokenStream.broken = false;
+        publishMessage(2L, 10L);
+
+        // Assert
+        assertTrue(liveStream.sent.stream().anyMatch(event -> event.contains(":heartbeat")));
+        assertEquals(1, liveStream.events().size());
+        assertTrue(brokenStream.events().isEmpty());
+    }
+
+    @Test
+    void testSendHeartbeats_ClosesStreamsOfExpiredOrRevokedTokens() {
+        // Arrange
+        RecordingEmitter expiredStream = (RecordingEmitter) notificationStreamService.subscribe(2L, null,
+                session("expired-token", System.currentTimeMillis() + 50));
+        RecordingEmitter revokedStream = (RecordingEmitter) notificationStreamService.subscribe(2L, null,
+                session("revoked-token", System.currentTimeMillis() + 60_000));
+        RecordingEmitter liveStream = subscribe(3L, null);
+        revokedTokens.add("revoked-token");
+
+        // Act
+        await(60);
+        notificationStreamService.sendHeartbeats();
+        publishMessage(2L, 10L);
+
+        // Assert
+        assertTrue(expiredStream.completed);
+        assertTrue(revokedStream.completed);
+        assertTrue(expiredStream.events().isEmpty());
+        assertFalse(liveStream.completed);
+    }
+
+    @Test
+    void testCloseSession_ClosesStreamsOpenedWithTheToken() {
+        // Arrange
+        RecordingEmitter loggedOutStream = subscribe(2L, null);
+        RecordingEmitter otherStream = subscribe(3L, null);
+
+        // Act
+        notificationStreamService.closeSession("token-2");
+        publishMessage(2L, 10L);
+
+        // Assert
+        assertTrue(loggedOutStream.completed);
+        assertTrue(loggedOutStream.events().isEmpty());
+        assertFalse(otherStream.completed);
+    }
+
+    @Test
+    void testOnNotification_DropsStreamThatFallsBehind() {
+        // Arrange
+        List<Runnable> pendingDrains = new ArrayList<>();
+        notificationStreamService = createService(pendingDrains::add);
+        RecordingEmitter slowStream = subscribe(2L, null);
+        RecordingEmitter otherStream = subscribe(3L, null);
+
+        // Act
+        //The sender never gets to the slow stream, its 4th pending event is over the limit of 3
+        for (long messageId = 10; messageId < 14; messageId++) {
+            publishMessage(2L, messageId);
+        }
+        publishMessage(3L, 20L);
+        pendingDrains.forEach(Runnable::run);
+
+        // Assert
+        assertTrue(slowStream.completed);
+        assertTrue(slowStream.events().isEmpty());
+        assertEquals(1, otherStream.events().size());
+    }
+
+    private static void await(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
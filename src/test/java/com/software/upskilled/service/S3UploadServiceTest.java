@@ -0,0 +1,96 @@
+package com.software.upskilled.service;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.software.upskilled.exception.UploadCapacityExceededException;
+import com.software.upskilled.utils.LocalFileSystemS3;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class S3UploadServiceTest
+{
+    private static final String BUCKET = "upskilled-assignments";
+
+    @TempDir
+    Path tempDir;
+
+    private LocalFileSystemS3 s3Client;
+    private SimpleMeterRegistry meterRegistry;
+    private S3UploadService uploadService;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new LocalFileSystemS3(tempDir.resolve("s3"));
+        meterRegistry = new SimpleMeterRegistry();
+        uploadService = new S3UploadService(s3Client, meterRegistry, 4, 16, 2, 0, 7, 5, 5,
+                tempDir.resolve("spool").toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadService.shutdown();
+    }
+
+    private ObjectMetadata metadata(MockMultipartFile file) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentType(file.getContentType());
+        objectMetadata.setContentLength(file.getSize());
+        return objectMetadata;
+    }
+
+    @Test
+    void testUpload_SmallFileIsStoredInSinglePut() throws Exception {
+        // Arrange
+        MockMultipartFile file = new MockMultipartFile("file", "essay.pdf", "application/pdf", "essay".getBytes());
+
+        // Act
+        uploadService.upload(BUCKET, "ENPM613/HW1/John_Smith_1_essay.pdf", file, metadata(file));
+
+        // Assert
+        assertArrayEquals("essay".getBytes(), Files.readAllBytes(tempDir.resolve("s3").resolve(BUCKET).resolve("ENPM613/HW1/John_Smith_1_essay.pdf")));
+        assertEquals(1, meterRegistry.get("s3.upload.duration").timer().count());
+    }
+
+    @Test
+    void testUpload_LargeFileIsUploadedInParts() throws Exception {
+        // Arrange
+        byte[] content = new byte[11 * 1024 * 1024];
+        new Random(42).nextBytes(content);
+        MockMultipartFile file = new MockMultipartFile("file", "video.pdf", "application/pdf", content);
+
+        // Act
+        uploadService.upload(BUCKET, "ENPM613/HW1/John_Smith_1_video.pdf", file, metadata(file));
+
+        // Assert
+        assertArrayEquals(content, Files.readAllBytes(tempDir.resolve("s3").resolve(BUCKET).resolve("ENPM613/HW1/John_Smith_1_video.pdf")));
+        try (var spooled = Files.list(tempDir.resolve("spool"))) {
+            assertEquals(0, spooled.count());
+        }
+    }
+
+    @Test
+    void testUpload_RejectsWhenAllSlotsAreBusy() {
+        // Arrange
+        Semaphore uploadSlots = (Semaphore) ReflectionTestUtils.getField(uploadService, "uploadSlots");
+        uploadSlots.acquireUninterruptibly(2);
+        MockMultipartFile file = new MockMultipartFile("file", "essay.pdf", "application/pdf", "essay".getBytes());
+
+        // Act & Assert
+        UploadCapacityExceededException exception = assertThrows(UploadCapacityExceededException.class,
+                () -> uploadService.upload(BUCKET, "ENPM613/HW1/John_Smith_1_essay.pdf", file, metadata(file)));
+        assertEquals(7, exception.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get("s3.upload.rejected").counter().count());
+        assertEquals(2, meterRegistry.get("s3.upload.in-flight").gauge().value());
+    }
+}
@@ -3,7 +3,9 @@ package com.software.upskilled.service;
 import com.software.upskilled.Entity.Assignment;
 import com.software.upskilled.Entity.Submission;
 import com.software.upskilled.Entity.Users;
+import com.software.upskilled.exception.SubmissionAlreadyExistsException;
 import com.software.upskilled.repository.SubmissionRepository;
+import com.software.upskilled.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -15,6 +17,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -25,6 +28,9 @@ public class SubmissionServiceTest
     @Mock
     private SubmissionRepository submissionRepository;
 
+    @Mock
+    private UserRepository userRepository;
+
     @InjectMocks
     private SubmissionService submissionService;
 
@@ -113,4 +119,15 @@ public class SubmissionServiceTest
         assertEquals(submission.getSubmissionUrl(), result.get(0).getSubmissionUrl());
         verify(submissionRepository, times(1)).getSubmissionsSortedBySubmissionTime(101L);
     }
+
+    @Test
+    void testSaveNewSubmission_RejectsSecondSubmission() {
+        // Arrange
+        when(submissionRepository.existsByAssignment_IdAndEmployee_Id(101L, 1L)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(SubmissionAlreadyExistsException.class, () -> submissionService.saveNewSubmission(submission));
+        verify(userRepository).lockById(1L);
+        verify(submissionRepository, never()).save(any(Submission.class));
+    }
 }
@@ -0,0 +1,181 @@
+package com.software.upskilled.service;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.software.upskilled.Entity.Assignment;
+import com.software.upskilled.Entity.Course;
+import com.software.upskilled.Entity.Submission;
+import com.software.upskilled.Entity.Users;
+import com.software.upskilled.dto.SubmissionUploadStatusDTO;
+import com.software.upskilled.exception.FileUploadException;
+import com.software.upskilled.exception.UploadCapacityExceededException;
+import com.software.upskilled.repository.SubmissionRepository;
+import com.software.upskilled.utils.LocalFileSystemS3;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SubmissionUploadPipelineTest
+{
+    private static final String BUCKET = "upskilled-assignments";
+    private static final String KEY = "ENPM613/HW1/John_Smith_1_essay.pdf";
+
+    @Mock
+    private SubmissionRepository submissionRepository;
+
+    @TempDir
+    Path tempDir;
+
+    private LocalFileSystemS3 s3Client;
+    private S3UploadService uploadService;
+    private SubmissionUploadPipeline pipeline;
+
+    private Course course;
+    private Assignment assignment;
+    private Users employee;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new LocalFileSystemS3(tempDir.resolve("s3"));
+        uploadService = new S3UploadService(s3Client, new SimpleMeterRegistry(), 4, 16, 2, 1000, 5, 8, 5,
+                tempDir.resolve("upload-spool").toString());
+
+        course = new Course();
+        course.setTitle("ENPM613");
+        assignment = new Assignment();
+        assignment.setTitle("HW1");
+        assignment.setCourse(course);
+        employee = new Users();
+        employee.setId(1L);
+        employee.setFirstName("John");
+        employee.setLastName("Smith");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+        uploadService.shutdown();
+    }
+
+    private SubmissionUploadPipeline pipeline(S3UploadService s3UploadService, int maxPending, int maxAttempts) {
+        return new SubmissionUploadPipeline(submissionRepository, s3UploadService, new SimpleMeterRegistry(), BUCKET,
+                "pipeline", 2, maxPending, maxAttempts, 1, 60, 5, spoolDirectory().toString());
+    }
+
+    private Path spoolDirectory() {
+        return tempDir.resolve("submission-spool");
+    }
+
+    private void savedSubmissionsGetId(long id) {
+        when(submissionRepository.save(any(Submission.class))).thenAnswer(invocation -> {
+            Submission submission = invocation.getArgument(0);
+            submission.setId(id);
+            return submission;
+        });
+    }
+
+    //The spool file is deleted by the worker right after the status update, so give it a moment
+    private void assertSpoolFileRemoved(long submissionId) throws InterruptedException {
+        Path spoolFile = spoolDirectory().resolve("submission-" + submissionId + ".upload");
+        for (int i = 0; i < 50 && Files.exists(spoolFile); i++) {
+            Thread.sleep(100);
+        }
+        assertFalse(Files.exists(spoolFile));
+    }
+
+    @Test
+    void testStageSubmission_UploadsInBackgroundAndMarksSubmitted() throws Exception {
+        // Arrange
+        pipeline = pipeline(uploadService, 10, 3);
+        savedSubmissionsGetId(42L);
+        when(submissionRepository.updateStatusIfCurrent(42L, Submission.Status.UPLOADING, Submission.Status.SUBMITTED)).thenReturn(1);
+        MockMultipartFile file = new MockMultipartFile("file", "essay.pdf", "application/pdf", "essay".getBytes());
+
+        // Act
+        SubmissionUploadStatusDTO status = pipeline.stageSubmission(file, course, assignment, employee);
+
+        // Assert
+        assertEquals(42L, status.getSubmissionId());
+        assertEquals(KEY, status.getFilePath());
+        assertEquals(Submission.Status.UPLOADING, status.getStatus());
+        verify(submissionRepository, timeout(5000))
+                .updateStatusIfCurrent(42L, Submission.Status.UPLOADING, Submission.Status.SUBMITTED);
+        assertArrayEquals("essay".getBytes(), s3Client.getObject(BUCKET, KEY).getObjectContent().readAllBytes());
+        assertSpoolFileRemoved(42L);
+    }
+
+    @Test
+    void testStageSubmission_MarksFailedAfterLastAttempt() throws Exception {
+        // Arrange
+        S3UploadService failingUploadService = mock(S3UploadService.class);
+        doThrow(new FileUploadException("S3 is down"))
+                .when(failingUploadService).upload(anyString(), anyString(), any(File.class), any(ObjectMetadata.class));
+        pipeline = pipeline(failingUploadService, 10, 3);
+        savedSubmissionsGetId(7L);
+        MockMultipartFile file = new MockMultipartFile("file", "essay.pdf", "application/pdf", "essay".getBytes());
+
+        // Act
+        pipeline.stageSubmission(file, course, assignment, employee);
+
+        // Assert
+        verify(submissionRepository, timeout(5000))
+                .updateStatusIfCurrent(7L, Submission.Status.UPLOADING, Submission.Status.UPLOAD_FAILED);
+        verify(failingUploadService, times(3)).upload(eq(BUCKET), eq(KEY), any(File.class), any(ObjectMetadata.class));
+        verify(submissionRepository, never())
+                .updateStatusIfCurrent(7L, Submission.Status.UPLOADING, Submission.Status.SUBMITTED);
+        assertSpoolFileRemoved(7L);
+    }
+
+    @Test
+    void testStageSubmission_RejectedWhenTooManyPending() {
+        // Arrange
+        pipeline = pipeline(uploadService, 0, 3);
+        MockMultipartFile file = new MockMultipartFile("file", "essay.pdf", "application/pdf", "essay".getBytes());
+
+        // Act & Assert
+        UploadCapacityExceededException exception = assertThrows(UploadCapacityExceededException.class,
+                () -> pipeline.stageSubmission(file, course, assignment, employee));
+        assertEquals(5, exception.getRetryAfterSeconds());
+        verifyNoInteractions(submissionRepository);
+    }
+
+    @Test
+    void testRecoverPendingUploads_ResumesSpooledSubmissions() throws Exception {
+        // Arrange
+        pipeline = pipeline(uploadService, 10, 3);
+        Files.write(spoolDirectory().resolve("submission-9.upload"), "essay".getBytes());
+        Submission submission = Submission.builder()
+                .id(9L)
+                .status(Submission.Status.UPLOADING)
+                .submissionUrl(KEY).build();
+        when(submissionRepository.findByStatus(Submission.Status.UPLOADING)).thenReturn(List.of(submission));
+        when(submissionRepository.updateStatusIfCurrent(9L, Submission.Status.UPLOADING, Submission.Status.SUBMITTED)).thenReturn(1);
+
+        // Act
+        pipeline.recoverPendingUploads();
+
+        // Assert
+        verify(submissionRepository, timeout(5000))
+                .updateStatusIfCurrent(9L, Submission.Status.UPLOADING, Submission.Status.SUBMITTED);
+        assertArrayEquals("essay".getBytes(), s3Client.getObject(BUCKET, KEY).getObjectContent().readAllBytes());
+    }
+}
@@ -0,0 +1,82 @@
+package com.software.upskilled.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnnouncementFeedCacheTest
+{
+    private AnnouncementFeedCache feedCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        feedCache = new AnnouncementFeedCache(new ObjectMapper(), 100, 300);
+        loads = new AtomicInteger();
+    }
+
+    private List<?> load(String title) {
+        loads.incrementAndGet();
+        return List.of(Map.of("title", title));
+    }
+
+    @Test
+    void testGetOrBuild_SerializesOnce() {
+        // Act
+        AnnouncementFeedCache.Feed first = feedCache.getOrBuild(1L, () -> load("Exam"));
+        AnnouncementFeedCache.Feed second = feedCache.getOrBuild(1L, () -> load("Exam"));
+
+        // Assert
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertEquals("[{\"title\":\"Exam\"}]", new String(first.body(), StandardCharsets.UTF_8));
+        assertTrue(first.eTag().startsWith("\"") && first.eTag().endsWith("\""));
+    }
+
+    @Test
+    void testInvalidate_RebuildsWithNewETag() {
+        // Arrange
+        AnnouncementFeedCache.Feed before = feedCache.getOrBuild(1L, () -> load("Exam"));
+        AnnouncementFeedCache.Feed otherCourse = feedCache.getOrBuild(2L, () -> load("Quiz"));
+
+        // Act
+        feedCache.invalidate(1L);
+        AnnouncementFeedCache.Feed after = feedCache.getOrBuild(1L, () -> load("Exam moved"));
+
+        // Assert
+        assertNotEquals(before.eTag(), after.eTag());
+        assertSame(otherCourse, feedCache.getOrBuild(2L, () -> load("Quiz")));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testInvalidate_DropsFeedBuiltDuringTheTransaction() {
+        // Arrange
+        feedCache.getOrBuild(1L, () -> load("Exam"));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            feedCache.invalidate(1L);
+            //A reader rebuilds the feed before the write is committed
+            feedCache.getOrBuild(1L, () -> load("Exam"));
+
+            // Act
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        AnnouncementFeedCache.Feed committed = feedCache.getOrBuild(1L, () -> load("Exam moved"));
+
+        // Assert
+        assertEquals(3, loads.get());
+        assertEquals("[{\"title\":\"Exam moved\"}]", new String(committed.body(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,106 @@
+package com.software.upskilled.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CourseAuthDecisionCacheTest
+{
+    private CourseAuthDecisionCache decisionCache;
+    private AtomicInteger checks;
+
+    @BeforeEach
+    void setUp() {
+        decisionCache = new CourseAuthDecisionCache(100, 30);
+        checks = new AtomicInteger();
+    }
+
+    private ResponseEntity<String> forbidden() {
+        checks.incrementAndGet();
+        return ResponseEntity.status(403).body("You are not enrolled in this course");
+    }
+
+    @Test
+    void testGetOrCompute_ReplaysIdenticalRefusal() {
+        // Act
+        ResponseEntity<String> first = decisionCache.getOrCompute("emp@upskilled.com", 1L, CourseAuthDecisionCache.EMPLOYEE, this::forbidden);
+        ResponseEntity<String> second = decisionCache.getOrCompute("emp@upskilled.com", 1L, CourseAuthDecisionCache.EMPLOYEE, this::forbidden);
+
+        // Assert
+        assertEquals(1, checks.get());
+        assertEquals(first.getStatusCode(), second.getStatusCode());
+        assertEquals(first.getBody(), second.getBody());
+    }
+
+    @Test
+    void testGetOrCompute_CachesAllowedDecision() {
+        // Act
+        ResponseEntity<String> first = decisionCache.getOrCompute("ins@upskilled.com", 1L, CourseAuthDecisionCache.INSTRUCTOR, () -> {
+            checks.incrementAndGet();
+            return null;
+        });
+        ResponseEntity<String> second = decisionCache.getOrCompute("ins@upskilled.com", 1L, CourseAuthDecisionCache.INSTRUCTOR, this::forbidden);
+
+        // Assert
+        assertNull(first);
+        assertNull(second);
+        assertEquals(1, checks.get());
+    }
+
+    @Test
+    void testInvalidation_ForcesFreshCheck() {
+        // Arrange
+        decisionCache.getOrCompute("emp@upskilled.com", 1L, CourseAuthDecisionCache.EMPLOYEE, this::forbidden);
+        decisionCache.getOrCompute("emp@upskilled.com", 2L, CourseAuthDecisionCache.EMPLOYEE, this::forbidden);
+
+        // Act
+        decisionCache.invalidateCourse(1L);
+        decisionCache.getOrCompute("emp@upskilled.com", 1L, CourseAuthDecisionCache.EMPLOYEE, this::forbidden);
+        decisionCache.invalidatePrincipal("emp@upskilled.com");
+        decisionCache.getOrCompute("emp@upskilled.com", 2L, CourseAuthDecisionCache.EMPLOYEE, this::forbidden);
+
+        // Assert
+        assertEquals(4, checks.get());
+    }
+
+    @Test
+    void testInvalidateCourse_DropsDecisionCachedBeforeCommit() {
+        // Arrange
+        decisionCache.getOrCompute("emp@upskilled.com", 1L, CourseAuthDecisionCache.EMPLOYEE, () -> null);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            decisionCache.invalidateCourse(1L);
+            //A check running before the commit still sees the enrollment and allows access
+            assertNull(decisionCache.getOrCompute("emp@upskilled.com", 1L, CourseAuthDecisionCache.EMPLOYEE, () -> null));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        ResponseEntity<String> afterCommit = decisionCache.getOrCompute("emp@upskilled.com", 1L, CourseAuthDecisionCache.EMPLOYEE, this::forbidden);
+        assertEquals(403, afterCommit.getStatusCode().value());
+        assertEquals(1, checks.get());
+    }
+
+    @Test
+    void testGetOrCompute_DoesNotCacheDecisionComputedDuringInvalidation() {
+        // Act
+        decisionCache.getOrCompute("emp@upskilled.com", 1L, CourseAuthDecisionCache.EMPLOYEE, () -> {
+            decisionCache.invalidateCourse(1L);
+            return null;
+        });
+        decisionCache.getOrCompute("emp@upskilled.com", 1L, CourseAuthDecisionCache.EMPLOYEE, this::forbidden);
+
+        // Assert
+        assertEquals(1, checks.get());
+    }
+}
@@ -0,0 +1,128 @@
+package com.software.upskilled.utils;
+
+import com.software.upskilled.Entity.RevokedToken;
+import com.software.upskilled.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DatabaseTokenRevocationStoreTest
+{
+    private static final long HOUR_MILLIS = 3_600_000;
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private DatabaseTokenRevocationStore revocationStore;
+
+    @BeforeEach
+    void setUp() {
+        revocationStore = new DatabaseTokenRevocationStore();
+        ReflectionTestUtils.setField(revocationStore, "revokedTokenRepository", revokedTokenRepository);
+    }
+
+    private RevokedToken revokedToken(String fingerprint) {
+        long now = System.currentTimeMillis();
+        return RevokedToken.builder()
+                .fingerprint(fingerprint)
+                .revokedAt(now)
+                .expiresAt(now + HOUR_MILLIS)
+                .build();
+    }
+
+    @Test
+    void testSyncFromDatabase_FirstRunLoadsEveryActiveRevocation() {
+        // Arrange
+        //Logout handled by another node
+        when(revokedTokenRepository.findActiveRevocationsSince(eq(0L), anyLong())).thenReturn(List.of(revokedToken("other-node")));
+        assertFalse(revocationStore.isRevoked("other-node"));
+
+        // Act
+        revocationStore.syncFromDatabase();
+
+        // Assert
+        assertTrue(revocationStore.isRevoked("other-node"));
+        assertEquals(1, revocationStore.size());
+    }
+
+    @Test
+    void testSyncFromDatabase_RereadsOverlapWindow() {
+        // Arrange
+        when(revokedTokenRepository.findActiveRevocationsSince(anyLong(), anyLong())).thenReturn(List.of());
+
+        // Act
+        revocationStore.syncFromDatabase();
+        revocationStore.syncFromDatabase();
+
+        // Assert
+        ArgumentCaptor<Long> revokedSince = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Long> syncStartedAt = ArgumentCaptor.forClass(Long.class);
+        verify(revokedTokenRepository, times(2)).findActiveRevocationsSince(revokedSince.capture(), syncStartedAt.capture());
+        assertEquals(0L, revokedSince.getAllValues().get(0));
+        assertEquals(syncStartedAt.getAllValues().get(0) - 30_000, revokedSince.getAllValues().get(1));
+    }
+
+    @Test
+    void testSyncFromDatabase_RetriesFromSamePointAfterFailure() {
+        // Arrange
+        when(revokedTokenRepository.findActiveRevocationsSince(anyLong(), anyLong()))
+                .thenReturn(List.of())
+                .thenThrow(new QueryTimeoutException("Lock wait timeout exceeded"))
+                .thenReturn(List.of(revokedToken("other-node")));
+
+        // Act
+        revocationStore.syncFromDatabase();
+        revocationStore.syncFromDatabase();
+        assertFalse(revocationStore.isRevoked("other-node"));
+        revocationStore.syncFromDatabase();
+
+        // Assert
+        ArgumentCaptor<Long> revokedSince = ArgumentCaptor.forClass(Long.class);
+        verify(revokedTokenRepository, times(3)).findActiveRevocationsSince(revokedSince.capture(), anyLong());
+        assertEquals(revokedSince.getAllValues().get(1), revokedSince.getAllValues().get(2));
+        assertTrue(revocationStore.isRevoked("other-node"));
+    }
+
+    @Test
+    void testRevoke_IgnoresRowAlreadyWrittenByAnotherNode() {
+        // Arrange
+        when(revokedTokenRepository.save(any(RevokedToken.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry for key 'fingerprint'"));
+
+        // Act
+        assertDoesNotThrow(() -> revocationStore.revoke("fingerprint", System.currentTimeMillis() + HOUR_MILLIS));
+
+        // Assert
+        assertTrue(revocationStore.isRevoked("fingerprint"));
+    }
+
+    @Test
+    void testPurgeExpired_PurgesNearCacheWhenDatabaseFails() {
+        // Arrange
+        revocationStore.revoke("expired", System.currentTimeMillis() - 1);
+        revocationStore.revoke("active", System.currentTimeMillis() + HOUR_MILLIS);
+        when(revokedTokenRepository.deleteExpired(anyLong())).thenThrow(new QueryTimeoutException("Lock wait timeout exceeded"));
+
+        // Act
+        int purged = revocationStore.purgeExpired();
+
+        // Assert
+        assertEquals(1, purged);
+        assertFalse(revocationStore.isRevoked("expired"));
+        assertTrue(revocationStore.isRevoked("active"));
+    }
+}
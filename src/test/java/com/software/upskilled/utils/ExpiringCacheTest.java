@@ -0,0 +1,89 @@
+package com.software.upskilled.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringCacheTest
+{
+    @Test
+    void testGet_DropsExpiredEntries() throws InterruptedException {
+        // Arrange
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 50);
+        cache.put("a", "1");
+        cache.put("b", "2", System.currentTimeMillis() + 10_000);
+
+        // Act
+        Thread.sleep(80);
+
+        // Assert
+        assertNull(cache.get("a"));
+        //The explicit expiry is capped by the default time to live
+        assertNull(cache.get("b"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testPut_IgnoresValueAlreadyExpired() {
+        // Arrange
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 60_000);
+
+        // Act
+        cache.put("a", "1", System.currentTimeMillis() - 1);
+
+        // Assert
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testPut_EvictsLeastRecentlyUsedEntryWhenFull() {
+        // Arrange
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, 60_000);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        //Reading "a" makes "b" the least recently used entry
+        cache.get("a");
+
+        // Act
+        cache.put("c", "3");
+
+        // Assert
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void testInvalidate_RemovesMatchingEntries() {
+        // Arrange
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 60_000);
+        cache.put("course-1", "1");
+        cache.put("course-2", "2");
+        cache.put("user-1", "3");
+
+        // Act
+        cache.invalidate("user-1");
+        cache.invalidateIf(key -> key.startsWith("course-"));
+
+        // Assert
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testPurgeExpired_CountsRemovedEntries() throws InterruptedException {
+        // Arrange
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 60_000);
+        cache.put("a", "1", System.currentTimeMillis() + 20);
+        cache.put("b", "2");
+
+        // Act
+        Thread.sleep(50);
+        int removed = cache.purgeExpired();
+
+        // Assert
+        assertEquals(1, removed);
+        assertEquals("2", cache.get("b"));
+    }
+}
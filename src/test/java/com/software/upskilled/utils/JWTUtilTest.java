@@ -0,0 +1,87 @@
+package com.software.upskilled.utils;
+
+import com.software.upskilled.Entity.Users;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JWTUtilTest
+{
+    private JWTUtil jwtUtil;
+    private Users user;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JWTUtil(100);
+        jwtUtil.setSecret(Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes()));
+
+        user = new Users();
+        user.setId(1L);
+        user.setFirstName("John");
+        user.setLastName("Smith");
+        user.setEmail("johnsmith@upskilled.com");
+        user.setRole("EMPLOYEE");
+        user.setStatus(Users.Status.ACTIVE);
+    }
+
+    @Test
+    void testVerifyAndDecode_ReturnsClaimsOfToken() {
+        // Arrange
+        String token = jwtUtil.generateToken(user);
+
+        // Act
+        VerifiedTokenClaims claims = jwtUtil.verifyAndDecode(token);
+
+        // Assert
+        assertEquals("johnsmith@upskilled.com", claims.subject());
+        assertEquals("EMPLOYEE", claims.role());
+        assertEquals("ACTIVE", claims.status());
+        assertTrue(claims.expiresAt() > claims.issuedAt());
+        assertFalse(claims.isExpired());
+        assertEquals(jwtUtil.fingerprint(token), claims.fingerprint());
+        assertTrue(jwtUtil.validateToken(token, "johnsmith@upskilled.com"));
+    }
+
+    @Test
+    void testVerifyAndDecode_ReusesVerifiedClaims() {
+        // Arrange
+        String token = jwtUtil.generateToken(user);
+
+        // Act
+        VerifiedTokenClaims first = jwtUtil.verifyAndDecode(token);
+        VerifiedTokenClaims second = jwtUtil.verifyAndDecode(token);
+
+        // Assert
+        assertSame(first, second);
+    }
+
+    @Test
+    void testVerifyAndDecode_RejectsTamperedToken() {
+        // Arrange
+        String token = jwtUtil.generateToken(user);
+        String tamperedToken = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        // Act & Assert
+        assertThrows(JwtException.class, () -> jwtUtil.verifyAndDecode(tamperedToken));
+    }
+
+    @Test
+    void testStreamToken_StandsForItsAccessTokenOnly() {
+        // Arrange
+        String accessToken = jwtUtil.generateToken(user);
+        VerifiedTokenClaims session = jwtUtil.verifyAndDecode(accessToken);
+
+        // Act
+        String streamToken = jwtUtil.generateStreamToken(session, 60_000);
+        VerifiedTokenClaims streamClaims = jwtUtil.verifyStreamToken(streamToken);
+
+        // Assert
+        assertEquals(session, streamClaims);
+        assertThrows(JwtException.class, () -> jwtUtil.verifyAndDecode(streamToken));
+        assertThrows(JwtException.class, () -> jwtUtil.verifyStreamToken(accessToken));
+    }
+}
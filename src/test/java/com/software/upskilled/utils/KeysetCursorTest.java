@@ -0,0 +1,55 @@
+package com.software.upskilled.utils;
+
+import com.software.upskilled.Entity.Message;
+import com.software.upskilled.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeysetCursorTest
+{
+    @Test
+    void testEncode_RoundTripsAtMicrosecondPrecision() {
+        // Arrange
+        Message message = new Message();
+        message.setId(42L);
+        message.setSentAt(Timestamp.from(Instant.parse("2024-10-01T10:00:00.123456Z")));
+
+        // Act
+        KeysetCursor cursor = KeysetCursor.parse(KeysetCursor.after(message).encode());
+
+        // Assert
+        assertEquals(Instant.parse("2024-10-01T10:00:00.123456Z"), cursor.sortKey());
+        assertEquals(42L, cursor.id());
+    }
+
+    @Test
+    void testParse_MissingCursorIsFirstPage() {
+        assertNull(KeysetCursor.parse(null));
+        assertNull(KeysetCursor.parse(""));
+    }
+
+    @Test
+    void testParse_RejectsForeignValues() {
+        assertThrows(InvalidCursorException.class, () -> KeysetCursor.parse("not a cursor"));
+        assertThrows(InvalidCursorException.class, () -> KeysetCursor.parse("MTI6MzQ"));
+    }
+
+    @Test
+    void testWithNextCursor_AddsHeaderOnlyWhenThereIsANextPage() {
+        // Arrange
+        KeysetCursor nextCursor = new KeysetCursor(Instant.parse("2024-10-01T10:00:00Z"), 7L);
+
+        // Act
+        ResponseEntity<String> middlePage = KeysetCursor.withNextCursor(ResponseEntity.ok(), nextCursor).body("page");
+        ResponseEntity<String> lastPage = KeysetCursor.withNextCursor(ResponseEntity.ok(), null).body("page");
+
+        // Assert
+        assertEquals(nextCursor.encode(), middlePage.getHeaders().getFirst(KeysetCursor.NEXT_CURSOR_HEADER));
+        assertFalse(lastPage.getHeaders().containsKey(KeysetCursor.NEXT_CURSOR_HEADER));
+    }
+}
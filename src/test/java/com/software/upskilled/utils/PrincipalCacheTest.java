@@ -0,0 +1,88 @@
+package com.software.upskilled.utils;
+
+import com.software.upskilled.Entity.Users;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrincipalCacheTest
+{
+    private Users user;
+
+    @BeforeEach
+    void setUp() {
+        user = new Users();
+        user.setId(1L);
+        user.setEmail("johnsmith@upskilled.com");
+        user.setPassword("$2a$10$hash");
+        user.setRole("EMPLOYEE");
+        user.setStatus(Users.Status.ACTIVE);
+    }
+
+    @Test
+    void testPut_CachesSnapshotDetachedFromEntity() {
+        // Arrange
+        PrincipalCache principalCache = new PrincipalCache(10, 300);
+        principalCache.put(user.getEmail(), 1000L, AuthenticatedUser.of(user));
+
+        // Act
+        user.setStatus(Users.Status.INACTIVE);
+        AuthenticatedUser principal = principalCache.get(user.getEmail(), 1000L);
+
+        // Assert
+        assertEquals(1L, principal.id());
+        assertEquals("johnsmith@upskilled.com", principal.getUsername());
+        assertEquals("$2a$10$hash", principal.getPassword());
+        assertEquals("EMPLOYEE", principal.getAuthorities().iterator().next().getAuthority());
+        assertTrue(principal.isEnabled());
+        assertFalse(principal.toString().contains("$2a$10$hash"));
+        //Another token of the same user resolves its principal again
+        assertNull(principalCache.get(user.getEmail(), 2000L));
+    }
+
+    @Test
+    void testGet_ExpiresAfterTtl() throws InterruptedException {
+        // Arrange
+        PrincipalCache principalCache = new PrincipalCache(10, 1);
+        principalCache.put(user.getEmail(), 1000L, AuthenticatedUser.of(user));
+        assertNotNull(principalCache.get(user.getEmail(), 1000L));
+
+        // Act
+        Thread.sleep(1100);
+
+        // Assert
+        assertNull(principalCache.get(user.getEmail(), 1000L));
+    }
+
+    @Test
+    void testPut_EvictsLeastRecentlyUsedPrincipal() {
+        // Arrange
+        PrincipalCache principalCache = new PrincipalCache(1, 300);
+        principalCache.put(user.getEmail(), 1000L, AuthenticatedUser.of(user));
+
+        // Act
+        principalCache.put("other@upskilled.com", 1000L, AuthenticatedUser.of(user));
+
+        // Assert
+        assertNull(principalCache.get(user.getEmail(), 1000L));
+        assertNotNull(principalCache.get("other@upskilled.com", 1000L));
+    }
+
+    @Test
+    void testInvalidate_DropsEveryTokenOfTheUser() {
+        // Arrange
+        PrincipalCache principalCache = new PrincipalCache(10, 300);
+        principalCache.put(user.getEmail(), 1000L, AuthenticatedUser.of(user));
+        principalCache.put(user.getEmail(), 2000L, AuthenticatedUser.of(user));
+        principalCache.put("other@upskilled.com", 1000L, AuthenticatedUser.of(user));
+
+        // Act
+        principalCache.invalidate(user.getEmail());
+
+        // Assert
+        assertNull(principalCache.get(user.getEmail(), 1000L));
+        assertNull(principalCache.get(user.getEmail(), 2000L));
+        assertNotNull(principalCache.get("other@upskilled.com", 1000L));
+    }
+}
@@ -0,0 +1,179 @@
+package com.software.upskilled.utils;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class S3LocalFileCacheTest
+{
+    private static final String BUCKET = "upskilled-syllabus";
+
+    @TempDir
+    Path tempDir;
+
+    private LocalFileSystemS3 s3Client;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = spy(new LocalFileSystemS3(tempDir.resolve("s3")));
+    }
+
+    private void upload(String key, byte[] content) {
+        s3Client.putObject(BUCKET, key, new ByteArrayInputStream(content), new ObjectMetadata());
+    }
+
+    @Test
+    void testFetch_ServesRepeatedReadsFromDisk() throws Exception {
+        // Arrange
+        S3LocalFileCache cache = new S3LocalFileCache(s3Client, true, tempDir.resolve("cache").toString(), 1, 60);
+        upload("ENPM613/syllabus.pdf", "syllabus v1".getBytes());
+
+        // Act
+        S3LocalFileCache.CachedObject first = cache.fetch(BUCKET, "ENPM613/syllabus.pdf");
+        S3LocalFileCache.CachedObject second = cache.fetch(BUCKET, "ENPM613/syllabus.pdf");
+
+        // Assert
+        assertEquals(first.file(), second.file());
+        assertArrayEquals("syllabus v1".getBytes(), Files.readAllBytes(first.file()));
+        verify(s3Client, times(1)).getObject(BUCKET, "ENPM613/syllabus.pdf");
+    }
+
+    @Test
+    void testFetch_RevalidatesStaleEntryAgainstETag() throws Exception {
+        // Arrange
+        S3LocalFileCache cache = new S3LocalFileCache(s3Client, true, tempDir.resolve("cache").toString(), 1, 0);
+        upload("ENPM613/syllabus.pdf", "syllabus v1".getBytes());
+        S3LocalFileCache.CachedObject original = cache.fetch(BUCKET, "ENPM613/syllabus.pdf");
+        original.close();
+
+        // Act
+        S3LocalFileCache.CachedObject unchanged = cache.fetch(BUCKET, "ENPM613/syllabus.pdf");
+        unchanged.close();
+        upload("ENPM613/syllabus.pdf", "syllabus v2".getBytes());
+        S3LocalFileCache.CachedObject changed = cache.fetch(BUCKET, "ENPM613/syllabus.pdf");
+
+        // Assert
+        assertEquals(original.file(), unchanged.file());
+        assertNotEquals(original.eTag(), changed.eTag());
+        assertArrayEquals("syllabus v2".getBytes(), Files.readAllBytes(changed.file()));
+        assertFalse(Files.exists(original.file()));
+    }
+
+    @Test
+    void testInvalidate_DropsCachedCopy() {
+        // Arrange
+        S3LocalFileCache cache = new S3LocalFileCache(s3Client, true, tempDir.resolve("cache").toString(), 1, 60);
+        upload("ENPM613/syllabus.pdf", "syllabus v1".getBytes());
+        S3LocalFileCache.CachedObject cached = cache.fetch(BUCKET, "ENPM613/syllabus.pdf");
+        cached.close();
+
+        // Act
+        cache.invalidate(BUCKET, "ENPM613/syllabus.pdf");
+
+        // Assert
+        assertEquals(0, cache.size());
+        assertFalse(Files.exists(cached.file()));
+    }
+
+    @Test
+    void testFetch_EvictsLeastRecentlyUsedObjects() {
+        // Arrange
+        S3LocalFileCache cache = new S3LocalFileCache(s3Client, true, tempDir.resolve("cache").toString(), 1, 60);
+        byte[] halfMegabyte = new byte[512 * 1024];
+        upload("a.pdf", halfMegabyte);
+        upload("b.pdf", halfMegabyte);
+        upload("c.pdf", halfMegabyte);
+
+        // Act
+        S3LocalFileCache.CachedObject a = cache.fetch(BUCKET, "a.pdf");
+        S3LocalFileCache.CachedObject b = cache.fetch(BUCKET, "b.pdf");
+        a.close();
+        b.close();
+        cache.fetch(BUCKET, "a.pdf").close();
+        cache.fetch(BUCKET, "c.pdf").close();
+
+        // Assert
+        assertEquals(2, cache.size());
+        assertTrue(Files.exists(a.file()));
+        assertFalse(Files.exists(b.file()));
+    }
+
+    @Test
+    void testFetch_ReturnsNullWhenDisabled() {
+        // Arrange
+        S3LocalFileCache cache = new S3LocalFileCache(s3Client, false, tempDir.resolve("cache").toString(), 1, 60);
+        upload("ENPM613/syllabus.pdf", "syllabus v1".getBytes());
+
+        // Act & Assert
+        assertNull(cache.fetch(BUCKET, "ENPM613/syllabus.pdf"));
+        verify(s3Client, never()).getObject(BUCKET, "ENPM613/syllabus.pdf");
+    }
+
+    @Test
+    void testFetch_KeepsEvictedFileUntilReaderCloses() throws Exception {
+        // Arrange
+        S3LocalFileCache cache = new S3LocalFileCache(s3Client, true, tempDir.resolve("cache").toString(), 1, 60);
+        byte[] halfMegabyte = new byte[512 * 1024];
+        upload("a.pdf", halfMegabyte);
+        upload("b.pdf", halfMegabyte);
+        upload("c.pdf", halfMegabyte);
+        S3LocalFileCache.CachedObject a = cache.fetch(BUCKET, "a.pdf");
+
+        // Act
+        cache.fetch(BUCKET, "b.pdf").close();
+        cache.fetch(BUCKET, "c.pdf").close();
+        cache.invalidate(BUCKET, "a.pdf");
+
+        // Assert
+        assertTrue(Files.exists(a.file()));
+        try (InputStream content = a.openStream(0, halfMegabyte.length)) {
+            assertEquals(halfMegabyte.length, content.readAllBytes().length);
+        }
+        assertFalse(Files.exists(a.file()));
+    }
+
+    @Test
+    void testFetch_ConcurrentMissesDownloadOnce() throws Exception {
+        // Arrange
+        S3LocalFileCache cache = new S3LocalFileCache(s3Client, true, tempDir.resolve("cache").toString(), 1, 60);
+        upload("ENPM613/syllabus.pdf", "syllabus v1".getBytes());
+        CountDownLatch downloading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            downloading.countDown();
+            release.await();
+            return invocation.callRealMethod();
+        }).when(s3Client).getObject(BUCKET, "ENPM613/syllabus.pdf");
+        ExecutorService readers = Executors.newFixedThreadPool(2);
+
+        try {
+            // Act
+            Future<S3LocalFileCache.CachedObject> first = readers.submit(() -> cache.fetch(BUCKET, "ENPM613/syllabus.pdf"));
+            downloading.await();
+            Future<S3LocalFileCache.CachedObject> second = readers.submit(() -> cache.fetch(BUCKET, "ENPM613/syllabus.pdf"));
+            //Gives the second reader the time to join the download in progress
+            Thread.sleep(100);
+            release.countDown();
+
+            // Assert
+            assertEquals(first.get(5, TimeUnit.SECONDS).file(), second.get(5, TimeUnit.SECONDS).file());
+            verify(s3Client, times(1)).getObject(BUCKET, "ENPM613/syllabus.pdf");
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.software.upskilled.utils;
+
+import com.software.upskilled.Entity.Users;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBlackListServiceTest
+{
+    private JWTUtil jwtUtil;
+    private InMemoryTokenRevocationStore revocationStore;
+    private SimpleMeterRegistry meterRegistry;
+    private TokenBlackListService tokenBlackListService;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JWTUtil(100);
+        jwtUtil.setSecret(Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes()));
+        revocationStore = new InMemoryTokenRevocationStore();
+        meterRegistry = new SimpleMeterRegistry();
+        tokenBlackListService = new TokenBlackListService(jwtUtil, revocationStore, meterRegistry);
+
+        Users user = new Users();
+        user.setEmail("johnsmith@upskilled.com");
+        user.setRole("EMPLOYEE");
+        user.setStatus(Users.Status.ACTIVE);
+        token = jwtUtil.generateToken(user);
+    }
+
+    @Test
+    void testBlacklistToken_StoresFingerprintOnly() {
+        // Act
+        tokenBlackListService.blacklistToken(token);
+
+        // Assert
+        assertTrue(tokenBlackListService.isTokenBlacklisted(token));
+        assertTrue(tokenBlackListService.isTokenBlacklisted(jwtUtil.verifyAndDecode(token)));
+        assertTrue(revocationStore.isRevoked(jwtUtil.fingerprint(token)));
+        assertEquals(1.0, meterRegistry.get("security.token.revocations").gauge().value());
+    }
+
+    @Test
+    void testBlacklistToken_IgnoresInvalidToken() {
+        // Act
+        tokenBlackListService.blacklistToken("not-a-jwt");
+
+        // Assert
+        assertEquals(0, revocationStore.size());
+    }
+
+    @Test
+    void testSweepExpiredTokens_DropsExpiredRevocations() {
+        // Arrange
+        revocationStore.revoke("expired", System.currentTimeMillis() - 1000);
+        tokenBlackListService.blacklistToken(token);
+
+        // Act
+        tokenBlackListService.sweepExpiredTokens();
+
+        // Assert
+        assertFalse(revocationStore.isRevoked("expired"));
+        assertTrue(tokenBlackListService.isTokenBlacklisted(token));
+        assertEquals(1.0, meterRegistry.get("security.token.revocations.evicted").functionCounter().count());
+    }
+}